@@ -0,0 +1,336 @@
+import java.util.Arrays;
+import java.util.Random;
+
+import components.array.Array;
+import components.array.Array1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Repeatable benchmark and validation harness for the heap methods of
+ * {@code ArraySiftDownMain}. For each heap size and distribution of entries
+ * it times three operations on an {@code Array<Integer>}, counting the
+ * comparisons of entries they make:
+ * <ul>
+ * <li>{@code heapify}: bottom-up heap construction by {@code siftDown};</li>
+ * <li>{@code buildHeap}: top-down heap construction, adding the entries one
+ * at a time and sifting each up;</li>
+ * <li>{@code siftDown}: replacing the root of a heap with each entry in turn
+ * and sifting it down.</li>
+ * </ul>
+ * After each operation, and only then, the result is checked with
+ * {@code isHeap}, and the junk entries past the end of the heap are checked
+ * to be untouched. Entries come from a {@code java.util.Random} with a fixed
+ * seed, so every run sees the same arrays.
+ *
+ * <p>
+ * Usage:
+ * {@code ArraySiftDownBenchmark [size[,size...]] [distribution[,...]] [seed]},
+ * where each {@code size} is a heap size (default 1,000, 100,000 and
+ * 1,000,000) and each {@code distribution} is "random" (uniform in
+ * [0, size), as in {@code ArraySiftDownMain}), "sorted", "reversed", or
+ * "few" (only a handful of distinct values); the default is all of them.
+ * Results are printed as tab-separated lines: operation, distribution, size,
+ * best ms of several rounds, ns per entry, comparisons per entry, and "ok"
+ * or "FAILED" for the validation. Run without {@code -ea}, or the
+ * assertions in {@code siftDown}, which check the whole array on every call,
+ * are timed too.
+ *
+ * @author Put your name here
+ */
+public final class ArraySiftDownBenchmark {
+
+    /**
+     * Default heap sizes.
+     */
+    private static final int[] DEFAULT_SIZES = { 1000, 100000, 1000000 };
+
+    /**
+     * Default distributions.
+     */
+    private static final String[] DEFAULT_DISTRIBUTIONS = { "random",
+            "sorted", "reversed", "few" };
+
+    /**
+     * Usage message, printed with an unknown distribution name.
+     */
+    private static final String USAGE = "Usage: ArraySiftDownBenchmark"
+            + " [size[,size...]] [distribution[,...]] [seed], where each"
+            + " distribution is one of "
+            + Arrays.toString(DEFAULT_DISTRIBUTIONS);
+
+    /**
+     * Default seed.
+     */
+    private static final long DEFAULT_SEED = 2231;
+
+    /**
+     * Number of distinct values in the "few" distribution.
+     */
+    private static final int FEW_VALUES = 4;
+
+    /**
+     * Number of measured rounds per line.
+     */
+    private static final int ROUNDS = 5;
+
+    /**
+     * Value of the junk entries past the end of the heap.
+     */
+    private static final int JUNK = -1;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Number of comparisons of entries made by {@code siftUp}.
+     */
+    private static long siftUpComparisons = 0;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ArraySiftDownBenchmark() {
+    }
+
+    /**
+     * Returns {@code size} entries of the named distribution.
+     *
+     * @param distribution
+     *            "random", "sorted", "reversed", or "few"
+     * @param size
+     *            the number of entries
+     * @param seed
+     *            the seed for random entries
+     * @return the entries
+     * @requires distribution is in DEFAULT_DISTRIBUTIONS
+     */
+    private static int[] entries(String distribution, int size, long seed) {
+        Random rnd = new Random(seed);
+        int[] a = new int[size];
+        for (int i = 0; i < size; i++) {
+            if (distribution.equals("sorted")) {
+                a[i] = i;
+            } else if (distribution.equals("reversed")) {
+                a[i] = size - 1 - i;
+            } else if (distribution.equals("few")) {
+                a[i] = rnd.nextInt(FEW_VALUES);
+            } else {
+                a[i] = rnd.nextInt(size);
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Returns an {@code Array} with {@code entries} followed by
+     * {@code ArraySiftDownMain.JUNK_SIZE} junk entries.
+     *
+     * @param entries
+     *            the entries
+     * @return the new {@code Array}
+     * @ensures <pre>
+     * |newArray.entries| = |entries| + ArraySiftDownMain.JUNK_SIZE  and
+     * [newArray starts with entries, and every other entry is JUNK]
+     * </pre>
+     */
+    private static Array<Integer> newArray(int[] entries) {
+        Array<Integer> array = new Array1L<Integer>(
+                entries.length + ArraySiftDownMain.JUNK_SIZE);
+        for (int i = 0; i < entries.length; i++) {
+            array.setEntry(i, entries[i]);
+        }
+        for (int i = entries.length; i < array.length(); i++) {
+            array.setEntry(i, JUNK);
+        }
+        return array;
+    }
+
+    /**
+     * Given an {@code Array} whose entries through {@code bottom - 1} are a
+     * heap, sifts the entry at {@code bottom} up to make its entries through
+     * {@code bottom} a heap.
+     *
+     * @param array
+     *            the complete binary tree
+     * @param bottom
+     *            the index of the entry to sift up
+     * @updates array.entries
+     * @requires <pre>
+     * 0 <= bottom < |array.entries|  and
+     * SUBTREE_IS_HEAP(array, 0, bottom - 1, <=)
+     * </pre>
+     * @ensures <pre>
+     * SUBTREE_IS_HEAP(array, 0, bottom, <=)  and
+     * perms(array.entries, #array.entries)  and
+     * [the entries after bottom are the same as in #array.entries]
+     * </pre>
+     */
+    private static void siftUp(Array<Integer> array, int bottom) {
+        int child = bottom;
+        boolean done = false;
+        while (child > 0 && !done) {
+            int parent = (child - 1) / 2;
+            siftUpComparisons++;
+            if (array.entry(parent) <= array.entry(child)) {
+                done = true;
+            } else {
+                array.exchangeEntries(parent, child);
+                child = parent;
+            }
+        }
+    }
+
+    /**
+     * Runs one operation once on a fresh {@code Array} of {@code entries}
+     * and returns the elapsed time; {@code result} is replaced by the
+     * {@code Array} afterwards, for validation.
+     *
+     * @param operation
+     *            "heapify", "buildHeap", or "siftDown"
+     * @param entries
+     *            the entries
+     * @param result
+     *            the {@code Array} after the operation
+     * @return the elapsed nanoseconds
+     * @replaces result
+     */
+    private static long runOnce(String operation, int[] entries,
+            Array<Integer> result) {
+        int last = entries.length - 1;
+        Array<Integer> array = newArray(entries);
+        if (operation.equals("siftDown")) {
+            ArraySiftDownMain.heapify(array, last);
+        }
+        ArraySiftDownMain.resetComparisons();
+        siftUpComparisons = 0;
+        long start = System.nanoTime();
+        if (operation.equals("heapify")) {
+            ArraySiftDownMain.heapify(array, last);
+        } else if (operation.equals("buildHeap")) {
+            for (int i = 1; i <= last; i++) {
+                siftUp(array, i);
+            }
+        } else if (last >= 0) {
+            for (int x : entries) {
+                array.setEntry(0, x);
+                ArraySiftDownMain.siftDown(array, 0, last);
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        result.transferFrom(array);
+        return nanos;
+    }
+
+    /**
+     * Reports whether {@code array} holds a heap of {@code size} entries
+     * followed by untouched junk.
+     *
+     * @param array
+     *            the {@code Array}
+     * @param size
+     *            the number of entries in the heap
+     * @return true iff the validation passes
+     */
+    private static boolean isValid(Array<Integer> array, int size) {
+        boolean valid = size == 0
+                || ArraySiftDownMain.isHeap(array, 0, size - 1);
+        for (int i = size; i < array.length() && valid; i++) {
+            valid = array.entry(i) == JUNK;
+        }
+        return valid;
+    }
+
+    /**
+     * Times one operation on one input, validates it, and outputs the best
+     * of {@code ROUNDS} rounds.
+     *
+     * @param out
+     *            the output stream
+     * @param operation
+     *            "heapify", "buildHeap", or "siftDown"
+     * @param distribution
+     *            the name of the distribution of entries
+     * @param entries
+     *            the entries
+     * @updates out.content
+     * @requires out.is_open
+     */
+    private static void time(SimpleWriter out, String operation,
+            String distribution, int[] entries) {
+        Array<Integer> result = new Array1L<Integer>();
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            System.gc();
+            best = Math.min(best, runOnce(operation, entries, result));
+        }
+        long compares = ArraySiftDownMain.comparisons() + siftUpComparisons;
+        int perEntry = Math.max(1, entries.length);
+        String status = "FAILED";
+        if (isValid(result, entries.length)) {
+            status = "ok";
+        }
+        out.println(operation + "\t" + distribution + "\t" + entries.length
+                + "\t" + String.format("%.2f", best / NANOS_PER_MILLI) + "\t"
+                + String.format("%.1f", (double) best / perEntry) + "\t"
+                + String.format("%.2f", (double) compares / perEntry) + "\t"
+                + status);
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments:
+     *            [size[,size...]] [distribution[,...]] [seed]
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int[] sizes = DEFAULT_SIZES;
+        String[] distributions = DEFAULT_DISTRIBUTIONS;
+        long seed = DEFAULT_SEED;
+        if (args.length > 0) {
+            String[] parts = args[0].split(",");
+            sizes = new int[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                sizes[i] = Integer.parseInt(parts[i]);
+            }
+        }
+        if (args.length > 1) {
+            distributions = args[1].split(",");
+            for (String distribution : distributions) {
+                if (!Arrays.asList(DEFAULT_DISTRIBUTIONS)
+                        .contains(distribution)) {
+                    out.close();
+                    throw new IllegalArgumentException("Unknown distribution: "
+                            + distribution + "\n" + USAGE);
+                }
+            }
+        }
+        if (args.length > 2) {
+            seed = Long.parseLong(args[2]);
+        }
+        String[] operations = { "heapify", "buildHeap", "siftDown" };
+        out.println("operation\tdistribution\tsize\tms\tns/entry"
+                + "\tcompares/entry\tvalid");
+        /*
+         * First pass warms up the JIT; only the rest are meaningful
+         */
+        int[] warmup = entries("random", sizes[0], seed);
+        for (String operation : operations) {
+            runOnce(operation, warmup, new Array1L<Integer>());
+        }
+        for (int size : sizes) {
+            for (String distribution : distributions) {
+                int[] entries = entries(distribution, size, seed);
+                for (String operation : operations) {
+                    time(out, operation, distribution, entries);
+                }
+            }
+        }
+        out.close();
+    }
+
+}
@@ -8,7 +8,9 @@ import components.simplewriter.SimpleWriter;
 import components.simplewriter.SimpleWriter1L;
 
 /**
- * Program to test the {@code siftDown} on {@code Array<Integer>}.
+ * Program to test the {@code siftDown} on {@code Array<Integer>}. The heap
+ * methods count the comparisons of entries they make, so that
+ * {@code ArraySiftDownBenchmark} can report them.
  *
  * @mathdefinitions <pre>
  * SUBTREE_IS_HEAP (
@@ -45,7 +47,45 @@ public final class ArraySiftDownMain {
     /**
      * Number of junk entries at the end of the array.
      */
-    private static final int JUNK_SIZE = 5;
+    static final int JUNK_SIZE = 5;
+
+    /**
+     * Number of comparisons of entries made by {@code siftDown} since the
+     * last call to {@code resetComparisons}.
+     */
+    private static long comparisons = 0;
+
+    /**
+     * Reports whether {@code x <= y}, counting the comparison.
+     *
+     * @param x
+     *            the first entry
+     * @param y
+     *            the second entry
+     * @return true iff x <= y
+     * @ensures inOrder = (x <= y)
+     */
+    private static boolean inOrder(int x, int y) {
+        comparisons++;
+        return x <= y;
+    }
+
+    /**
+     * Reports the number of comparisons of entries made by {@code siftDown}
+     * since the last call to {@code resetComparisons}.
+     *
+     * @return the number of comparisons
+     */
+    static long comparisons() {
+        return comparisons;
+    }
+
+    /**
+     * Resets the count of comparisons of entries to zero.
+     */
+    static void resetComparisons() {
+        comparisons = 0;
+    }
 
     /**
      * Checks if the subtree of the given {@code Array} rooted at the given
@@ -66,7 +106,7 @@ public final class ArraySiftDownMain {
      * </pre>
      * @ensures isHeap = SUBTREE_IS_HEAP(heap, top, last, <=)
      */
-    private static boolean isHeap(Array<Integer> array, int top, int last) {
+    static boolean isHeap(Array<Integer> array, int top, int last) {
         assert array != null : "Violation of: array is not null";
         assert 0 <= top : "Violation of: 0 <= top";
         assert last < array.length() : "Violation of: last < |array.entries|";
@@ -119,7 +159,7 @@ public final class ArraySiftDownMain {
      * [the other entries in array.entries are the same as in #array.entries]
      * </pre>
      */
-    private static void siftDown(Array<Integer> array, int top, int last) {
+    static void siftDown(Array<Integer> array, int top, int last) {
         assert array != null : "Violation of: array is not null";
         assert 0 <= top : "Violation of: 0 <= top";
         assert last < array.length() : "Violation of: last < |array.entries|";
@@ -141,21 +181,57 @@ public final class ArraySiftDownMain {
         if (last >= leftPos && last >= rightPos) {
             int left = array.entry(leftPos);
             int right = array.entry(rightPos);
-            if (left <= right && root > left) {
+            if (inOrder(left, right) && !inOrder(root, left)) {
                 array.exchangeEntries(top, leftPos);
                 siftDown(array, leftPos, last);
-            } else if (right <= left && root > right) {
+            } else if (inOrder(right, left) && !inOrder(root, right)) {
                 array.exchangeEntries(top, rightPos);
                 siftDown(array, rightPos, last);
             }
         } else if (last >= leftPos) {
-            if (array.entry(top) > array.entry(2 * top + 1)) {
+            if (!inOrder(array.entry(top), array.entry(2 * top + 1))) {
                 array.exchangeEntries(top, leftPos);
             }
         }
 
     }
 
+    /**
+     * Turns the first {@code last + 1} entries of the given {@code Array}
+     * into a heap, by calling {@code siftDown} on each of them that is not a
+     * leaf, from the last to the root (this is an iterative implementation
+     * of heapify).
+     *
+     * @param array
+     *            the complete binary tree
+     * @param last
+     *            the index of the last entry in the heap
+     * @updates array.entries
+     * @requires <pre>
+     * -1 <= last < |array.entries|  and
+     * |array.examinableIndices| = |array.entries|
+     * </pre>
+     * @ensures <pre>
+     * SUBTREE_IS_HEAP(array, 0, last, <=)  and
+     * perms(array.entries, #array.entries)  and
+     * SUBTREE_ARRAY_ENTRIES(array, 0, last) =
+     *  SUBTREE_ARRAY_ENTRIES(#array, 0, last)  and
+     * [the other entries in array.entries are the same as in #array.entries]
+     * </pre>
+     */
+    static void heapify(Array<Integer> array, int last) {
+        assert array != null : "Violation of: array is not null";
+        assert -1 <= last : "Violation of: -1 <= last";
+        assert last < array.length() : "Violation of: last < |array.entries|";
+        /*
+         * Entries after the parent of the last one are leaves, which are
+         * heaps already
+         */
+        for (int i = (last - 1) / 2; i >= 0; i--) {
+            siftDown(array, i, last);
+        }
+    }
+
     /**
      * Main method.
      *
@@ -197,12 +273,9 @@ public final class ArraySiftDownMain {
          */
         out.println("Initial array:   " + array);
         /*
-         * Heapify array by repeatedly calling siftDown (this is an iterative
-         * implementation of heapify)
+         * Heapify array by repeatedly calling siftDown
          */
-        for (int i = heapSize - 2; i >= 0; i--) {
-            siftDown(array, i, heapSize - 1);
-        }
+        heapify(array, heapSize - 1);
         /*
          * Make sure array is now a heap
          */
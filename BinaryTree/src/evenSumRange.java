@@ -1,7 +1,22 @@
-import java.io.File;
+import java.io.BufferedReader;
+import java.io.FileReader;
 import java.io.IOException;
-import java.util.Scanner;
+import java.io.PrintWriter;
+import java.io.StreamTokenizer;
+import java.util.Arrays;
 
+/**
+ * Program that reads integers from the file named by {@code args[0]} and,
+ * for each range [min, max] in the file named by {@code args[1]}, reports
+ * whether the sum of the integers in that range is even or odd.
+ *
+ * <p>
+ * The integers are sorted and put into a perfectly balanced binary search
+ * tree whose nodes also store the sum of their subtrees, so each query walks
+ * two root-to-leaf paths of O(log n) nodes, however many integers fall in
+ * the range. Queries are read and answered one at a time as the range file
+ * is streamed, and the answers are written through a buffer.
+ */
 public class evenSumRange {
 
     /**
@@ -26,77 +41,184 @@ public class evenSumRange {
          */
         Node right;
 
+        /**
+         * Sum of the data in the subtree rooted at this node.
+         */
+        long sum;
+
         Node(int value) {
             this.value = value;
             this.right = null;
             this.left = null;
+            this.sum = value;
         }
     }
 
+    /**
+     * Initial capacity of the array the integers are read into.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
     Node root;
 
     /**
-     * No argument constructor.
+     * Constructor from the integers to be queried.
+     *
+     * @param sorted
+     *            the integers, in increasing order
      */
-    private evenSumRange() {
+    private evenSumRange(int[] sorted) {
+        this.root = this.build(sorted, 0, sorted.length);
     }
 
-    private Node insertNode(Node root, int value) {
-        if (root == null) {
-            root = new Node(value);
-        } else if (value <= root.value) {
-            root.left = this.insertNode(root.left, value);
-        } else if (value > root.value) {
-            root.right = this.insertNode(root.right, value);
+    /**
+     * Returns the sum of the data in the subtree rooted at {@code n}.
+     *
+     * @param n
+     *            the root of the subtree, or null
+     * @return the sum (0 if the subtree is empty)
+     */
+    private static long sum(Node n) {
+        long sum = 0;
+        if (n != null) {
+            sum = n.sum;
         }
-        return root;
+        return sum;
     }
 
-    public void insert(int value) {
-        this.root = this.insertNode(this.root, value);
+    /**
+     * Builds a perfectly balanced binary search tree of
+     * {@code sorted[lo, hi)} and returns its root.
+     *
+     * @param sorted
+     *            the integers, in increasing order
+     * @param lo
+     *            the start of the range
+     * @param hi
+     *            the end of the range (exclusive)
+     * @return the root of the tree, or null if the range is empty
+     */
+    private Node build(int[] sorted, int lo, int hi) {
+        Node n = null;
+        if (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            n = new Node(sorted[mid]);
+            n.left = this.build(sorted, lo, mid);
+            n.right = this.build(sorted, mid + 1, hi);
+            n.sum += sum(n.left) + sum(n.right);
+        }
+        return n;
     }
 
-    public boolean btreeEvenSumRange(int min, int max, Node root) {
-        boolean even = true;
-        if (root != null) {
-            if (min <= root.value) {
-                even = (even == this.btreeEvenSumRange(min, max, root.left));
-            }
-            if (min <= root.value && max >= root.value) {
-                if (root.value % 2 == 0) {
-                    even = (even == true);
-                } else {
-                    even = (even == false);
-                }
-            }
-            if (max >= root.value) {
-                even = (even == this.btreeEvenSumRange(min, max, root.right));
+    /**
+     * Returns the sum of the data in the tree smaller than {@code bound}, or
+     * no larger than {@code bound} if {@code inclusive}.
+     *
+     * @param bound
+     *            the bound
+     * @param inclusive
+     *            whether data equal to bound are included
+     * @return the sum of the data below bound
+     */
+    private long sumBelow(int bound, boolean inclusive) {
+        long total = 0;
+        Node n = this.root;
+        while (n != null) {
+            if (n.value < bound || (inclusive && n.value == bound)) {
+                total += sum(n.left) + n.value;
+                n = n.right;
+            } else {
+                n = n.left;
             }
         }
+        return total;
+    }
+
+    /**
+     * Reports whether the sum of the data in the tree between {@code min}
+     * and {@code max}, both included, is even.
+     *
+     * @param min
+     *            the lower bound
+     * @param max
+     *            the upper bound
+     * @return true if the sum is even (in particular if min > max)
+     */
+    public boolean btreeEvenSumRange(int min, int max) {
+        boolean even = true;
+        if (min <= max) {
+            long sum = this.sumBelow(max, true) - this.sumBelow(min, false);
+            even = sum % 2 == 0;
+        }
         return even;
     }
 
-    public static void main(String[] args) throws IOException {
-        File dataX = new File(args[0]);
-        File rangeX = new File(args[1]);
-        Scanner dt = new Scanner(dataX);
-        Scanner rg = new Scanner(rangeX);
-        evenSumRange bst = new evenSumRange();
-        while (dt.hasNextLine()) {
-            int dataTemp = Integer.parseInt(dt.nextLine());
-            bst.insert(dataTemp);
+    /**
+     * Returns the integers in {@code in}, one per line, in increasing order.
+     *
+     * @param in
+     *            the input
+     * @return the integers, sorted
+     * @throws IOException
+     *             if in cannot be read
+     */
+    private static int[] readSorted(BufferedReader in) throws IOException {
+        int[] data = new int[INITIAL_CAPACITY];
+        int count = 0;
+        String line = in.readLine();
+        while (line != null) {
+            if (count == data.length) {
+                data = Arrays.copyOf(data, 2 * count);
+            }
+            data[count] = Integer.parseInt(line.trim());
+            count++;
+            line = in.readLine();
         }
-        while (rg.hasNext()) {
-            int min = Integer.parseInt(rg.next());
-            int max = Integer.parseInt(rg.next());
-            boolean even = bst.btreeEvenSumRange(min, max, bst.root);
-            if (even) {
-                System.out.println("Range [" + min + "," + max + "]: even sum");
+        int[] sorted = Arrays.copyOf(data, count);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Returns the number in the current token of {@code ranges}.
+     *
+     * @param ranges
+     *            the range file tokenizer
+     * @param name
+     *            the name of the bound being read, for the error message
+     * @return the number, as an int
+     * @throws IOException
+     *             if the current token is not a number that is an int
+     */
+    private static int bound(StreamTokenizer ranges, String name)
+            throws IOException {
+        if (ranges.ttype != StreamTokenizer.TT_NUMBER
+                || ranges.nval != (int) ranges.nval) {
+            throw new IOException("Expected " + name + " of range, found "
+                    + ranges);
+        }
+        return (int) ranges.nval;
+    }
+
+    public static void main(String[] args) throws IOException {
+        BufferedReader dt = new BufferedReader(new FileReader(args[0]));
+        evenSumRange bst = new evenSumRange(readSorted(dt));
+        dt.close();
+        BufferedReader rg = new BufferedReader(new FileReader(args[1]));
+        StreamTokenizer ranges = new StreamTokenizer(rg);
+        PrintWriter out = new PrintWriter(System.out);
+        while (ranges.nextToken() != StreamTokenizer.TT_EOF) {
+            int min = bound(ranges, "min");
+            ranges.nextToken();
+            int max = bound(ranges, "max");
+            if (bst.btreeEvenSumRange(min, max)) {
+                out.println("Range [" + min + "," + max + "]: even sum");
             } else {
-                System.out.println("Range [" + min + "," + max + "]: odd sum");
+                out.println("Range [" + min + "," + max + "]: odd sum");
             }
         }
-
+        out.flush();
+        rg.close();
     }
 
 }
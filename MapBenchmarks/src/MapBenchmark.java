@@ -0,0 +1,392 @@
+import java.util.Arrays;
+import java.util.Random;
+
+import components.map.Map;
+import components.map.Map.Pair;
+import components.map.Map1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to time the kernel operations and iteration of the {@code Map}
+ * implementations in this workspace ({@code Map2}, {@code Map4},
+ * {@code Map5}), the library's {@code Map1L}, and {@code java.util.HashMap}
+ * (through {@code MapJCF}).
+ *
+ * <p>
+ * Usage: {@code MapBenchmark [name=value ...]}, where the optional settings
+ * are (defaults in parentheses):
+ * <ul>
+ * <li>{@code impls}: comma-separated implementations to run
+ * ({@code Map2,Map4,Map5,Map1L,MapJCF})</li>
+ * <li>{@code sizes}: comma-separated numbers of entries (100,1000,10000)</li>
+ * <li>{@code keys}: comma-separated key types, {@code Integer} and/or
+ * {@code String} ({@code Integer,String})</li>
+ * <li>{@code tables}: comma-separated hash table sizes, used by {@code Map4}
+ * as its initial bucket count and by {@code MapJCF} as its initial capacity;
+ * other implementations run once and report "-" (101,1009)</li>
+ * <li>{@code rounds}: measured rounds per configuration (5)</li>
+ * <li>{@code warmup}: unmeasured rounds run first (2)</li>
+ * <li>{@code out}: file to write the results to (standard output)</li>
+ * </ul>
+ *
+ * <p>
+ * Each round builds a fresh map by {@code add}ing every key in random order,
+ * then times {@code hasKey}, {@code value}, iteration, and {@code remove} of
+ * every key (in a second random order), and, after rebuilding the map,
+ * draining it with {@code removeAny}. Results are printed as comma-separated
+ * lines, one per configuration and operation, with a header line: impl,
+ * keys, table, size, op, rounds, minimum and mean nanoseconds per operation.
+ * Run without {@code -ea}, or the precondition checks are timed too.
+ *
+ * @author Put your name here
+ */
+public final class MapBenchmark {
+
+    /**
+     * Default implementations.
+     */
+    private static final String DEFAULT_IMPLS = "Map2,Map4,Map5,Map1L,MapJCF";
+
+    /**
+     * Default numbers of entries.
+     */
+    private static final String DEFAULT_SIZES = "100,1000,10000";
+
+    /**
+     * Default key types.
+     */
+    private static final String DEFAULT_KEYS = "Integer,String";
+
+    /**
+     * Default hash table sizes.
+     */
+    private static final String DEFAULT_TABLES = "101,1009";
+
+    /**
+     * Default number of measured rounds.
+     */
+    private static final int DEFAULT_ROUNDS = 5;
+
+    /**
+     * Default number of warmup rounds.
+     */
+    private static final int DEFAULT_WARMUP = 2;
+
+    /**
+     * Seed for the key orders, so every run times the same sequence.
+     */
+    private static final long SEED = 2231;
+
+    /**
+     * Operations timed in each round, in the order they are run.
+     */
+    private static final String[] OPERATIONS = { "add", "hasKey", "value",
+        "iterate", "remove", "removeAny" };
+
+    /**
+     * Marker reported as the table size of implementations without one.
+     */
+    private static final String NO_TABLE = "-";
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private MapBenchmark() {
+    }
+
+    /**
+     * Returns the value of setting {@code name} in {@code args}, or
+     * {@code otherwise} if it is not there.
+     *
+     * @param args
+     *            the command line arguments, each of the form name=value
+     * @param name
+     *            the name of the setting
+     * @param otherwise
+     *            the default value
+     * @return the value of the setting
+     */
+    private static String setting(String[] args, String name,
+            String otherwise) {
+        String result = otherwise;
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) {
+                result = arg.substring(name.length() + 1);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reports whether implementation {@code impl} takes a hash table size.
+     *
+     * @param impl
+     *            the name of the implementation
+     * @return true iff impl is sized by the tables setting
+     */
+    private static boolean usesTable(String impl) {
+        return impl.equals("Map4") || impl.equals("MapJCF");
+    }
+
+    /**
+     * Returns a new, empty map of implementation {@code impl}.
+     *
+     * @param <K>
+     *            type of the keys
+     * @param impl
+     *            the name of the implementation
+     * @param table
+     *            the hash table size, if {@code impl} takes one
+     * @return the new map
+     * @requires table > 0
+     */
+    private static <K> Map<K, Integer> newMap(String impl, int table) {
+        Map<K, Integer> result;
+        if (impl.equals("Map2")) {
+            result = new Map2<K, Integer>();
+        } else if (impl.equals("Map4")) {
+            result = new Map4<K, Integer>(table);
+        } else if (impl.equals("Map5")) {
+            result = new Map5<K, Integer>();
+        } else if (impl.equals("Map1L")) {
+            result = new Map1L<K, Integer>();
+        } else if (impl.equals("MapJCF")) {
+            result = new MapJCF<K, Integer>(table);
+        } else {
+            throw new IllegalArgumentException("Unknown implementation: "
+                    + impl);
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@code size} distinct keys of type {@code keyType}, in random
+     * order.
+     *
+     * @param keyType
+     *            "Integer" or "String"
+     * @param size
+     *            the number of keys
+     * @param rnd
+     *            the source of randomness
+     * @return the keys
+     * @requires size >= 0
+     */
+    private static Object[] keys(String keyType, int size, Random rnd) {
+        Object[] result = new Object[size];
+        for (int i = 0; i < size; i++) {
+            if (keyType.equals("Integer")) {
+                result[i] = i;
+            } else if (keyType.equals("String")) {
+                result[i] = "key" + i;
+            } else {
+                throw new IllegalArgumentException("Unknown key type: "
+                        + keyType);
+            }
+        }
+        shuffle(result, rnd);
+        return result;
+    }
+
+    /**
+     * Randomly permutes {@code a}.
+     *
+     * @param a
+     *            the array to permute
+     * @param rnd
+     *            the source of randomness
+     * @updates a
+     * @ensures perms(a, #a)
+     */
+    private static void shuffle(Object[] a, Random rnd) {
+        for (int i = a.length - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            Object tmp = a[i];
+            a[i] = a[j];
+            a[j] = tmp;
+        }
+    }
+
+    /**
+     * Runs one round of every operation on a fresh map and adds the time each
+     * one took to {@code total}, and keeps the smallest in {@code best}.
+     *
+     * @param <K>
+     *            type of the keys
+     * @param impl
+     *            the name of the implementation
+     * @param table
+     *            the hash table size, if {@code impl} takes one
+     * @param inserts
+     *            the keys, in the order they are added
+     * @param lookups
+     *            the same keys, in the order they are looked up and removed
+     * @param total
+     *            running total time of each operation, in nanoseconds
+     * @param best
+     *            smallest time of each operation so far, in nanoseconds
+     * @updates total, best
+     * @requires <pre>
+     * table > 0  and  perms(inserts, lookups)  and
+     * |total| = |best| = |OPERATIONS|
+     * </pre>
+     */
+    private static <K> void round(String impl, int table, K[] inserts,
+            K[] lookups, long[] total, long[] best) {
+        Map<K, Integer> m = newMap(impl, table);
+        long[] elapsed = new long[OPERATIONS.length];
+        long checksum = 0;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < inserts.length; i++) {
+            m.add(inserts[i], i);
+        }
+        elapsed[0] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (K key : lookups) {
+            if (m.hasKey(key)) {
+                checksum++;
+            }
+        }
+        elapsed[1] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (K key : lookups) {
+            checksum += m.value(key);
+        }
+        elapsed[2] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (Pair<K, Integer> p : m) {
+            checksum -= p.value();
+        }
+        elapsed[3] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (K key : lookups) {
+            m.remove(key);
+        }
+        elapsed[4] = System.nanoTime() - start;
+
+        for (int i = 0; i < inserts.length; i++) {
+            m.add(inserts[i], i);
+        }
+        start = System.nanoTime();
+        while (m.size() > 0) {
+            m.removeAny();
+        }
+        elapsed[5] = System.nanoTime() - start;
+
+        /*
+         * Use the checksum so the loops cannot be optimized away
+         */
+        if (checksum != inserts.length) {
+            throw new IllegalStateException(impl + " returned wrong values");
+        }
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            total[i] += elapsed[i];
+            best[i] = Math.min(best[i], elapsed[i]);
+        }
+    }
+
+    /**
+     * Times one configuration and outputs its result lines.
+     *
+     * @param out
+     *            the output stream
+     * @param impl
+     *            the name of the implementation
+     * @param keyType
+     *            "Integer" or "String"
+     * @param table
+     *            the hash table size, or 0 if {@code impl} takes none
+     * @param size
+     *            the number of entries
+     * @param warmup
+     *            the number of unmeasured rounds
+     * @param rounds
+     *            the number of measured rounds
+     * @updates out.content
+     * @requires out.is_open and table >= 0 and size > 0 and warmup >= 0 and
+     *           rounds > 0
+     */
+    private static void measure(SimpleWriter out, String impl,
+            String keyType, int table, int size, int warmup, int rounds) {
+        Random rnd = new Random(SEED);
+        Object[] inserts = keys(keyType, size, rnd);
+        Object[] lookups = inserts.clone();
+        shuffle(lookups, rnd);
+        int tableArg = Math.max(table, 1);
+
+        long[] total = new long[OPERATIONS.length];
+        long[] best = new long[OPERATIONS.length];
+        for (int r = 0; r < warmup; r++) {
+            round(impl, tableArg, inserts, lookups, total, best);
+        }
+        Arrays.fill(total, 0);
+        Arrays.fill(best, Long.MAX_VALUE);
+        for (int r = 0; r < rounds; r++) {
+            round(impl, tableArg, inserts, lookups, total, best);
+        }
+
+        String tableLabel = NO_TABLE;
+        if (table > 0) {
+            tableLabel = Integer.toString(table);
+        }
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            double minPerOp = (double) best[i] / size;
+            double meanPerOp = (double) total[i] / ((long) rounds * size);
+            out.println(impl + "," + keyType + "," + tableLabel + "," + size
+                    + "," + OPERATIONS[i] + "," + rounds + ","
+                    + String.format("%.1f", minPerOp) + ","
+                    + String.format("%.1f", meanPerOp));
+        }
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments, each of the form name=value
+     */
+    public static void main(String[] args) {
+        String[] impls = setting(args, "impls", DEFAULT_IMPLS).split(",");
+        String[] sizes = setting(args, "sizes", DEFAULT_SIZES).split(",");
+        String[] keyTypes = setting(args, "keys", DEFAULT_KEYS).split(",");
+        String[] tables = setting(args, "tables", DEFAULT_TABLES).split(",");
+        int rounds = Integer.parseInt(
+                setting(args, "rounds", Integer.toString(DEFAULT_ROUNDS)));
+        int warmup = Integer.parseInt(
+                setting(args, "warmup", Integer.toString(DEFAULT_WARMUP)));
+        String outName = setting(args, "out", "");
+
+        SimpleWriter out;
+        if (outName.isEmpty()) {
+            out = new SimpleWriter1L();
+        } else {
+            out = new SimpleWriter1L(outName);
+        }
+        out.println("impl,keys,table,size,op,rounds,min_ns_per_op,"
+                + "mean_ns_per_op");
+        for (String impl : impls) {
+            for (String keyType : keyTypes) {
+                for (String sizeText : sizes) {
+                    int size = Integer.parseInt(sizeText);
+                    if (usesTable(impl)) {
+                        for (String tableText : tables) {
+                            measure(out, impl, keyType,
+                                    Integer.parseInt(tableText), size, warmup,
+                                    rounds);
+                        }
+                    } else {
+                        measure(out, impl, keyType, 0, size, warmup, rounds);
+                    }
+                }
+            }
+        }
+        out.close();
+    }
+
+}
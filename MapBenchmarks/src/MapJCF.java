@@ -0,0 +1,221 @@
+import java.util.HashMap;
+import java.util.Iterator;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} represented as a {@code java.util.HashMap}, so the JCF map can
+ * be measured through the same interface as the other {@code Map}
+ * implementations.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @convention <pre>
+ * $this.map /= null  and
+ * ($this.anyCursor = null  or
+ *  [$this.anyCursor is a live iterator over $this.map.entrySet()])
+ * </pre>
+ * @correspondence this = $this.map
+ */
+public class MapJCF<K, V> extends MapSecondary<K, V> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default initial capacity of the {@code HashMap}.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Initial capacity requested for {@code map}.
+     */
+    private final int capacity;
+
+    /**
+     * Entries included in {@code this}.
+     */
+    private HashMap<K, V> map;
+
+    /**
+     * Iterator used (and advanced) by {@code removeAny}, or {@code null}. Any
+     * other change to {@code map} invalidates it, so it is dropped then.
+     * Without it, draining by {@code removeAny} would rescan the empty front
+     * of the table on every call.
+     */
+    private Iterator<java.util.Map.Entry<K, V>> anyCursor;
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.map = new HashMap<K, V>(this.capacity);
+        this.anyCursor = null;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public MapJCF() {
+        this.capacity = DEFAULT_CAPACITY;
+        this.createNewRep();
+    }
+
+    /**
+     * Constructor resulting in a map whose {@code HashMap} starts with the
+     * given capacity.
+     *
+     * @param capacity
+     *            initial capacity of the {@code HashMap}
+     * @requires capacity > 0
+     */
+    public MapJCF(int capacity) {
+        assert capacity > 0 : "Violation of: capacity > 0";
+        this.capacity = capacity;
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            return this.getClass().getConstructor(int.class)
+                    .newInstance(this.capacity);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError("Cannot construct object of type "
+                    + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof MapJCF<?, ?> : ""
+                + "Violation of: source is of dynamic type MapJCF<?,?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type MapJCF<?,?>,
+         * and the ?,? must be K,V or the call would not have compiled.
+         */
+        MapJCF<K, V> localSource = (MapJCF<K, V>) source;
+        this.map = localSource.map;
+        this.anyCursor = localSource.anyCursor;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+
+        this.anyCursor = null;
+        this.map.put(key, value);
+    }
+
+    @Override
+    public final Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        this.anyCursor = null;
+        return new SimplePair<K, V>(key, this.map.remove(key));
+    }
+
+    @Override
+    public final Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        if (this.anyCursor == null || !this.anyCursor.hasNext()) {
+            this.anyCursor = this.map.entrySet().iterator();
+        }
+        java.util.Map.Entry<K, V> e = this.anyCursor.next();
+        Pair<K, V> removed = new SimplePair<K, V>(e.getKey(), e.getValue());
+        this.anyCursor.remove();
+        return removed;
+    }
+
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        return this.map.get(key);
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.map.containsKey(key);
+    }
+
+    @Override
+    public final int size() {
+        return this.map.size();
+    }
+
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return new MapJCFIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code MapJCF}.
+     */
+    private final class MapJCFIterator implements Iterator<Pair<K, V>> {
+
+        /**
+         * Iterator over the entries of the {@code HashMap}.
+         */
+        private final Iterator<java.util.Map.Entry<K, V>> entries;
+
+        /**
+         * No-argument constructor.
+         */
+        private MapJCFIterator() {
+            this.entries = MapJCF.this.map.entrySet().iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.entries.hasNext();
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            java.util.Map.Entry<K, V> e = this.entries.next();
+            return new SimplePair<K, V>(e.getKey(), e.getValue());
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
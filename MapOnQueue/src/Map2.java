@@ -1,26 +1,35 @@
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import components.map.Map;
 import components.map.MapSecondary;
-import components.queue.Queue;
-import components.queue.Queue1L;
 
 /**
- * {@code Map} represented as a {@code Queue} of pairs with implementations of
- * primary methods.
+ * {@code Map} represented as a self-organizing singly linked list of pairs,
+ * with implementations of primary methods.
+ *
+ * <p>
+ * Every successful lookup ({@code hasKey}, {@code value}, {@code remove})
+ * reorders the list by the {@code ReorderRule} given to the constructor, so
+ * under skewed access the hot keys are found near the front, in O(1)
+ * expected time, rather than after a scan of the whole map. {@code add} puts
+ * the new pair at the front; {@code removeAny} removes the front pair.
  *
  * @param <K>
  *            type of {@code Map} domain (key) entries
  * @param <V>
  *            type of {@code Map} range (associated value) entries
  * @convention <pre>
- * for all key1, key2: K, value1, value2: V, str1, str2: string of (key, value)
- *     where (str1 * <(key1, value1)> is prefix of $this.pairsQueue and
- *            str2 * <(key2, value2)> is prefix of $this.pairsQueue and
- *            str1 /= str2)
- *   (key1 /= key2)
+ * $this.length >= 0  and
+ * [$this.preFront is not null]  and
+ * [$this.preFront points to the first node of a singly linked list
+ *  containing $this.length + 1 nodes]  and
+ * [the next field of the last node in that list is null]  and
+ * [the keys of the pairs in the nodes after $this.preFront are distinct]
+ * </pre>
+ * @correspondence <pre>
+ * this = [pairs in nodes starting at $this.preFront.next]
  * </pre>
- * @correspondence this = entries($this.pairsQueue)
  */
 public class Map2<K, V> extends MapSecondary<K, V> {
 
@@ -29,42 +38,116 @@ public class Map2<K, V> extends MapSecondary<K, V> {
      */
 
     /**
-     * Pairs included in {@code this}.
+     * Node class for singly linked list nodes.
      */
-    private Queue<Pair<K, V>> pairsQueue;
+    private final class Node {
+
+        /**
+         * Pair in node.
+         */
+        private Pair<K, V> pair;
+
+        /**
+         * Next node in singly linked list, or null.
+         */
+        private Node next;
+
+    }
 
     /**
-     * Finds pair with first component {@code key} and, if such exists, moves it
-     * to the front of {@code q}.
+     * Rule applied to the node found by each lookup.
+     */
+    private final ReorderRule rule;
+
+    /**
+     * "Smart node" before front node of singly linked list.
+     */
+    private Node preFront;
+
+    /**
+     * Number of pairs in {@code this}.
+     */
+    private int length;
+
+    /**
+     * Reports whether {@code key} is in {@code this}, without reordering the
+     * list, so that contract checks do not change the order lookups produce.
+     *
+     * @param key
+     *            the key to be searched for
+     * @return true iff key is in DOMAIN(this)
+     * @ensures isDefined = key is in DOMAIN(this)
+     */
+    private boolean isDefined(K key) {
+        Node p = this.preFront.next;
+        while (p != null && !p.pair.key().equals(key)) {
+            p = p.next;
+        }
+        return p != null;
+    }
+
+    /**
+     * Finds the node holding the pair with first component {@code key} and,
+     * if there is one, moves it forward as {@code $this.rule} says.
      *
-     * @param <K>
-     *            type of {@code Pair} key
-     * @param <V>
-     *            type of {@code Pair} value
-     * @param q
-     *            the {@code Queue} to be searched
      * @param key
      *            the key to be searched for
-     * @updates q
+     * @return the node just before the one holding key (after reordering),
+     *         or null if key is not in this
+     * @updates $this.preFront
      * @ensures <pre>
-     * perms(q, #q)  and
-     * if there exists value: V (<(key, value)> is substring of q)
-     *  then there exists value: V (<(key, value)> is prefix of q)
+     * [the list holds the same pairs, possibly in a different order]  and
+     * if key is in DOMAIN(this)
+     *  then [locate.next holds the pair with first component key]
+     *  else locate = null
      * </pre>
      */
-    private static <K, V> void moveToFront(Queue<Pair<K, V>> q, K key) {
-        assert q != null : "Violation of: q is not null";
+    private Node locate(K key) {
         assert key != null : "Violation of: key is not null";
 
-        // TODO - fill in body
-
+        Node beforePrev = null;
+        Node prev = this.preFront;
+        Node p = prev.next;
+        while (p != null && !p.pair.key().equals(key)) {
+            beforePrev = prev;
+            prev = p;
+            p = p.next;
+        }
+        Node result = null;
+        if (p != null) {
+            result = prev;
+            /*
+             * Nothing to do if p is already the front node
+             */
+            if (prev != this.preFront) {
+                switch (this.rule) {
+                    case MOVE_TO_FRONT:
+                        prev.next = p.next;
+                        p.next = this.preFront.next;
+                        this.preFront.next = p;
+                        result = this.preFront;
+                        break;
+                    case TRANSPOSE:
+                        prev.next = p.next;
+                        p.next = prev;
+                        beforePrev.next = p;
+                        result = beforePrev;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        return result;
     }
 
     /**
      * Creator of initial representation.
      */
     private void createNewRep() {
-        this.pairsQueue = new Queue1L<Pair<K, V>>();
+        this.preFront = new Node();
+        this.preFront.next = null;
+        this.length = 0;
     }
 
     /*
@@ -72,9 +155,22 @@ public class Map2<K, V> extends MapSecondary<K, V> {
      */
 
     /**
-     * No-argument constructor.
+     * No-argument constructor; lookups move the pair found to the front.
      */
     public Map2() {
+        this.rule = ReorderRule.MOVE_TO_FRONT;
+        this.createNewRep();
+    }
+
+    /**
+     * Constructor from the rule applied to the pair found by each lookup.
+     *
+     * @param rule
+     *            the reordering rule
+     */
+    public Map2(ReorderRule rule) {
+        assert rule != null : "Violation of: rule is not null";
+        this.rule = rule;
         this.createNewRep();
     }
 
@@ -86,7 +182,8 @@ public class Map2<K, V> extends MapSecondary<K, V> {
     @Override
     public final Map<K, V> newInstance() {
         try {
-            return this.getClass().newInstance();
+            return this.getClass().getConstructor(ReorderRule.class)
+                    .newInstance(this.rule);
         } catch (ReflectiveOperationException e) {
             throw new AssertionError("Cannot construct object of type "
                     + this.getClass());
@@ -110,7 +207,8 @@ public class Map2<K, V> extends MapSecondary<K, V> {
          * the ?,? must be K,V or the call would not have compiled.
          */
         Map2<K, V> localSource = (Map2<K, V>) source;
-        this.pairsQueue = localSource.pairsQueue;
+        this.preFront = localSource.preFront;
+        this.length = localSource.length;
         localSource.createNewRep();
     }
 
@@ -122,66 +220,107 @@ public class Map2<K, V> extends MapSecondary<K, V> {
     public final void add(K key, V value) {
         assert key != null : "Violation of: key is not null";
         assert value != null : "Violation of: value is not null";
-        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
-
-        // TODO - fill in body
-
+        assert !this.isDefined(key) : ""
+                + "Violation of: key is not in DOMAIN(this)";
+
+        Node p = new Node();
+        p.pair = new SimplePair<K, V>(key, value);
+        p.next = this.preFront.next;
+        this.preFront.next = p;
+        this.length++;
     }
 
     @Override
     public final Pair<K, V> remove(K key) {
         assert key != null : "Violation of: key is not null";
-        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
-
-        // TODO - fill in body
+        assert this.isDefined(key) : "Violation of: key is in DOMAIN(this)";
 
-        // This line added just to make the component compilable.
-        return null;
+        Node prev = this.locate(key);
+        Node p = prev.next;
+        prev.next = p.next;
+        this.length--;
+        return p.pair;
     }
 
     @Override
     public final Pair<K, V> removeAny() {
         assert this.size() > 0 : "Violation of: this /= empty_set";
 
-        // TODO - fill in body
-
-        // This line added just to make the component compilable.
-        return null;
+        Node p = this.preFront.next;
+        this.preFront.next = p.next;
+        this.length--;
+        return p.pair;
     }
 
     @Override
     public final V value(K key) {
         assert key != null : "Violation of: key is not null";
-        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
-
-        // TODO - fill in body
+        assert this.isDefined(key) : "Violation of: key is in DOMAIN(this)";
 
-        // This line added just to make the component compilable.
-        return null;
+        return this.locate(key).next.pair.value();
     }
 
     @Override
     public final boolean hasKey(K key) {
         assert key != null : "Violation of: key is not null";
 
-        // TODO - fill in body
-
-        // This line added just to make the component compilable.
-        return false;
+        return this.locate(key) != null;
     }
 
     @Override
     public final int size() {
-
-        // TODO - fill in body
-
-        // This line added just to make the component compilable.
-        return 0;
+        return this.length;
     }
 
     @Override
     public final Iterator<Pair<K, V>> iterator() {
-        return this.pairsQueue.iterator();
+        return new Map2Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Map2}.
+     */
+    private final class Map2Iterator implements Iterator<Pair<K, V>> {
+
+        /**
+         * Current node in the linked list.
+         */
+        private Node current;
+
+        /**
+         * No-argument constructor.
+         */
+        private Map2Iterator() {
+            this.current = Map2.this.preFront.next;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current != null;
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Pair<K, V> x = this.current.pair;
+            this.current = this.current.next;
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
     }
 
 }
@@ -0,0 +1,199 @@
+import java.util.Random;
+
+import components.map.Map;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to time {@code Map2} lookups under each {@code ReorderRule}, for
+ * keys drawn from a Zipf distribution (a few keys get most of the lookups) and
+ * from a uniform one.
+ *
+ * <p>
+ * Usage: {@code Map2ZipfBenchmark [size] [lookups] [skew]}, where
+ * {@code size} is the number of keys in the map (default 1,000),
+ * {@code lookups} is the number of {@code value} calls timed (default
+ * 1,000,000), and {@code skew} is the Zipf exponent (default 1.0), so the key
+ * of rank r is looked up with probability proportional to 1 / r^skew. Results
+ * are printed as tab-separated lines: distribution, rule, keys, lookups, total
+ * ms, ns per lookup. Run without {@code -ea}, or every {@code value} call also
+ * runs {@code hasKey}.
+ *
+ * @author Put your name here
+ */
+public final class Map2ZipfBenchmark {
+
+    /**
+     * Default number of keys.
+     */
+    private static final int DEFAULT_SIZE = 1000;
+
+    /**
+     * Default number of lookups.
+     */
+    private static final int DEFAULT_LOOKUPS = 1000000;
+
+    /**
+     * Default Zipf exponent.
+     */
+    private static final double DEFAULT_SKEW = 1.0;
+
+    /**
+     * Seed for the key order and lookup sequence, so every run times the same
+     * sequence.
+     */
+    private static final long SEED = 2231;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private Map2ZipfBenchmark() {
+    }
+
+    /**
+     * Returns {@code count} ranks in [0, size), each drawn with probability
+     * proportional to 1 / (rank + 1)^skew.
+     *
+     * @param size
+     *            the number of ranks
+     * @param count
+     *            the number of ranks to draw
+     * @param skew
+     *            the Zipf exponent; 0 gives the uniform distribution
+     * @param rnd
+     *            the source of randomness
+     * @return the ranks drawn
+     * @requires size > 0 and count >= 0 and skew >= 0
+     */
+    private static int[] zipf(int size, int count, double skew, Random rnd) {
+        double[] cumulative = new double[size];
+        double total = 0.0;
+        for (int r = 0; r < size; r++) {
+            total += 1.0 / Math.pow(r + 1, skew);
+            cumulative[r] = total;
+        }
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            double u = rnd.nextDouble() * total;
+            /*
+             * Binary search for the first rank whose cumulative weight
+             * exceeds u
+             */
+            int lo = 0;
+            int hi = size - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) / 2;
+                if (cumulative[mid] <= u) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            result[i] = lo;
+        }
+        return result;
+    }
+
+    /**
+     * Times looking up the keys of rank {@code ranks} in a {@code Map2} with
+     * the given rule and outputs one result line.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            the name of the distribution
+     * @param rule
+     *            the reordering rule
+     * @param keyOfRank
+     *            the key of each rank, in the order they are added
+     * @param ranks
+     *            the ranks to look up
+     * @updates out.content
+     * @requires out.is_open and [every entry of ranks indexes keyOfRank]
+     */
+    private static void time(SimpleWriter out, String label,
+            ReorderRule rule, Integer[] keyOfRank, int[] ranks) {
+        Map<Integer, Integer> m = new Map2<Integer, Integer>(rule);
+        for (Integer key : keyOfRank) {
+            m.add(key, key);
+        }
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int r : ranks) {
+            checksum += m.value(keyOfRank[r]);
+        }
+        long nanos = System.nanoTime() - start;
+        /*
+         * Use the checksum so the loop cannot be optimized away
+         */
+        if (checksum < 0) {
+            throw new IllegalStateException("Negative checksum");
+        }
+        double perLookup = 0.0;
+        if (ranks.length > 0) {
+            perLookup = (double) nanos / ranks.length;
+        }
+        out.println(label + "\t" + rule + "\t" + keyOfRank.length + "\t"
+                + ranks.length + "\t"
+                + String.format("%.1f", nanos / NANOS_PER_MILLI) + "\t"
+                + String.format("%.1f", perLookup));
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: [size] [lookups] [skew]
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int size = DEFAULT_SIZE;
+        int lookups = DEFAULT_LOOKUPS;
+        double skew = DEFAULT_SKEW;
+        if (args.length > 0) {
+            size = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            lookups = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            skew = Double.parseDouble(args[2]);
+        }
+        Random rnd = new Random(SEED);
+        /*
+         * Hot keys are scattered through the add order, so none of them
+         * starts out in front by accident
+         */
+        Integer[] keyOfRank = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keyOfRank[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            Integer tmp = keyOfRank[i];
+            keyOfRank[i] = keyOfRank[j];
+            keyOfRank[j] = tmp;
+        }
+        int[] skewed = zipf(size, lookups, skew, rnd);
+        int[] uniform = zipf(size, lookups, 0.0, rnd);
+
+        out.println("distribution\trule\tkeys\tlookups\tms\tns/lookup");
+        /*
+         * First round warms up the JIT; only the rest are meaningful
+         */
+        time(out, "warmup", ReorderRule.MOVE_TO_FRONT, keyOfRank, skewed);
+        for (ReorderRule rule : ReorderRule.values()) {
+            time(out, "zipf-" + skew, rule, keyOfRank, skewed);
+        }
+        for (ReorderRule rule : ReorderRule.values()) {
+            time(out, "uniform", rule, keyOfRank, uniform);
+        }
+        out.close();
+    }
+
+}
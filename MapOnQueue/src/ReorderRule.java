@@ -0,0 +1,28 @@
+/**
+ * Rules a self-organizing list applies to an entry each time it is found, so
+ * that frequently looked-up entries drift toward the front, where they are
+ * found sooner.
+ *
+ * @author Put your name here
+ */
+public enum ReorderRule {
+
+    /**
+     * Moves the entry found to the front. Adapts quickly when the set of hot
+     * keys changes, but a single lookup of a cold key displaces a hot one.
+     */
+    MOVE_TO_FRONT,
+
+    /**
+     * Swaps the entry found with the one just before it. Adapts slowly, but
+     * under a fixed skewed access pattern keeps the hottest keys in front more
+     * stably than {@code MOVE_TO_FRONT}.
+     */
+    TRANSPOSE,
+
+    /**
+     * Leaves the order unchanged.
+     */
+    NONE
+
+}
@@ -0,0 +1,137 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map.Pair;
+
+/**
+ * JUnit test fixture for the self-organizing behavior of {@code Map2}.
+ */
+public final class Map2ReorderTest {
+
+    /**
+     * Returns a {@code Map2} with the given rule holding keys "a", "b", "c",
+     * "d", in that order from front to back, each mapped to its upper case.
+     *
+     * @param rule
+     *            the reordering rule
+     * @return the map
+     */
+    private static Map<String, String> abcd(ReorderRule rule) {
+        Map<String, String> m = new Map2<String, String>(rule);
+        /*
+         * add puts each new pair at the front
+         */
+        m.add("d", "D");
+        m.add("c", "C");
+        m.add("b", "B");
+        m.add("a", "A");
+        return m;
+    }
+
+    /**
+     * Returns the keys of {@code m} in iteration order, concatenated.
+     *
+     * @param m
+     *            the map
+     * @return the keys, front to back
+     */
+    private static String order(Map<String, String> m) {
+        StringBuilder keys = new StringBuilder();
+        Iterator<Pair<String, String>> it = m.iterator();
+        while (it.hasNext()) {
+            keys.append(it.next().key());
+        }
+        return keys.toString();
+    }
+
+    @Test
+    public void testAddOrder() {
+        assertEquals("abcd", order(abcd(ReorderRule.MOVE_TO_FRONT)));
+    }
+
+    @Test
+    public void testMoveToFrontValue() {
+        Map<String, String> m = abcd(ReorderRule.MOVE_TO_FRONT);
+        assertEquals("C", m.value("c"));
+        assertEquals("cabd", order(m));
+    }
+
+    @Test
+    public void testMoveToFrontHasKey() {
+        Map<String, String> m = abcd(ReorderRule.MOVE_TO_FRONT);
+        assertEquals(true, m.hasKey("d"));
+        assertEquals("dabc", order(m));
+        assertEquals(false, m.hasKey("e"));
+        assertEquals("dabc", order(m));
+    }
+
+    @Test
+    public void testTransposeHasKey() {
+        Map<String, String> m = abcd(ReorderRule.TRANSPOSE);
+        assertEquals(true, m.hasKey("d"));
+        assertEquals("abdc", order(m));
+        assertEquals(true, m.hasKey("d"));
+        assertEquals("adbc", order(m));
+    }
+
+    @Test
+    public void testTransposeValue() {
+        Map<String, String> m = abcd(ReorderRule.TRANSPOSE);
+        assertEquals("D", m.value("d"));
+        assertEquals("abdc", order(m));
+        assertEquals("D", m.value("d"));
+        assertEquals("adbc", order(m));
+    }
+
+    @Test
+    public void testTransposeFront() {
+        Map<String, String> m = abcd(ReorderRule.TRANSPOSE);
+        assertEquals(true, m.hasKey("a"));
+        assertEquals("abcd", order(m));
+        assertEquals(true, m.hasKey("b"));
+        assertEquals("bacd", order(m));
+    }
+
+    @Test
+    public void testNoneValue() {
+        Map<String, String> m = abcd(ReorderRule.NONE);
+        assertEquals("D", m.value("d"));
+        assertEquals("abcd", order(m));
+    }
+
+    @Test
+    public void testRemoveAfterReorder() {
+        Map<String, String> m = abcd(ReorderRule.TRANSPOSE);
+        m.value("c");
+        Pair<String, String> p = m.remove("c");
+        assertEquals("c", p.key());
+        assertEquals("C", p.value());
+        assertEquals("abd", order(m));
+        assertEquals(3, m.size());
+    }
+
+    @Test
+    public void testRemoveAny() {
+        Map<String, String> m = abcd(ReorderRule.MOVE_TO_FRONT);
+        m.value("d");
+        Pair<String, String> p = m.removeAny();
+        assertEquals("d", p.key());
+        assertEquals("abc", order(m));
+    }
+
+    @Test
+    public void testNewInstanceKeepsRule() {
+        Map<String, String> m = abcd(ReorderRule.TRANSPOSE).newInstance();
+        m.add("b", "B");
+        m.add("a", "A");
+        m.hasKey("b");
+        assertEquals("ba", order(m));
+        m.hasKey("b");
+        assertEquals("ba", order(m));
+    }
+
+}
@@ -0,0 +1,617 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Map from {@code String} keys to {@code int} counts, for word-count style
+ * workloads, kept outside the Java heap. It follows the {@code Map4} hashing
+ * design (chained buckets, growth to 2n+1 buckets once the load factor
+ * exceeds {@code MAX_LOAD_FACTOR}), but the buckets are an {@code IntBuffer}
+ * of chain heads and every entry (next link, hash code, count, and the
+ * characters of the key) is a record in a direct {@code ByteBuffer} arena.
+ * Counting allocates no Java objects per key, so the garbage collector has
+ * nothing to trace no matter how large the vocabulary grows. Keys are stored
+ * as UTF-16 code units so a lookup compares them with the {@code String}
+ * being looked up without encoding it.
+ *
+ * <p>
+ * Entries are never removed individually, so growing the table only relinks
+ * the records; no key is copied. The arena is a single buffer, so it holds at
+ * most 2GB of records.
+ *
+ * @mathdefinitions <pre>
+ * HASH (
+ *   x: string of character
+ *  ) : integer is
+ *  [computed result of $this.spreader.spread(x.hashCode())]
+ *
+ * CHAIN (
+ *   e: integer
+ *  ) : string of integer is
+ *  if e = NO_ENTRY then <>
+ *  else <e> * CHAIN([the next field of the record at offset e])
+ * </pre>
+ * @convention <pre>
+ * $this.tableSize > 0  and
+ * |$this.heads| = $this.tableSize  and
+ * 0 <= $this.arenaEnd <= $this.arena.capacity  and
+ * [the chains CHAIN($this.heads[i]) are disjoint, and together consist of the
+ *  offsets of all records in $this.arena[0, $this.arenaEnd)]  and
+ * for all i: integer, e: integer
+ *     where (0 <= i < $this.tableSize  and  e is in CHAIN($this.heads[i]))
+ *   ([the hash field of the record at e] = HASH([its key])  and
+ *    HASH([its key]) mod $this.tableSize = i)  and
+ * [the keys of the records are distinct]  and
+ * $this.size = [number of records]
+ * </pre>
+ * @correspondence <pre>
+ * this = {(key, count): (string of character, integer)
+ *   where [there is a record in $this.arena[0, $this.arenaEnd) with key key
+ *          and count count]}
+ * </pre>
+ *
+ * @author Put your name here
+ */
+public final class CountMap4 {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default size of hash table.
+     */
+    private static final int DEFAULT_HASH_TABLE_SIZE = 101;
+
+    /**
+     * Maximum average number of entries per bucket before the table grows.
+     */
+    private static final int MAX_LOAD_FACTOR = 2;
+
+    /**
+     * Initial arena capacity, in bytes.
+     */
+    private static final int DEFAULT_ARENA_BYTES = 1 << 16;
+
+    /**
+     * Offset standing for "no record" (end of chain, empty bucket).
+     */
+    private static final int NO_ENTRY = -1;
+
+    /**
+     * Offset of the next-record link within a record.
+     */
+    private static final int NEXT = 0;
+
+    /**
+     * Offset of the hash code within a record.
+     */
+    private static final int HASH = 4;
+
+    /**
+     * Offset of the count within a record.
+     */
+    private static final int COUNT = 8;
+
+    /**
+     * Offset of the key length (in chars) within a record.
+     */
+    private static final int LENGTH = 12;
+
+    /**
+     * Offset of the key's chars within a record.
+     */
+    private static final int CHARS = 16;
+
+    /**
+     * Records start at multiples of this many bytes.
+     */
+    private static final int ALIGNMENT = 4;
+
+    /**
+     * Default hash spreader.
+     */
+    private static final HashSpreader DEFAULT_SPREADER = HashSpreader.IDENTITY;
+
+    /**
+     * Spreader applied to every hash code before it is reduced to a bucket
+     * index.
+     */
+    private final HashSpreader spreader;
+
+    /**
+     * Size of hash table requested at construction, restored by
+     * {@code clear}.
+     */
+    private final int initialTableSize;
+
+    /**
+     * Number of buckets.
+     */
+    private int tableSize;
+
+    /**
+     * Offset of the first record of each bucket's chain, or NO_ENTRY.
+     */
+    private IntBuffer heads;
+
+    /**
+     * Records, one per key.
+     */
+    private ByteBuffer arena;
+
+    /**
+     * Offset just past the last record.
+     */
+    private int arenaEnd;
+
+    /**
+     * Number of keys.
+     */
+    private int size;
+
+    /**
+     * Computes {@code a} mod {@code b} as % should have been defined to work.
+     *
+     * @param a
+     *            the number being reduced
+     * @param b
+     *            the modulus
+     * @return the result of a mod b, which satisfies 0 <= {@code mod} < b
+     * @requires b > 0
+     * @ensures <pre>
+     * 0 <= mod  and  mod < b  and
+     * there exists k: integer (a = k * b + mod)
+     * </pre>
+     */
+    private static int mod(int a, int b) {
+        assert b > 0 : "Violation of: b > 0";
+        int result = a % b;
+        if (result < 0) {
+            result = result + b;
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new off-heap table of {@code tableSize} empty buckets.
+     *
+     * @param tableSize
+     *            the number of buckets
+     * @return the chain heads, all NO_ENTRY
+     * @requires tableSize > 0
+     */
+    private static IntBuffer newHeads(int tableSize) {
+        IntBuffer heads = ByteBuffer.allocateDirect(tableSize * Integer.BYTES)
+                .order(ByteOrder.nativeOrder()).asIntBuffer();
+        for (int i = 0; i < tableSize; i++) {
+            heads.put(i, NO_ENTRY);
+        }
+        return heads;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param hashTableSize
+     *            the size of the hash table
+     * @requires hashTableSize > 0
+     * @ensures this = {}
+     */
+    private void createNewRep(int hashTableSize) {
+        this.tableSize = hashTableSize;
+        this.heads = newHeads(hashTableSize);
+        this.arena = ByteBuffer.allocateDirect(DEFAULT_ARENA_BYTES)
+                .order(ByteOrder.nativeOrder());
+        this.arenaEnd = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Returns the spread hash code of {@code key}.
+     *
+     * @param key
+     *            the key
+     * @return HASH(key)
+     */
+    private int hash(String key) {
+        return this.spreader.spread(key.hashCode());
+    }
+
+    /**
+     * Reports whether the record at offset {@code e} has key {@code key}.
+     *
+     * @param e
+     *            the offset of the record
+     * @param key
+     *            the key
+     * @param hash
+     *            HASH(key)
+     * @return true iff the key of the record at e is key
+     */
+    private boolean matches(int e, String key, int hash) {
+        boolean result = this.arena.getInt(e + HASH) == hash
+                && this.arena.getInt(e + LENGTH) == key.length();
+        int chars = e + CHARS;
+        for (int i = 0; result && i < key.length(); i++) {
+            result = this.arena.getChar(chars + 2 * i) == key.charAt(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the offset of the record with key {@code key}, or NO_ENTRY.
+     *
+     * @param key
+     *            the key
+     * @param hash
+     *            HASH(key)
+     * @return the offset of key's record, or NO_ENTRY if key is not in this
+     */
+    private int find(String key, int hash) {
+        int e = this.heads.get(mod(hash, this.tableSize));
+        while (e != NO_ENTRY && !this.matches(e, key, hash)) {
+            e = this.arena.getInt(e + NEXT);
+        }
+        return e;
+    }
+
+    /**
+     * Returns the key of the record at offset {@code e}.
+     *
+     * @param e
+     *            the offset of the record
+     * @return the key
+     */
+    private String keyAt(int e) {
+        char[] chars = new char[this.arena.getInt(e + LENGTH)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = this.arena.getChar(e + CHARS + 2 * i);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Makes room in the arena for {@code bytes} more bytes, doubling its
+     * capacity (and copying the records) as needed.
+     *
+     * @param bytes
+     *            the number of bytes needed
+     * @updates $this.arena
+     * @ensures $this.arenaEnd + bytes <= $this.arena.capacity
+     */
+    private void reserve(int bytes) {
+        long needed = (long) this.arenaEnd + bytes;
+        if (needed > this.arena.capacity()) {
+            if (needed > Integer.MAX_VALUE) {
+                throw new IllegalStateException("CountMap4 arena is full");
+            }
+            int capacity = (int) Math.min(
+                    Math.max(needed, 2L * this.arena.capacity()),
+                    Integer.MAX_VALUE);
+            ByteBuffer bigger = ByteBuffer.allocateDirect(capacity)
+                    .order(ByteOrder.nativeOrder());
+            ByteBuffer used = this.arena.duplicate();
+            used.position(0);
+            used.limit(this.arenaEnd);
+            bigger.put(used);
+            this.arena = bigger;
+        }
+    }
+
+    /**
+     * Grows the table to 2n+1 buckets if the load factor has exceeded
+     * {@code MAX_LOAD_FACTOR}, relinking every record into its new bucket.
+     *
+     * @updates $this
+     * @ensures this = #this
+     */
+    private void growIfNeeded() {
+        if (this.size > MAX_LOAD_FACTOR * this.tableSize) {
+            int newSize = 2 * this.tableSize + 1;
+            IntBuffer newHeads = newHeads(newSize);
+            for (int i = 0; i < this.tableSize; i++) {
+                int e = this.heads.get(i);
+                while (e != NO_ENTRY) {
+                    int next = this.arena.getInt(e + NEXT);
+                    int j = mod(this.arena.getInt(e + HASH), newSize);
+                    this.arena.putInt(e + NEXT, newHeads.get(j));
+                    newHeads.put(j, e);
+                    e = next;
+                }
+            }
+            this.heads = newHeads;
+            this.tableSize = newSize;
+        }
+    }
+
+    /**
+     * Returns the offsets of all records, in arena order.
+     *
+     * @return the record offsets
+     */
+    private int[] records() {
+        int[] result = new int[this.size];
+        int e = 0;
+        for (int k = 0; k < this.size; k++) {
+            result[k] = e;
+            int bytes = CHARS + 2 * this.arena.getInt(e + LENGTH);
+            e += (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the keys of the records at offsets {@code records}.
+     *
+     * @param records
+     *            the record offsets
+     * @return the keys, in the same order
+     */
+    private String[] keysAt(int[] records) {
+        String[] keys = new String[records.length];
+        for (int k = 0; k < records.length; k++) {
+            keys[k] = this.keyAt(records[k]);
+        }
+        return keys;
+    }
+
+    /**
+     * Compare indices into parallel arrays of keys and counts, by decreasing
+     * count and then by key.
+     */
+    private static final class ByCount implements Comparator<Integer> {
+
+        /**
+         * The keys.
+         */
+        private final String[] keys;
+
+        /**
+         * The counts of the keys.
+         */
+        private final int[] counts;
+
+        /**
+         * Constructor from the parallel arrays.
+         *
+         * @param keys
+         *            the keys
+         * @param counts
+         *            the counts of the keys
+         */
+        private ByCount(String[] keys, int[] counts) {
+            this.keys = keys;
+            this.counts = counts;
+        }
+
+        @Override
+        public int compare(Integer a, Integer b) {
+            int result = Integer.compare(this.counts[b], this.counts[a]);
+            if (result == 0) {
+                result = this.keys[a].compareTo(this.keys[b]);
+            }
+            return result;
+        }
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public CountMap4() {
+        this.spreader = DEFAULT_SPREADER;
+        this.initialTableSize = DEFAULT_HASH_TABLE_SIZE;
+        this.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+    }
+
+    /**
+     * Constructor resulting in a hash table of size {@code hashTableSize}.
+     *
+     * @param hashTableSize
+     *            size of hash table
+     * @requires hashTableSize > 0
+     * @ensures this = {}
+     */
+    public CountMap4(int hashTableSize) {
+        assert hashTableSize > 0 : "Violation of: hashTableSize > 0";
+        this.spreader = DEFAULT_SPREADER;
+        this.initialTableSize = hashTableSize;
+        this.createNewRep(hashTableSize);
+    }
+
+    /**
+     * Constructor resulting in a hash table of size {@code hashTableSize} that
+     * remixes hash codes with {@code spreader}.
+     *
+     * @param hashTableSize
+     *            size of hash table
+     * @param spreader
+     *            the hash spreader
+     * @requires hashTableSize > 0
+     * @ensures this = {}
+     */
+    public CountMap4(int hashTableSize, HashSpreader spreader) {
+        assert hashTableSize > 0 : "Violation of: hashTableSize > 0";
+        assert spreader != null : "Violation of: spreader is not null";
+        this.spreader = spreader;
+        this.initialTableSize = hashTableSize;
+        this.createNewRep(hashTableSize);
+    }
+
+    /*
+     * Methods ----------------------------------------------------------------
+     */
+
+    /**
+     * Resets {@code this} to the empty map. The off-heap memory of the old
+     * representation is released when its buffers are garbage collected.
+     *
+     * @clears this
+     */
+    public void clear() {
+        this.createNewRep(this.initialTableSize);
+    }
+
+    /**
+     * Adds {@code delta} to the count of {@code key}, adding {@code key} with
+     * count {@code delta} if it is not in {@code this}.
+     *
+     * @param key
+     *            the key
+     * @param delta
+     *            the amount to add
+     * @updates this
+     * @requires key is not null
+     * @ensures <pre>
+     * if key is in DOMAIN(#this)
+     *  then this = #this with (key, #this(key) + delta)
+     *  else this = #this union {(key, delta)}
+     * </pre>
+     */
+    public void add(String key, int delta) {
+        assert key != null : "Violation of: key is not null";
+        int hash = this.hash(key);
+        int e = this.find(key, hash);
+        if (e != NO_ENTRY) {
+            this.arena.putInt(e + COUNT, this.arena.getInt(e + COUNT) + delta);
+        } else {
+            int bytes = CHARS + 2 * key.length();
+            bytes = (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+            this.reserve(bytes);
+            e = this.arenaEnd;
+            int i = mod(hash, this.tableSize);
+            this.arena.putInt(e + NEXT, this.heads.get(i));
+            this.arena.putInt(e + HASH, hash);
+            this.arena.putInt(e + COUNT, delta);
+            this.arena.putInt(e + LENGTH, key.length());
+            for (int k = 0; k < key.length(); k++) {
+                this.arena.putChar(e + CHARS + 2 * k, key.charAt(k));
+            }
+            this.heads.put(i, e);
+            this.arenaEnd += bytes;
+            this.size++;
+            this.growIfNeeded();
+        }
+    }
+
+    /**
+     * Adds 1 to the count of {@code key}, adding {@code key} with count 1 if
+     * it is not in {@code this}.
+     *
+     * @param key
+     *            the key
+     * @updates this
+     * @requires key is not null
+     * @ensures <pre>
+     * if key is in DOMAIN(#this)
+     *  then this = #this with (key, #this(key) + 1)
+     *  else this = #this union {(key, 1)}
+     * </pre>
+     */
+    public void increment(String key) {
+        this.add(key, 1);
+    }
+
+    /**
+     * Reports the count of {@code key}, or 0 if it is not in {@code this}.
+     *
+     * @param key
+     *            the key
+     * @return the count of key
+     * @requires key is not null
+     * @ensures <pre>
+     * if key is in DOMAIN(this) then get = this(key) else get = 0
+     * </pre>
+     */
+    public int get(String key) {
+        assert key != null : "Violation of: key is not null";
+        int e = this.find(key, this.hash(key));
+        int result = 0;
+        if (e != NO_ENTRY) {
+            result = this.arena.getInt(e + COUNT);
+        }
+        return result;
+    }
+
+    /**
+     * Reports whether {@code key} is in {@code this}.
+     *
+     * @param key
+     *            the key
+     * @return true iff key is in DOMAIN(this)
+     * @requires key is not null
+     */
+    public boolean hasKey(String key) {
+        assert key != null : "Violation of: key is not null";
+        return this.find(key, this.hash(key)) != NO_ENTRY;
+    }
+
+    /**
+     * Reports the number of keys in {@code this}.
+     *
+     * @return |this|
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Reports the off-heap memory held by {@code this}, in bytes.
+     *
+     * @return the capacity of the arena plus the size of the bucket table
+     */
+    public long offHeapBytes() {
+        return (long) this.arena.capacity()
+                + (long) this.tableSize * Integer.BYTES;
+    }
+
+    /**
+     * Returns the keys of {@code this} in lexicographic order.
+     *
+     * @return the keys, sorted
+     * @ensures <pre>
+     * [keysInOrder holds each key of this exactly once, in lexicographic
+     *  order]
+     * </pre>
+     */
+    public String[] keysInOrder() {
+        String[] keys = this.keysAt(this.records());
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /**
+     * Returns the keys of {@code this} from the largest count to the smallest,
+     * with equal counts in lexicographic order.
+     *
+     * @return the keys, sorted by decreasing count
+     * @ensures <pre>
+     * [keysByCount holds each key of this exactly once, in decreasing order
+     *  of count, and in lexicographic order among equal counts]
+     * </pre>
+     */
+    public String[] keysByCount() {
+        int[] records = this.records();
+        String[] keys = this.keysAt(records);
+        int[] counts = new int[records.length];
+        Integer[] order = new Integer[records.length];
+        for (int k = 0; k < records.length; k++) {
+            counts[k] = this.arena.getInt(records[k] + COUNT);
+            order[k] = k;
+        }
+        Arrays.sort(order, new ByCount(keys, counts));
+        String[] result = new String[records.length];
+        for (int k = 0; k < records.length; k++) {
+            result[k] = keys[order[k]];
+        }
+        return result;
+    }
+
+}
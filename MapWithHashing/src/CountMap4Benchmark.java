@@ -0,0 +1,199 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import components.map.Map;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to compare counting words with {@code CountMap4} against the
+ * {@code Map4<String, Integer>} idiom of the word-count tools
+ * ({@code hasKey}, then {@code replaceValue} or {@code add}), reporting time
+ * and garbage collection work for growing vocabularies.
+ *
+ * <p>
+ * Usage: {@code CountMap4Benchmark [words] [vocabulary...]}, where
+ * {@code words} is the number of words counted per run (default 10,000,000)
+ * and each {@code vocabulary} is a number of distinct words (default 10,000,
+ * 1,000,000, and 4,000,000). Words are drawn with a skew toward low ranks, as
+ * in natural text, and built as new {@code String}s as a tokenizer would.
+ * Results are printed as tab-separated lines: map, vocabulary, words, total
+ * ms, collections, ms spent collecting, distinct words counted.
+ *
+ * @author Put your name here
+ */
+public final class CountMap4Benchmark {
+
+    /**
+     * Default number of words per run.
+     */
+    private static final int DEFAULT_WORDS = 10000000;
+
+    /**
+     * Default vocabulary sizes.
+     */
+    private static final int[] DEFAULT_VOCABULARIES = { 10000, 1000000,
+        4000000 };
+
+    /**
+     * Exponent skewing the drawn ranks toward 0.
+     */
+    private static final double SKEW = 3.0;
+
+    /**
+     * Seed for the word sequence, so both maps count the same words.
+     */
+    private static final long SEED = 2231;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private CountMap4Benchmark() {
+    }
+
+    /**
+     * Returns the total number of collections so far and the total time spent
+     * in them, in milliseconds.
+     *
+     * @return {count, milliseconds}
+     */
+    private static long[] gcTotals() {
+        long[] totals = new long[2];
+        for (GarbageCollectorMXBean gc : ManagementFactory
+                .getGarbageCollectorMXBeans()) {
+            totals[0] += Math.max(gc.getCollectionCount(), 0);
+            totals[1] += Math.max(gc.getCollectionTime(), 0);
+        }
+        return totals;
+    }
+
+    /**
+     * Returns the next word of the sequence.
+     *
+     * @param rnd
+     *            the source of randomness
+     * @param vocabulary
+     *            the number of distinct words
+     * @return the word
+     */
+    private static String nextWord(Random rnd, int vocabulary) {
+        int rank = (int) (vocabulary * Math.pow(rnd.nextDouble(), SKEW));
+        return "w" + rank;
+    }
+
+    /**
+     * Counts {@code words} words with a {@code CountMap4}.
+     *
+     * @param vocabulary
+     *            the number of distinct words
+     * @param words
+     *            the number of words
+     * @return the number of distinct words counted
+     */
+    private static int countOffHeap(int vocabulary, int words) {
+        Random rnd = new Random(SEED);
+        CountMap4 counts = new CountMap4();
+        for (int i = 0; i < words; i++) {
+            counts.increment(nextWord(rnd, vocabulary));
+        }
+        return counts.size();
+    }
+
+    /**
+     * Counts {@code words} words with a {@code Map4<String, Integer>}.
+     *
+     * @param vocabulary
+     *            the number of distinct words
+     * @param words
+     *            the number of words
+     * @return the number of distinct words counted
+     */
+    private static int countMap4(int vocabulary, int words) {
+        Random rnd = new Random(SEED);
+        Map<String, Integer> counts = new Map4<>();
+        for (int i = 0; i < words; i++) {
+            String word = nextWord(rnd, vocabulary);
+            if (counts.hasKey(word)) {
+                counts.replaceValue(word, counts.value(word) + 1);
+            } else {
+                counts.add(word, 1);
+            }
+        }
+        return counts.size();
+    }
+
+    /**
+     * Times one run and outputs its result line.
+     *
+     * @param out
+     *            the output stream
+     * @param offHeap
+     *            whether to use {@code CountMap4} (or else {@code Map4})
+     * @param vocabulary
+     *            the number of distinct words
+     * @param words
+     *            the number of words
+     * @updates out.content
+     * @requires out.is_open
+     */
+    private static void time(SimpleWriter out, boolean offHeap,
+            int vocabulary, int words) {
+        System.gc();
+        long[] gcBefore = gcTotals();
+        long start = System.nanoTime();
+        int distinct;
+        String label;
+        if (offHeap) {
+            distinct = countOffHeap(vocabulary, words);
+            label = "CountMap4";
+        } else {
+            distinct = countMap4(vocabulary, words);
+            label = "Map4";
+        }
+        long nanos = System.nanoTime() - start;
+        long[] gcAfter = gcTotals();
+        out.println(label + "\t" + vocabulary + "\t" + words + "\t"
+                + String.format("%.1f", nanos / NANOS_PER_MILLI) + "\t"
+                + (gcAfter[0] - gcBefore[0]) + "\t"
+                + (gcAfter[1] - gcBefore[1]) + "\t" + distinct);
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: [words] [vocabulary...]
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int words = DEFAULT_WORDS;
+        int[] vocabularies = DEFAULT_VOCABULARIES;
+        if (args.length > 0) {
+            words = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            vocabularies = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                vocabularies[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+        out.println("map\tvocabulary\twords\tms\tgcs\tgc_ms\tdistinct");
+        /*
+         * First round warms up the JIT; only the rest are meaningful
+         */
+        time(out, true, vocabularies[0], words / 10);
+        time(out, false, vocabularies[0], words / 10);
+        for (int vocabulary : vocabularies) {
+            time(out, false, vocabulary, words);
+            time(out, true, vocabulary, words);
+        }
+        out.close();
+    }
+
+}
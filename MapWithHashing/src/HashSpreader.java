@@ -0,0 +1,84 @@
+/**
+ * Functions that remix a {@code hashCode} before it is reduced to a bucket
+ * index, so that keys whose hash codes differ only in a few bits (or only in
+ * their high bits) do not all land in the same few buckets.
+ *
+ * @author Put your name here
+ */
+public enum HashSpreader {
+
+    /**
+     * Uses the hash code unchanged.
+     */
+    IDENTITY {
+        @Override
+        public int spread(int h) {
+            return h;
+        }
+    },
+
+    /**
+     * Multiplies by 2^32 / golden ratio and folds the high half, well mixed by
+     * the multiplication, back into the low half.
+     */
+    FIBONACCI {
+        @Override
+        public int spread(int h) {
+            int x = h * GOLDEN_RATIO_32;
+            return x ^ (x >>> HALF_WORD);
+        }
+    },
+
+    /**
+     * Applies the 32-bit finalizer of MurmurHash3, in which every input bit
+     * affects every output bit.
+     */
+    MURMUR {
+        @Override
+        public int spread(int h) {
+            int x = h;
+            x ^= x >>> HALF_WORD;
+            x *= MURMUR_C1;
+            x ^= x >>> MURMUR_SHIFT;
+            x *= MURMUR_C2;
+            x ^= x >>> HALF_WORD;
+            return x;
+        }
+    };
+
+    /**
+     * 2^32 divided by the golden ratio, as a (wrapped) {@code int}.
+     */
+    private static final int GOLDEN_RATIO_32 = 0x9E3779B9;
+
+    /**
+     * Half the number of bits in an {@code int}.
+     */
+    private static final int HALF_WORD = 16;
+
+    /**
+     * First multiplier of the MurmurHash3 finalizer.
+     */
+    private static final int MURMUR_C1 = 0x85EBCA6B;
+
+    /**
+     * Second multiplier of the MurmurHash3 finalizer.
+     */
+    private static final int MURMUR_C2 = 0xC2B2AE35;
+
+    /**
+     * Middle shift of the MurmurHash3 finalizer.
+     */
+    private static final int MURMUR_SHIFT = 13;
+
+    /**
+     * Returns {@code h} remixed by this spreader.
+     *
+     * @param h
+     *            the hash code to remix
+     * @return the remixed hash code
+     * @ensures [spread is a deterministic function of h]
+     */
+    public abstract int spread(int h);
+
+}
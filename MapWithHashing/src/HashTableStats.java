@@ -0,0 +1,177 @@
+/**
+ * Immutable snapshot of the shape of a chained hash table, used to spot
+ * skewed hashing: how many buckets hold each number of entries, the longest
+ * chain, the load factor, and how many entries lookups have had to examine.
+ *
+ * @author Put your name here
+ */
+public final class HashTableStats {
+
+    /**
+     * Number of entries.
+     */
+    private final int size;
+
+    /**
+     * Number of buckets.
+     */
+    private final int buckets;
+
+    /**
+     * {@code histogram[k]} is the number of buckets holding k entries.
+     */
+    private final int[] histogram;
+
+    /**
+     * Number of lookups performed.
+     */
+    private final long lookups;
+
+    /**
+     * Total number of bucket entries those lookups had to examine.
+     */
+    private final long probedEntries;
+
+    /**
+     * Constructor from the raw counts.
+     *
+     * @param size
+     *            number of entries
+     * @param buckets
+     *            number of buckets
+     * @param histogram
+     *            {@code histogram[k]} is the number of buckets with k entries;
+     *            the array is copied
+     * @param lookups
+     *            number of lookups performed
+     * @param probedEntries
+     *            total number of entries those lookups examined
+     * @requires <pre>
+     * size >= 0  and  buckets > 0  and  |histogram| > 0  and
+     * lookups >= 0  and  probedEntries >= 0
+     * </pre>
+     */
+    public HashTableStats(int size, int buckets, int[] histogram, long lookups,
+            long probedEntries) {
+        assert histogram != null : "Violation of: histogram is not null";
+        this.size = size;
+        this.buckets = buckets;
+        this.histogram = histogram.clone();
+        this.lookups = lookups;
+        this.probedEntries = probedEntries;
+    }
+
+    /**
+     * Reports the number of entries.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Reports the number of buckets.
+     *
+     * @return the number of buckets
+     */
+    public int buckets() {
+        return this.buckets;
+    }
+
+    /**
+     * Reports the number of buckets holding exactly {@code length} entries.
+     *
+     * @param length
+     *            the chain length
+     * @return the number of buckets with that many entries
+     * @requires length >= 0
+     */
+    public int bucketsWithLength(int length) {
+        assert length >= 0 : "Violation of: length >= 0";
+        int count = 0;
+        if (length < this.histogram.length) {
+            count = this.histogram[length];
+        }
+        return count;
+    }
+
+    /**
+     * Reports the length of the longest chain.
+     *
+     * @return the maximum number of entries in one bucket
+     */
+    public int maxChainLength() {
+        int max = this.histogram.length - 1;
+        while (max > 0 && this.histogram[max] == 0) {
+            max--;
+        }
+        return max;
+    }
+
+    /**
+     * Reports the average number of entries per bucket.
+     *
+     * @return the load factor
+     */
+    public double loadFactor() {
+        return (double) this.size / this.buckets;
+    }
+
+    /**
+     * Reports the number of lookups performed.
+     *
+     * @return the number of lookups
+     */
+    public long lookups() {
+        return this.lookups;
+    }
+
+    /**
+     * Reports the total number of entries lookups had to examine.
+     *
+     * @return the number of probed entries
+     */
+    public long probedEntries() {
+        return this.probedEntries;
+    }
+
+    /**
+     * Reports the average number of entries examined per lookup.
+     *
+     * @return probes per lookup, or 0 if there were no lookups
+     */
+    public double probesPerLookup() {
+        double result = 0.0;
+        if (this.lookups > 0) {
+            result = (double) this.probedEntries / this.lookups;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("size=").append(this.size);
+        sb.append(" buckets=").append(this.buckets);
+        sb.append(" loadFactor=")
+                .append(String.format("%.3f", this.loadFactor()));
+        sb.append(" maxChain=").append(this.maxChainLength());
+        sb.append(" probesPerLookup=")
+                .append(String.format("%.3f", this.probesPerLookup()));
+        sb.append(" histogram={");
+        boolean first = true;
+        for (int k = 0; k < this.histogram.length; k++) {
+            if (this.histogram[k] > 0) {
+                if (!first) {
+                    sb.append(", ");
+                }
+                sb.append(k).append(":").append(this.histogram[k]);
+                first = false;
+            }
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+
+}
@@ -1,3 +1,4 @@
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -9,30 +10,80 @@ import components.map.MapSecondary;
 
 /**
  * {@code Map} represented as a hash table using {@code Map}s for the buckets,
- * with implementations of primary methods.
+ * with implementations of primary methods. The table grows when the load
+ * factor exceeds {@code MAX_LOAD_FACTOR}; entries are then moved from the old
+ * table to the new one a few buckets at a time on each {@code add} and
+ * {@code remove}, so no single call pays for a full rehash. Each table keeps
+ * a bitmap of its non-empty buckets so that {@code removeAny} and iteration
+ * skip empty buckets instead of walking them. Buckets (and the bucket array
+ * itself) are only allocated when the first entry is added to them, so empty
+ * and small maps stay small and {@code clear}/{@code transferFrom} take
+ * constant time. Hash codes pass through a
+ * {@code HashSpreader} (chosen at construction) before being reduced to a
+ * bucket index, and {@code stats} reports how evenly keys are spread.
  *
  * @param <K>
  *            type of {@code Map} domain (key) entries
  * @param <V>
  *            type of {@code Map} range (associated value) entries
+ * @mathdefinitions <pre>
+ * HASH (
+ *   x: K
+ *  ) : integer is
+ *  [computed result of $this.spreader.spread(x.hashCode())]
+ *
+ * BUCKET (
+ *   t: BucketTable,
+ *   i: integer
+ *  ) : PARTIAL_FUNCTION is
+ *  if t.buckets /= null  and  i is in t.buckets.examinableIndices
+ *  then the pf: PARTIAL_FUNCTION such that <pf> = t.buckets.entries[i, i+1)
+ *  else {}
+ *
+ * ENTRIES (
+ *   t: BucketTable,
+ *   lo: integer
+ *  ) : PARTIAL_FUNCTION is
+ *  union i: integer where (lo <= i  and  i < t.tableSize)
+ *    (BUCKET(t, i))
+ *
+ * IS_BUCKET_TABLE (
+ *   t: BucketTable
+ *  ) : boolean is
+ *  t.tableSize > 0  and
+ *  (t.buckets = null  or  |t.buckets.entries| = t.tableSize)  and
+ *  (t.buckets = null  iff  t.occupied = null)  and
+ *  for all i: integer
+ *      where (0 <= i  and  i < t.tableSize)
+ *    ([bit i of t.occupied is set] = (BUCKET(t, i) /= {})  and
+ *     (if BUCKET(t, i) /= {} then t.lowestOccupied <= i))
+ * </pre>
  * @convention <pre>
- * |$this.hashTable.entries| > 0  and
- * for all i: integer, pf: PARTIAL_FUNCTION, x: K
- *     where (0 <= i  and  i < |$this.hashTable.entries|  and
- *            <pf> = $this.hashTable.entries[i, i+1)  and
- *            x is in DOMAIN(pf))
- *   ([computed result of x.hashCode()] mod |$this.hashTable.entries| = i))  and
- * |$this.hashTable.examinableIndices| = |$this.hashTable.entries|  and
- * $this.size = sum i: integer, pf: PARTIAL_FUNCTION
- *     where (0 <= i  and  i < |$this.hashTable.entries|  and
- *            <pf> = $this.hashTable.entries[i, i+1))
- *   (|pf|)
+ * IS_BUCKET_TABLE($this.hashTable)  and
+ * for all i: integer, x: K
+ *     where (0 <= i  and  i < $this.hashTable.tableSize  and
+ *            x is in DOMAIN(BUCKET($this.hashTable, i)))
+ *   (HASH(x) mod $this.hashTable.tableSize = i)  and
+ * if $this.oldTable /= null then
+ *   (IS_BUCKET_TABLE($this.oldTable)  and
+ *    0 <= $this.rehashIndex  and
+ *    $this.rehashIndex < $this.oldTable.tableSize  and
+ *    for all i: integer, x: K
+ *        where (0 <= i  and  i < $this.oldTable.tableSize  and
+ *               x is in DOMAIN(BUCKET($this.oldTable, i)))
+ *      (i >= $this.rehashIndex  and
+ *       HASH(x) mod $this.oldTable.tableSize = i)  and
+ *    for all x: K
+ *        where (x is in DOMAIN(ENTRIES($this.hashTable, 0)))
+ *      (HASH(x) mod $this.oldTable.tableSize < $this.rehashIndex))  and
+ * $this.size = |ENTRIES($this.hashTable, 0)| +
+ *   (if $this.oldTable = null then 0
+ *    else |ENTRIES($this.oldTable, $this.rehashIndex)|)
  * </pre>
  * @correspondence <pre>
- * this = union i: integer, pf: PARTIAL_FUNCTION
- *            where (0 <= i  and  i < |$this.hashTable.entries|  and
- *                   <pf> = $this.hashTable.entries[i, i+1))
- *          (pf)
+ * this = ENTRIES($this.hashTable, 0) union
+ *   (if $this.oldTable = null then {}
+ *    else ENTRIES($this.oldTable, $this.rehashIndex))
  * </pre>
  */
 public class Map4<K, V> extends MapSecondary<K, V> {
@@ -46,16 +97,70 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      */
     private static final int DEFAULT_HASH_TABLE_SIZE = 101;
 
+    /**
+     * Maximum average number of entries per bucket before the table grows.
+     */
+    private static final int MAX_LOAD_FACTOR = 2;
+
+    /**
+     * Number of old-table buckets moved to the new table on each
+     * {@code add}/{@code remove} while a rehash is in progress.
+     */
+    private static final int REHASH_STEP = 4;
+
+    /**
+     * Batches of at least 1 / {@code COUNTING_SORT_RATIO} as many keys as
+     * there are buckets are grouped by bucket with a counting sort.
+     */
+    private static final int COUNTING_SORT_RATIO = 4;
+
+    /**
+     * Initial capacity of the arrays that collect a batch of unknown size.
+     */
+    private static final int INITIAL_BATCH_CAPACITY = 16;
+
+    /**
+     * Default hash spreader.
+     */
+    private static final HashSpreader DEFAULT_SPREADER = HashSpreader.IDENTITY;
+
+    /**
+     * Spreader applied to every hash code before it is reduced to a bucket
+     * index.
+     */
+    private HashSpreader spreader;
+
     /**
      * Buckets for hashing.
      */
-    private Array<Map<K, V>> hashTable;
+    private BucketTable<K, V> hashTable;
+
+    /**
+     * Buckets of the table being rehashed into {@code hashTable}, or
+     * {@code null} if no rehash is in progress.
+     */
+    private BucketTable<K, V> oldTable;
+
+    /**
+     * Index of the next bucket of {@code oldTable} to be moved.
+     */
+    private int rehashIndex;
 
     /**
      * Total size of abstract {@code this}.
      */
     private int size;
 
+    /**
+     * Number of lookups performed since construction (or {@code clear}).
+     */
+    private long lookups;
+
+    /**
+     * Total number of bucket entries examined by those lookups.
+     */
+    private long probedEntries;
+
     /**
      * Computes {@code a} mod {@code b} as % should have been defined to work.
      *
@@ -79,6 +184,56 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         return result;
     }
 
+    /**
+     * Returns the indices {@code 0, 1, ..., count - 1} ordered by
+     * {@code bucketOf}, so that a batch of keys can be processed a bucket at a
+     * time. Large batches (relative to the table) are ordered with a counting
+     * sort, small ones by sorting only the batch.
+     *
+     * @param bucketOf
+     *            the bucket index of each key in the batch
+     * @param count
+     *            the number of keys in the batch
+     * @param tableSize
+     *            the number of buckets
+     * @return the batch indices in order of bucket index
+     * @requires <pre>
+     * 0 <= count <= |bucketOf|  and
+     * [every entry of bucketOf[0, count) is in [0, tableSize)]
+     * </pre>
+     * @ensures <pre>
+     * [bucketOrder is a permutation of <0, 1, ..., count - 1>]  and
+     * [bucketOf[bucketOrder[k]] <= bucketOf[bucketOrder[k + 1]] for all k]
+     * </pre>
+     */
+    private static int[] bucketOrder(int[] bucketOf, int count,
+            int tableSize) {
+        int[] order = new int[count];
+        if ((long) count * COUNTING_SORT_RATIO >= tableSize) {
+            int[] start = new int[tableSize + 1];
+            for (int j = 0; j < count; j++) {
+                start[bucketOf[j] + 1]++;
+            }
+            for (int i = 0; i < tableSize; i++) {
+                start[i + 1] += start[i];
+            }
+            for (int j = 0; j < count; j++) {
+                order[start[bucketOf[j]]] = j;
+                start[bucketOf[j]]++;
+            }
+        } else {
+            long[] packed = new long[count];
+            for (int j = 0; j < count; j++) {
+                packed[j] = ((long) bucketOf[j] << Integer.SIZE) | j;
+            }
+            Arrays.sort(packed);
+            for (int j = 0; j < count; j++) {
+                order[j] = (int) packed[j];
+            }
+        }
+        return order;
+    }
+
     /**
      * Creator of initial representation.
      *
@@ -86,20 +241,478 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      *            the size of the hash table
      * @requires hashTableSize > 0
      * @ensures <pre>
-     * |$this.hashTable.entries| = hashTableSize  and
-     * for all i: integer
-     *     where (0 <= i  and  i < |$this.hashTable.entries|)
-     *   ($this.hashTable.entries[i, i+1) = <{}>  and
-     *    i is in $this.hashTable.examinableIndices)  and
+     * $this.hashTable.tableSize = hashTableSize  and
+     * $this.hashTable.buckets = null  and
+     * $this.oldTable = null  and
      * $this.size = 0
      * </pre>
      */
     private void createNewRep(int hashTableSize) {
-        this.hashTable = new Array1L<Map<K, V>>(hashTableSize);
+        this.hashTable = new BucketTable<K, V>(hashTableSize);
+        this.oldTable = null;
+        this.rehashIndex = 0;
         this.size = 0;
-        for (int i = 0; i < hashTableSize; i++) {
-            this.hashTable.setEntry(i, new Map1L<K, V>());
+        this.lookups = 0;
+        this.probedEntries = 0;
+    }
+
+    /**
+     * Returns the spread hash code of {@code key}.
+     *
+     * @param key
+     *            the key
+     * @return HASH(key)
+     */
+    private int hash(K key) {
+        return this.spreader.spread(key.hashCode());
+    }
+
+    /**
+     * Records a lookup in bucket {@code i} of {@code table}.
+     *
+     * @param table
+     *            the table
+     * @param i
+     *            the bucket index
+     * @updates $this.lookups, $this.probedEntries
+     */
+    private void probe(BucketTable<K, V> table, int i) {
+        this.lookups++;
+        this.probedEntries += table.bucketSize(i);
+    }
+
+    /**
+     * Returns the number of entries in the longest bucket of {@code table} at
+     * or after index {@code from}.
+     *
+     * @param <K>
+     *            type of {@code Map} domain (key) entries
+     * @param <V>
+     *            type of {@code Map} range (associated value) entries
+     * @param table
+     *            the table
+     * @param from
+     *            the first bucket index considered
+     * @return the maximum chain length
+     */
+    private static <K, V> int maxChainLength(BucketTable<K, V> table,
+            int from) {
+        int max = 0;
+        int i = table.nextOccupied(from);
+        while (i >= 0) {
+            max = Math.max(max, table.bucketSize(i));
+            i = table.nextOccupied(i + 1);
+        }
+        return max;
+    }
+
+    /**
+     * Counts each non-empty bucket of {@code table} at or after index
+     * {@code from} into {@code histogram} by its length, taking it out of the
+     * count of empty buckets.
+     *
+     * @param <K>
+     *            type of {@code Map} domain (key) entries
+     * @param <V>
+     *            type of {@code Map} range (associated value) entries
+     * @param table
+     *            the table
+     * @param from
+     *            the first bucket index considered
+     * @param histogram
+     *            the histogram
+     * @updates histogram
+     * @requires |histogram| > maxChainLength(table, from)
+     */
+    private static <K, V> void countChains(BucketTable<K, V> table, int from,
+            int[] histogram) {
+        int i = table.nextOccupied(from);
+        while (i >= 0) {
+            histogram[table.bucketSize(i)]++;
+            histogram[0]--;
+            i = table.nextOccupied(i + 1);
+        }
+    }
+
+    /**
+     * Returns the table whose bucket holds (or would hold) a key with hash
+     * code {@code hash}, accounting for a rehash in progress.
+     *
+     * @param hash
+     *            the hash code of the key
+     * @return the table for the key
+     * @ensures <pre>
+     * [tableFor is where the convention requires a key with hash code hash to
+     *  be, in bucket hash mod tableFor.tableSize]
+     * </pre>
+     */
+    private BucketTable<K, V> tableFor(int hash) {
+        BucketTable<K, V> table = this.hashTable;
+        if (this.oldTable != null
+                && mod(hash, this.oldTable.length()) >= this.rehashIndex) {
+            table = this.oldTable;
+        }
+        return table;
+    }
+
+    /**
+     * Moves up to {@code REHASH_STEP} non-empty buckets of
+     * {@code $this.oldTable} into {@code $this.hashTable}, ending the rehash
+     * when the old table is empty.
+     *
+     * @updates $this
+     * @ensures this = #this
+     */
+    private void rehashStep() {
+        int moved = 0;
+        while (this.oldTable != null && moved < REHASH_STEP) {
+            int i = this.oldTable.nextOccupied(this.rehashIndex);
+            if (i < 0) {
+                this.oldTable = null;
+                this.rehashIndex = 0;
+            } else {
+                while (this.oldTable.bucketSize(i) > 0) {
+                    Pair<K, V> p = this.oldTable.removeAny(i);
+                    this.hashTable.add(
+                            mod(this.hash(p.key()), this.hashTable.length()),
+                            p.key(), p.value());
+                }
+                this.rehashIndex = i + 1;
+                moved++;
+                if (this.rehashIndex == this.oldTable.length()) {
+                    this.oldTable = null;
+                    this.rehashIndex = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts growing the table if the load factor has exceeded
+     * {@code MAX_LOAD_FACTOR}. Any rehash still in progress is finished
+     * first.
+     *
+     * @updates $this
+     * @ensures this = #this
+     */
+    private void growIfNeeded() {
+        if (this.size > MAX_LOAD_FACTOR * this.hashTable.length()) {
+            this.finishRehash();
+            this.oldTable = this.hashTable;
+            this.rehashIndex = 0;
+            this.hashTable = new BucketTable<K, V>(
+                    2 * this.oldTable.length() + 1);
+        }
+    }
+
+    /**
+     * Moves every remaining bucket of {@code $this.oldTable} into
+     * {@code $this.hashTable}.
+     *
+     * @updates $this
+     * @ensures this = #this  and  $this.oldTable = null
+     */
+    private void finishRehash() {
+        while (this.oldTable != null) {
+            this.rehashStep();
+        }
+    }
+
+    /**
+     * Makes the table large enough to hold {@code expectedSize} entries
+     * without growing, and finishes any rehash in progress, so that all
+     * entries are in {@code $this.hashTable}.
+     *
+     * @param expectedSize
+     *            the number of entries the table should be able to hold
+     * @updates $this
+     * @ensures <pre>
+     * this = #this  and  $this.oldTable = null  and
+     * expectedSize <= MAX_LOAD_FACTOR * $this.hashTable.tableSize
+     * </pre>
+     */
+    private void presize(int expectedSize) {
+        this.finishRehash();
+        long needed = ((long) expectedSize + MAX_LOAD_FACTOR - 1)
+                / MAX_LOAD_FACTOR;
+        if (needed > this.hashTable.length()) {
+            /*
+             * Odd sizes, like those growIfNeeded picks, spread keys whose hash
+             * codes share a factor of 2 better than even ones
+             */
+            int newSize = (int) Math.min(needed | 1, Integer.MAX_VALUE);
+            this.oldTable = this.hashTable;
+            this.rehashIndex = 0;
+            this.hashTable = new BucketTable<K, V>(newSize);
+            this.finishRehash();
+        }
+    }
+
+    /**
+     * Adds the first {@code count} pairs ({@code keys[i]}, {@code values[i]})
+     * to {@code this}, bucket by bucket: the pairs are first sorted by bucket
+     * index, so each bucket is filled in one visit.
+     *
+     * @param keys
+     *            the keys to add
+     * @param values
+     *            the corresponding values
+     * @param count
+     *            the number of pairs to add
+     * @param checkKeys
+     *            whether to check (when assertions are enabled) that each key
+     *            is not in {@code this} already
+     * @updates this
+     * @requires <pre>
+     * 0 <= count <= |keys| = |values|  and
+     * [keys[0, count) are distinct and not null]  and
+     * [values[0, count) are not null]  and
+     * [no key in keys[0, count) is in DOMAIN(this)]
+     * </pre>
+     * @ensures this = #this union [the pairs (keys[i], values[i])]
+     */
+    private void addBatch(K[] keys, V[] values, int count,
+            boolean checkKeys) {
+        this.presize(this.size + count);
+        BucketTable<K, V> table = this.hashTable;
+        int tableSize = table.length();
+        int[] bucketOf = new int[count];
+        for (int j = 0; j < count; j++) {
+            bucketOf[j] = mod(this.hash(keys[j]), tableSize);
+        }
+        for (int j : bucketOrder(bucketOf, count, tableSize)) {
+            assert !checkKeys || !table.hasKey(bucketOf[j], keys[j]) : ""
+                    + "Violation of: keys are distinct and not in DOMAIN(this)";
+            table.add(bucketOf[j], keys[j], values[j]);
+        }
+        this.size += count;
+    }
+
+    /**
+     * Array of buckets together with a bitmap recording which buckets are
+     * non-empty. The array and bitmap are allocated by the first {@code add},
+     * and each bucket by the first {@code add} to it.
+     *
+     * @param <K>
+     *            type of {@code Map} domain (key) entries
+     * @param <V>
+     *            type of {@code Map} range (associated value) entries
+     */
+    private static final class BucketTable<K, V> {
+
+        /**
+         * Number of bits in each word of {@code occupied}.
+         */
+        private static final int WORD_BITS = 64;
+
+        /**
+         * Shift that converts a bucket index into a word index.
+         */
+        private static final int WORD_SHIFT = 6;
+
+        /**
+         * Number of buckets.
+         */
+        private final int tableSize;
+
+        /**
+         * The buckets, or {@code null} if nothing has been added yet.
+         */
+        private Array<Map<K, V>> buckets;
+
+        /**
+         * Bit i is set iff bucket i is non-empty; {@code null} if nothing has
+         * been added yet.
+         */
+        private long[] occupied;
+
+        /**
+         * No bucket below this index is non-empty.
+         */
+        private int lowestOccupied;
+
+        /**
+         * Constructor resulting in {@code tableSize} empty buckets. Allocates
+         * nothing per bucket.
+         *
+         * @param tableSize
+         *            the number of buckets
+         * @requires tableSize > 0
+         */
+        private BucketTable(int tableSize) {
+            this.tableSize = tableSize;
+            this.buckets = null;
+            this.occupied = null;
+            this.lowestOccupied = tableSize;
+        }
+
+        /**
+         * Reports the number of buckets.
+         *
+         * @return the number of buckets
+         */
+        private int length() {
+            return this.tableSize;
+        }
+
+        /**
+         * Reports whether bucket {@code i} is non-empty.
+         *
+         * @param i
+         *            the bucket index
+         * @return true iff bucket i /= {}
+         * @requires 0 <= i < this.tableSize
+         */
+        private boolean isOccupied(int i) {
+            return this.occupied != null
+                    && (this.occupied[i >>> WORD_SHIFT] & (1L << i)) != 0;
+        }
+
+        /**
+         * Reports the number of entries in bucket {@code i}.
+         *
+         * @param i
+         *            the bucket index
+         * @return |bucket i|
+         * @requires 0 <= i < this.tableSize
+         */
+        private int bucketSize(int i) {
+            int result = 0;
+            if (this.isOccupied(i)) {
+                result = this.buckets.entry(i).size();
+            }
+            return result;
+        }
+
+        /**
+         * Returns bucket {@code i}.
+         *
+         * @param i
+         *            the bucket index
+         * @return the bucket
+         * @requires 0 <= i < this.tableSize  and  bucket i /= {}
+         */
+        private Map<K, V> bucket(int i) {
+            assert this.isOccupied(i) : "Violation of: bucket i /= {}";
+            return this.buckets.entry(i);
         }
+
+        /**
+         * Reports whether {@code key} is in bucket {@code i}.
+         *
+         * @param i
+         *            the bucket index
+         * @param key
+         *            the key
+         * @return true iff key is in DOMAIN(bucket i)
+         * @requires 0 <= i < this.tableSize
+         */
+        private boolean hasKey(int i, K key) {
+            return this.isOccupied(i) && this.buckets.entry(i).hasKey(key);
+        }
+
+        /**
+         * Adds {@code (key, value)} to bucket {@code i}.
+         *
+         * @param i
+         *            the bucket index
+         * @param key
+         *            the key
+         * @param value
+         *            the value
+         * @requires key is not in DOMAIN(bucket i)
+         */
+        private void add(int i, K key, V value) {
+            if (this.buckets == null) {
+                this.buckets = new Array1L<Map<K, V>>(this.tableSize);
+                this.occupied = new long[(this.tableSize + WORD_BITS - 1)
+                        >>> WORD_SHIFT];
+            }
+            if (!this.buckets.mayBeExamined(i)) {
+                this.buckets.setEntry(i, new Map1L<K, V>());
+            }
+            this.buckets.entry(i).add(key, value);
+            this.occupied[i >>> WORD_SHIFT] |= 1L << i;
+            if (i < this.lowestOccupied) {
+                this.lowestOccupied = i;
+            }
+        }
+
+        /**
+         * Removes {@code key} from bucket {@code i}.
+         *
+         * @param i
+         *            the bucket index
+         * @param key
+         *            the key
+         * @return the removed pair
+         * @requires key is in DOMAIN(bucket i)
+         */
+        private Pair<K, V> remove(int i, K key) {
+            Map<K, V> bucket = this.bucket(i);
+            Pair<K, V> removed = bucket.remove(key);
+            if (bucket.size() == 0) {
+                this.occupied[i >>> WORD_SHIFT] &= ~(1L << i);
+            }
+            return removed;
+        }
+
+        /**
+         * Removes an arbitrary pair from bucket {@code i}.
+         *
+         * @param i
+         *            the bucket index
+         * @return the removed pair
+         * @requires bucket i /= {}
+         */
+        private Pair<K, V> removeAny(int i) {
+            Map<K, V> bucket = this.bucket(i);
+            Pair<K, V> removed = bucket.removeAny();
+            if (bucket.size() == 0) {
+                this.occupied[i >>> WORD_SHIFT] &= ~(1L << i);
+            }
+            return removed;
+        }
+
+        /**
+         * Returns the index of the first non-empty bucket at or after
+         * {@code from}, or -1 if there is none. Scans the bitmap one word
+         * (64 buckets) at a time.
+         *
+         * @param from
+         *            the index at which to start looking
+         * @return the index of the next non-empty bucket, or -1
+         * @requires from >= 0
+         */
+        private int nextOccupied(int from) {
+            int i = Math.max(from, this.lowestOccupied);
+            int result = -1;
+            if (i < this.tableSize) {
+                int w = i >>> WORD_SHIFT;
+                long word = this.occupied[w] & (-1L << i);
+                while (word == 0 && w + 1 < this.occupied.length) {
+                    w++;
+                    word = this.occupied[w];
+                }
+                if (word != 0) {
+                    result = (w << WORD_SHIFT)
+                            + Long.numberOfTrailingZeros(word);
+                }
+            }
+            if (from <= this.lowestOccupied) {
+                /*
+                 * Nothing below result is occupied, so remember where to start
+                 * next time; this keeps draining amortized O(1) per element
+                 */
+                if (result < 0) {
+                    this.lowestOccupied = this.tableSize;
+                } else {
+                    this.lowestOccupied = result;
+                }
+            }
+            return result;
+        }
+
     }
 
     /*
@@ -110,6 +723,7 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      * No-argument constructor.
      */
     public Map4() {
+        this.spreader = DEFAULT_SPREADER;
         this.createNewRep(DEFAULT_HASH_TABLE_SIZE);
 
     }
@@ -123,9 +737,42 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      * @ensures this = {}
      */
     public Map4(int hashTableSize) {
+        this.spreader = DEFAULT_SPREADER;
         this.createNewRep(hashTableSize);
     }
 
+    /**
+     * Constructor resulting in a hash table of size {@code hashTableSize} that
+     * remixes hash codes with {@code spreader}.
+     *
+     * @param hashTableSize
+     *            size of hash table
+     * @param spreader
+     *            the hash spreader
+     * @requires hashTableSize > 0
+     * @ensures this = {}
+     */
+    public Map4(int hashTableSize, HashSpreader spreader) {
+        assert spreader != null : "Violation of: spreader is not null";
+        this.spreader = spreader;
+        this.createNewRep(hashTableSize);
+    }
+
+    /**
+     * Constructor resulting in a copy of {@code source}, with the hash table
+     * sized for it and filled bucket by bucket.
+     *
+     * @param source
+     *            the {@code Map} to copy
+     * @ensures this = source
+     */
+    public Map4(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        this.spreader = DEFAULT_SPREADER;
+        this.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+        this.addAll(source);
+    }
+
     /*
      * Standard methods -------------------------------------------------------
      */
@@ -134,7 +781,9 @@ public class Map4<K, V> extends MapSecondary<K, V> {
     @Override
     public final Map<K, V> newInstance() {
         try {
-            return this.getClass().newInstance();
+            return this.getClass()
+                    .getConstructor(int.class, HashSpreader.class)
+                    .newInstance(DEFAULT_HASH_TABLE_SIZE, this.spreader);
         } catch (ReflectiveOperationException e) {
             throw new AssertionError(
                     "Cannot construct object of type " + this.getClass());
@@ -158,8 +807,13 @@ public class Map4<K, V> extends MapSecondary<K, V> {
          * the ?,? must be K,V or the call would not have compiled.
          */
         Map4<K, V> localSource = (Map4<K, V>) source;
+        this.spreader = localSource.spreader;
         this.hashTable = localSource.hashTable;
+        this.oldTable = localSource.oldTable;
+        this.rehashIndex = localSource.rehashIndex;
         this.size = localSource.size;
+        this.lookups = localSource.lookups;
+        this.probedEntries = localSource.probedEntries;
         localSource.createNewRep(DEFAULT_HASH_TABLE_SIZE);
     }
 
@@ -172,46 +826,62 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         assert key != null : "Violation of: key is not null";
         assert value != null : "Violation of: value is not null";
         assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+        int hash = this.hash(key);
+        BucketTable<K, V> table = this.tableFor(hash);
+        int i = mod(hash, table.length());
+        this.probe(table, i);
         this.size++;
-        this.hashTable.entry(mod(key.hashCode(), this.hashTable.length()))
-                .add(key, value);
+        table.add(i, key, value);
+        this.growIfNeeded();
+        this.rehashStep();
     }
 
     @Override
     public final Pair<K, V> remove(K key) {
         assert key != null : "Violation of: key is not null";
         assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+        int hash = this.hash(key);
+        BucketTable<K, V> table = this.tableFor(hash);
+        int i = mod(hash, table.length());
+        this.probe(table, i);
         this.size--;
-        return this.hashTable
-                .entry(mod(key.hashCode(), this.hashTable.length()))
-                .remove(key);
+        Pair<K, V> removed = table.remove(i, key);
+        this.rehashStep();
+        return removed;
     }
 
     @Override
     public final Pair<K, V> removeAny() {
         assert this.size() > 0 : "Violation of: this /= empty_set";
         this.size--;
-        int i = 0;
-        while (this.hashTable.entry(i).size() == 0) {
-            i++;
+        if (this.oldTable != null) {
+            int i = this.oldTable.nextOccupied(this.rehashIndex);
+            if (i >= 0) {
+                return this.oldTable.removeAny(i);
+            }
         }
-        return this.hashTable.entry(i).removeAny();
+        return this.hashTable.removeAny(this.hashTable.nextOccupied(0));
     }
 
     @Override
     public final V value(K key) {
         assert key != null : "Violation of: key is not null";
         assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
-        return this.hashTable
-                .entry(mod(key.hashCode(), this.hashTable.length())).value(key);
+        int hash = this.hash(key);
+        BucketTable<K, V> table = this.tableFor(hash);
+        int i = mod(hash, table.length());
+        this.probe(table, i);
+        return table.bucket(i).value(key);
     }
 
     @Override
     public final boolean hasKey(K key) {
         assert key != null : "Violation of: key is not null";
-        return this.hashTable
-                .entry(mod(key.hashCode(), this.hashTable.length()))
-                .hasKey(key);
+        int hash = this.hash(key);
+        BucketTable<K, V> table = this.tableFor(hash);
+        int i = mod(hash, table.length());
+        this.probe(table, i);
+        return table.hasKey(i, key);
     }
 
     @Override
@@ -224,6 +894,150 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         return new Map4Iterator();
     }
 
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Adds every pair of {@code source} to {@code this}. The table is sized
+     * once for the combined size and filled bucket by bucket. Since the keys
+     * of a {@code Map} are distinct, no key is checked against the others
+     * (or, when {@code this} is empty, against {@code this} either), even
+     * with assertions enabled.
+     *
+     * @param source
+     *            the {@code Map} whose pairs are added
+     * @updates this
+     * @requires <pre>
+     * source is not this  and
+     * DOMAIN(this) intersection DOMAIN(source) = {}
+     * </pre>
+     * @ensures this = #this union source
+     */
+    @SuppressWarnings("unchecked")
+    public final void addAll(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        int count = source.size();
+        K[] keys = (K[]) new Object[count];
+        V[] values = (V[]) new Object[count];
+        int j = 0;
+        for (Pair<K, V> p : source) {
+            assert this.size == 0 || !this.hasKey(p.key()) : ""
+                    + "Violation of: DOMAIN(this) intersection DOMAIN(source)"
+                    + " = {}";
+            keys[j] = p.key();
+            values[j] = p.value();
+            j++;
+        }
+        this.addBatch(keys, values, count, false);
+    }
+
+    /**
+     * Adds every pair of {@code pairs} to {@code this}. The table is sized
+     * once for the combined size and filled bucket by bucket.
+     *
+     * @param pairs
+     *            the pairs to add
+     * @updates this
+     * @requires <pre>
+     * [the keys of pairs are distinct and not null]  and
+     * [the values of pairs are not null]  and
+     * [no key of pairs is in DOMAIN(this)]
+     * </pre>
+     * @ensures this = #this union [the pairs in pairs]
+     */
+    @SuppressWarnings("unchecked")
+    public final void addAll(Iterable<Pair<K, V>> pairs) {
+        assert pairs != null : "Violation of: pairs is not null";
+        K[] keys = (K[]) new Object[INITIAL_BATCH_CAPACITY];
+        V[] values = (V[]) new Object[INITIAL_BATCH_CAPACITY];
+        int count = 0;
+        for (Pair<K, V> p : pairs) {
+            assert p.key() != null : "Violation of: keys are not null";
+            assert p.value() != null : "Violation of: values are not null";
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, 2 * count);
+                values = Arrays.copyOf(values, 2 * count);
+            }
+            keys[count] = p.key();
+            values[count] = p.value();
+            count++;
+        }
+        this.addBatch(keys, values, count, true);
+    }
+
+    /**
+     * Removes the pair with each key in {@code keys} from {@code this}. The
+     * keys are grouped by bucket so each bucket is visited once.
+     *
+     * @param keys
+     *            the keys of the pairs to remove
+     * @updates this
+     * @requires [the entries of keys are distinct and in DOMAIN(this)]
+     * @ensures <pre>
+     * this = #this \ {(key, value): (K, V)
+     *   where (key is an entry of keys  and  (key, value) is in #this)}
+     * </pre>
+     */
+    public final void removeAll(Iterable<K> keys) {
+        assert keys != null : "Violation of: keys is not null";
+        this.finishRehash();
+        BucketTable<K, V> table = this.hashTable;
+        int tableSize = table.length();
+        Object[] batch = new Object[INITIAL_BATCH_CAPACITY];
+        int[] bucketOf = new int[INITIAL_BATCH_CAPACITY];
+        int count = 0;
+        for (K key : keys) {
+            assert key != null : "Violation of: keys are not null";
+            assert count < this.size : "Violation of: keys are distinct";
+            if (count == batch.length) {
+                batch = Arrays.copyOf(batch, 2 * count);
+                bucketOf = Arrays.copyOf(bucketOf, 2 * count);
+            }
+            batch[count] = key;
+            bucketOf[count] = mod(this.hash(key), tableSize);
+            count++;
+        }
+        for (int j : bucketOrder(bucketOf, count, tableSize)) {
+            @SuppressWarnings("unchecked")
+            K key = (K) batch[j];
+            assert table.hasKey(bucketOf[j], key) : ""
+                    + "Violation of: keys are distinct and in DOMAIN(this)";
+            table.remove(bucketOf[j], key);
+        }
+        this.size -= count;
+    }
+
+    /**
+     * Reports how entries are distributed over the buckets of {@code this} and
+     * how many entries lookups have examined. Lookups made by assertion checks
+     * are counted too.
+     *
+     * @return a snapshot of the hash table statistics
+     * @ensures <pre>
+     * stats.size = |this|  and
+     * [stats histogram counts the live buckets by number of entries]
+     * </pre>
+     */
+    public final HashTableStats stats() {
+        int liveBuckets = this.hashTable.length();
+        int maxLength = maxChainLength(this.hashTable, 0);
+        if (this.oldTable != null) {
+            liveBuckets += this.oldTable.length() - this.rehashIndex;
+            maxLength = Math.max(maxLength,
+                    maxChainLength(this.oldTable, this.rehashIndex));
+        }
+        int[] histogram = new int[maxLength + 1];
+        histogram[0] = liveBuckets;
+        countChains(this.hashTable, 0, histogram);
+        if (this.oldTable != null) {
+            countChains(this.oldTable, this.rehashIndex, histogram);
+        }
+        return new HashTableStats(this.size, liveBuckets, histogram,
+                this.lookups, this.probedEntries);
+    }
+
     /**
      * Implementation of {@code Iterator} interface for {@code Map4}.
      */
@@ -234,6 +1048,11 @@ public class Map4<K, V> extends MapSecondary<K, V> {
          */
         private int numberSeen;
 
+        /**
+         * Table from which current bucket iterator comes.
+         */
+        private BucketTable<K, V> currentTable;
+
         /**
          * Bucket from which current bucket iterator comes.
          */
@@ -249,8 +1068,14 @@ public class Map4<K, V> extends MapSecondary<K, V> {
          */
         public Map4Iterator() {
             this.numberSeen = 0;
-            this.currentBucket = 0;
-            this.bucketIterator = Map4.this.hashTable.entry(0).iterator();
+            if (Map4.this.oldTable != null) {
+                this.currentTable = Map4.this.oldTable;
+                this.currentBucket = Map4.this.rehashIndex - 1;
+            } else {
+                this.currentTable = Map4.this.hashTable;
+                this.currentBucket = -1;
+            }
+            this.bucketIterator = null;
         }
 
         @Override
@@ -270,13 +1095,20 @@ public class Map4<K, V> extends MapSecondary<K, V> {
                 throw new NoSuchElementException();
             }
             this.numberSeen++;
-            if (this.bucketIterator.hasNext()) {
-                return this.bucketIterator.next();
-            }
-            while (!this.bucketIterator.hasNext()) {
-                this.currentBucket++;
-                this.bucketIterator = Map4.this.hashTable
-                        .entry(this.currentBucket).iterator();
+            while (this.bucketIterator == null
+                    || !this.bucketIterator.hasNext()) {
+                int next = this.currentTable
+                        .nextOccupied(this.currentBucket + 1);
+                if (next < 0) {
+                    /*
+                     * Only the old table can run out before every element has
+                     * been seen; the rest are in the current table
+                     */
+                    this.currentTable = Map4.this.hashTable;
+                    next = this.currentTable.nextOccupied(0);
+                }
+                this.currentBucket = next;
+                this.bucketIterator = this.currentTable.bucket(next).iterator();
             }
             return this.bucketIterator.next();
         }
@@ -0,0 +1,164 @@
+import java.util.ArrayList;
+import java.util.List;
+
+import components.map.Map;
+import components.map.Map.Pair;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to time loading a {@code Map4} from a snapshot one {@code add} at a
+ * time against the bulk operations {@code addAll} (from a {@code Map} and
+ * from a list of pairs), and removing half of it one {@code remove} at a time
+ * against {@code removeAll}.
+ *
+ * <p>
+ * Usage: {@code Map4BulkLoadBenchmark [size]}, where {@code size} is the
+ * number of entries (default 1,000,000). Results are printed as tab-separated
+ * lines: method, entries, total ms, ns per entry. Run without {@code -ea}, or
+ * the precondition checks are timed too.
+ *
+ * @author Put your name here
+ */
+public final class Map4BulkLoadBenchmark {
+
+    /**
+     * Default number of entries.
+     */
+    private static final int DEFAULT_SIZE = 1000000;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private Map4BulkLoadBenchmark() {
+    }
+
+    /**
+     * Requests garbage collection, so that collecting the garbage left by one
+     * measurement is not charged to the next.
+     */
+    private static void settle() {
+        System.gc();
+    }
+
+    /**
+     * Outputs one result line.
+     *
+     * @param out
+     *            the output stream
+     * @param method
+     *            the method being measured
+     * @param entries
+     *            the number of entries processed
+     * @param nanos
+     *            the elapsed time in nanoseconds
+     * @updates out.content
+     * @requires out.is_open and entries > 0
+     */
+    private static void report(SimpleWriter out, String method, int entries,
+            long nanos) {
+        out.println(method + "\t" + entries + "\t"
+                + String.format("%.1f", nanos / NANOS_PER_MILLI) + "\t"
+                + String.format("%.1f", (double) nanos / entries));
+    }
+
+    /**
+     * Times each way of loading and unloading {@code snapshot} and outputs
+     * the results.
+     *
+     * @param out
+     *            the output stream
+     * @param snapshot
+     *            the entries to load
+     * @param pairs
+     *            the same entries, as a list of pairs
+     * @param half
+     *            the keys of half of the entries
+     * @updates out.content
+     * @requires out.is_open and |snapshot| > 0 and |half| > 0
+     */
+    private static void time(SimpleWriter out, Map<Integer, Integer> snapshot,
+            List<Pair<Integer, Integer>> pairs, List<Integer> half) {
+        int size = snapshot.size();
+
+        settle();
+        long start = System.nanoTime();
+        Map4<Integer, Integer> byAdd = new Map4<>();
+        for (Pair<Integer, Integer> p : snapshot) {
+            byAdd.add(p.key(), p.value());
+        }
+        report(out, "add loop", size, System.nanoTime() - start);
+
+        settle();
+        start = System.nanoTime();
+        Map4<Integer, Integer> byMap = new Map4<>();
+        byMap.addAll(snapshot);
+        report(out, "addAll(Map)", size, System.nanoTime() - start);
+
+        settle();
+        start = System.nanoTime();
+        Map4<Integer, Integer> byPairs = new Map4<>();
+        byPairs.addAll(pairs);
+        report(out, "addAll(Iterable)", size, System.nanoTime() - start);
+
+        settle();
+        start = System.nanoTime();
+        for (Integer key : half) {
+            byAdd.remove(key);
+        }
+        report(out, "remove loop", half.size(), System.nanoTime() - start);
+
+        settle();
+        start = System.nanoTime();
+        byMap.removeAll(half);
+        report(out, "removeAll", half.size(), System.nanoTime() - start);
+
+        if (byAdd.size() != byMap.size() || byPairs.size() != size) {
+            throw new IllegalStateException("Sizes differ");
+        }
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: [size]
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int size = DEFAULT_SIZE;
+        if (args.length > 0) {
+            size = Integer.parseInt(args[0]);
+        }
+        /*
+         * Scattered keys, as in a real snapshot
+         */
+        Map<Integer, Integer> snapshot = new Map4<>();
+        List<Pair<Integer, Integer>> pairs = new ArrayList<>();
+        List<Integer> half = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Integer key = i * 0x9E3779B1;
+            snapshot.add(key, i);
+            if (i % 2 == 0) {
+                half.add(key);
+            }
+        }
+        for (Pair<Integer, Integer> p : snapshot) {
+            pairs.add(p);
+        }
+        out.println("method\tentries\tms\tns/entry");
+        /*
+         * First round warms up the JIT; only the second is meaningful
+         */
+        time(out, snapshot, pairs, half);
+        out.println();
+        time(out, snapshot, pairs, half);
+        out.close();
+    }
+
+}
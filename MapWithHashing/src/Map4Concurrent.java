@@ -0,0 +1,638 @@
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} represented as a hash table using the {@code Map4} bucket layout,
+ * safe for use by many threads at once, with implementations of primary
+ * methods.
+ *
+ * <p>
+ * Each bucket is an immutable linked chain whose head is published through an
+ * {@code AtomicReferenceArray}, so {@code value} and {@code hasKey} never lock:
+ * they see either the chain before or the chain after any concurrent update.
+ * Updates lock only the stripe that owns the bucket (bucket index mod
+ * {@code STRIPES}) and replace the chain (copying the nodes in front of a
+ * removed one). When the load factor exceeds {@code MAX_LOAD_FACTOR} the
+ * table is rebuilt with every stripe locked; readers keep using the old
+ * table's chains until the new table is published.
+ *
+ * <p>
+ * The number of buckets is always a power of 2 times {@code STRIPES}, so the
+ * bucket index, and the stripe, are the low bits of the hash. Hash codes
+ * therefore pass through a {@code HashSpreader} ({@code MURMUR} unless
+ * another is chosen at construction) so that keys whose hash codes differ
+ * only in their high bits, such as multiples of a power of 2, are still
+ * spread over all buckets and stripes.
+ *
+ * <p>
+ * The kernel preconditions (for example, {@code key is not in DOMAIN(this)}
+ * for {@code add}) are the caller's responsibility; when several threads
+ * share keys they must coordinate so that the preconditions still hold when
+ * each call is made. {@code transferFrom} and {@code newInstance} are not
+ * thread-safe; {@code clear} is. Iterators are weakly consistent: they never
+ * fail, and they reflect each bucket as it was when they reached it.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @mathdefinitions <pre>
+ * HASH (
+ *   x: K
+ *  ) : integer is
+ *  [computed result of $this.spreader.spread(x.hashCode())]
+ * </pre>
+ * @convention <pre>
+ * [|$this.table| is a power of 2 times STRIPES]  and
+ * for all i: integer, x: K
+ *     where (0 <= i  and  i < |$this.table|  and
+ *            x is a key of a node in chain $this.table[i])
+ *   (HASH(x) mod |$this.table| = i)  and
+ * [no key appears in more than one node of $this.table]  and
+ * $this.count = [total number of nodes in the chains of $this.table]
+ *   (whenever no update is in progress)
+ * </pre>
+ * @correspondence <pre>
+ * this = {(key, value): (K, V)
+ *          where ((key, value) is a node in some chain of $this.table)}
+ * </pre>
+ */
+public class Map4Concurrent<K, V> extends MapSecondary<K, V> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Number of lock stripes.
+     */
+    private static final int STRIPES = 64;
+
+    /**
+     * Default number of buckets (a power of 2 times {@code STRIPES}).
+     */
+    private static final int DEFAULT_HASH_TABLE_SIZE = 2 * STRIPES;
+
+    /**
+     * Maximum average number of entries per bucket before the table grows.
+     */
+    private static final int MAX_LOAD_FACTOR = 2;
+
+    /**
+     * Default hash spreader.
+     */
+    private static final HashSpreader DEFAULT_SPREADER = HashSpreader.MURMUR;
+
+    /**
+     * Immutable node of a bucket chain.
+     *
+     * @param <K>
+     *            type of key
+     * @param <V>
+     *            type of value
+     */
+    private static final class Node<K, V> implements Pair<K, V> {
+
+        /**
+         * Key.
+         */
+        private final K key;
+
+        /**
+         * Value.
+         */
+        private final V value;
+
+        /**
+         * Rest of the chain, or {@code null}.
+         */
+        private final Node<K, V> next;
+
+        /**
+         * Constructor from fields.
+         *
+         * @param key
+         *            the key
+         * @param value
+         *            the value
+         * @param next
+         *            the rest of the chain
+         */
+        private Node(K key, V value, Node<K, V> next) {
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+        @Override
+        public K key() {
+            return this.key;
+        }
+
+        @Override
+        public V value() {
+            return this.value;
+        }
+
+    }
+
+    /**
+     * Spreader applied to every hash code before it is reduced to a bucket
+     * index.
+     */
+    private HashSpreader spreader;
+
+    /**
+     * Buckets; replaced (never modified in place) when the table grows.
+     */
+    private volatile AtomicReferenceArray<Node<K, V>> table;
+
+    /**
+     * Lock stripes; stripe s guards every bucket i with i mod STRIPES = s.
+     */
+    private final ReentrantLock[] locks;
+
+    /**
+     * Total size of abstract {@code this}.
+     */
+    private final AtomicInteger count;
+
+    /**
+     * Bucket at which the next {@code removeAny} starts looking.
+     */
+    private final AtomicInteger anyCursor;
+
+    /**
+     * Computes {@code a} mod {@code b} as % should have been defined to work.
+     *
+     * @param a
+     *            the number being reduced
+     * @param b
+     *            the modulus
+     * @return the result of a mod b, which satisfies 0 <= {@code mod} < b
+     * @requires b > 0
+     * @ensures <pre>
+     * 0 <= mod  and  mod < b  and
+     * there exists k: integer (a = k * b + mod)
+     * </pre>
+     */
+    private static int mod(int a, int b) {
+        assert b > 0 : "Violation of: b > 0";
+        int result = a % b;
+        if (result < 0) {
+            result = result + b;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the node with key {@code key} in {@code chain}, or {@code null}.
+     *
+     * @param <K>
+     *            type of key
+     * @param <V>
+     *            type of value
+     * @param chain
+     *            the chain to search
+     * @param key
+     *            the key to search for
+     * @return the node holding {@code key}, or {@code null}
+     */
+    private static <K, V> Node<K, V> find(Node<K, V> chain, K key) {
+        Node<K, V> n = chain;
+        while (n != null && !n.key.equals(key)) {
+            n = n.next;
+        }
+        return n;
+    }
+
+    /**
+     * Returns {@code chain} without {@code target}, copying the nodes that
+     * precede {@code target} and sharing the ones that follow it.
+     *
+     * @param <K>
+     *            type of key
+     * @param <V>
+     *            type of value
+     * @param chain
+     *            the chain
+     * @param target
+     *            the node to leave out
+     * @return the new chain
+     * @requires target is a node of chain
+     */
+    private static <K, V> Node<K, V> without(Node<K, V> chain,
+            Node<K, V> target) {
+        /*
+         * Copy the nodes in front of target from the last one back, without
+         * recursion, so a long chain cannot overflow the stack while a stripe
+         * is locked
+         */
+        Deque<Node<K, V>> front = new ArrayDeque<>();
+        for (Node<K, V> n = chain; n != target; n = n.next) {
+            front.push(n);
+        }
+        Node<K, V> result = target.next;
+        while (!front.isEmpty()) {
+            Node<K, V> n = front.pop();
+            result = new Node<K, V>(n.key, n.value, result);
+        }
+        return result;
+    }
+
+    /**
+     * Rounds {@code n} up to a power of 2 times {@code STRIPES}, so that
+     * doubling the table keeps every bucket in its stripe.
+     *
+     * @param n
+     *            the requested number of buckets
+     * @return the rounded number of buckets
+     */
+    private static int roundToStripes(int n) {
+        int size = STRIPES;
+        while (size < n && size <= Integer.MAX_VALUE / 2) {
+            size *= 2;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the spread hash code of {@code key}.
+     *
+     * @param key
+     *            the key
+     * @return HASH(key)
+     */
+    private int hash(K key) {
+        return this.spreader.spread(key.hashCode());
+    }
+
+    /**
+     * Acquires every stripe lock, in order.
+     */
+    private void lockAll() {
+        for (ReentrantLock lock : this.locks) {
+            lock.lock();
+        }
+    }
+
+    /**
+     * Releases every stripe lock.
+     */
+    private void unlockAll() {
+        for (int s = this.locks.length - 1; s >= 0; s--) {
+            this.locks[s].unlock();
+        }
+    }
+
+    /**
+     * Locks the stripe that owns the bucket for {@code hash} in the current
+     * table, retrying if the table is replaced in the meantime, and returns
+     * the table that is then safe to update.
+     *
+     * @param hash
+     *            the spread hash code of the key
+     * @return the current table, whose bucket for {@code hash} is locked
+     */
+    private AtomicReferenceArray<Node<K, V>> lockBucket(int hash) {
+        AtomicReferenceArray<Node<K, V>> t = this.table;
+        ReentrantLock lock = this.locks[mod(hash, t.length()) % STRIPES];
+        lock.lock();
+        while (t != this.table) {
+            lock.unlock();
+            t = this.table;
+            lock = this.locks[mod(hash, t.length()) % STRIPES];
+            lock.lock();
+        }
+        return t;
+    }
+
+    /**
+     * Releases the lock taken by {@code lockBucket(hash)} on {@code t}.
+     *
+     * @param t
+     *            the table returned by {@code lockBucket}
+     * @param hash
+     *            the spread hash code of the key
+     */
+    private void unlockBucket(AtomicReferenceArray<Node<K, V>> t, int hash) {
+        this.locks[mod(hash, t.length()) % STRIPES].unlock();
+    }
+
+    /**
+     * Doubles the number of buckets if the load factor has exceeded
+     * {@code MAX_LOAD_FACTOR}. Runs with every stripe locked.
+     */
+    private void growIfNeeded() {
+        if (this.count.get() > MAX_LOAD_FACTOR * this.table.length()) {
+            this.lockAll();
+            try {
+                AtomicReferenceArray<Node<K, V>> old = this.table;
+                if (this.count.get() > MAX_LOAD_FACTOR * old.length()) {
+                    AtomicReferenceArray<Node<K, V>> grown;
+                    grown = new AtomicReferenceArray<>(2 * old.length());
+                    for (int i = 0; i < old.length(); i++) {
+                        Node<K, V> n = old.get(i);
+                        while (n != null) {
+                            int j = mod(this.hash(n.key), grown.length());
+                            grown.set(j, new Node<K, V>(n.key, n.value,
+                                    grown.get(j)));
+                            n = n.next;
+                        }
+                    }
+                    this.table = grown;
+                }
+            } finally {
+                this.unlockAll();
+            }
+        }
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param hashTableSize
+     *            the number of buckets
+     * @requires [hashTableSize is a power of 2 times STRIPES]
+     * @ensures this = {}
+     */
+    private void createNewRep(int hashTableSize) {
+        this.table = new AtomicReferenceArray<Node<K, V>>(hashTableSize);
+        this.count.set(0);
+        this.anyCursor.set(0);
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Map4Concurrent() {
+        this(DEFAULT_HASH_TABLE_SIZE);
+    }
+
+    /**
+     * Constructor resulting in a hash table of at least {@code hashTableSize}
+     * buckets (rounded up to a power of 2 times the number of lock stripes).
+     *
+     * @param hashTableSize
+     *            size of hash table
+     * @requires hashTableSize > 0
+     * @ensures this = {}
+     */
+    public Map4Concurrent(int hashTableSize) {
+        this(hashTableSize, DEFAULT_SPREADER);
+    }
+
+    /**
+     * Constructor resulting in a hash table of at least {@code hashTableSize}
+     * buckets (rounded up to a power of 2 times the number of lock stripes)
+     * that remixes hash codes with {@code spreader}.
+     *
+     * @param hashTableSize
+     *            size of hash table
+     * @param spreader
+     *            the hash spreader
+     * @requires hashTableSize > 0
+     * @ensures this = {}
+     */
+    public Map4Concurrent(int hashTableSize, HashSpreader spreader) {
+        assert hashTableSize > 0 : "Violation of: hashTableSize > 0";
+        assert spreader != null : "Violation of: spreader is not null";
+        this.spreader = spreader;
+        this.locks = new ReentrantLock[STRIPES];
+        for (int s = 0; s < STRIPES; s++) {
+            this.locks[s] = new ReentrantLock();
+        }
+        this.count = new AtomicInteger();
+        this.anyCursor = new AtomicInteger();
+        this.createNewRep(roundToStripes(hashTableSize));
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            return this.getClass()
+                    .getConstructor(int.class, HashSpreader.class)
+                    .newInstance(DEFAULT_HASH_TABLE_SIZE, this.spreader);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.lockAll();
+        try {
+            this.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+        } finally {
+            this.unlockAll();
+        }
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Map4Concurrent<?, ?> : ""
+                + "Violation of: source is of dynamic type Map4Concurrent<?,?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * Map4Concurrent<?,?>, and the ?,? must be K,V or the call would not
+         * have compiled.
+         */
+        Map4Concurrent<K, V> localSource = (Map4Concurrent<K, V>) source;
+        this.spreader = localSource.spreader;
+        this.table = localSource.table;
+        this.count.set(localSource.count.get());
+        this.anyCursor.set(0);
+        localSource.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+        int hash = this.hash(key);
+        AtomicReferenceArray<Node<K, V>> t = this.lockBucket(hash);
+        try {
+            int i = mod(hash, t.length());
+            t.set(i, new Node<K, V>(key, value, t.get(i)));
+            this.count.incrementAndGet();
+        } finally {
+            this.unlockBucket(t, hash);
+        }
+        this.growIfNeeded();
+    }
+
+    @Override
+    public final Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+        int hash = this.hash(key);
+        AtomicReferenceArray<Node<K, V>> t = this.lockBucket(hash);
+        try {
+            int i = mod(hash, t.length());
+            Node<K, V> chain = t.get(i);
+            Node<K, V> target = find(chain, key);
+            t.set(i, without(chain, target));
+            this.count.decrementAndGet();
+            return target;
+        } finally {
+            this.unlockBucket(t, hash);
+        }
+    }
+
+    @Override
+    public final Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+        Node<K, V> removed = null;
+        while (removed == null) {
+            AtomicReferenceArray<Node<K, V>> t = this.table;
+            int i = mod(this.anyCursor.get(), t.length());
+            int scanned = 0;
+            while (t.get(i) == null && scanned < t.length()) {
+                i = (i + 1) % t.length();
+                scanned++;
+            }
+            ReentrantLock lock = this.locks[i % STRIPES];
+            lock.lock();
+            try {
+                Node<K, V> head = t.get(i);
+                /*
+                 * Another thread may have emptied the bucket or replaced the
+                 * table after the unlocked scan; if so, scan again
+                 */
+                if (t == this.table && head != null) {
+                    t.set(i, head.next);
+                    this.count.decrementAndGet();
+                    removed = head;
+                }
+            } finally {
+                lock.unlock();
+            }
+            this.anyCursor.set(i);
+        }
+        return removed;
+    }
+
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+        AtomicReferenceArray<Node<K, V>> t = this.table;
+        return find(t.get(mod(this.hash(key), t.length())), key).value;
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+        AtomicReferenceArray<Node<K, V>> t = this.table;
+        return find(t.get(mod(this.hash(key), t.length())), key) != null;
+    }
+
+    @Override
+    public final int size() {
+        return this.count.get();
+    }
+
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return new Map4ConcurrentIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Map4Concurrent}.
+     */
+    private final class Map4ConcurrentIterator implements Iterator<Pair<K, V>> {
+
+        /**
+         * Table being iterated over.
+         */
+        private final AtomicReferenceArray<Node<K, V>> iteratedTable;
+
+        /**
+         * Bucket from which {@code nextNode} comes.
+         */
+        private int currentBucket;
+
+        /**
+         * Node to be returned by the next call to {@code next}, or
+         * {@code null} if there is none.
+         */
+        private Node<K, V> nextNode;
+
+        /**
+         * No-argument constructor.
+         */
+        public Map4ConcurrentIterator() {
+            this.iteratedTable = Map4Concurrent.this.table;
+            this.currentBucket = -1;
+            this.nextNode = null;
+            this.advance();
+        }
+
+        /**
+         * Moves {@code nextNode} to the head of the next non-empty bucket.
+         */
+        private void advance() {
+            while (this.nextNode == null
+                    && this.currentBucket + 1 < this.iteratedTable.length()) {
+                this.currentBucket++;
+                this.nextNode = this.iteratedTable.get(this.currentBucket);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.nextNode != null;
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Node<K, V> result = this.nextNode;
+            this.nextNode = result.next;
+            this.advance();
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,197 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import components.map.Map;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to measure how the throughput of {@code Map4Concurrent} scales with
+ * the number of threads, compared with a single {@code Map4} guarded by one
+ * global lock.
+ *
+ * <p>
+ * Usage: {@code Map4ConcurrentBenchmark [maxThreads] [readPercent] [millis]}.
+ * Thread counts double from 1 up to {@code maxThreads} (default: number of
+ * available processors). Each thread performs {@code readPercent}% (default
+ * 90) {@code hasKey}/{@code value} calls on random keys and the rest
+ * {@code add}/{@code remove} calls on keys it owns, for {@code millis} ms
+ * (default 1000) per run. Results are printed as tab-separated lines:
+ * implementation, threads, operations, ops per second.
+ *
+ * @author Put your name here
+ */
+public final class Map4ConcurrentBenchmark {
+
+    /**
+     * Number of keys shared by all threads.
+     */
+    private static final int KEYS = 1 << 18;
+
+    /**
+     * Default percentage of reads.
+     */
+    private static final int DEFAULT_READ_PERCENT = 90;
+
+    /**
+     * Default duration of each run, in milliseconds.
+     */
+    private static final int DEFAULT_MILLIS = 1000;
+
+    /**
+     * Percentage scale.
+     */
+    private static final int PERCENT = 100;
+
+    /**
+     * Milliseconds per second.
+     */
+    private static final double MILLIS_PER_SECOND = 1000.0;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private Map4ConcurrentBenchmark() {
+    }
+
+    /**
+     * Runs the workload with {@code threads} threads on {@code m} for
+     * {@code millis} ms and returns the total number of operations.
+     *
+     * @param m
+     *            the map
+     * @param globalLock
+     *            if true, every call is made while holding the monitor of
+     *            {@code m}
+     * @param threads
+     *            the number of threads
+     * @param readPercent
+     *            the percentage of operations that are reads
+     * @param millis
+     *            the duration in milliseconds
+     * @return the number of operations completed
+     */
+    private static long run(final Map<Integer, Integer> m,
+            final boolean globalLock, int threads, final int readPercent,
+            final int millis) {
+        final AtomicLong total = new AtomicLong();
+        final long deadline = System.currentTimeMillis() + millis;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            /*
+             * Each thread adds and removes only keys congruent to its id mod
+             * threads, in the upper half of the key space, so the kernel
+             * preconditions always hold
+             */
+            final int id = t;
+            final int stride = threads;
+            workers.add(new Thread(() -> {
+                Random rnd = new Random(id);
+                long ops = 0;
+                int writeKey = KEYS + id;
+                while (System.currentTimeMillis() < deadline) {
+                    for (int i = 0; i < PERCENT; i++) {
+                        if (rnd.nextInt(PERCENT) < readPercent) {
+                            int k = rnd.nextInt(KEYS);
+                            if (globalLock) {
+                                synchronized (m) {
+                                    if (m.hasKey(k)) {
+                                        m.value(k);
+                                    }
+                                }
+                            } else if (m.hasKey(k)) {
+                                m.value(k);
+                            }
+                        } else {
+                            if (globalLock) {
+                                synchronized (m) {
+                                    m.add(writeKey, id);
+                                    m.remove(writeKey);
+                                }
+                            } else {
+                                m.add(writeKey, id);
+                                m.remove(writeKey);
+                            }
+                            writeKey += stride;
+                            if (writeKey >= 2 * KEYS) {
+                                writeKey = KEYS + id;
+                            }
+                        }
+                        ops++;
+                    }
+                }
+                total.addAndGet(ops);
+            }));
+        }
+        for (Thread w : workers) {
+            w.start();
+        }
+        for (Thread w : workers) {
+            try {
+                w.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return total.get();
+    }
+
+    /**
+     * Fills {@code m} with the shared keys.
+     *
+     * @param m
+     *            the map
+     * @updates m
+     * @requires m = {}
+     */
+    private static void fill(Map<Integer, Integer> m) {
+        for (int k = 0; k < KEYS; k++) {
+            m.add(k, k);
+        }
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: [maxThreads] [readPercent]
+     *            [millis]
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        int readPercent = DEFAULT_READ_PERCENT;
+        int millis = DEFAULT_MILLIS;
+        if (args.length > 0) {
+            maxThreads = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            readPercent = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            millis = Integer.parseInt(args[2]);
+        }
+        Map<Integer, Integer> striped = new Map4Concurrent<>();
+        fill(striped);
+        Map<Integer, Integer> locked = new Map4<>();
+        fill(locked);
+        /*
+         * Warm up the JIT on both before measuring
+         */
+        run(striped, false, maxThreads, readPercent, millis);
+        run(locked, true, maxThreads, readPercent, millis);
+        out.println("implementation\tthreads\tops\tops/s");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            long ops = run(striped, false, threads, readPercent, millis);
+            out.println("Map4Concurrent\t" + threads + "\t" + ops + "\t"
+                    + Math.round(ops * MILLIS_PER_SECOND / millis));
+            ops = run(locked, true, threads, readPercent, millis);
+            out.println("Map4+globalLock\t" + threads + "\t" + ops + "\t"
+                    + Math.round(ops * MILLIS_PER_SECOND / millis));
+        }
+        out.close();
+    }
+
+}
@@ -0,0 +1,157 @@
+import components.map.Map;
+import components.map.Map.Pair;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to time draining a large {@code Map4}, both densely (right after it
+ * is filled) and sparsely (after most entries have been removed again, so most
+ * buckets are empty), by {@code removeAny} and by iteration.
+ *
+ * <p>
+ * Usage: {@code Map4DrainBenchmark [size] [keep]}, where {@code size} is the
+ * number of entries (default 1,000,000) and {@code keep} is one in how many
+ * entries survive in the sparse case (default 100). Results are printed as
+ * tab-separated lines: case, operation, entries, total ms, ns per entry.
+ *
+ * @author Put your name here
+ */
+public final class Map4DrainBenchmark {
+
+    /**
+     * Default number of entries.
+     */
+    private static final int DEFAULT_SIZE = 1000000;
+
+    /**
+     * Default ratio of entries to surviving entries in the sparse case.
+     */
+    private static final int DEFAULT_KEEP = 100;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private Map4DrainBenchmark() {
+    }
+
+    /**
+     * Creates a {@code Map4} with keys {@code 0, 1, ..., size - 1}, then
+     * removes every key not divisible by {@code keep}.
+     *
+     * @param size
+     *            the number of keys added
+     * @param keep
+     *            one in how many keys to keep
+     * @return the map
+     * @requires size >= 0 and keep > 0
+     */
+    private static Map<Integer, Integer> build(int size, int keep) {
+        Map<Integer, Integer> m = new Map4<>();
+        for (int i = 0; i < size; i++) {
+            m.add(i, i);
+        }
+        for (int i = 0; i < size; i++) {
+            if (i % keep != 0) {
+                m.remove(i);
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Outputs one result line.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            the case being measured
+     * @param operation
+     *            the operation being measured
+     * @param entries
+     *            the number of entries processed
+     * @param nanos
+     *            the elapsed time in nanoseconds
+     * @updates out.content
+     * @requires out.is_open
+     */
+    private static void report(SimpleWriter out, String label,
+            String operation, int entries, long nanos) {
+        double perEntry = 0.0;
+        if (entries > 0) {
+            perEntry = (double) nanos / entries;
+        }
+        out.println(label + "\t" + operation + "\t" + entries + "\t"
+                + String.format("%.1f", nanos / NANOS_PER_MILLI) + "\t"
+                + String.format("%.1f", perEntry));
+    }
+
+    /**
+     * Times iterating over and then draining (with {@code removeAny}) the map
+     * built by {@code build(size, keep)}.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            the case being measured
+     * @param size
+     *            the number of keys added
+     * @param keep
+     *            one in how many keys to keep
+     * @updates out.content
+     * @requires out.is_open and size >= 0 and keep > 0
+     */
+    private static void time(SimpleWriter out, String label, int size,
+            int keep) {
+        Map<Integer, Integer> m = build(size, keep);
+        int entries = m.size();
+
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (Pair<Integer, Integer> p : m) {
+            checksum += p.value();
+        }
+        report(out, label, "iterate", entries, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        while (m.size() > 0) {
+            checksum -= m.removeAny().value();
+        }
+        report(out, label, "removeAny", entries, System.nanoTime() - start);
+        /*
+         * Use the checksum so the loops cannot be optimized away
+         */
+        assert checksum == 0 : "Violation of: every entry seen exactly once";
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: [size] [keep]
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int size = DEFAULT_SIZE;
+        int keep = DEFAULT_KEEP;
+        if (args.length > 0) {
+            size = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            keep = Integer.parseInt(args[1]);
+        }
+        out.println("case\toperation\tentries\tms\tns/entry");
+        /*
+         * First round warms up the JIT; only the second is meaningful
+         */
+        time(out, "warmup-dense", size, 1);
+        time(out, "dense", size, 1);
+        time(out, "sparse", size, keep);
+        out.close();
+    }
+
+}
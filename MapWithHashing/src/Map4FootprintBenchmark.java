@@ -0,0 +1,150 @@
+import components.map.Map;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to estimate the heap retained by an empty {@code Map4} and by a
+ * small one, and the time taken by {@code clear} on a map holding a single
+ * entry.
+ *
+ * <p>
+ * Usage: {@code Map4FootprintBenchmark [count] [small]}, where {@code count}
+ * is the number of maps kept alive per measurement (default 20,000) and
+ * {@code small} is the number of entries in each small map (default 4).
+ * Results are printed as tab-separated lines: case, maps, bytes per map; then
+ * case, nanoseconds per operation.
+ *
+ * <p>
+ * Retained size is taken as the growth in used heap (after requesting garbage
+ * collection) while {@code count} maps are reachable, so it is an estimate;
+ * run with a fixed heap (e.g., {@code -Xms1g -Xmx1g}) for stable numbers.
+ *
+ * @author Put your name here
+ */
+public final class Map4FootprintBenchmark {
+
+    /**
+     * Default number of maps per measurement.
+     */
+    private static final int DEFAULT_COUNT = 20000;
+
+    /**
+     * Default number of entries in a small map.
+     */
+    private static final int DEFAULT_SMALL = 4;
+
+    /**
+     * Number of times to repeat {@code clear} when timing it.
+     */
+    private static final int CLEARS = 100000;
+
+    /**
+     * Number of garbage collection requests made before reading the heap.
+     */
+    private static final int GC_ROUNDS = 4;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private Map4FootprintBenchmark() {
+    }
+
+    /**
+     * Returns the used heap, in bytes, after requesting garbage collection.
+     *
+     * @return the number of bytes in use
+     */
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    /**
+     * Returns the estimated heap retained per map by {@code count} maps, each
+     * holding keys {@code 0, 1, ..., entries - 1}.
+     *
+     * @param count
+     *            the number of maps
+     * @param entries
+     *            the number of entries in each map
+     * @return the number of bytes per map
+     * @requires count > 0 and entries >= 0
+     */
+    private static long bytesPerMap(int count, int entries) {
+        @SuppressWarnings("unchecked")
+        Map<Integer, Integer>[] maps = new Map[count];
+        long before = usedHeap();
+        for (int i = 0; i < count; i++) {
+            Map<Integer, Integer> m = new Map4<>();
+            for (int k = 0; k < entries; k++) {
+                m.add(k, k);
+            }
+            maps[i] = m;
+        }
+        long after = usedHeap();
+        /*
+         * Read every map after the second reading, so the maps stay reachable
+         * until then even with assertions disabled
+         */
+        long total = 0;
+        for (Map<Integer, Integer> m : maps) {
+            total += m.size();
+        }
+        if (total != (long) count * entries) {
+            throw new IllegalStateException("Maps hold " + total
+                    + " entries, expected " + (long) count * entries);
+        }
+        return (after - before) / count;
+    }
+
+    /**
+     * Returns the average time, in nanoseconds, of refilling a map with one
+     * entry and clearing it again.
+     *
+     * @return the number of nanoseconds per add/clear pair
+     */
+    private static long nanosPerClear() {
+        Map<Integer, Integer> m = new Map4<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < CLEARS; i++) {
+            m.add(i, i);
+            m.clear();
+        }
+        return (System.nanoTime() - start) / CLEARS;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: [count] [small]
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int count = DEFAULT_COUNT;
+        int small = DEFAULT_SMALL;
+        if (args.length > 0) {
+            count = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            small = Integer.parseInt(args[1]);
+        }
+        /*
+         * First round warms up the JIT and the heap; only the second counts
+         */
+        bytesPerMap(count, small);
+        nanosPerClear();
+        out.println("case\tmaps\tbytes/map");
+        out.println("empty\t" + count + "\t" + bytesPerMap(count, 0));
+        out.println("small-" + small + "\t" + count + "\t"
+                + bytesPerMap(count, small));
+        out.println();
+        out.println("case\tns/op");
+        out.println("add+clear\t" + nanosPerClear());
+        out.close();
+    }
+
+}
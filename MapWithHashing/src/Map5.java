@@ -0,0 +1,468 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} represented as an open-addressing hash table (linear probing)
+ * stored in parallel arrays of keys, values, and cached hash codes, with
+ * implementations of primary methods.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @mathdefinitions <pre>
+ * HOME (
+ *   h: integer,
+ *   n: integer
+ *  ) : integer is
+ *  [the slot at which probing starts for cached hash code h in a table of
+ *   n slots, i.e., h mod n]
+ *
+ * PROBE_DISTANCE (
+ *   i: integer,
+ *   h: integer,
+ *   n: integer
+ *  ) : integer is
+ *  (i - HOME(h, n)) mod n
+ * </pre>
+ * @convention <pre>
+ * |$this.keys| = |$this.values| = |$this.hashes|  and
+ * [|$this.keys| is a power of 2]  and
+ * $this.size < |$this.keys|  and
+ * $this.size = [number of i such that $this.keys[i] /= null]  and
+ * for all i: integer
+ *     where (0 <= i  and  i < |$this.keys|  and  $this.keys[i] /= null)
+ *   ($this.values[i] /= null  and
+ *    $this.hashes[i] =
+ *      [spread of computed result of $this.keys[i].hashCode()]  and
+ *    for all j: integer
+ *        where (0 < j  and
+ *               j <= PROBE_DISTANCE(i, $this.hashes[i], |$this.keys|))
+ *      ($this.keys[(i - j) mod |$this.keys|] /= null))  and
+ * [no two non-null entries of $this.keys are equal]
+ * </pre>
+ * @correspondence <pre>
+ * this = {(key, value): (K, V)
+ *          where (there exists i: integer
+ *                  (0 <= i  and  i < |$this.keys|  and
+ *                   $this.keys[i] = key  and  $this.values[i] = value))}
+ * </pre>
+ */
+public class Map5<K, V> extends MapSecondary<K, V> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default number of slots in the hash table.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Largest supported number of slots in the hash table.
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * Numerator of the maximum load factor (3/4) before the table doubles.
+     */
+    private static final int LOAD_NUMERATOR = 3;
+
+    /**
+     * Denominator of the maximum load factor (3/4) before the table doubles.
+     */
+    private static final int LOAD_DENOMINATOR = 4;
+
+    /**
+     * Keys, one per slot; {@code null} marks an empty slot.
+     */
+    private Object[] keys;
+
+    /**
+     * Values, parallel to {@code keys}.
+     */
+    private Object[] values;
+
+    /**
+     * Cached (spread) hash codes, parallel to {@code keys}.
+     */
+    private int[] hashes;
+
+    /**
+     * Total size of abstract {@code this}.
+     */
+    private int size;
+
+    /**
+     * Slot at which {@code removeAny} starts looking for an occupied slot.
+     */
+    private int anyCursor;
+
+    /**
+     * Mixes the high bits of {@code h} into the low bits so that masking with
+     * a power-of-2 table size does not discard them.
+     *
+     * @param h
+     *            the hash code to spread
+     * @return the spread hash code
+     */
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the smallest power of 2 that is at least {@code n} (but no
+     * larger than {@code MAXIMUM_CAPACITY}).
+     *
+     * @param n
+     *            the requested capacity
+     * @return the rounded-up capacity
+     * @requires n > 0
+     * @ensures <pre>
+     * [tableSizeFor is a power of 2]  and
+     * (tableSizeFor >= n  or  tableSizeFor = MAXIMUM_CAPACITY)
+     * </pre>
+     */
+    private static int tableSizeFor(int n) {
+        assert n > 0 : "Violation of: n > 0";
+        int capacity = 1;
+        while (capacity < n && capacity < MAXIMUM_CAPACITY) {
+            capacity = capacity << 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param capacity
+     *            the number of slots in the hash table
+     * @requires [capacity is a power of 2]
+     * @ensures <pre>
+     * |$this.keys| = capacity  and
+     * [all entries of $this.keys are null]  and
+     * $this.size = 0
+     * </pre>
+     */
+    private void createNewRep(int capacity) {
+        this.keys = new Object[capacity];
+        this.values = new Object[capacity];
+        this.hashes = new int[capacity];
+        this.size = 0;
+        this.anyCursor = 0;
+    }
+
+    /**
+     * Returns the slot holding {@code key}, or -1 if {@code key} is not in
+     * {@code this}.
+     *
+     * @param key
+     *            the key to search for
+     * @param hash
+     *            the spread hash code of {@code key}
+     * @return the slot holding {@code key}, or -1
+     * @ensures <pre>
+     * if key is in DOMAIN(this) then
+     *   $this.keys[findSlot] = key
+     * else
+     *   findSlot = -1
+     * </pre>
+     */
+    private int findSlot(Object key, int hash) {
+        int mask = this.keys.length - 1;
+        int i = hash & mask;
+        int slot = -1;
+        while (slot < 0 && this.keys[i] != null) {
+            if (this.hashes[i] == hash && this.keys[i].equals(key)) {
+                slot = i;
+            }
+            i = (i + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Places an entry known not to be in {@code this} into the first empty
+     * slot of its probe sequence. Does not update {@code size}.
+     *
+     * @param key
+     *            the key to insert
+     * @param value
+     *            the associated value
+     * @param hash
+     *            the spread hash code of {@code key}
+     * @requires <pre>
+     * key is not in DOMAIN(this)  and
+     * [$this.keys has at least one empty slot]
+     * </pre>
+     */
+    private void place(Object key, Object value, int hash) {
+        int mask = this.keys.length - 1;
+        int i = hash & mask;
+        while (this.keys[i] != null) {
+            i = (i + 1) & mask;
+        }
+        this.keys[i] = key;
+        this.values[i] = value;
+        this.hashes[i] = hash;
+    }
+
+    /**
+     * Doubles the number of slots in the hash table and reinserts every entry.
+     * Cached hash codes are reused, so {@code hashCode} is not called again.
+     */
+    private void grow() {
+        Object[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        int[] oldHashes = this.hashes;
+        int newCapacity = oldKeys.length << 1;
+        this.keys = new Object[newCapacity];
+        this.values = new Object[newCapacity];
+        this.hashes = new int[newCapacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                this.place(oldKeys[i], oldValues[i], oldHashes[i]);
+            }
+        }
+        this.anyCursor = 0;
+    }
+
+    /**
+     * Empties slot {@code hole} and shifts later entries of the same probe
+     * cluster back so that no tombstones are needed.
+     *
+     * @param hole
+     *            the slot to empty
+     * @requires $this.keys[hole] /= null
+     */
+    private void deleteSlot(int hole) {
+        int mask = this.keys.length - 1;
+        int gap = hole;
+        int i = (gap + 1) & mask;
+        while (this.keys[i] != null) {
+            int home = this.hashes[i] & mask;
+            /*
+             * The entry at i may move into the gap only if its home slot is
+             * not cyclically within (gap, i]
+             */
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                this.keys[gap] = this.keys[i];
+                this.values[gap] = this.values[i];
+                this.hashes[gap] = this.hashes[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        this.keys[gap] = null;
+        this.values[gap] = null;
+        this.hashes[gap] = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Map5() {
+        this.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor resulting in a hash table with room for at least
+     * {@code expectedSize} entries before it has to grow.
+     *
+     * @param expectedSize
+     *            the number of entries expected
+     * @requires expectedSize > 0
+     * @ensures this = {}
+     */
+    public Map5(int expectedSize) {
+        assert expectedSize > 0 : "Violation of: expectedSize > 0";
+        long minimumCapacity = (long) expectedSize * LOAD_DENOMINATOR
+                / LOAD_NUMERATOR + 1;
+        this.createNewRep(tableSizeFor(
+                (int) Math.min(minimumCapacity, MAXIMUM_CAPACITY)));
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            return this.getClass().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Map5<?, ?> : ""
+                + "Violation of: source is of dynamic type Map5<?,?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Map5<?,?>, and
+         * the ?,? must be K,V or the call would not have compiled.
+         */
+        Map5<K, V> localSource = (Map5<K, V>) source;
+        this.keys = localSource.keys;
+        this.values = localSource.values;
+        this.hashes = localSource.hashes;
+        this.size = localSource.size;
+        this.anyCursor = localSource.anyCursor;
+        localSource.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+        if ((this.size + 1) * LOAD_DENOMINATOR > this.keys.length
+                * LOAD_NUMERATOR && this.keys.length < MAXIMUM_CAPACITY) {
+            this.grow();
+        }
+        this.place(key, value, spread(key.hashCode()));
+        this.size++;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+        int slot = this.findSlot(key, spread(key.hashCode()));
+        Pair<K, V> removed = new SimplePair<K, V>((K) this.keys[slot],
+                (V) this.values[slot]);
+        this.deleteSlot(slot);
+        this.size--;
+        return removed;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+        int mask = this.keys.length - 1;
+        int i = this.anyCursor;
+        /*
+         * Search downward, so the slot found is usually the last of its
+         * cluster and deleteSlot has nothing to shift; searching upward would
+         * make draining a long cluster quadratic
+         */
+        while (this.keys[i] == null) {
+            i = (i - 1) & mask;
+        }
+        Pair<K, V> removed = new SimplePair<K, V>((K) this.keys[i],
+                (V) this.values[i]);
+        this.deleteSlot(i);
+        this.size--;
+        this.anyCursor = i;
+        return removed;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+        return (V) this.values[this.findSlot(key, spread(key.hashCode()))];
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+        return this.findSlot(key, spread(key.hashCode())) >= 0;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return new Map5Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Map5}.
+     */
+    private final class Map5Iterator implements Iterator<Pair<K, V>> {
+
+        /**
+         * Number of elements seen already (i.e., |~this.seen|).
+         */
+        private int numberSeen;
+
+        /**
+         * Slot at which the search for the next element starts.
+         */
+        private int currentSlot;
+
+        /**
+         * No-argument constructor.
+         */
+        public Map5Iterator() {
+            this.numberSeen = 0;
+            this.currentSlot = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.numberSeen < Map5.this.size;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Pair<K, V> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            this.numberSeen++;
+            while (Map5.this.keys[this.currentSlot] == null) {
+                this.currentSlot++;
+            }
+            Pair<K, V> next = new SimplePair<K, V>(
+                    (K) Map5.this.keys[this.currentSlot],
+                    (V) Map5.this.values[this.currentSlot]);
+            this.currentSlot++;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,126 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code CountMap4}.
+ */
+public final class CountMap4Test {
+
+    /**
+     * Size of hash table to be used in tests.
+     */
+    private static final int TEST_HASH_TABLE_SIZE = 3;
+
+    @Test
+    public void testConstructor() {
+        CountMap4 m = new CountMap4();
+        assertEquals(0, m.size());
+        assertEquals(0, m.get("a"));
+        assertEquals(false, m.hasKey("a"));
+    }
+
+    @Test
+    public void testIncrementNew() {
+        CountMap4 m = new CountMap4();
+        m.increment("red");
+        assertEquals(1, m.size());
+        assertEquals(1, m.get("red"));
+        assertEquals(true, m.hasKey("red"));
+    }
+
+    @Test
+    public void testIncrementExisting() {
+        CountMap4 m = new CountMap4();
+        m.increment("red");
+        m.increment("blue");
+        m.increment("red");
+        assertEquals(2, m.size());
+        assertEquals(2, m.get("red"));
+        assertEquals(1, m.get("blue"));
+    }
+
+    @Test
+    public void testAddDelta() {
+        CountMap4 m = new CountMap4();
+        m.add("x", 5);
+        m.add("x", -2);
+        assertEquals(3, m.get("x"));
+    }
+
+    @Test
+    public void testEmptyAndNonAsciiKeys() {
+        CountMap4 m = new CountMap4();
+        m.increment("");
+        m.increment("caf\u00e9");
+        m.increment("cafe");
+        m.increment("\u00e9t\u00e9");
+        m.increment("caf\u00e9");
+        assertEquals(4, m.size());
+        assertEquals(1, m.get(""));
+        assertEquals(2, m.get("caf\u00e9"));
+        assertEquals(1, m.get("cafe"));
+        assertEquals(1, m.get("\u00e9t\u00e9"));
+    }
+
+    @Test
+    public void testCollidingHashCodes() {
+        /*
+         * "Aa" and "BB" have the same hashCode
+         */
+        CountMap4 m = new CountMap4(TEST_HASH_TABLE_SIZE);
+        m.increment("Aa");
+        m.increment("BB");
+        m.increment("BB");
+        assertEquals(1, m.get("Aa"));
+        assertEquals(2, m.get("BB"));
+    }
+
+    @Test
+    public void testGrowth() {
+        CountMap4 m = new CountMap4(TEST_HASH_TABLE_SIZE, HashSpreader.MURMUR);
+        for (int round = 1; round <= 3; round++) {
+            for (int i = 0; i < 5000; i++) {
+                m.increment("word" + i);
+            }
+        }
+        assertEquals(5000, m.size());
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(3, m.get("word" + i));
+        }
+    }
+
+    @Test
+    public void testKeysInOrder() {
+        CountMap4 m = new CountMap4();
+        m.increment("pear");
+        m.increment("apple");
+        m.increment("fig");
+        assertArrayEquals(new String[] { "apple", "fig", "pear" },
+                m.keysInOrder());
+    }
+
+    @Test
+    public void testKeysByCount() {
+        CountMap4 m = new CountMap4();
+        m.add("pear", 2);
+        m.add("apple", 1);
+        m.add("fig", 7);
+        m.add("date", 2);
+        assertArrayEquals(new String[] { "fig", "date", "pear", "apple" },
+                m.keysByCount());
+    }
+
+    @Test
+    public void testClear() {
+        CountMap4 m = new CountMap4();
+        m.increment("a");
+        m.clear();
+        assertEquals(0, m.size());
+        assertEquals(0, m.keysInOrder().length);
+        m.increment("b");
+        assertArrayEquals(new String[] { "b" }, m.keysByCount());
+    }
+
+}
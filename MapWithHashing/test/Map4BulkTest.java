@@ -0,0 +1,158 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map.Pair;
+import components.map.Map1L;
+
+/**
+ * JUnit test fixture for the bulk operations of {@code Map4}.
+ */
+public final class Map4BulkTest {
+
+    /**
+     * Size of hash table to be used in tests.
+     */
+    private static final int TEST_HASH_TABLE_SIZE = 7;
+
+    /**
+     * Returns a {@code Map1L} mapping each of {@code lo, lo + 1, ..., hi - 1}
+     * to its square.
+     *
+     * @param lo
+     *            the smallest key
+     * @param hi
+     *            one more than the largest key
+     * @return the map
+     */
+    private static Map<Integer, Integer> squares(int lo, int hi) {
+        Map<Integer, Integer> m = new Map1L<Integer, Integer>();
+        for (int i = lo; i < hi; i++) {
+            m.add(i, i * i);
+        }
+        return m;
+    }
+
+    /**
+     * Returns the pairs of {@code m} in a list.
+     *
+     * @param m
+     *            the map
+     * @return the pairs
+     */
+    private static List<Pair<Integer, Integer>> pairs(
+            Map<Integer, Integer> m) {
+        List<Pair<Integer, Integer>> result = new ArrayList<>();
+        for (Pair<Integer, Integer> p : m) {
+            result.add(p);
+        }
+        return result;
+    }
+
+    @Test
+    public void testAddAllMapIntoEmpty() {
+        Map4<Integer, Integer> m = new Map4<>(TEST_HASH_TABLE_SIZE);
+        Map<Integer, Integer> expected = squares(0, 1000);
+        m.addAll(expected);
+        assertEquals(expected, m);
+        assertEquals(squares(0, 1000), expected);
+    }
+
+    @Test
+    public void testAddAllMapIntoNonEmpty() {
+        Map4<Integer, Integer> m = new Map4<>(TEST_HASH_TABLE_SIZE);
+        m.add(-1, 1);
+        m.addAll(squares(0, 100));
+        Map<Integer, Integer> expected = squares(0, 100);
+        expected.add(-1, 1);
+        assertEquals(expected, m);
+    }
+
+    @Test
+    public void testAddAllMapEmptySource() {
+        Map4<Integer, Integer> m = new Map4<>(TEST_HASH_TABLE_SIZE);
+        m.addAll(squares(0, 0));
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testAddAllMapDuringRehash() {
+        /*
+         * Enough single adds to start a rehash, then a bulk load on top
+         */
+        Map4<Integer, Integer> m = new Map4<>(TEST_HASH_TABLE_SIZE);
+        for (int i = 0; i < 2 * TEST_HASH_TABLE_SIZE + 1; i++) {
+            m.add(i, i * i);
+        }
+        m.addAll(squares(2 * TEST_HASH_TABLE_SIZE + 1, 500));
+        assertEquals(squares(0, 500), m);
+    }
+
+    @Test
+    public void testAddAllIterable() {
+        Map4<Integer, Integer> m = new Map4<>(TEST_HASH_TABLE_SIZE);
+        m.add(5000, 0);
+        m.addAll(pairs(squares(0, 300)));
+        Map<Integer, Integer> expected = squares(0, 300);
+        expected.add(5000, 0);
+        assertEquals(expected, m);
+    }
+
+    @Test
+    public void testAddAllThenAdd() {
+        Map4<Integer, Integer> m = new Map4<>(TEST_HASH_TABLE_SIZE);
+        m.addAll(pairs(squares(0, 50)));
+        for (int i = 50; i < 200; i++) {
+            m.add(i, i * i);
+        }
+        assertEquals(squares(0, 200), m);
+    }
+
+    @Test
+    public void testRemoveAllSome() {
+        Map4<Integer, Integer> m = new Map4<>(squares(0, 100));
+        List<Integer> keys = new ArrayList<>();
+        keys.add(3);
+        keys.add(50);
+        keys.add(99);
+        m.removeAll(keys);
+        Map<Integer, Integer> expected = squares(0, 100);
+        expected.remove(3);
+        expected.remove(50);
+        expected.remove(99);
+        assertEquals(expected, m);
+    }
+
+    @Test
+    public void testRemoveAllEvery() {
+        Map4<Integer, Integer> m = new Map4<>(squares(0, 1000));
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 999; i >= 0; i--) {
+            keys.add(i);
+        }
+        m.removeAll(keys);
+        assertEquals(0, m.size());
+        m.add(7, 49);
+        assertEquals(squares(7, 8), m);
+    }
+
+    @Test
+    public void testRemoveAllNone() {
+        Map4<Integer, Integer> m = new Map4<>(squares(0, 10));
+        m.removeAll(new ArrayList<Integer>());
+        assertEquals(squares(0, 10), m);
+    }
+
+    @Test
+    public void testCopyConstructor() {
+        Map<Integer, Integer> source = squares(0, 1000);
+        Map4<Integer, Integer> m = new Map4<>(source);
+        assertEquals(source, m);
+        assertEquals(true, m.stats().loadFactor() <= 2.0);
+    }
+
+}
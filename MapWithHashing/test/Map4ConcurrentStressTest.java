@@ -0,0 +1,128 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import components.map.Map;
+
+/**
+ * JUnit test fixture that runs {@code Map4Concurrent} under many threads at
+ * once and checks that no update is lost and no reader sees a wrong value.
+ */
+public final class Map4ConcurrentStressTest {
+
+    /**
+     * Number of writer threads.
+     */
+    private static final int WRITERS = 8;
+
+    /**
+     * Number of keys each writer owns.
+     */
+    private static final int KEYS_PER_WRITER = 20000;
+
+    /**
+     * Number of reader threads.
+     */
+    private static final int READERS = 4;
+
+    /**
+     * Starts every thread in {@code threads} and waits for all of them.
+     *
+     * @param threads
+     *            the threads to run
+     */
+    private static void runAll(List<Thread> threads) {
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                throw new AssertionError("Interrupted while joining " + t);
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentAddsThenRemoves() {
+        final Map<Integer, Integer> m = new Map4Concurrent<>(1);
+        final AtomicInteger readerErrors = new AtomicInteger();
+        final AtomicInteger writersDone = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            final int base = w * KEYS_PER_WRITER;
+            threads.add(new Thread(() -> {
+                for (int k = base; k < base + KEYS_PER_WRITER; k++) {
+                    m.add(k, -k);
+                }
+                /*
+                 * Remove the odd keys again, so removals race with the other
+                 * writers' adds (and with growth of the table)
+                 */
+                for (int k = base + 1; k < base + KEYS_PER_WRITER; k += 2) {
+                    m.remove(k);
+                }
+                writersDone.incrementAndGet();
+            }));
+        }
+        for (int r = 0; r < READERS; r++) {
+            threads.add(new Thread(() -> {
+                while (writersDone.get() < WRITERS) {
+                    /*
+                     * Only even keys are read: once added they are never
+                     * removed, so value's precondition cannot be invalidated
+                     * between hasKey and value
+                     */
+                    for (int k = 0; k < WRITERS * KEYS_PER_WRITER; k += 14) {
+                        if (m.hasKey(k) && m.value(k) != -k) {
+                            readerErrors.incrementAndGet();
+                        }
+                    }
+                }
+            }));
+        }
+        runAll(threads);
+        assertEquals(0, readerErrors.get());
+        assertEquals(WRITERS * KEYS_PER_WRITER / 2, m.size());
+        for (int k = 0; k < WRITERS * KEYS_PER_WRITER; k++) {
+            assertEquals(k % 2 == 0, m.hasKey(k));
+        }
+    }
+
+    @Test
+    public void testConcurrentRemoveAny() {
+        final Map<Integer, Integer> m = new Map4Concurrent<>();
+        for (int k = 0; k < WRITERS * KEYS_PER_WRITER; k++) {
+            m.add(k, k);
+        }
+        final AtomicInteger removed = new AtomicInteger();
+        final AtomicInteger sum = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < KEYS_PER_WRITER; i++) {
+                    sum.addAndGet(m.removeAny().value());
+                    removed.incrementAndGet();
+                }
+            }));
+        }
+        runAll(threads);
+        int n = WRITERS * KEYS_PER_WRITER;
+        assertEquals(0, m.size());
+        assertEquals(n, removed.get());
+        /*
+         * Every key removed exactly once (sum wraps identically either way)
+         */
+        int expectedSum = 0;
+        for (int k = 0; k < n; k++) {
+            expectedSum += k;
+        }
+        assertEquals(expectedSum, sum.get());
+    }
+
+}
@@ -0,0 +1,100 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map4Concurrent} using default
+ * constructor, with extra tests of keys that hash badly.
+ */
+public class Map4ConcurrentTest extends MapTest {
+
+    /**
+     * Number of keys in the long tests.
+     */
+    private static final int MANY = 20000;
+
+    /**
+     * Key whose hash codes all collide, so every key lands in the same
+     * bucket whatever the table size and hash spreader.
+     */
+    private static final class CollidingKey {
+
+        /**
+         * Identity of the key.
+         */
+        private final int id;
+
+        /**
+         * Constructor from identity.
+         *
+         * @param id
+         *            the identity
+         */
+        private CollidingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof CollidingKey
+                    && ((CollidingKey) obj).id == this.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+
+    }
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map4Concurrent<String, String>();
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    @Test
+    public final void testRemoveFromLongChain() {
+        Map<CollidingKey, Integer> m = new Map4Concurrent<>();
+        for (int i = 0; i < MANY; i++) {
+            m.add(new CollidingKey(i), i);
+        }
+        /*
+         * One of the first and last keys added is at the far end of the
+         * chain, behind every other node
+         */
+        assertEquals(Integer.valueOf(0),
+                m.remove(new CollidingKey(0)).value());
+        assertEquals(Integer.valueOf(MANY - 1),
+                m.remove(new CollidingKey(MANY - 1)).value());
+        assertEquals(MANY - 2, m.size());
+        assertEquals(Integer.valueOf(1), m.value(new CollidingKey(1)));
+    }
+
+    @Test
+    public final void testHighBitKeys() {
+        /*
+         * Multiples of 2^16 differ only in their high bits
+         */
+        final int shift = 16;
+        Map<Integer, Integer> m = new Map4Concurrent<>();
+        for (int i = 0; i < MANY; i++) {
+            m.add(i << shift, i);
+        }
+        for (int i = 0; i < MANY; i += 2) {
+            assertEquals(Integer.valueOf(i), m.remove(i << shift).value());
+        }
+        assertEquals(MANY / 2, m.size());
+        for (int i = 0; i < MANY; i++) {
+            assertEquals(i % 2 == 1, m.hasKey(i << shift));
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code Map4.stats}.
+ */
+public final class Map4StatsTest {
+
+    /**
+     * Size of hash table to be used in tests.
+     */
+    private static final int TEST_HASH_TABLE_SIZE = 10;
+
+    @Test
+    public void testStatsEmpty() {
+        Map4<Integer, Integer> m = new Map4<>(TEST_HASH_TABLE_SIZE);
+        HashTableStats stats = m.stats();
+        assertEquals(0, stats.size());
+        assertEquals(TEST_HASH_TABLE_SIZE, stats.buckets());
+        assertEquals(TEST_HASH_TABLE_SIZE, stats.bucketsWithLength(0));
+        assertEquals(0, stats.maxChainLength());
+        assertEquals(0.0, stats.loadFactor(), 0.0);
+    }
+
+    @Test
+    public void testStatsOnePerBucket() {
+        Map4<Integer, Integer> m = new Map4<>(TEST_HASH_TABLE_SIZE);
+        m.add(0, 0);
+        m.add(1, 1);
+        m.add(2, 2);
+        HashTableStats stats = m.stats();
+        assertEquals(3, stats.size());
+        assertEquals(7, stats.bucketsWithLength(0));
+        assertEquals(3, stats.bucketsWithLength(1));
+        assertEquals(1, stats.maxChainLength());
+        assertEquals(0.3, stats.loadFactor(), 1e-9);
+    }
+
+    @Test
+    public void testStatsSkewedKeys() {
+        /*
+         * Multiples of the table size all land in bucket 0 without spreading
+         */
+        Map4<Integer, Integer> m = new Map4<>(TEST_HASH_TABLE_SIZE);
+        m.add(0, 0);
+        m.add(10, 1);
+        m.add(20, 2);
+        HashTableStats stats = m.stats();
+        assertEquals(9, stats.bucketsWithLength(0));
+        assertEquals(1, stats.bucketsWithLength(3));
+        assertEquals(3, stats.maxChainLength());
+    }
+
+    @Test
+    public void testStatsSkewedKeysSpread() {
+        Map4<Integer, Integer> m = new Map4<>(TEST_HASH_TABLE_SIZE,
+                HashSpreader.MURMUR);
+        m.add(0, 0);
+        m.add(10, 1);
+        m.add(20, 2);
+        assertEquals(3, m.stats().size());
+        assertEquals(true, m.stats().maxChainLength() < 3);
+    }
+
+    @Test
+    public void testStatsNewInstanceSpread() {
+        Map4<Integer, Integer> m = new Map4<>(TEST_HASH_TABLE_SIZE,
+                HashSpreader.MURMUR);
+        @SuppressWarnings("unchecked")
+        Map4<Integer, Integer> n = (Map4<Integer, Integer>) m.newInstance();
+        int buckets = n.stats().buckets();
+        n.add(0, 0);
+        n.add(buckets, 1);
+        n.add(2 * buckets, 2);
+        assertEquals(3, n.stats().size());
+        assertEquals(true, n.stats().maxChainLength() < 3);
+    }
+
+    @Test
+    public void testStatsProbes() {
+        Map4<Integer, Integer> m = new Map4<>(TEST_HASH_TABLE_SIZE);
+        m.add(0, 0);
+        m.add(10, 1);
+        long lookupsBefore = m.stats().lookups();
+        long probedBefore = m.stats().probedEntries();
+        m.value(10);
+        HashTableStats stats = m.stats();
+        /*
+         * value checks hasKey in an assertion, so allow one or two lookups,
+         * each examining the two-entry bucket
+         */
+        long lookups = stats.lookups() - lookupsBefore;
+        assertEquals(true, lookups == 1 || lookups == 2);
+        assertEquals(2 * lookups, stats.probedEntries() - probedBefore);
+    }
+
+}
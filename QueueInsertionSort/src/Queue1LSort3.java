@@ -1,4 +1,6 @@
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 
 import components.queue.Queue;
 import components.queue.Queue1L;
@@ -26,6 +28,44 @@ import components.queue.Queue1L;
  */
 public final class Queue1LSort3<T> extends Queue1L<T> {
 
+    /**
+     * Queues shorter than this are sorted by insertion sort.
+     */
+    private static final int INSERTION_SORT_LENGTH = 8;
+
+    /**
+     * A sorted run of entries, with its last entry.
+     *
+     * @param <T>
+     *            type of run entries
+     */
+    private static final class Run<T> {
+
+        /**
+         * Entries of the run.
+         */
+        private Queue<T> entries;
+
+        /**
+         * Last (largest) entry of the run.
+         */
+        private T last;
+
+        /**
+         * Constructor from entries and last entry.
+         *
+         * @param entries
+         *            the entries
+         * @param last
+         *            the last entry
+         */
+        private Run(Queue<T> entries, T last) {
+            this.entries = entries;
+            this.last = last;
+        }
+
+    }
+
     /**
      * No-argument constructor.
      */
@@ -66,7 +106,7 @@ public final class Queue1LSort3<T> extends Queue1L<T> {
         boolean added = false;
         while (count < length && !added) {
             T y = q.dequeue();
-            if (order.compare(x, y) <= 0) {
+            if (order.compare(x, y) < 0) {
                 q2.enqueue(x);
                 q2.enqueue(y);
                 added = true;
@@ -82,9 +122,189 @@ public final class Queue1LSort3<T> extends Queue1L<T> {
         q.transferFrom(q2);
     }
 
-    @Override
-    public void sort(Comparator<T> order) {
-        assert order != null : "Violation of: order is not null";
+    /**
+     * Removes from the front of {@code q} the longest prefix that is
+     * non-decreasing, or strictly decreasing, and returns it as a run in
+     * non-decreasing order. Decreasing prefixes must be strict so that equal
+     * entries keep their relative order.
+     *
+     * @param <T>
+     *            type of {@code Queue} entries
+     * @param q
+     *            the {@code Queue} to take the run from
+     * @param order
+     *            the {@code Comparator} defining the order for {@code T}
+     * @return the run
+     * @updates q
+     * @requires <pre>
+     * q /= <>  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * [#q = p * q, where p is the longest non-decreasing or strictly
+     *   decreasing prefix of #q]  and
+     * perms(nextRun.entries, p)  and
+     * IS_SORTED(nextRun.entries, [relation computed by order.compare method])
+     *   and
+     * [nextRun.last is the last entry of nextRun.entries]
+     * </pre>
+     */
+    private static <T> Run<T> nextRun(Queue<T> q, Comparator<T> order) {
+        Queue<T> entries = q.newInstance();
+        T first = q.dequeue();
+        entries.enqueue(first);
+        T last = first;
+        if (q.length() > 0 && order.compare(q.front(), first) < 0) {
+            while (q.length() > 0 && order.compare(q.front(), last) < 0) {
+                last = q.dequeue();
+                entries.enqueue(last);
+            }
+            entries.flip();
+            last = first;
+        } else {
+            while (q.length() > 0 && order.compare(last, q.front()) <= 0) {
+                last = q.dequeue();
+                entries.enqueue(last);
+            }
+        }
+        return new Run<T>(entries, last);
+    }
+
+    /**
+     * Merges run {@code b} into run {@code a}, which precedes it. When all of
+     * {@code a} is no larger than the first entry of {@code b}, the runs are
+     * simply concatenated, so already sorted stretches cost no comparisons.
+     *
+     * @param <T>
+     *            type of {@code Queue} entries
+     * @param a
+     *            the earlier run
+     * @param b
+     *            the later run
+     * @param order
+     *            the {@code Comparator} defining the order for {@code T}
+     * @updates a
+     * @clears b.entries
+     * @requires <pre>
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])  and
+     * a.entries /= <>  and  b.entries /= <>  and
+     * IS_SORTED(a.entries, [relation computed by order.compare method])  and
+     * IS_SORTED(b.entries, [relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * perms(a.entries, #a.entries * #b.entries)  and
+     * IS_SORTED(a.entries, [relation computed by order.compare method])  and
+     * [a.last is the last entry of a.entries]
+     * </pre>
+     */
+    private static <T> void merge(Run<T> a, Run<T> b, Comparator<T> order) {
+        if (order.compare(a.last, b.entries.front()) > 0) {
+            Queue<T> merged = a.entries.newInstance();
+            while (a.entries.length() > 0 && b.entries.length() > 0) {
+                if (order.compare(b.entries.front(), a.entries.front()) < 0) {
+                    merged.enqueue(b.entries.dequeue());
+                } else {
+                    merged.enqueue(a.entries.dequeue());
+                }
+            }
+            merged.append(a.entries);
+            merged.append(b.entries);
+            a.entries.transferFrom(merged);
+            if (order.compare(a.last, b.last) <= 0) {
+                a.last = b.last;
+            }
+        } else {
+            a.entries.append(b.entries);
+            a.last = b.last;
+        }
+    }
+
+    /**
+     * Merges the runs at {@code i} and {@code i + 1} of {@code runs}.
+     *
+     * @param <T>
+     *            type of {@code Queue} entries
+     * @param runs
+     *            the pending runs
+     * @param i
+     *            the index of the first run to merge
+     * @param order
+     *            the {@code Comparator} defining the order for {@code T}
+     * @updates runs
+     * @requires <pre>
+     * 0 <= i < |runs| - 1  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * runs = #runs[0, i) * <[merge of #runs[i] and #runs[i + 1]]> *
+     *   #runs[i + 2, |#runs|)
+     * </pre>
+     */
+    private static <T> void mergeAt(List<Run<T>> runs, int i,
+            Comparator<T> order) {
+        merge(runs.get(i), runs.remove(i + 1), order);
+    }
+
+    /**
+     * Merges pending runs until their lengths, from the top of the stack
+     * down, grow at least as fast as the Fibonacci numbers. This is the rule
+     * TimSort uses to keep merges balanced, so that there are O(log n)
+     * pending runs and each entry takes part in O(log n) merges.
+     *
+     * @param <T>
+     *            type of {@code Queue} entries
+     * @param runs
+     *            the pending runs, the last one being the top of the stack
+     * @param order
+     *            the {@code Comparator} defining the order for {@code T}
+     * @updates runs
+     * @requires IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * @ensures <pre>
+     * [runs is #runs with some adjacent runs merged]  and
+     * for all i: integer where (0 <= i < |runs| - 2)
+     *  (|runs[i].entries| > |runs[i + 1].entries| + |runs[i + 2].entries|)
+     *   and
+     * for all i: integer where (0 <= i < |runs| - 1)
+     *  (|runs[i].entries| > |runs[i + 1].entries|)
+     * </pre>
+     */
+    private static <T> void mergeCollapse(List<Run<T>> runs,
+            Comparator<T> order) {
+        boolean balanced = false;
+        while (runs.size() > 1 && !balanced) {
+            int n = runs.size() - 2;
+            int lengthN = runs.get(n).entries.length();
+            int lengthTop = runs.get(n + 1).entries.length();
+            if ((n > 0 && runs.get(n - 1).entries.length() <= lengthN
+                    + lengthTop)
+                    || (n > 1 && runs.get(n - 2).entries.length() <= runs
+                            .get(n - 1).entries.length() + lengthN)) {
+                if (runs.get(n - 1).entries.length() < lengthTop) {
+                    n--;
+                }
+                mergeAt(runs, n, order);
+            } else if (lengthN <= lengthTop) {
+                mergeAt(runs, n, order);
+            } else {
+                balanced = true;
+            }
+        }
+    }
+
+    /**
+     * Sorts this by insertion sort, which is quadratic but has no overhead on
+     * very short queues.
+     *
+     * @param order
+     *            the {@code Comparator} defining the order for {@code T}
+     * @updates this
+     * @requires IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * @ensures <pre>
+     * perms(this, #this)  and
+     * IS_SORTED(this, [relation computed by order.compare method])
+     * </pre>
+     */
+    private void insertionSort(Comparator<T> order) {
         Queue<T> tempQ = new Queue1L<>();
         while (this.length() > 0) {
             T temp = this.dequeue();
@@ -93,4 +313,43 @@ public final class Queue1LSort3<T> extends Queue1L<T> {
         this.transferFrom(tempQ);
     }
 
+    /**
+     * Sorts this with a natural merge sort, TimSort-style: the queue is cut
+     * into its existing non-decreasing and strictly decreasing runs, which
+     * are merged as they are found under TimSort's balancing rule. A sorted
+     * or reverse-sorted queue is a single run and takes linear time, and a
+     * queue with k runs takes O(n log k) time. The sort is stable.
+     *
+     * @param order
+     *            the {@code Comparator} defining the order for {@code T}
+     * @updates this
+     * @requires IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * @ensures <pre>
+     * perms(this, #this)  and
+     * IS_SORTED(this, [relation computed by order.compare method])
+     * </pre>
+     */
+    @Override
+    public void sort(Comparator<T> order) {
+        assert order != null : "Violation of: order is not null";
+        if (this.length() < INSERTION_SORT_LENGTH) {
+            this.insertionSort(order);
+        } else {
+            List<Run<T>> runs = new ArrayList<>();
+            while (this.length() > 0) {
+                runs.add(nextRun(this, order));
+                mergeCollapse(runs, order);
+            }
+            while (runs.size() > 1) {
+                int n = runs.size() - 2;
+                if (n > 0 && runs.get(n - 1).entries.length() < runs
+                        .get(n + 1).entries.length()) {
+                    n--;
+                }
+                mergeAt(runs, n, order);
+            }
+            this.transferFrom(runs.get(0).entries);
+        }
+    }
+
 }
@@ -0,0 +1,227 @@
+import java.util.Comparator;
+import java.util.Random;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to time {@code Queue1LSort3.sort} on sorted, nearly sorted,
+ * reversed, and random queues, next to the insertion sort it used before
+ * (reproduced below).
+ *
+ * <p>
+ * Usage: {@code Queue1LSort3Benchmark [size...]}, where each {@code size} is
+ * a queue length (default 10,000 and 1,000,000). Insertion sort is quadratic,
+ * so it is only run on queues of at most 20,000 entries. Results are printed
+ * as tab-separated lines: method, input, entries, best ms of several rounds,
+ * ns per entry.
+ *
+ * @author Put your name here
+ */
+public final class Queue1LSort3Benchmark {
+
+    /**
+     * Default queue lengths.
+     */
+    private static final int[] DEFAULT_SIZES = { 10000, 1000000 };
+
+    /**
+     * Longest queue sorted by insertion sort.
+     */
+    private static final int MAX_INSERTION_SIZE = 20000;
+
+    /**
+     * Number of measured rounds per line.
+     */
+    private static final int ROUNDS = 3;
+
+    /**
+     * Percentage of entries moved in a nearly sorted queue.
+     */
+    private static final int PERCENT_MOVED = 1;
+
+    /**
+     * Seed for the entries.
+     */
+    private static final long SEED = 2231;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Percent.
+     */
+    private static final int HUNDRED = 100;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private Queue1LSort3Benchmark() {
+    }
+
+    /**
+     * Compare {@code Integer}s in increasing order.
+     */
+    private static class IntegerLT implements Comparator<Integer> {
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    /**
+     * The insertion of {@code x} into sorted {@code q} that
+     * {@code Queue1LSort3.sort} used for every entry.
+     *
+     * @param <T>
+     *            type of {@code Queue} entries
+     * @param q
+     *            the {@code Queue} to insert into
+     * @param x
+     *            the {@code T} to insert
+     * @param order
+     *            the {@code Comparator} defining the order for {@code T}
+     * @updates q
+     */
+    private static <T> void insertInOrder(Queue<T> q, T x,
+            Comparator<T> order) {
+        Queue<T> q2 = q.newInstance();
+        int count = 0;
+        int length = q.length();
+        boolean added = false;
+        while (count < length && !added) {
+            T y = q.dequeue();
+            if (order.compare(x, y) <= 0) {
+                q2.enqueue(x);
+                q2.enqueue(y);
+                added = true;
+            } else {
+                q2.enqueue(y);
+            }
+            count++;
+        }
+        q2.append(q);
+        if (q2.length() == length) {
+            q2.enqueue(x);
+        }
+        q.transferFrom(q2);
+    }
+
+    /**
+     * Returns the entries of the named input.
+     *
+     * @param input
+     *            "sorted", "nearly", "reversed", or "random"
+     * @param size
+     *            the number of entries
+     * @return the entries
+     */
+    private static Integer[] entries(String input, int size) {
+        Random rnd = new Random(SEED);
+        Integer[] a = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            if (input.equals("reversed")) {
+                a[i] = size - i;
+            } else if (input.equals("random")) {
+                a[i] = rnd.nextInt();
+            } else {
+                a[i] = i;
+            }
+        }
+        if (input.equals("nearly")) {
+            for (int k = 0; k < size * PERCENT_MOVED / HUNDRED; k++) {
+                int i = rnd.nextInt(size);
+                int j = rnd.nextInt(size);
+                Integer temp = a[i];
+                a[i] = a[j];
+                a[j] = temp;
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Times sorting {@code a} with one method and outputs the best of
+     * {@code ROUNDS} rounds.
+     *
+     * @param out
+     *            the output stream
+     * @param insertion
+     *            whether to use the old insertion sort
+     * @param input
+     *            the name of the input
+     * @param a
+     *            the entries
+     * @updates out.content
+     * @requires out.is_open and |a| > 0
+     */
+    private static void time(SimpleWriter out, boolean insertion,
+            String input, Integer[] a) {
+        Comparator<Integer> order = new IntegerLT();
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            Queue<Integer> q = new Queue1LSort3<>();
+            for (Integer x : a) {
+                q.enqueue(x);
+            }
+            System.gc();
+            long start = System.nanoTime();
+            if (insertion) {
+                Queue<Integer> sorted = new Queue1L<>();
+                while (q.length() > 0) {
+                    insertInOrder(sorted, q.dequeue(), order);
+                }
+                q.transferFrom(sorted);
+            } else {
+                q.sort(order);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        String method = "runs";
+        if (insertion) {
+            method = "insertion";
+        }
+        out.println(method + "\t" + input + "\t" + a.length + "\t"
+                + String.format("%.1f", best / NANOS_PER_MILLI) + "\t"
+                + String.format("%.1f", (double) best / a.length));
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: [size...]
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        String[] inputs = { "sorted", "nearly", "reversed", "random" };
+        out.println("method\tinput\tentries\tms\tns/entry");
+        /*
+         * First pass warms up the JIT; only the rest are meaningful
+         */
+        time(out, false, "random", entries("random", sizes[0]));
+        out.println();
+        for (int size : sizes) {
+            for (String input : inputs) {
+                Integer[] a = entries(input, size);
+                if (size <= MAX_INSERTION_SIZE) {
+                    time(out, true, input, a);
+                }
+                time(out, false, input, a);
+            }
+        }
+        out.close();
+    }
+
+}
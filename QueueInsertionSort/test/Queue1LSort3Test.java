@@ -0,0 +1,180 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * JUnit test fixture for {@code Queue1LSort3}'s {@code sort}.
+ */
+public final class Queue1LSort3Test {
+
+    /**
+     * Compare {@code Integer}s in increasing order.
+     */
+    private static class IntegerLT implements Comparator<Integer> {
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    /**
+     * Compare {@code String}s by length only, so that distinct strings can
+     * be equal in the order.
+     */
+    private static class ByLength implements Comparator<String> {
+        @Override
+        public int compare(String o1, String o2) {
+            return Integer.compare(o1.length(), o2.length());
+        }
+    }
+
+    /**
+     * Order used by the tests.
+     */
+    private static final Comparator<Integer> ORDER = new IntegerLT();
+
+    /**
+     * Length of the longer test cases.
+     */
+    private static final int LONG = 5000;
+
+    /**
+     * Sorts a {@code Queue1LSort3} with the given entries and checks the
+     * result against {@code Queue1L.sort}.
+     *
+     * @param args
+     *            the entries
+     */
+    private static void check(Integer... args) {
+        Queue<Integer> q = new Queue1LSort3<>();
+        Queue<Integer> qExpected = new Queue1L<>();
+        for (Integer x : args) {
+            q.enqueue(x);
+            qExpected.enqueue(x);
+        }
+        q.sort(ORDER);
+        qExpected.sort(ORDER);
+        assertEquals(qExpected.toString(), q.toString());
+    }
+
+    @Test
+    public void testEmpty() {
+        check();
+    }
+
+    @Test
+    public void testShort() {
+        check(3, 1, 2);
+    }
+
+    @Test
+    public void testAscendingRuns() {
+        check(1, 4, 7, 9, 2, 3, 8, 10, 11, 0, 5, 6);
+    }
+
+    @Test
+    public void testDescendingRuns() {
+        check(12, 9, 7, 3, 11, 10, 2, 1, 8, 6, 5, 4);
+    }
+
+    @Test
+    public void testDescendingRunWithTies() {
+        check(9, 9, 8, 8, 7, 7, 6, 6, 5, 5);
+    }
+
+    @Test
+    public void testLongSorted() {
+        Integer[] a = new Integer[LONG];
+        for (int i = 0; i < LONG; i++) {
+            a[i] = i;
+        }
+        check(a);
+    }
+
+    @Test
+    public void testLongReversed() {
+        Integer[] a = new Integer[LONG];
+        for (int i = 0; i < LONG; i++) {
+            a[i] = LONG - i;
+        }
+        check(a);
+    }
+
+    @Test
+    public void testLongNearlySorted() {
+        Random rnd = new Random(1);
+        Integer[] a = new Integer[LONG];
+        for (int i = 0; i < LONG; i++) {
+            a[i] = i;
+        }
+        for (int k = 0; k < LONG / 100; k++) {
+            int i = rnd.nextInt(LONG);
+            int j = rnd.nextInt(LONG);
+            Integer temp = a[i];
+            a[i] = a[j];
+            a[j] = temp;
+        }
+        check(a);
+    }
+
+    @Test
+    public void testEveryLengthRandom() {
+        Random rnd = new Random(2);
+        for (int n = 0; n < 200; n++) {
+            Integer[] a = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                a[i] = rnd.nextInt(n / 2 + 1);
+            }
+            check(a);
+        }
+    }
+
+    @Test
+    public void testStable() {
+        Queue<String> q = new Queue1LSort3<>();
+        String[] words = { "ccc", "a", "bb", "b", "dd", "c", "eee", "e", "ff",
+            "f", "g", "hh" };
+        for (String w : words) {
+            q.enqueue(w);
+        }
+        q.sort(new ByLength());
+        assertEquals("<a,b,c,e,f,g,bb,dd,ff,hh,ccc,eee>", toAngles(q));
+        /*
+         * Short queues are sorted by insertion sort
+         */
+        Queue<String> shortQ = new Queue1LSort3<>();
+        String[] shortWords = { "bb", "b", "a", "cc", "c" };
+        for (String w : shortWords) {
+            shortQ.enqueue(w);
+        }
+        shortQ.sort(new ByLength());
+        assertEquals("<b,a,c,bb,cc>", toAngles(shortQ));
+    }
+
+    /**
+     * Returns the entries of {@code q} as "<x,y,...>".
+     *
+     * @param q
+     *            the queue
+     * @return the entries
+     */
+    private static String toAngles(Queue<String> q) {
+        StringBuilder sb = new StringBuilder("<");
+        boolean first = true;
+        for (String x : q) {
+            if (!first) {
+                sb.append(",");
+            }
+            sb.append(x);
+            first = false;
+        }
+        return sb.append(">").toString();
+    }
+
+}
@@ -0,0 +1,426 @@
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Utility class with an in-place quicksort on arrays that sorts large ranges
+ * in parallel. Ranges are partitioned around a pivot chosen as the median of
+ * three entries, or for large ranges as the median of three such medians
+ * (Tukey's "ninther"), so that sorted, reversed, and similar inputs take
+ * O(n log n) time. Short ranges are finished with insertion sort, and once
+ * partitioning has split a range, the two parts are sorted as separate
+ * {@code ForkJoinPool} tasks as long as they are longer than a threshold.
+ *
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * IS_SORTED (
+ *   s: string of T,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y: T where (<x, y> is substring of s) (r(x, y))
+ * </pre>
+ *
+ * @author Put your name here
+ */
+public final class ParallelQuicksort {
+
+    /**
+     * Ranges at most this long are sorted by insertion sort.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    /**
+     * Ranges at least this long get a ninther rather than a median of three
+     * as pivot.
+     */
+    private static final int NINTHER_THRESHOLD = 128;
+
+    /**
+     * Ranges at most this long are sorted sequentially, within one task.
+     */
+    private static final int PARALLEL_THRESHOLD = 8192;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ParallelQuicksort() {
+    }
+
+    /**
+     * Exchanges entries {@code i} and {@code j} of {@code a}.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param a
+     *            the array
+     * @param i
+     *            one index
+     * @param j
+     *            the other index
+     * @updates a
+     * @requires 0 <= i < |a|  and  0 <= j < |a|
+     * @ensures <pre>
+     * a = [#a with entries at i and j exchanged]
+     * </pre>
+     */
+    private static <T> void swap(T[] a, int i, int j) {
+        T temp = a[i];
+        a[i] = a[j];
+        a[j] = temp;
+    }
+
+    /**
+     * Returns the index of the median of {@code a[i]}, {@code a[j]}, and
+     * {@code a[k]}.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param a
+     *            the array
+     * @param i
+     *            first index
+     * @param j
+     *            second index
+     * @param k
+     *            third index
+     * @param order
+     *            total preorder for sorting
+     * @return the index of the median
+     * @requires <pre>
+     * [i, j, and k are valid indices of a]  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * medianOf3 is one of i, j, k  and
+     * [a[medianOf3] is a median of a[i], a[j], and a[k]]
+     * </pre>
+     */
+    private static <T> int medianOf3(T[] a, int i, int j, int k,
+            Comparator<T> order) {
+        int median;
+        if (order.compare(a[i], a[j]) < 0) {
+            if (order.compare(a[j], a[k]) < 0) {
+                median = j;
+            } else if (order.compare(a[i], a[k]) < 0) {
+                median = k;
+            } else {
+                median = i;
+            }
+        } else {
+            if (order.compare(a[k], a[j]) < 0) {
+                median = j;
+            } else if (order.compare(a[k], a[i]) < 0) {
+                median = k;
+            } else {
+                median = i;
+            }
+        }
+        return median;
+    }
+
+    /**
+     * Returns the index of a pivot for {@code a[lo, hi)}: the median of its
+     * first, middle, and last entries, or for long ranges the ninther.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param a
+     *            the array
+     * @param lo
+     *            the start of the range
+     * @param hi
+     *            the end of the range (exclusive)
+     * @param order
+     *            total preorder for sorting
+     * @return the index of the pivot
+     * @requires <pre>
+     * 0 <= lo < hi <= |a|  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures lo <= choosePivot < hi
+     */
+    private static <T> int choosePivot(T[] a, int lo, int hi,
+            Comparator<T> order) {
+        int last = hi - 1;
+        int mid = lo + ((hi - lo) >>> 1);
+        int pivot;
+        if (hi - lo < NINTHER_THRESHOLD) {
+            pivot = medianOf3(a, lo, mid, last, order);
+        } else {
+            int eighth = (hi - lo) >>> 3;
+            int first = medianOf3(a, lo, lo + eighth, lo + 2 * eighth, order);
+            int middle = medianOf3(a, mid - eighth, mid, mid + eighth, order);
+            int end = medianOf3(a, last - 2 * eighth, last - eighth, last,
+                    order);
+            pivot = medianOf3(a, first, middle, end, order);
+        }
+        return pivot;
+    }
+
+    /**
+     * Sorts {@code a[lo, hi)} by insertion sort.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param a
+     *            the array
+     * @param lo
+     *            the start of the range
+     * @param hi
+     *            the end of the range (exclusive)
+     * @param order
+     *            total preorder for sorting
+     * @updates a
+     * @requires <pre>
+     * 0 <= lo <= hi <= |a|  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * IS_SORTED(a[lo, hi), [relation computed by order.compare method])  and
+     * perms(a[lo, hi), #a[lo, hi))  and
+     * [the rest of a is unchanged]
+     * </pre>
+     */
+    private static <T> void insertionSort(T[] a, int lo, int hi,
+            Comparator<T> order) {
+        for (int i = lo + 1; i < hi; i++) {
+            T x = a[i];
+            int j = i;
+            while (j > lo && order.compare(x, a[j - 1]) < 0) {
+                a[j] = a[j - 1];
+                j--;
+            }
+            a[j] = x;
+        }
+    }
+
+    /**
+     * Partitions {@code a[lo, hi)} around a pivot chosen by
+     * {@code choosePivot} and returns the index where the second part
+     * starts. Entries equal to the pivot may end up in either part, which
+     * keeps the parts balanced when there are many duplicates.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param a
+     *            the array
+     * @param lo
+     *            the start of the range
+     * @param hi
+     *            the end of the range (exclusive)
+     * @param order
+     *            total preorder for sorting
+     * @return the start of the second part
+     * @updates a
+     * @requires <pre>
+     * 0 <= lo  and  lo + 2 <= hi <= |a|  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * lo < partition < hi  and
+     * perms(a[lo, hi), #a[lo, hi))  and
+     * [every entry of a[lo, partition) is no larger than every entry of
+     *   a[partition, hi)]  and
+     * [the rest of a is unchanged]
+     * </pre>
+     */
+    private static <T> int partition(T[] a, int lo, int hi,
+            Comparator<T> order) {
+        /*
+         * Hoare partitioning, with the pivot moved to the front so that
+         * neither part can be empty
+         */
+        swap(a, lo, choosePivot(a, lo, hi, order));
+        T pivot = a[lo];
+        int i = lo - 1;
+        int j = hi;
+        boolean crossed = false;
+        while (!crossed) {
+            do {
+                i++;
+            } while (order.compare(a[i], pivot) < 0);
+            do {
+                j--;
+            } while (order.compare(pivot, a[j]) < 0);
+            crossed = i >= j;
+            if (!crossed) {
+                swap(a, i, j);
+            }
+        }
+        return j + 1;
+    }
+
+    /**
+     * Sorts {@code a[lo, hi)} sequentially. Recurses on the shorter part
+     * after partitioning and loops on the longer one, so the recursion depth
+     * is O(log n).
+     *
+     * @param <T>
+     *            type of array entries
+     * @param a
+     *            the array
+     * @param lo
+     *            the start of the range
+     * @param hi
+     *            the end of the range (exclusive)
+     * @param order
+     *            total preorder for sorting
+     * @updates a
+     * @requires <pre>
+     * 0 <= lo <= hi <= |a|  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * IS_SORTED(a[lo, hi), [relation computed by order.compare method])  and
+     * perms(a[lo, hi), #a[lo, hi))  and
+     * [the rest of a is unchanged]
+     * </pre>
+     */
+    private static <T> void sequentialSort(T[] a, int lo, int hi,
+            Comparator<T> order) {
+        int from = lo;
+        int to = hi;
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            int split = partition(a, from, to, order);
+            if (split - from < to - split) {
+                sequentialSort(a, from, split, order);
+                from = split;
+            } else {
+                sequentialSort(a, split, to, order);
+                to = split;
+            }
+        }
+        insertionSort(a, from, to, order);
+    }
+
+    /**
+     * Task sorting one range of an array, which forks a task for each part
+     * of the range after partitioning it, while the parts are long enough.
+     *
+     * @param <T>
+     *            type of array entries
+     */
+    private static final class SortTask<T> extends RecursiveAction {
+
+        /**
+         * Serialization version.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The array.
+         */
+        private final T[] a;
+
+        /**
+         * Start of the range.
+         */
+        private final int lo;
+
+        /**
+         * End of the range (exclusive).
+         */
+        private final int hi;
+
+        /**
+         * Order.
+         */
+        private final Comparator<T> order;
+
+        /**
+         * Constructor from the range to sort.
+         *
+         * @param a
+         *            the array
+         * @param lo
+         *            the start of the range
+         * @param hi
+         *            the end of the range (exclusive)
+         * @param order
+         *            total preorder for sorting
+         */
+        private SortTask(T[] a, int lo, int hi, Comparator<T> order) {
+            this.a = a;
+            this.lo = lo;
+            this.hi = hi;
+            this.order = order;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.hi - this.lo <= PARALLEL_THRESHOLD) {
+                sequentialSort(this.a, this.lo, this.hi, this.order);
+            } else {
+                int split = partition(this.a, this.lo, this.hi, this.order);
+                invokeAll(new SortTask<T>(this.a, this.lo, split, this.order),
+                        new SortTask<T>(this.a, split, this.hi, this.order));
+            }
+        }
+
+    }
+
+    /**
+     * Sorts {@code a} according to {@code order}, using the tasks of
+     * {@code pool} for long ranges.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param a
+     *            the array to be sorted
+     * @param order
+     *            total preorder for sorting
+     * @param pool
+     *            the pool running the sort tasks
+     * @updates a
+     * @requires <pre>
+     * [entries of a are not null]  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * IS_SORTED(a, [relation computed by order.compare method])  and
+     * perms(a, #a)
+     * </pre>
+     */
+    public static <T> void sort(T[] a, Comparator<T> order,
+            ForkJoinPool pool) {
+        assert a != null : "Violation of: a is not null";
+        assert order != null : "Violation of: order is not null";
+        assert pool != null : "Violation of: pool is not null";
+        if (a.length <= PARALLEL_THRESHOLD) {
+            sequentialSort(a, 0, a.length, order);
+        } else {
+            pool.invoke(new SortTask<T>(a, 0, a.length, order));
+        }
+    }
+
+    /**
+     * Sorts {@code a} according to {@code order}, using the common
+     * {@code ForkJoinPool} for long ranges.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param a
+     *            the array to be sorted
+     * @param order
+     *            total preorder for sorting
+     * @updates a
+     * @requires <pre>
+     * [entries of a are not null]  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * IS_SORTED(a, [relation computed by order.compare method])  and
+     * perms(a, #a)
+     * </pre>
+     */
+    public static <T> void sort(T[] a, Comparator<T> order) {
+        sort(a, order, ForkJoinPool.commonPool());
+    }
+
+}
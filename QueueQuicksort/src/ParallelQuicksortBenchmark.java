@@ -0,0 +1,185 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.sortingmachine.SortingMachine;
+
+/**
+ * Program to time {@code ParallelQuicksort} with pools of 1 thread up to the
+ * number of available processors, on random and on already sorted input,
+ * next to {@code Arrays.sort} and to a full fill-and-drain cycle of
+ * {@code SortingMachine4}.
+ *
+ * <p>
+ * Usage: {@code ParallelQuicksortBenchmark [size]}, where {@code size} is
+ * the number of entries (default 1,000,000). Results are printed as
+ * tab-separated lines: method, input, threads, entries, best ms of several
+ * rounds. Run without {@code -ea}.
+ *
+ * @author Put your name here
+ */
+public final class ParallelQuicksortBenchmark {
+
+    /**
+     * Default number of entries.
+     */
+    private static final int DEFAULT_SIZE = 1000000;
+
+    /**
+     * Number of measured rounds per line.
+     */
+    private static final int ROUNDS = 5;
+
+    /**
+     * Seed for the entries.
+     */
+    private static final long SEED = 2231;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ParallelQuicksortBenchmark() {
+    }
+
+    /**
+     * Compare {@code Integer}s in increasing order.
+     */
+    private static class IntegerLT implements Comparator<Integer> {
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    /**
+     * Sorts a copy of {@code entries} once with the given method and returns
+     * the elapsed time.
+     *
+     * @param method
+     *            "ParallelQuicksort", "Arrays.sort", or "SortingMachine4"
+     * @param entries
+     *            the entries
+     * @param pool
+     *            the pool for {@code ParallelQuicksort}
+     * @return the elapsed nanoseconds
+     */
+    private static long sortOnce(String method, Integer[] entries,
+            ForkJoinPool pool) {
+        Comparator<Integer> order = new IntegerLT();
+        long nanos;
+        if (method.equals("SortingMachine4")) {
+            SortingMachine<Integer> m = new SortingMachine4<>(order);
+            long start = System.nanoTime();
+            for (Integer x : entries) {
+                m.add(x);
+            }
+            m.changeToExtractionMode();
+            while (m.size() > 0) {
+                m.removeFirst();
+            }
+            nanos = System.nanoTime() - start;
+        } else {
+            Integer[] a = entries.clone();
+            long start = System.nanoTime();
+            if (method.equals("Arrays.sort")) {
+                Arrays.sort(a, order);
+            } else {
+                ParallelQuicksort.sort(a, order, pool);
+            }
+            nanos = System.nanoTime() - start;
+        }
+        return nanos;
+    }
+
+    /**
+     * Times one method and outputs the best of {@code ROUNDS} rounds.
+     *
+     * @param out
+     *            the output stream
+     * @param method
+     *            "ParallelQuicksort", "Arrays.sort", or "SortingMachine4"
+     * @param input
+     *            the name of the input
+     * @param entries
+     *            the entries
+     * @param threads
+     *            the parallelism of the pool
+     * @updates out.content
+     * @requires out.is_open and threads > 0
+     */
+    private static void time(SimpleWriter out, String method, String input,
+            Integer[] entries, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            System.gc();
+            best = Math.min(best, sortOnce(method, entries, pool));
+        }
+        pool.shutdown();
+        out.println(method + "\t" + input + "\t" + threads + "\t"
+                + entries.length + "\t"
+                + String.format("%.1f", best / NANOS_PER_MILLI));
+    }
+
+    /**
+     * Times every method on {@code entries}.
+     *
+     * @param out
+     *            the output stream
+     * @param input
+     *            the name of the input
+     * @param entries
+     *            the entries
+     * @updates out.content
+     * @requires out.is_open
+     */
+    private static void timeAll(SimpleWriter out, String input,
+            Integer[] entries) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        time(out, "Arrays.sort", input, entries, 1);
+        for (int threads = 1; threads < processors; threads *= 2) {
+            time(out, "ParallelQuicksort", input, entries, threads);
+        }
+        time(out, "ParallelQuicksort", input, entries, processors);
+        time(out, "SortingMachine4", input, entries, processors);
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: [size]
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int size = DEFAULT_SIZE;
+        if (args.length > 0) {
+            size = Integer.parseInt(args[0]);
+        }
+        Random rnd = new Random(SEED);
+        Integer[] random = new Integer[size];
+        Integer[] sorted = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            random[i] = rnd.nextInt();
+            sorted[i] = i;
+        }
+        out.println("method\tinput\tthreads\tentries\tms");
+        /*
+         * First pass warms up the JIT; only the rest are meaningful
+         */
+        sortOnce("ParallelQuicksort", random, ForkJoinPool.commonPool());
+        sortOnce("SortingMachine4", random, ForkJoinPool.commonPool());
+        timeAll(out, "random", random);
+        timeAll(out, "sorted", sorted);
+        out.close();
+    }
+
+}
@@ -108,7 +108,9 @@ public class SortingMachine4<T> extends SortingMachineSecondary<T> {
 
     /**
      * Sorts {@code q} according to the ordering provided by the {@code compare}
-     * method from {@code order}.
+     * method from {@code order}. The entries are moved to an array and sorted
+     * there by {@code ParallelQuicksort}, so long queues are sorted on all
+     * available cores.
      *
      * @param <T>
      *            type of {@code Queue} entries
@@ -123,38 +125,16 @@ public class SortingMachine4<T> extends SortingMachineSecondary<T> {
     private static <T> void sort(Queue<T> q, Comparator<T> order) {
         assert order != null : "Violation of: order is not null";
         if (q.length() > 1) {
-            /*
-             * Dequeue the partitioning entry from this
-             */
-            T partition = q.dequeue();
-            /*
-             * Partition this into two queues as discussed above (you will need
-             * to declare and initialize two new queues)
-             */
-            Queue<T> small = new Queue1L<>();
-            Queue<T> large = new Queue1L<>();
-            while (q.length() > 0) {
-                T temp = q.dequeue();
-                if (order.compare(temp, partition) > 0) {
-                    large.enqueue(temp);
-                } else {
-                    small.enqueue(temp);
-                }
+            @SuppressWarnings("unchecked")
+            T[] a = (T[]) new Object[q.length()];
+            for (int i = 0; i < a.length; i++) {
+                a[i] = q.dequeue();
+            }
+            ParallelQuicksort.sort(a, order);
+            for (T x : a) {
+                q.enqueue(x);
             }
-            /*
-             * Recursively sort the two queues
-             */
-            large.sort(order);
-            small.sort(order);
-            /*
-             * Reconstruct this by combining the two sorted queues and the
-             * partitioning entry in the proper order
-             */
-            q.append(small);
-            q.enqueue(partition);
-            q.append(large);
         }
-
     }
 
     /**
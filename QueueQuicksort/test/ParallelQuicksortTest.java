@@ -0,0 +1,136 @@
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code ParallelQuicksort}.
+ */
+public final class ParallelQuicksortTest {
+
+    /**
+     * Compare {@code Integer}s in increasing order.
+     */
+    private static class IntegerLT implements Comparator<Integer> {
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    /**
+     * Order used by the tests.
+     */
+    private static final Comparator<Integer> ORDER = new IntegerLT();
+
+    /**
+     * Length long enough to be sorted by several parallel tasks.
+     */
+    private static final int LONG = 100000;
+
+    /**
+     * Sorts {@code a} with {@code ParallelQuicksort} and checks the result
+     * against {@code Arrays.sort}.
+     *
+     * @param a
+     *            the array to sort
+     */
+    private static void check(Integer[] a) {
+        Integer[] expected = a.clone();
+        Arrays.sort(expected, ORDER);
+        ParallelQuicksort.sort(a, ORDER);
+        assertArrayEquals(expected, a);
+    }
+
+    @Test
+    public void testEmpty() {
+        check(new Integer[] {});
+    }
+
+    @Test
+    public void testOne() {
+        check(new Integer[] { 7 });
+    }
+
+    @Test
+    public void testShort() {
+        check(new Integer[] { 3, 1, 2, 5, 4, 1 });
+    }
+
+    @Test
+    public void testEveryShortLength() {
+        Random rnd = new Random(1);
+        for (int n = 0; n < 300; n++) {
+            Integer[] a = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                a[i] = rnd.nextInt(n + 1);
+            }
+            check(a);
+        }
+    }
+
+    @Test
+    public void testLongRandom() {
+        Random rnd = new Random(2);
+        Integer[] a = new Integer[LONG];
+        for (int i = 0; i < LONG; i++) {
+            a[i] = rnd.nextInt();
+        }
+        check(a);
+    }
+
+    @Test
+    public void testLongSorted() {
+        Integer[] a = new Integer[LONG];
+        for (int i = 0; i < LONG; i++) {
+            a[i] = i;
+        }
+        check(a);
+    }
+
+    @Test
+    public void testLongReversed() {
+        Integer[] a = new Integer[LONG];
+        for (int i = 0; i < LONG; i++) {
+            a[i] = LONG - i;
+        }
+        check(a);
+    }
+
+    @Test
+    public void testLongAllEqual() {
+        Integer[] a = new Integer[LONG];
+        Arrays.fill(a, 5);
+        check(a);
+    }
+
+    @Test
+    public void testLongFewDistinct() {
+        Random rnd = new Random(3);
+        Integer[] a = new Integer[LONG];
+        for (int i = 0; i < LONG; i++) {
+            a[i] = rnd.nextInt(3);
+        }
+        check(a);
+    }
+
+    @Test
+    public void testOwnPool() {
+        Random rnd = new Random(4);
+        Integer[] a = new Integer[LONG];
+        for (int i = 0; i < LONG; i++) {
+            a[i] = rnd.nextInt();
+        }
+        Integer[] expected = a.clone();
+        Arrays.sort(expected, ORDER);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        ParallelQuicksort.sort(a, ORDER, pool);
+        pool.shutdown();
+        assertArrayEquals(expected, a);
+    }
+
+}
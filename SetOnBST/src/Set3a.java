@@ -1,26 +1,48 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 
-import components.binarytree.BinaryTree;
-import components.binarytree.BinaryTree1;
 import components.set.Set;
 import components.set.SetSecondary;
 
 /**
- * {@code Set} represented as a {@code BinaryTree} (maintained as a binary
- * search tree) of elements with implementations of primary methods.
+ * {@code Set} represented as a binary search tree, done "bare-handed" with
+ * nodes, with implementations of primary methods.
+ *
+ * <p>
+ * Every method walks the tree with a loop rather than by recursion, and
+ * changes only the links it has to: {@code contains} reads the tree without
+ * changing it and allocates nothing, {@code add} allocates only the new node,
+ * and no method can overflow the stack however unbalanced the tree is. The
+ * tree is not balanced, so the methods take time proportional to its height.
+ *
+ * <p>
+ * Many elements are best added at once, with {@code addAll} or the
+ * constructor from an {@code Iterable}: they are sorted once, and the tree is
+ * rebuilt perfectly balanced in linear time from the sorted elements, however
+ * they are ordered. {@code union}, {@code intersection}, and
+ * {@code difference} likewise merge the elements of two sets in increasing
+ * order and rebuild a balanced tree, in time linear in the sizes of both.
  *
  * @param <T>
  *            type of {@code Set} elements
  * @mathdefinitions <pre>
  * IS_BST(
- *   tree: binary tree of T
+ *   n: node
  *  ): boolean satisfies
- *  [tree satisfies the binary search tree properties as described in the
- *   slides with the ordering reported by compareTo for T, including that
- *   it has no duplicate labels]
+ *  [the tree rooted at n, through left and right, satisfies the binary
+ *   search tree properties as described in the slides with the ordering
+ *   reported by compareTo for T, including that it has no duplicate labels]
  * </pre>
- * @convention IS_BST($this.tree)
- * @correspondence this = labels($this.tree)
+ * @convention <pre>
+ * IS_BST($this.root)  and
+ * $this.size = [number of nodes in the tree rooted at $this.root]
+ * </pre>
+ * @correspondence this = [labels of the nodes in the tree rooted at $this.root]
  */
 public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
 
@@ -29,163 +51,258 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
      */
 
     /**
-     * Elements included in {@code this}.
+     * Node class for binary search tree nodes.
+     */
+    private final class Node {
+
+        /**
+         * Label in node.
+         */
+        private T label;
+
+        /**
+         * Root of left subtree, or null.
+         */
+        private Node left;
+
+        /**
+         * Root of right subtree, or null.
+         */
+        private Node right;
+
+    }
+
+    /**
+     * Root of the binary search tree, or null if it is empty.
+     */
+    private Node root;
+
+    /**
+     * Number of nodes in the tree, i.e., size = |this|.
      */
-    private BinaryTree<T> tree;
+    private int size;
 
     /**
-     * Returns whether {@code x} is in {@code t}.
+     * Returns the node labeled {@code x} in the tree, or null if there is
+     * none, without changing the tree or allocating anything.
      *
-     * @param <T>
-     *            type of {@code BinaryTree} labels
-     * @param t
-     *            the {@code BinaryTree} to be searched
      * @param x
      *            the label to be searched for
-     * @return true if t contains x, false otherwise
-     * @requires IS_BST(t)
-     * @ensures isInTree = (x is in labels(t))
+     * @return the node labeled x, or null
+     * @ensures <pre>
+     * if x is in this then find.label = x else find = null
+     * </pre>
      */
-    private static <T extends Comparable<T>> boolean isInTree(BinaryTree<T> t,
-            T x) {
-        assert t != null : "Violation of: t is not null";
-        assert x != null : "Violation of: x is not null";
-        boolean inTree = false;
-        if (t.size() > 0) {
-            BinaryTree<T> left = t.newInstance();
-            BinaryTree<T> right = t.newInstance();
-            T root = t.disassemble(left, right);
-            if (root.compareTo(x) == 0) {
-                inTree = true;
-                t.assemble(root, left, right);
+    private Node find(T x) {
+        Node p = this.root;
+        boolean found = false;
+        while (p != null && !found) {
+            int comparison = x.compareTo(p.label);
+            if (comparison < 0) {
+                p = p.left;
+            } else if (comparison > 0) {
+                p = p.right;
             } else {
-                if (x.compareTo(root) < 0 && left.size() != 0) {
-                    inTree = isInTree(left, x);
-                }
-                if (x.compareTo(root) > 0 && right.size() != 0) {
-                    inTree = isInTree(right, x);
-                }
-                t.assemble(root, left, right);
+                found = true;
             }
         }
-        return inTree;
+        return p;
     }
 
     /**
-     * Inserts {@code x} in {@code t}.
+     * Unlinks {@code n}, which has at most one child, from the tree, putting
+     * that child (or null) in its place below {@code parent}.
      *
-     * @param <T>
-     *            type of {@code BinaryTree} labels
-     * @param t
-     *            the {@code BinaryTree} to be searched
-     * @param x
-     *            the label to be inserted
-     * @aliases reference {@code x}
-     * @updates t
-     * @requires IS_BST(t) and x is not in labels(t)
-     * @ensures IS_BST(t) and labels(t) = labels(#t) union {x}
+     * @param parent
+     *            the parent of n, or null if n is the root
+     * @param n
+     *            the node to be unlinked
+     * @updates this.root, parent
+     * @requires <pre>
+     * [n is a node of the tree with at most one child]  and
+     * [parent is the parent of n, or null if n is $this.root]
+     * </pre>
+     * @ensures <pre>
+     * [the tree is #tree with n replaced by its only child, or removed]
+     * </pre>
      */
-    private static <T extends Comparable<T>> void insertInTree(BinaryTree<T> t,
-            T x) {
-        assert t != null : "Violation of: t is not null";
-        assert x != null : "Violation of: x is not null";
-        BinaryTree<T> left = t.newInstance();
-        BinaryTree<T> right = t.newInstance();
-        if (t.size() > 0) {
-            T root = t.disassemble(left, right);
-            //put x into left and recursively check it if x is less than root
-            if (x.compareTo(root) < 0) {
-                insertInTree(left, x);
-                //put x into right and recursively check it if x is more than root
-            } else {
-                insertInTree(right, x);
-            }
-            t.assemble(root, left, right);
-            //if t is empty, just give it with a root label x
+    private void splice(Node parent, Node n) {
+        Node child = n.left;
+        if (child == null) {
+            child = n.right;
+        }
+        if (parent == null) {
+            this.root = child;
+        } else if (parent.left == n) {
+            parent.left = child;
         } else {
-            t.assemble(x, left, right);
+            parent.right = child;
         }
     }
 
     /**
-     * Removes and returns the smallest (left-most) label in {@code t}.
+     * Returns the labels of the tree in increasing order.
      *
-     * @param <T>
-     *            type of {@code BinaryTree} labels
-     * @param t
-     *            the {@code BinaryTree} from which to remove the label
-     * @return the smallest label in the given {@code BinaryTree}
-     * @updates t
-     * @requires IS_BST(t) and |t| > 0
+     * @return the labels, sorted
      * @ensures <pre>
-     * IS_BST(t)  and  removeSmallest = [the smallest label in #t]  and
-     *  labels(t) = labels(#t) \ {removeSmallest}
+     * [labels is the labels of the nodes of the tree in increasing order]
      * </pre>
      */
-    private static <T> T removeSmallest(BinaryTree<T> t) {
-        assert t != null : "Violation of: t is not null";
-        BinaryTree<T> left = t.newInstance();
-        BinaryTree<T> right = t.newInstance();
-        T root = t.disassemble(left, right);
-        T smallest = root;
-        if (left.size() > 0) {
-
-            smallest = removeSmallest(left);
-            t.assemble(root, left, right);
-        } else {
-            smallest = root;
-            t.transferFrom(right);
+    private List<T> labels() {
+        List<T> labels = new ArrayList<>(this.size);
+        Deque<Node> pending = new ArrayDeque<>();
+        Node p = this.root;
+        while (p != null || !pending.isEmpty()) {
+            while (p != null) {
+                pending.push(p);
+                p = p.left;
+            }
+            p = pending.pop();
+            labels.add(p.label);
+            p = p.right;
         }
-        return smallest;
+        return labels;
     }
 
     /**
-     * Finds label {@code x} in {@code t}, removes it from {@code t}, and
-     * returns it.
+     * Builds a perfectly balanced tree of the labels {@code sorted[lo, hi)}
+     * and returns its root.
      *
-     * @param <T>
-     *            type of {@code BinaryTree} labels
-     * @param t
-     *            the {@code BinaryTree} from which to remove label {@code x}
-     * @param x
-     *            the label to be removed
-     * @return the removed label
-     * @updates t
-     * @requires IS_BST(t) and x is in labels(t)
+     * @param sorted
+     *            the labels, in strictly increasing order
+     * @param lo
+     *            the start of the range
+     * @param hi
+     *            the end of the range (exclusive)
+     * @return the root of the tree, or null if the range is empty
+     * @requires 0 <= lo <= hi <= |sorted|
      * @ensures <pre>
-     * IS_BST(t)  and  removeFromTree = x  and
-     *  labels(t) = labels(#t) \ {x}
+     * IS_BST(build)  and  [build has the labels sorted[lo, hi)]  and
+     * [the sizes of the two subtrees of every node differ by at most 1]
      * </pre>
      */
-    private static <T extends Comparable<T>> T removeFromTree(BinaryTree<T> t,
-            T x) {
-        assert t != null : "Violation of: t is not null";
-        assert x != null : "Violation of: x is not null";
-        BinaryTree<T> left = new BinaryTree1<T>();
-        BinaryTree<T> right = new BinaryTree1<T>();
-        T root = t.disassemble(left, right);
-        if (root.equals(x)) {
-            if (right.size() > 0) {
-                T small = removeSmallest(right);
-                t.assemble(small, left, right);
+    private Node build(List<T> sorted, int lo, int hi) {
+        Node n = null;
+        if (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            n = new Node();
+            n.label = sorted.get(mid);
+            n.left = this.build(sorted, lo, mid);
+            n.right = this.build(sorted, mid + 1, hi);
+        }
+        return n;
+    }
+
+    /**
+     * Replaces the tree by a perfectly balanced tree of {@code sorted}.
+     *
+     * @param sorted
+     *            the labels, in strictly increasing order
+     * @replaces this
+     * @ensures this = [the labels in sorted]
+     */
+    private void rebuild(List<T> sorted) {
+        this.root = this.build(sorted, 0, sorted.size());
+        this.size = sorted.size();
+    }
+
+    /**
+     * Merges {@code a} and {@code b}, both in strictly increasing order, and
+     * returns, in increasing order, the labels in only {@code a} if
+     * {@code keepOnlyA}, those in only {@code b} if {@code keepOnlyB}, and
+     * those in both.
+     *
+     * @param <T>
+     *            type of labels
+     * @param a
+     *            the first labels, in strictly increasing order
+     * @param b
+     *            the second labels, in strictly increasing order
+     * @param keepOnlyA
+     *            whether labels in a but not b are kept
+     * @param keepOnlyB
+     *            whether labels in b but not a are kept
+     * @param keepBoth
+     *            whether labels in both a and b are kept
+     * @return the labels kept, in strictly increasing order
+     */
+    private static <T extends Comparable<T>> List<T> merge(List<T> a,
+            List<T> b, boolean keepOnlyA, boolean keepOnlyB,
+            boolean keepBoth) {
+        List<T> merged = new ArrayList<>(a.size() + b.size());
+        int i = 0;
+        int j = 0;
+        while (i < a.size() || j < b.size()) {
+            int comparison;
+            if (i == a.size()) {
+                comparison = 1;
+            } else if (j == b.size()) {
+                comparison = -1;
+            } else {
+                comparison = a.get(i).compareTo(b.get(j));
+            }
+            if (comparison < 0) {
+                if (keepOnlyA) {
+                    merged.add(a.get(i));
+                }
+                i++;
+            } else if (comparison > 0) {
+                if (keepOnlyB) {
+                    merged.add(b.get(j));
+                }
+                j++;
             } else {
-                t.transferFrom(left);
+                if (keepBoth) {
+                    merged.add(a.get(i));
+                }
+                i++;
+                j++;
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation. The tree is walked in order with an explicit
+     * stack, so a degenerate tree cannot overflow the call stack.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * IS_BST($this.root)  and
+     * $this.size = [number of nodes in the tree rooted at $this.root]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        Deque<Node> pending = new ArrayDeque<>();
+        Node p = this.root;
+        T previous = null;
+        int count = 0;
+        while (p != null || !pending.isEmpty()) {
+            while (p != null) {
+                pending.push(p);
+                p = p.left;
             }
-        } else if (x.compareTo(root) < 0) {
-            removeFromTree(left, x);
-            t.assemble(root, left, right);
-        } else if (x.compareTo(root) > 0) {
-            removeFromTree(right, x);
-            t.assemble(root, left, right);
+            p = pending.pop();
+            assert p.label != null : "Violation of: labels are not null";
+            assert previous == null || previous.compareTo(p.label) < 0 : ""
+                    + "Violation of: IS_BST($this.root)";
+            previous = p.label;
+            count++;
+            p = p.right;
         }
-        return x;
+        assert this.size == count : ""
+                + "Violation of: $this.size = [number of nodes in the tree]";
+        return true;
     }
 
     /**
      * Creator of initial representation.
      */
     private void createNewRep() {
-        this.tree = new BinaryTree1<>();
+        this.root = null;
+        this.size = 0;
     }
 
     /*
@@ -197,7 +314,20 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
      */
     public Set3a() {
         this.createNewRep();
+        assert this.conventionHolds();
+    }
 
+    /**
+     * Constructor from the elements of an {@code Iterable}, which builds a
+     * balanced tree in O(n log n) time however they are ordered.
+     *
+     * @param elements
+     *            the elements, possibly with duplicates
+     * @ensures this = [the elements of elements]
+     */
+    public Set3a(Iterable<T> elements) {
+        this.createNewRep();
+        this.addAll(elements);
     }
 
     /*
@@ -218,6 +348,7 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
     @Override
     public final void clear() {
         this.createNewRep();
+        assert this.conventionHolds();
     }
 
     @Override
@@ -225,15 +356,18 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
         assert source != null : "Violation of: source is not null";
         assert source != this : "Violation of: source is not this";
         assert source instanceof Set3a<?> : ""
-                + "Violation of: source is of dynamic type Set3<?>";
+                + "Violation of: source is of dynamic type Set3a<?>";
         /*
          * This cast cannot fail since the assert above would have stopped
          * execution in that case: source must be of dynamic type Set3a<?>, and
          * the ? must be T or the call would not have compiled.
          */
         Set3a<T> localSource = (Set3a<T>) source;
-        this.tree = localSource.tree;
+        this.root = localSource.root;
+        this.size = localSource.size;
         localSource.createNewRep();
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
     }
 
     /*
@@ -244,36 +378,252 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
     public final void add(T x) {
         assert x != null : "Violation of: x is not null";
         assert !this.contains(x) : "Violation of: x is not in this";
-        insertInTree(this.tree, x);
+        Node n = new Node();
+        n.label = x;
+        if (this.root == null) {
+            this.root = n;
+        } else {
+            Node parent = this.root;
+            boolean added = false;
+            while (!added) {
+                if (x.compareTo(parent.label) < 0) {
+                    if (parent.left == null) {
+                        parent.left = n;
+                        added = true;
+                    } else {
+                        parent = parent.left;
+                    }
+                } else {
+                    if (parent.right == null) {
+                        parent.right = n;
+                        added = true;
+                    } else {
+                        parent = parent.right;
+                    }
+                }
+            }
+        }
+        this.size++;
+        assert this.conventionHolds();
     }
 
     @Override
     public final T remove(T x) {
         assert x != null : "Violation of: x is not null";
         assert this.contains(x) : "Violation of: x is in this";
-        return removeFromTree(this.tree, x);
+        Node parent = null;
+        Node n = this.root;
+        int comparison = x.compareTo(n.label);
+        while (comparison != 0) {
+            parent = n;
+            if (comparison < 0) {
+                n = n.left;
+            } else {
+                n = n.right;
+            }
+            comparison = x.compareTo(n.label);
+        }
+        T removed = n.label;
+        if (n.left != null && n.right != null) {
+            /*
+             * Move the label of n's successor, the smallest node of its right
+             * subtree, into n, and unlink the successor instead
+             */
+            Node successorParent = n;
+            Node successor = n.right;
+            while (successor.left != null) {
+                successorParent = successor;
+                successor = successor.left;
+            }
+            n.label = successor.label;
+            this.splice(successorParent, successor);
+        } else {
+            this.splice(parent, n);
+        }
+        this.size--;
+        assert this.conventionHolds();
+        return removed;
     }
 
     @Override
     public final T removeAny() {
         assert this.size() > 0 : "Violation of: this /= empty_set";
-        return removeSmallest(this.tree);
+        Node parent = null;
+        Node n = this.root;
+        while (n.left != null) {
+            parent = n;
+            n = n.left;
+        }
+        this.splice(parent, n);
+        this.size--;
+        assert this.conventionHolds();
+        return n.label;
     }
 
     @Override
     public final boolean contains(T x) {
         assert x != null : "Violation of: x is not null";
-        return isInTree(this.tree, x);
+        return this.find(x) != null;
     }
 
     @Override
     public final int size() {
-        return this.tree.size();
+        return this.size;
     }
 
     @Override
     public final Iterator<T> iterator() {
-        return this.tree.iterator();
+        return new Set3aIterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Adds the elements of {@code elements} to {@code this}. They are sorted
+     * once and merged with the elements of {@code this}, and the tree is
+     * rebuilt perfectly balanced, in O(m log m + n) time for m new and n old
+     * elements, whereas adding sorted elements one at a time takes quadratic
+     * time.
+     *
+     * @param elements
+     *            the elements to be added, possibly with duplicates and with
+     *            elements already in this
+     * @updates this
+     * @requires [the elements of elements are not null]
+     * @ensures this = #this union [the elements of elements]
+     */
+    public final void addAll(Iterable<T> elements) {
+        assert elements != null : "Violation of: elements is not null";
+        List<T> sorted = new ArrayList<>();
+        for (T x : elements) {
+            assert x != null : "Violation of: elements are not null";
+            sorted.add(x);
+        }
+        Collections.sort(sorted);
+        /*
+         * Drop duplicates, which are now adjacent
+         */
+        List<T> distinct = new ArrayList<>(sorted.size());
+        for (T x : sorted) {
+            if (distinct.isEmpty()
+                    || distinct.get(distinct.size() - 1).compareTo(x) < 0) {
+                distinct.add(x);
+            }
+        }
+        this.rebuild(merge(this.labels(), distinct, true, true, true));
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Adds the elements of {@code s} to {@code this}, in time linear in
+     * |this| + |s|, and leaves the tree perfectly balanced.
+     *
+     * @param s
+     *            the set whose elements are added
+     * @updates this
+     * @ensures this = #this union s
+     */
+    public final void union(Set3a<T> s) {
+        assert s != null : "Violation of: s is not null";
+        this.rebuild(merge(this.labels(), s.labels(), true, true, true));
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Removes from {@code this} the elements not in {@code s}, in time linear
+     * in |this| + |s|, and leaves the tree perfectly balanced.
+     *
+     * @param s
+     *            the set whose elements are kept
+     * @updates this
+     * @ensures this = #this intersection s
+     */
+    public final void intersection(Set3a<T> s) {
+        assert s != null : "Violation of: s is not null";
+        this.rebuild(merge(this.labels(), s.labels(), false, false, true));
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Removes from {@code this} the elements in {@code s}, in time linear in
+     * |this| + |s|, and leaves the tree perfectly balanced.
+     *
+     * @param s
+     *            the set whose elements are removed
+     * @updates this
+     * @ensures this = #this \ s
+     */
+    public final void difference(Set3a<T> s) {
+        assert s != null : "Violation of: s is not null";
+        this.rebuild(merge(this.labels(), s.labels(), true, false, false));
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set3a}, which
+     * visits the elements in increasing order.
+     */
+    private final class Set3aIterator implements Iterator<T> {
+
+        /**
+         * Nodes whose labels and right subtrees are still to be visited, the
+         * next one on top.
+         */
+        private final Deque<Node> pending;
+
+        /**
+         * No-argument constructor.
+         */
+        private Set3aIterator() {
+            this.pending = new ArrayDeque<>();
+            this.pushLeftPath(Set3a.this.root);
+            assert Set3a.this.conventionHolds();
+        }
+
+        /**
+         * Pushes {@code n} and its left descendants along the leftmost path
+         * onto {@code this.pending}.
+         *
+         * @param n
+         *            the root of the subtree, or null
+         */
+        private void pushLeftPath(Node n) {
+            Node p = n;
+            while (p != null) {
+                this.pending.push(p);
+                p = p.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.pending.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Node n = this.pending.pop();
+            this.pushLeftPath(n.right);
+            return n.label;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
     }
 
 }
@@ -0,0 +1,262 @@
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import components.binarytree.BinaryTree;
+import components.binarytree.BinaryTree1;
+import components.set.Set;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to measure the time and the memory allocated per {@code contains}
+ * on {@code Set3a} and {@code Set3b}, next to the search that {@code Set3a}
+ * used when it was represented as a {@code BinaryTree} (reproduced below),
+ * which disassembled and reassembled the tree at every level.
+ *
+ * <p>
+ * Usage: {@code Set3aAllocationBenchmark [size]}, where {@code size} is the
+ * number of elements (default 100,000), added in random order. Every
+ * integer from 0 to {@code 2 * size - 1} is then looked up, so half the
+ * lookups fail. Allocation is measured with the per-thread allocation
+ * counter of the HotSpot {@code ThreadMXBean}, and is reported as "n/a" on
+ * virtual machines without one. Results are printed as tab-separated lines:
+ * method, elements, lookups, best ns per lookup of several rounds, bytes
+ * allocated per lookup. Run without {@code -ea}.
+ *
+ * @author Put your name here
+ */
+public final class Set3aAllocationBenchmark {
+
+    /**
+     * Default number of elements.
+     */
+    private static final int DEFAULT_SIZE = 100000;
+
+    /**
+     * Number of measured rounds per line.
+     */
+    private static final int ROUNDS = 5;
+
+    /**
+     * Seed for the order of the elements.
+     */
+    private static final long SEED = 2231;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private Set3aAllocationBenchmark() {
+    }
+
+    /**
+     * The search that {@code Set3a.contains} used on its {@code BinaryTree}.
+     *
+     * @param <T>
+     *            type of {@code BinaryTree} labels
+     * @param t
+     *            the {@code BinaryTree} to be searched
+     * @param x
+     *            the label to be searched for
+     * @return true if t contains x, false otherwise
+     */
+    private static <T extends Comparable<T>> boolean isInTree(BinaryTree<T> t,
+            T x) {
+        boolean inTree = false;
+        if (t.size() > 0) {
+            BinaryTree<T> left = t.newInstance();
+            BinaryTree<T> right = t.newInstance();
+            T root = t.disassemble(left, right);
+            if (root.compareTo(x) == 0) {
+                inTree = true;
+            } else if (x.compareTo(root) < 0) {
+                inTree = isInTree(left, x);
+            } else {
+                inTree = isInTree(right, x);
+            }
+            t.assemble(root, left, right);
+        }
+        return inTree;
+    }
+
+    /**
+     * The insertion that {@code Set3a.add} used on its {@code BinaryTree}.
+     *
+     * @param <T>
+     *            type of {@code BinaryTree} labels
+     * @param t
+     *            the {@code BinaryTree} to insert into
+     * @param x
+     *            the label to be inserted
+     */
+    private static <T extends Comparable<T>> void insertInTree(BinaryTree<T> t,
+            T x) {
+        BinaryTree<T> left = t.newInstance();
+        BinaryTree<T> right = t.newInstance();
+        if (t.size() > 0) {
+            T root = t.disassemble(left, right);
+            if (x.compareTo(root) < 0) {
+                insertInTree(left, x);
+            } else {
+                insertInTree(right, x);
+            }
+            t.assemble(root, left, right);
+        } else {
+            t.assemble(x, left, right);
+        }
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread, or
+     * -1 if the virtual machine cannot tell.
+     *
+     * @return the number of bytes allocated, or -1
+     */
+    private static long allocatedBytes() {
+        long bytes = -1;
+        java.lang.management.ThreadMXBean bean = ManagementFactory
+                .getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotSpotBean =
+                    (com.sun.management.ThreadMXBean) bean;
+            if (hotSpotBean.isThreadAllocatedMemorySupported()
+                    && hotSpotBean.isThreadAllocatedMemoryEnabled()) {
+                bytes = hotSpotBean.getThreadAllocatedBytes(
+                        Thread.currentThread().getId());
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Looks up every integer in [0, {@code lookups}) once with the given
+     * method, and returns the elapsed nanoseconds and allocated bytes.
+     *
+     * @param method
+     *            "BinaryTree", "Set3a", or "Set3b"
+     * @param tree
+     *            the elements, for "BinaryTree"
+     * @param set
+     *            the elements, for the other methods
+     * @param lookups
+     *            the number of lookups
+     * @return the elapsed nanoseconds and the allocated bytes (or -1)
+     */
+    private static long[] lookUpAll(String method, BinaryTree<Integer> tree,
+            Set<Integer> set, int lookups) {
+        /*
+         * The keys are boxed before the clock starts, so that boxing is not
+         * counted against the search
+         */
+        Integer[] keys = new Integer[lookups];
+        for (int i = 0; i < lookups; i++) {
+            keys[i] = i;
+        }
+        int found = 0;
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        if (method.equals("BinaryTree")) {
+            for (Integer x : keys) {
+                if (isInTree(tree, x)) {
+                    found++;
+                }
+            }
+        } else {
+            for (Integer x : keys) {
+                if (set.contains(x)) {
+                    found++;
+                }
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        if (bytes >= 0) {
+            bytes = allocatedBytes() - bytes;
+        }
+        assert 2 * found == lookups : "Violation of: half the lookups succeed";
+        return new long[] { nanos, bytes };
+    }
+
+    /**
+     * Times one method and outputs the best of {@code ROUNDS} rounds.
+     *
+     * @param out
+     *            the output stream
+     * @param method
+     *            "BinaryTree", "Set3a", or "Set3b"
+     * @param tree
+     *            the elements, for "BinaryTree"
+     * @param set
+     *            the elements, for the other methods
+     * @param lookups
+     *            the number of lookups
+     * @updates out.content
+     * @requires out.is_open and lookups > 0
+     */
+    private static void time(SimpleWriter out, String method,
+            BinaryTree<Integer> tree, Set<Integer> set, int lookups) {
+        long bestNanos = Long.MAX_VALUE;
+        long bestBytes = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            System.gc();
+            long[] result = lookUpAll(method, tree, set, lookups);
+            bestNanos = Math.min(bestNanos, result[0]);
+            bestBytes = Math.min(bestBytes, result[1]);
+        }
+        String bytesPerLookup = "n/a";
+        if (bestBytes >= 0) {
+            bytesPerLookup = String.format("%.1f",
+                    (double) bestBytes / lookups);
+        }
+        out.println(method + "\t" + lookups / 2 + "\t" + lookups + "\t"
+                + String.format("%.1f", (double) bestNanos / lookups) + "\t"
+                + bytesPerLookup);
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: [size]
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int size = DEFAULT_SIZE;
+        if (args.length > 0) {
+            size = Integer.parseInt(args[0]);
+        }
+        /*
+         * The even integers below 2 * size, in random order
+         */
+        Integer[] elements = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            elements[i] = 2 * i;
+        }
+        Random rnd = new Random(SEED);
+        for (int i = size - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            Integer temp = elements[i];
+            elements[i] = elements[j];
+            elements[j] = temp;
+        }
+        BinaryTree<Integer> tree = new BinaryTree1<>();
+        Set<Integer> set3a = new Set3a<>();
+        Set<Integer> set3b = new Set3b<>();
+        for (Integer x : elements) {
+            insertInTree(tree, x);
+            set3a.add(x);
+            set3b.add(x);
+        }
+        int lookups = 2 * size;
+        out.println("method\telements\tlookups\tns/lookup\tbytes/lookup");
+        /*
+         * First pass warms up the JIT; only the rest are meaningful
+         */
+        lookUpAll("BinaryTree", tree, set3a, lookups);
+        lookUpAll("Set3a", tree, set3a, lookups);
+        lookUpAll("Set3b", tree, set3b, lookups);
+        time(out, "BinaryTree", tree, set3a, lookups);
+        time(out, "Set3a", tree, set3a, lookups);
+        time(out, "Set3b", tree, set3b, lookups);
+        out.close();
+    }
+
+}
@@ -0,0 +1,811 @@
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set} represented as an AVL tree (a binary search tree in which the
+ * heights of the two subtrees of every node differ by at most one), done
+ * "bare-handed" with nodes, with implementations of primary methods.
+ *
+ * <p>
+ * The height of the tree is always O(log n), so {@code add}, {@code remove},
+ * {@code removeAny}, and {@code contains} take O(log n) time whatever the
+ * order in which elements are added, and the recursion in {@code add} and
+ * {@code remove} is only O(log n) deep. {@code contains} is iterative and
+ * allocates nothing. {@code removeAny} removes the smallest element.
+ *
+ * <p>
+ * Every node also records the number of nodes in its subtree, which makes
+ * {@code Set3b} an order-statistics tree: besides the {@code Set} methods it
+ * has {@code floor}, {@code ceiling}, {@code rank}, {@code select}, and
+ * {@code rangeCount}, which take O(log n) time whatever the size of the
+ * answer, and {@code rangeIterator}, which visits the elements in a range in
+ * O(log n) time plus O(1) per element visited.
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @mathdefinitions <pre>
+ * IS_AVL(
+ *   n: node
+ *  ): boolean satisfies
+ *  [the tree rooted at n, through left and right, is a binary search tree
+ *   with the ordering reported by compareTo for T, with no duplicate
+ *   labels, in which height and size in every node are the height and the
+ *   number of nodes of the tree rooted at that node, and the heights of its
+ *   two subtrees differ by at most 1]
+ * </pre>
+ * @convention <pre>
+ * IS_AVL($this.root)  and
+ * $this.size = [number of nodes in the tree rooted at $this.root]
+ * </pre>
+ * @correspondence this = [labels of the nodes in the tree rooted at $this.root]
+ */
+public class Set3b<T extends Comparable<T>> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Node class for AVL tree nodes.
+     */
+    private final class Node {
+
+        /**
+         * Label in node.
+         */
+        private T label;
+
+        /**
+         * Root of left subtree, or null.
+         */
+        private Node left;
+
+        /**
+         * Root of right subtree, or null.
+         */
+        private Node right;
+
+        /**
+         * Height of the tree rooted at this node (1 for a leaf).
+         */
+        private int height;
+
+        /**
+         * Number of nodes in the tree rooted at this node.
+         */
+        private int size;
+
+    }
+
+    /**
+     * Root of the AVL tree, or null if it is empty.
+     */
+    private Node root;
+
+    /**
+     * Number of nodes in the tree, i.e., size = |this|.
+     */
+    private int size;
+
+    /**
+     * Returns the height of the tree rooted at {@code n}.
+     *
+     * @param n
+     *            the root of the tree, or null
+     * @return the height of the tree (0 if it is empty)
+     */
+    private int height(Node n) {
+        int height = 0;
+        if (n != null) {
+            height = n.height;
+        }
+        return height;
+    }
+
+    /**
+     * Returns the number of nodes in the tree rooted at {@code n}.
+     *
+     * @param n
+     *            the root of the tree, or null
+     * @return the number of nodes in the tree (0 if it is empty)
+     */
+    private int size(Node n) {
+        int count = 0;
+        if (n != null) {
+            count = n.size;
+        }
+        return count;
+    }
+
+    /**
+     * Recomputes the height and size of {@code n} from those of its
+     * children.
+     *
+     * @param n
+     *            the node
+     * @updates n.height, n.size
+     * @requires n is not null
+     * @ensures <pre>
+     * n.height = 1 + max(height(n.left), height(n.right))  and
+     * n.size = 1 + size(n.left) + size(n.right)
+     * </pre>
+     */
+    private void update(Node n) {
+        n.height = 1 + Math.max(this.height(n.left), this.height(n.right));
+        n.size = 1 + this.size(n.left) + this.size(n.right);
+    }
+
+    /**
+     * Rotates the tree rooted at {@code n} right, making its left child the
+     * new root, and returns the new root.
+     *
+     * @param n
+     *            the root of the tree
+     * @return the new root
+     * @requires n is not null and n.left is not null
+     * @ensures <pre>
+     * [rotateRight is the root of a tree with the same labels, in the same
+     *  order, as the tree rooted at #n, with #n as its right child]
+     * </pre>
+     */
+    private Node rotateRight(Node n) {
+        Node top = n.left;
+        n.left = top.right;
+        top.right = n;
+        this.update(n);
+        this.update(top);
+        return top;
+    }
+
+    /**
+     * Rotates the tree rooted at {@code n} left, making its right child the
+     * new root, and returns the new root.
+     *
+     * @param n
+     *            the root of the tree
+     * @return the new root
+     * @requires n is not null and n.right is not null
+     * @ensures <pre>
+     * [rotateLeft is the root of a tree with the same labels, in the same
+     *  order, as the tree rooted at #n, with #n as its left child]
+     * </pre>
+     */
+    private Node rotateLeft(Node n) {
+        Node top = n.right;
+        n.right = top.left;
+        top.left = n;
+        this.update(n);
+        this.update(top);
+        return top;
+    }
+
+    /**
+     * Restores the AVL balance at {@code n}, whose subtrees are AVL trees
+     * with heights differing by at most 2, and returns the new root of its
+     * tree.
+     *
+     * @param n
+     *            the root of the tree
+     * @return the new root
+     * @requires <pre>
+     * n is not null  and  IS_AVL(n.left)  and  IS_AVL(n.right)  and
+     * |height(n.left) - height(n.right)| <= 2
+     * </pre>
+     * @ensures <pre>
+     * IS_AVL(rebalance)  and
+     * [the tree rooted at rebalance has the same labels as that at #n]
+     * </pre>
+     */
+    private Node rebalance(Node n) {
+        Node top = n;
+        int balance = this.height(n.left) - this.height(n.right);
+        if (balance > 1) {
+            if (this.height(n.left.left) < this.height(n.left.right)) {
+                n.left = this.rotateLeft(n.left);
+            }
+            top = this.rotateRight(n);
+        } else if (balance < -1) {
+            if (this.height(n.right.right) < this.height(n.right.left)) {
+                n.right = this.rotateRight(n.right);
+            }
+            top = this.rotateLeft(n);
+        } else {
+            this.update(n);
+        }
+        return top;
+    }
+
+    /**
+     * Inserts {@code x} in the tree rooted at {@code n} and returns the new
+     * root.
+     *
+     * @param n
+     *            the root of the tree, or null
+     * @param x
+     *            the label to be inserted
+     * @return the new root
+     * @aliases reference {@code x}
+     * @requires IS_AVL(n) and x is not in labels(n)
+     * @ensures <pre>
+     * IS_AVL(insert)  and  labels(insert) = labels(#n) union {x}
+     * </pre>
+     */
+    private Node insert(Node n, T x) {
+        Node top;
+        if (n == null) {
+            top = new Node();
+            top.label = x;
+            top.height = 1;
+            top.size = 1;
+        } else {
+            if (x.compareTo(n.label) < 0) {
+                n.left = this.insert(n.left, x);
+            } else {
+                n.right = this.insert(n.right, x);
+            }
+            top = this.rebalance(n);
+        }
+        return top;
+    }
+
+    /**
+     * Removes the smallest label from the tree rooted at {@code n} and
+     * returns the new root; the label removed is {@code smallest(n)}.
+     *
+     * @param n
+     *            the root of the tree
+     * @return the new root
+     * @requires IS_AVL(n) and n is not null
+     * @ensures <pre>
+     * IS_AVL(removeSmallest)  and
+     * labels(removeSmallest) = labels(#n) \ {[the smallest label in #n]}
+     * </pre>
+     */
+    private Node removeSmallest(Node n) {
+        Node top;
+        if (n.left == null) {
+            top = n.right;
+        } else {
+            n.left = this.removeSmallest(n.left);
+            top = this.rebalance(n);
+        }
+        return top;
+    }
+
+    /**
+     * Returns the node with the smallest label in the tree rooted at
+     * {@code n}.
+     *
+     * @param n
+     *            the root of the tree
+     * @return the node with the smallest label
+     * @requires IS_AVL(n) and n is not null
+     * @ensures smallest.label = [the smallest label in n]
+     */
+    private Node smallest(Node n) {
+        Node p = n;
+        while (p.left != null) {
+            p = p.left;
+        }
+        return p;
+    }
+
+    /**
+     * Removes {@code x} from the tree rooted at {@code n} and returns the new
+     * root.
+     *
+     * @param n
+     *            the root of the tree
+     * @param x
+     *            the label to be removed
+     * @return the new root
+     * @requires IS_AVL(n) and x is in labels(n)
+     * @ensures <pre>
+     * IS_AVL(delete)  and  labels(delete) = labels(#n) \ {x}
+     * </pre>
+     */
+    private Node delete(Node n, T x) {
+        Node top;
+        int comparison = x.compareTo(n.label);
+        if (comparison < 0) {
+            n.left = this.delete(n.left, x);
+            top = this.rebalance(n);
+        } else if (comparison > 0) {
+            n.right = this.delete(n.right, x);
+            top = this.rebalance(n);
+        } else if (n.left == null) {
+            top = n.right;
+        } else if (n.right == null) {
+            top = n.left;
+        } else {
+            /*
+             * Replace n by its successor, the smallest node of its right
+             * subtree
+             */
+            Node successor = this.smallest(n.right);
+            successor.right = this.removeSmallest(n.right);
+            successor.left = n.left;
+            top = this.rebalance(successor);
+        }
+        return top;
+    }
+
+    /**
+     * Returns the node labeled {@code x} in the tree, or null if there is
+     * none. Iterative, and allocates nothing.
+     *
+     * @param x
+     *            the label to be searched for
+     * @return the node labeled x, or null
+     * @ensures <pre>
+     * if x is in this then find.label = x else find = null
+     * </pre>
+     */
+    private Node find(T x) {
+        Node p = this.root;
+        boolean found = false;
+        while (p != null && !found) {
+            int comparison = x.compareTo(p.label);
+            if (comparison < 0) {
+                p = p.left;
+            } else if (comparison > 0) {
+                p = p.right;
+            } else {
+                found = true;
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Returns the number of elements of {@code this} smaller than {@code x},
+     * or no larger than {@code x} if {@code inclusive}.
+     *
+     * @param x
+     *            the bound
+     * @param inclusive
+     *            whether elements equal to x are counted
+     * @return the number of elements below x
+     * @ensures <pre>
+     * countBelow = |{y: T where (y is in this  and
+     *   (y < x  or  (inclusive  and  y = x)))}|
+     * </pre>
+     */
+    private int countBelow(T x, boolean inclusive) {
+        int count = 0;
+        Node p = this.root;
+        while (p != null) {
+            int comparison = x.compareTo(p.label);
+            if (comparison < 0) {
+                p = p.left;
+            } else if (comparison > 0) {
+                count += this.size(p.left) + 1;
+                p = p.right;
+            } else {
+                count += this.size(p.left);
+                if (inclusive) {
+                    count++;
+                }
+                p = null;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks that the tree rooted at {@code n} is an AVL tree with labels
+     * strictly between {@code low} and {@code high}, and returns its number
+     * of nodes.
+     *
+     * @param n
+     *            the root of the tree, or null
+     * @param low
+     *            lower bound for labels, or null for none
+     * @param high
+     *            upper bound for labels, or null for none
+     * @return the number of nodes in the tree
+     */
+    private int checkAvl(Node n, T low, T high) {
+        int count = 0;
+        if (n != null) {
+            assert n.label != null : "Violation of: labels are not null";
+            assert low == null || low.compareTo(n.label) < 0 : ""
+                    + "Violation of: IS_AVL($this.root) [order]";
+            assert high == null || n.label.compareTo(high) < 0 : ""
+                    + "Violation of: IS_AVL($this.root) [order]";
+            int leftHeight = this.height(n.left);
+            int rightHeight = this.height(n.right);
+            assert n.height == 1 + Math.max(leftHeight, rightHeight) : ""
+                    + "Violation of: IS_AVL($this.root) [height]";
+            assert Math.abs(leftHeight - rightHeight) <= 1 : ""
+                    + "Violation of: IS_AVL($this.root) [balance]";
+            count = 1 + this.checkAvl(n.left, low, n.label)
+                    + this.checkAvl(n.right, n.label, high);
+            assert n.size == count : ""
+                    + "Violation of: IS_AVL($this.root) [size]";
+        }
+        return count;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * IS_AVL($this.root)  and
+     * $this.size = [number of nodes in the tree rooted at $this.root]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert this.size == this.checkAvl(this.root, null, null) : ""
+                + "Violation of: $this.size = [number of nodes in the tree]";
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.root = null;
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set3b() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set3b<?> : ""
+                + "Violation of: source is of dynamic type Set3b<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set3b<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set3b<T> localSource = (Set3b<T>) source;
+        this.root = localSource.root;
+        this.size = localSource.size;
+        localSource.createNewRep();
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+        this.root = this.insert(this.root, x);
+        this.size++;
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+        T removed = this.find(x).label;
+        this.root = this.delete(this.root, x);
+        this.size--;
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+        T removed = this.smallest(this.root).label;
+        this.root = this.removeSmallest(this.root);
+        this.size--;
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+        return this.find(x) != null;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Set3bIterator(null, null);
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Reports the largest element of {@code this} no larger than {@code x},
+     * or null if there is none.
+     *
+     * @param x
+     *            the bound
+     * @return the largest element no larger than x, or null
+     * @requires x is not null
+     * @ensures <pre>
+     * if there exists y: T where (y is in this  and  y <= x)
+     *  then floor = [the largest such y]
+     *  else floor = null
+     * </pre>
+     */
+    public final T floor(T x) {
+        assert x != null : "Violation of: x is not null";
+        T floor = null;
+        Node p = this.root;
+        while (p != null) {
+            int comparison = x.compareTo(p.label);
+            if (comparison < 0) {
+                p = p.left;
+            } else {
+                floor = p.label;
+                if (comparison > 0) {
+                    p = p.right;
+                } else {
+                    p = null;
+                }
+            }
+        }
+        return floor;
+    }
+
+    /**
+     * Reports the smallest element of {@code this} no smaller than
+     * {@code x}, or null if there is none.
+     *
+     * @param x
+     *            the bound
+     * @return the smallest element no smaller than x, or null
+     * @requires x is not null
+     * @ensures <pre>
+     * if there exists y: T where (y is in this  and  x <= y)
+     *  then ceiling = [the smallest such y]
+     *  else ceiling = null
+     * </pre>
+     */
+    public final T ceiling(T x) {
+        assert x != null : "Violation of: x is not null";
+        T ceiling = null;
+        Node p = this.root;
+        while (p != null) {
+            int comparison = x.compareTo(p.label);
+            if (comparison > 0) {
+                p = p.right;
+            } else {
+                ceiling = p.label;
+                if (comparison < 0) {
+                    p = p.left;
+                } else {
+                    p = null;
+                }
+            }
+        }
+        return ceiling;
+    }
+
+    /**
+     * Reports the number of elements of {@code this} smaller than {@code x},
+     * which is the position {@code x} has, or would have, in the increasing
+     * order of the elements of {@code this}, counting from 0.
+     *
+     * @param x
+     *            the element
+     * @return the number of elements smaller than x
+     * @requires x is not null
+     * @ensures rank = |{y: T where (y is in this  and  y < x)}|
+     */
+    public final int rank(T x) {
+        assert x != null : "Violation of: x is not null";
+        return this.countBelow(x, false);
+    }
+
+    /**
+     * Reports the element of {@code this} at position {@code i} in increasing
+     * order, counting from 0.
+     *
+     * @param i
+     *            the position
+     * @return the element at position i
+     * @requires 0 <= i < |this|
+     * @ensures select is in this  and  rank(select) = i
+     */
+    public final T select(int i) {
+        assert 0 <= i : "Violation of: 0 <= i";
+        assert i < this.size : "Violation of: i < |this|";
+        int position = i;
+        Node p = this.root;
+        while (this.size(p.left) != position) {
+            if (position < this.size(p.left)) {
+                p = p.left;
+            } else {
+                position -= this.size(p.left) + 1;
+                p = p.right;
+            }
+        }
+        return p.label;
+    }
+
+    /**
+     * Reports the number of elements of {@code this} between {@code lo} and
+     * {@code hi}, both included (0 if {@code hi} is smaller than
+     * {@code lo}).
+     *
+     * @param lo
+     *            the lower bound
+     * @param hi
+     *            the upper bound
+     * @return the number of elements between lo and hi
+     * @requires lo is not null and hi is not null
+     * @ensures rangeCount = |{y: T where (y is in this  and  lo <= y <= hi)}|
+     */
+    public final int rangeCount(T lo, T hi) {
+        assert lo != null : "Violation of: lo is not null";
+        assert hi != null : "Violation of: hi is not null";
+        return Math.max(0,
+                this.countBelow(hi, true) - this.countBelow(lo, false));
+    }
+
+    /**
+     * Returns an iterator over the elements of {@code this} between
+     * {@code lo} and {@code hi}, both included, in increasing order. Elements
+     * outside the range are not visited. As with {@code iterator}, the
+     * iterator does not support {@code remove}, and {@code this} must not be
+     * changed while it is in use.
+     *
+     * @param lo
+     *            the lower bound
+     * @param hi
+     *            the upper bound
+     * @return an iterator over the elements between lo and hi
+     * @requires lo is not null and hi is not null
+     * @ensures <pre>
+     * [rangeIterator visits exactly the elements y of this with
+     *  lo <= y <= hi, in increasing order]
+     * </pre>
+     */
+    public final Iterator<T> rangeIterator(T lo, T hi) {
+        assert lo != null : "Violation of: lo is not null";
+        assert hi != null : "Violation of: hi is not null";
+        return new Set3bIterator(lo, hi);
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set3b}, which
+     * visits the elements in increasing order, optionally only those between
+     * two bounds.
+     */
+    private final class Set3bIterator implements Iterator<T> {
+
+        /**
+         * Nodes whose labels and right subtrees are still to be visited, the
+         * next one on top.
+         */
+        private final Deque<Node> pending;
+
+        /**
+         * Largest element to be visited, or null for none.
+         */
+        private final T high;
+
+        /**
+         * Constructor from the bounds of the elements to be visited.
+         *
+         * @param low
+         *            smallest element to be visited, or null for none
+         * @param high
+         *            largest element to be visited, or null for none
+         */
+        private Set3bIterator(T low, T high) {
+            this.pending = new ArrayDeque<>();
+            this.high = high;
+            /*
+             * Push the path to the smallest element no smaller than low,
+             * keeping only the nodes at which it turns left: those are the
+             * nodes at least low whose right subtrees are still to be visited
+             */
+            Node p = Set3b.this.root;
+            while (p != null) {
+                if (low == null || low.compareTo(p.label) <= 0) {
+                    this.pending.push(p);
+                    p = p.left;
+                } else {
+                    p = p.right;
+                }
+            }
+            assert Set3b.this.conventionHolds();
+        }
+
+        /**
+         * Pushes {@code n} and its left descendants along the leftmost path
+         * onto {@code this.pending}.
+         *
+         * @param n
+         *            the root of the subtree, or null
+         */
+        private void pushLeftPath(Node n) {
+            Node p = n;
+            while (p != null) {
+                this.pending.push(p);
+                p = p.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.pending.isEmpty() && (this.high == null
+                    || this.pending.peek().label.compareTo(this.high) <= 0);
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Node n = this.pending.pop();
+            this.pushLeftPath(n.right);
+            return n.label;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
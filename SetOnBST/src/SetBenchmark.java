@@ -0,0 +1,213 @@
+import java.util.Arrays;
+import java.util.Random;
+
+import components.set.Set;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to time {@code add}, {@code contains}, and {@code remove} of every
+ * element on {@code Set3a} (an unbalanced binary search tree) and
+ * {@code Set3b} (an AVL tree), with the elements in sorted, reverse-sorted,
+ * and random order. The set "Set3a.addAll" is a {@code Set3a} to which the
+ * elements are added with one call to {@code addAll}, which builds a
+ * balanced tree.
+ *
+ * <p>
+ * Usage: {@code SetBenchmark [size...]}, where each {@code size} is a number
+ * of elements (default 10,000, 20,000, and 1,000,000). {@code Set3a} takes
+ * quadratic time on sorted input, so it is only run on sets of at most
+ * 20,000 elements. Results are printed as tab-separated lines: set, input,
+ * elements, best ms of several rounds for the adds, the contains, and the
+ * removes. Run without {@code -ea}.
+ *
+ * @author Put your name here
+ */
+public final class SetBenchmark {
+
+    /**
+     * Default numbers of elements.
+     */
+    private static final int[] DEFAULT_SIZES = { 10000, 20000, 1000000 };
+
+    /**
+     * Largest set built as a {@code Set3a}.
+     */
+    private static final int MAX_SET3A_SIZE = 20000;
+
+    /**
+     * Number of measured rounds per line.
+     */
+    private static final int ROUNDS = 3;
+
+    /**
+     * Seed for the random order.
+     */
+    private static final long SEED = 2231;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Number of operations timed per round: add, contains, remove.
+     */
+    private static final int OPERATIONS = 3;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SetBenchmark() {
+    }
+
+    /**
+     * Returns the elements 0 through {@code size - 1} in the named order.
+     *
+     * @param input
+     *            "sorted", "reversed", or "random"
+     * @param size
+     *            the number of elements
+     * @return the elements
+     */
+    private static Integer[] elements(String input, int size) {
+        Integer[] a = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            a[i] = i;
+            if (input.equals("reversed")) {
+                a[i] = size - 1 - i;
+            }
+        }
+        if (input.equals("random")) {
+            Random rnd = new Random(SEED);
+            for (int i = size - 1; i > 0; i--) {
+                int j = rnd.nextInt(i + 1);
+                Integer temp = a[i];
+                a[i] = a[j];
+                a[j] = temp;
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Returns a new, empty set of the named kind.
+     *
+     * @param set
+     *            "Set3a", "Set3a.addAll", or "Set3b"
+     * @return the new set
+     */
+    private static Set<Integer> newSet(String set) {
+        Set<Integer> s;
+        if (set.startsWith("Set3a")) {
+            s = new Set3a<Integer>();
+        } else {
+            s = new Set3b<Integer>();
+        }
+        return s;
+    }
+
+    /**
+     * Adds, looks up, and removes every element of {@code a} once, and
+     * returns the elapsed time of each of the three.
+     *
+     * @param set
+     *            "Set3a", "Set3a.addAll", or "Set3b"
+     * @param a
+     *            the elements, all different
+     * @return the elapsed nanoseconds for add, contains, and remove
+     */
+    private static long[] runOnce(String set, Integer[] a) {
+        Set<Integer> s = newSet(set);
+        long[] nanos = new long[OPERATIONS];
+        long start = System.nanoTime();
+        if (set.equals("Set3a.addAll")) {
+            ((Set3a<Integer>) s).addAll(Arrays.asList(a));
+        } else {
+            for (Integer x : a) {
+                s.add(x);
+            }
+        }
+        nanos[0] = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (Integer x : a) {
+            s.contains(x);
+        }
+        nanos[1] = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (Integer x : a) {
+            s.remove(x);
+        }
+        nanos[2] = System.nanoTime() - start;
+        return nanos;
+    }
+
+    /**
+     * Times one set on one input and outputs the best of {@code ROUNDS}
+     * rounds for each operation.
+     *
+     * @param out
+     *            the output stream
+     * @param set
+     *            "Set3a", "Set3a.addAll", or "Set3b"
+     * @param input
+     *            the name of the input
+     * @param a
+     *            the elements, all different
+     * @updates out.content
+     * @requires out.is_open
+     */
+    private static void time(SimpleWriter out, String set, String input,
+            Integer[] a) {
+        long[] best = { Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE };
+        for (int r = 0; r < ROUNDS; r++) {
+            System.gc();
+            long[] nanos = runOnce(set, a);
+            for (int i = 0; i < OPERATIONS; i++) {
+                best[i] = Math.min(best[i], nanos[i]);
+            }
+        }
+        out.print(set + "\t" + input + "\t" + a.length);
+        for (long nanos : best) {
+            out.print("\t" + String.format("%.1f", nanos / NANOS_PER_MILLI));
+        }
+        out.println();
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: [size...]
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        String[] inputs = { "sorted", "reversed", "random" };
+        out.println("set\tinput\telements\tadd_ms\tcontains_ms\tremove_ms");
+        /*
+         * First pass warms up the JIT; only the rest are meaningful
+         */
+        runOnce("Set3a", elements("random", sizes[0]));
+        runOnce("Set3a.addAll", elements("random", sizes[0]));
+        runOnce("Set3b", elements("random", sizes[0]));
+        for (int size : sizes) {
+            for (String input : inputs) {
+                Integer[] a = elements(input, size);
+                if (size <= MAX_SET3A_SIZE) {
+                    time(out, "Set3a", input, a);
+                }
+                time(out, "Set3a.addAll", input, a);
+                time(out, "Set3b", input, a);
+            }
+        }
+        out.close();
+    }
+
+}
@@ -1,11 +1,31 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
 import components.set.Set;
 import components.set.Set1L;
 
 /**
- * Customized JUnit test fixture for {@code Set3a}.
+ * Customized JUnit test fixture for {@code Set3a}, with extra tests of the
+ * bulk operations.
  */
 public class Set3aTest extends SetTest {
 
+    /**
+     * Number of elements in the long tests.
+     */
+    private static final int SIZE = 2000;
+
+    /**
+     * Seed for the random tests.
+     */
+    private static final long SEED = 2231;
+
     @Override
     protected final Set<String> constructorTest() {
         return new Set3a<String>();
@@ -16,4 +36,134 @@ public class Set3aTest extends SetTest {
         return new Set1L<String>();
     }
 
+    /**
+     * Returns {@code count} random integers in [0, bound), possibly with
+     * duplicates.
+     *
+     * @param rnd
+     *            the source of randomness
+     * @param count
+     *            the number of integers
+     * @param bound
+     *            the bound
+     * @return the integers
+     */
+    private static List<Integer> randomList(Random rnd, int count,
+            int bound) {
+        List<Integer> list = new ArrayList<>();
+        for (int k = 0; k < count; k++) {
+            list.add(rnd.nextInt(bound));
+        }
+        return list;
+    }
+
+    /**
+     * Returns a {@code Set1L} of the elements of {@code elements}.
+     *
+     * @param elements
+     *            the elements, possibly with duplicates
+     * @return the set
+     */
+    private static Set<Integer> reference(List<Integer> elements) {
+        Set<Integer> s = new Set1L<Integer>();
+        for (Integer x : elements) {
+            if (!s.contains(x)) {
+                s.add(x);
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Returns a {@code Set1L} of the given strings.
+     *
+     * @param args
+     *            the strings, all different
+     * @return the set
+     */
+    private static Set<String> strings(String... args) {
+        Set<String> s = new Set1L<String>();
+        for (String x : args) {
+            s.add(x);
+        }
+        return s;
+    }
+
+    @Test
+    public final void testConstructorSortedInput() {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            list.add(i);
+        }
+        Set3a<Integer> s = new Set3a<Integer>(list);
+        assertEquals(SIZE, s.size());
+        int expected = 0;
+        for (Integer x : s) {
+            assertEquals(Integer.valueOf(expected), x);
+            expected++;
+        }
+        assertEquals(SIZE, expected);
+    }
+
+    @Test
+    public final void testAddAllWithDuplicatesAndOverlap() {
+        Set3a<String> s = new Set3a<String>(Arrays.asList("b", "d"));
+        s.addAll(Arrays.asList("e", "a", "d", "c", "a"));
+        assertEquals(strings("a", "b", "c", "d", "e"), s);
+    }
+
+    @Test
+    public final void testAddAllEmpty() {
+        Set3a<String> s = new Set3a<String>(Arrays.asList("b"));
+        s.addAll(new ArrayList<String>());
+        assertEquals(strings("b"), s);
+    }
+
+    @Test
+    public final void testAddAfterAddAll() {
+        Set3a<String> s = new Set3a<String>(Arrays.asList("b", "f", "d"));
+        s.add("c");
+        s.remove("d");
+        assertEquals(strings("b", "c", "f"), s);
+    }
+
+    @Test
+    public final void testUnionIntersectionDifferenceRandom() {
+        Random rnd = new Random(SEED);
+        List<Integer> a = randomList(rnd, SIZE, SIZE);
+        List<Integer> b = randomList(rnd, SIZE, SIZE);
+        Set<Integer> aRef = reference(a);
+        Set<Integer> bRef = reference(b);
+        Set3a<Integer> sb = new Set3a<Integer>(b);
+
+        Set3a<Integer> union = new Set3a<Integer>(a);
+        union.union(sb);
+        Set3a<Integer> intersection = new Set3a<Integer>(a);
+        intersection.intersection(sb);
+        Set3a<Integer> difference = new Set3a<Integer>(a);
+        difference.difference(sb);
+
+        assertEquals(bRef, sb);
+        for (int x = 0; x < SIZE; x++) {
+            boolean inA = aRef.contains(x);
+            boolean inB = bRef.contains(x);
+            assertEquals(inA || inB, union.contains(x));
+            assertEquals(inA && inB, intersection.contains(x));
+            assertEquals(inA && !inB, difference.contains(x));
+        }
+        assertEquals(aRef.size() + bRef.size() - intersection.size(),
+                union.size());
+    }
+
+    @Test
+    public final void testOperationsWithItself() {
+        Set3a<String> s = new Set3a<String>(Arrays.asList("a", "b", "c"));
+        s.union(s);
+        assertEquals(strings("a", "b", "c"), s);
+        s.intersection(s);
+        assertEquals(strings("a", "b", "c"), s);
+        s.difference(s);
+        assertEquals(strings(), s);
+    }
+
 }
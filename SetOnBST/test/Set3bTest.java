@@ -0,0 +1,193 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set3b}, with extra tests of long
+ * sequences of operations (which also check the AVL convention after each
+ * one when assertions are enabled).
+ */
+public class Set3bTest extends SetTest {
+
+    /**
+     * Number of elements in the long tests.
+     */
+    private static final int SIZE = 2000;
+
+    /**
+     * Seed for the random tests.
+     */
+    private static final long SEED = 2231;
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new Set3b<String>();
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+    @Test
+    public final void testSortedAddsThenRemoves() {
+        Set<Integer> s = new Set3b<Integer>();
+        for (int i = 0; i < SIZE; i++) {
+            s.add(i);
+        }
+        assertEquals(SIZE, s.size());
+        for (int i = SIZE - 1; i >= 0; i -= 2) {
+            assertEquals(Integer.valueOf(i), s.remove(i));
+        }
+        assertEquals(SIZE / 2, s.size());
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(i % 2 == 0, s.contains(i));
+        }
+    }
+
+    @Test
+    public final void testRandomOperationsAgainstReference() {
+        Random rnd = new Random(SEED);
+        Set<Integer> s = new Set3b<Integer>();
+        Set<Integer> sExpected = new Set1L<Integer>();
+        for (int k = 0; k < SIZE; k++) {
+            Integer x = rnd.nextInt(SIZE / 4);
+            if (sExpected.contains(x)) {
+                assertEquals(sExpected.remove(x), s.remove(x));
+            } else {
+                sExpected.add(x);
+                s.add(x);
+            }
+        }
+        assertEquals(sExpected, s);
+        while (s.size() > 0) {
+            Integer x = s.removeAny();
+            assertTrue(sExpected.contains(x));
+            sExpected.remove(x);
+        }
+        assertEquals(0, sExpected.size());
+    }
+
+    @Test
+    public final void testIteratorInOrder() {
+        Set<Integer> s = new Set3b<Integer>();
+        for (int i = SIZE - 1; i >= 0; i--) {
+            s.add(i);
+        }
+        int expected = 0;
+        for (Integer x : s) {
+            assertEquals(Integer.valueOf(expected), x);
+            expected++;
+        }
+        assertEquals(SIZE, expected);
+    }
+
+    /**
+     * Returns a {@code Set3b} of the even integers in [0, 2 * SIZE), added in
+     * random order.
+     *
+     * @return the set
+     */
+    private static Set3b<Integer> evens() {
+        Integer[] a = new Integer[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            a[i] = 2 * i;
+        }
+        Random rnd = new Random(SEED);
+        for (int i = SIZE - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            Integer temp = a[i];
+            a[i] = a[j];
+            a[j] = temp;
+        }
+        Set3b<Integer> s = new Set3b<Integer>();
+        for (Integer x : a) {
+            s.add(x);
+        }
+        return s;
+    }
+
+    @Test
+    public final void testFloorCeilingEmpty() {
+        Set3b<Integer> s = new Set3b<Integer>();
+        assertNull(s.floor(0));
+        assertNull(s.ceiling(0));
+        assertEquals(0, s.rank(0));
+        assertEquals(0, s.rangeCount(0, 0));
+        assertFalse(s.rangeIterator(0, 0).hasNext());
+    }
+
+    @Test
+    public final void testFloorCeilingRank() {
+        Set3b<Integer> s = evens();
+        assertNull(s.floor(-1));
+        assertNull(s.ceiling(2 * SIZE - 1));
+        for (int x = 0; x < 2 * SIZE; x++) {
+            int floor = x - x % 2;
+            assertEquals(Integer.valueOf(floor), s.floor(x));
+            if (x < 2 * SIZE - 1) {
+                int ceiling = x + x % 2;
+                assertEquals(Integer.valueOf(ceiling), s.ceiling(x));
+            }
+            assertEquals((x + 1) / 2, s.rank(x));
+        }
+        assertEquals(SIZE, s.rank(2 * SIZE));
+        assertEquals(SIZE, s.size());
+    }
+
+    @Test
+    public final void testSelect() {
+        Set3b<Integer> s = evens();
+        for (int i = 0; i < SIZE; i++) {
+            Integer x = s.select(i);
+            assertEquals(Integer.valueOf(2 * i), x);
+            assertEquals(i, s.rank(x));
+        }
+    }
+
+    @Test
+    public final void testRangeCountAndIterator() {
+        Set3b<Integer> s = evens();
+        Random rnd = new Random(SEED);
+        for (int k = 0; k < SIZE; k++) {
+            int lo = rnd.nextInt(2 * SIZE + 2) - 1;
+            int hi = rnd.nextInt(2 * SIZE + 2) - 1;
+            int expected = 0;
+            int next = Math.max(0, lo + lo % 2);
+            Iterator<Integer> it = s.rangeIterator(lo, hi);
+            while (next <= hi && next < 2 * SIZE) {
+                assertTrue(it.hasNext());
+                assertEquals(Integer.valueOf(next), it.next());
+                expected++;
+                next += 2;
+            }
+            assertFalse(it.hasNext());
+            assertEquals(expected, s.rangeCount(lo, hi));
+        }
+    }
+
+    @Test
+    public final void testRangeAfterRemoves() {
+        Set3b<Integer> s = evens();
+        for (int x = 0; x < 2 * SIZE; x += 4) {
+            s.remove(x);
+        }
+        assertEquals(SIZE / 2, s.rangeCount(0, 2 * SIZE));
+        assertEquals(2, s.rangeCount(0, 6));
+        assertEquals(Integer.valueOf(2), s.select(0));
+        assertEquals(Integer.valueOf(6), s.select(1));
+        assertEquals(Integer.valueOf(2), s.floor(5));
+        assertEquals(Integer.valueOf(6), s.ceiling(3));
+        assertEquals(1, s.rank(6));
+    }
+
+}
@@ -0,0 +1,464 @@
+import java.util.Comparator;
+
+/**
+ * Utility class with the heap operations used by {@code SortingMachine5a},
+ * working directly on a plain array. The heap occupies {@code heap[0, size)},
+ * interpreted as a complete {@code d}-ary tree with the children of index
+ * {@code i} at {@code d*i+1} through {@code d*i+d}, and the smallest entry
+ * (according to {@code order}) at the root. Each operation has an overload
+ * without {@code d} for the usual binary heap.
+ *
+ * <p>
+ * A larger arity makes the tree shallower, so a sift moves fewer entries
+ * and touches fewer cache lines, at the price of more comparisons per level.
+ *
+ * <p>
+ * The operations are iterative and sift with a "hole": the entry being
+ * sifted is held aside while the entries it passes move one level, and it is
+ * written once, into its final slot. Only O(1) preconditions are checked, so
+ * every operation costs what its algorithm costs, even with assertions
+ * enabled.
+ *
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * SUBTREE_IS_HEAP (
+ *   a: string of T,
+ *   start: integer,
+ *   size: integer,
+ *   d: integer,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  [the subtree of a[0, size) (when a is interpreted as a complete d-ary
+ *   tree) rooted at index start satisfies the heap ordering property
+ *   according to the relation r]
+ * </pre>
+ *
+ * @author Put your name here
+ */
+public final class ArrayHeaps {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ArrayHeaps() {
+    }
+
+    /**
+     * Given an array whose first {@code size} entries represent a complete
+     * {@code d}-ary tree and an index referring to the root of a subtree that
+     * would be a heap except for its root, sifts the root down to turn that
+     * whole subtree into a heap.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param heap
+     *            the complete d-ary tree
+     * @param top
+     *            the index of the root of the subtree
+     * @param size
+     *            the number of entries in the tree
+     * @param d
+     *            the arity of the tree
+     * @param order
+     *            total preorder for sorting
+     * @updates heap
+     * @requires <pre>
+     * 0 <= top  and  size <= |heap|  and  2 <= d  and
+     * [for each child c of top, SUBTREE_IS_HEAP(heap, c, size, d,
+     *     [relation computed by order.compare method])]  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * SUBTREE_IS_HEAP(heap, top, size, d,
+     *     [relation computed by order.compare method])  and
+     * perms(heap, #heap)  and
+     * [only entries of the subtree rooted at top have moved]
+     * </pre>
+     */
+    public static <T> void siftDown(T[] heap, int top, int size, int d,
+            Comparator<T> order) {
+        assert heap != null : "Violation of: heap is not null";
+        assert order != null : "Violation of: order is not null";
+        assert 0 <= top : "Violation of: 0 <= top";
+        assert size <= heap.length : "Violation of: size <= |heap|";
+        assert 2 <= d : "Violation of: 2 <= d";
+        /*
+         * Impractical to check the heap requires clauses in O(1) time; callers
+         * check the whole heap once, after building it, instead
+         */
+        if (d == 2) {
+            siftDownBinary(heap, top, size, order);
+        } else if (top < size) {
+            T sifted = heap[top];
+            int hole = top;
+            /*
+             * Entries after the parent of the last entry are leaves
+             */
+            int lastParent = (size - 2) / d;
+            while (size > 1 && hole <= lastParent) {
+                int first = d * hole + 1;
+                int end = Math.min(first + d, size);
+                int child = first;
+                for (int c = first + 1; c < end; c++) {
+                    if (order.compare(heap[c], heap[child]) < 0) {
+                        child = c;
+                    }
+                }
+                if (order.compare(sifted, heap[child]) <= 0) {
+                    break;
+                }
+                heap[hole] = heap[child];
+                hole = child;
+            }
+            heap[hole] = sifted;
+        }
+    }
+
+    /**
+     * Sifts down in a binary heap, with the two children compared directly
+     * rather than in a loop; the general loop costs noticeably more for the
+     * most common arity.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param heap
+     *            the complete binary tree
+     * @param top
+     *            the index of the root of the subtree
+     * @param size
+     *            the number of entries in the tree
+     * @param order
+     *            total preorder for sorting
+     * @updates heap
+     * @requires <pre>
+     * 0 <= top  and  size <= |heap|  and
+     * SUBTREE_IS_HEAP(heap, 2 * top + 1, size, 2,
+     *     [relation computed by order.compare method])  and
+     * SUBTREE_IS_HEAP(heap, 2 * top + 2, size, 2,
+     *     [relation computed by order.compare method])  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * SUBTREE_IS_HEAP(heap, top, size, 2,
+     *     [relation computed by order.compare method])  and
+     * perms(heap, #heap)  and
+     * [only entries of the subtree rooted at top have moved]
+     * </pre>
+     */
+    private static <T> void siftDownBinary(T[] heap, int top, int size,
+            Comparator<T> order) {
+        if (top < size) {
+            T sifted = heap[top];
+            int hole = top;
+            /*
+             * Entries at or after half are leaves
+             */
+            int half = size >>> 1;
+            while (hole < half) {
+                int child = 2 * hole + 1;
+                int right = child + 1;
+                if (right < size
+                        && order.compare(heap[right], heap[child]) < 0) {
+                    child = right;
+                }
+                if (order.compare(sifted, heap[child]) <= 0) {
+                    break;
+                }
+                heap[hole] = heap[child];
+                hole = child;
+            }
+            heap[hole] = sifted;
+        }
+    }
+
+    /**
+     * Binary heap version of {@link #siftDown(Object[], int, int, int,
+     * Comparator)}.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param heap
+     *            the complete binary tree
+     * @param top
+     *            the index of the root of the subtree
+     * @param size
+     *            the number of entries in the tree
+     * @param order
+     *            total preorder for sorting
+     * @updates heap
+     * @requires <pre>
+     * 0 <= top  and  size <= |heap|  and
+     * SUBTREE_IS_HEAP(heap, 2 * top + 1, size, 2,
+     *     [relation computed by order.compare method])  and
+     * SUBTREE_IS_HEAP(heap, 2 * top + 2, size, 2,
+     *     [relation computed by order.compare method])  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * SUBTREE_IS_HEAP(heap, top, size, 2,
+     *     [relation computed by order.compare method])  and
+     * perms(heap, #heap)  and
+     * [only entries of the subtree rooted at top have moved]
+     * </pre>
+     */
+    public static <T> void siftDown(T[] heap, int top, int size,
+            Comparator<T> order) {
+        siftDown(heap, top, size, 2, order);
+    }
+
+    /**
+     * Given an array whose first {@code bottom} entries are a {@code d}-ary
+     * heap, sifts the entry at {@code bottom} up so that the first
+     * {@code bottom + 1} entries are a heap. This is how an entry appended
+     * to a heap joins it.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param heap
+     *            the complete d-ary tree
+     * @param bottom
+     *            the index of the entry to sift up
+     * @param d
+     *            the arity of the tree
+     * @param order
+     *            total preorder for sorting
+     * @updates heap
+     * @requires <pre>
+     * 0 <= bottom < |heap|  and  2 <= d  and
+     * SUBTREE_IS_HEAP(heap, 0, bottom, d,
+     *     [relation computed by order.compare method])  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * SUBTREE_IS_HEAP(heap, 0, bottom + 1, d,
+     *     [relation computed by order.compare method])  and
+     * perms(heap, #heap)  and
+     * [only entries on the path from bottom to the root have moved]
+     * </pre>
+     */
+    public static <T> void siftUp(T[] heap, int bottom, int d,
+            Comparator<T> order) {
+        assert heap != null : "Violation of: heap is not null";
+        assert order != null : "Violation of: order is not null";
+        assert 0 <= bottom : "Violation of: 0 <= bottom";
+        assert bottom < heap.length : "Violation of: bottom < |heap|";
+        assert 2 <= d : "Violation of: 2 <= d";
+        T sifted = heap[bottom];
+        int hole = bottom;
+        while (hole > 0) {
+            int parent = (hole - 1) / d;
+            if (order.compare(heap[parent], sifted) <= 0) {
+                break;
+            }
+            heap[hole] = heap[parent];
+            hole = parent;
+        }
+        heap[hole] = sifted;
+    }
+
+    /**
+     * Rearranges the first {@code size} entries of {@code heap} into a
+     * {@code d}-ary heap, sifting down each internal node from the last one
+     * up to the root.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param heap
+     *            the array to be turned into a heap
+     * @param size
+     *            the number of entries in the heap
+     * @param d
+     *            the arity of the heap
+     * @param order
+     *            total preorder for sorting
+     * @updates heap
+     * @requires <pre>
+     * 0 <= size <= |heap|  and  2 <= d  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * SUBTREE_IS_HEAP(heap, 0, size, d,
+     *     [relation computed by order.compare method])  and
+     * perms(heap, #heap)  and
+     * heap[size, |heap|) = #heap[size, |heap|)
+     * </pre>
+     */
+    public static <T> void heapify(T[] heap, int size, int d,
+            Comparator<T> order) {
+        assert heap != null : "Violation of: heap is not null";
+        assert order != null : "Violation of: order is not null";
+        assert 0 <= size : "Violation of: 0 <= size";
+        assert size <= heap.length : "Violation of: size <= |heap|";
+        assert 2 <= d : "Violation of: 2 <= d";
+        if (size > 1) {
+            for (int top = (size - 2) / d; top >= 0; top--) {
+                siftDown(heap, top, size, d, order);
+            }
+        }
+    }
+
+    /**
+     * Binary heap version of {@link #heapify(Object[], int, int, Comparator)}.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param heap
+     *            the array to be turned into a heap
+     * @param size
+     *            the number of entries in the heap
+     * @param order
+     *            total preorder for sorting
+     * @updates heap
+     * @requires <pre>
+     * 0 <= size <= |heap|  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * SUBTREE_IS_HEAP(heap, 0, size, 2,
+     *     [relation computed by order.compare method])  and
+     * perms(heap, #heap)  and
+     * heap[size, |heap|) = #heap[size, |heap|)
+     * </pre>
+     */
+    public static <T> void heapify(T[] heap, int size, Comparator<T> order) {
+        heapify(heap, size, 2, order);
+    }
+
+    /**
+     * Removes the root of the {@code d}-ary heap in {@code heap[0, size)},
+     * moving the last entry into its place and sifting it down. The slot
+     * freed at the end is set to {@code null} so the array does not hold on
+     * to the entry.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param heap
+     *            the heap
+     * @param size
+     *            the number of entries in the heap
+     * @param d
+     *            the arity of the heap
+     * @param order
+     *            total preorder for sorting
+     * @return the root that was removed
+     * @updates heap
+     * @requires <pre>
+     * 0 < size <= |heap|  and  2 <= d  and
+     * SUBTREE_IS_HEAP(heap, 0, size, d,
+     *     [relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * removeRoot = #heap[0]  and
+     * SUBTREE_IS_HEAP(heap, 0, size - 1, d,
+     *     [relation computed by order.compare method])  and
+     * perms(heap[0, size - 1) * <removeRoot>, #heap[0, size))  and
+     * heap[size - 1] = null
+     * </pre>
+     */
+    public static <T> T removeRoot(T[] heap, int size, int d,
+            Comparator<T> order) {
+        assert heap != null : "Violation of: heap is not null";
+        assert 0 < size : "Violation of: 0 < size";
+        assert size <= heap.length : "Violation of: size <= |heap|";
+        T root = heap[0];
+        heap[0] = heap[size - 1];
+        heap[size - 1] = null;
+        siftDown(heap, 0, size - 1, d, order);
+        return root;
+    }
+
+    /**
+     * Binary heap version of {@link #removeRoot(Object[], int, int,
+     * Comparator)}.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param heap
+     *            the heap
+     * @param size
+     *            the number of entries in the heap
+     * @param order
+     *            total preorder for sorting
+     * @return the root that was removed
+     * @updates heap
+     * @requires <pre>
+     * 0 < size <= |heap|  and
+     * SUBTREE_IS_HEAP(heap, 0, size, 2,
+     *     [relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * removeRoot = #heap[0]  and
+     * SUBTREE_IS_HEAP(heap, 0, size - 1, 2,
+     *     [relation computed by order.compare method])  and
+     * perms(heap[0, size - 1) * <removeRoot>, #heap[0, size))  and
+     * heap[size - 1] = null
+     * </pre>
+     */
+    public static <T> T removeRoot(T[] heap, int size, Comparator<T> order) {
+        return removeRoot(heap, size, 2, order);
+    }
+
+    /**
+     * Checks if {@code heap[0, size)} is a {@code d}-ary heap. Takes time
+     * linear in {@code size}; meant for assertions about a whole heap, not
+     * for each operation on it.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param heap
+     *            the complete d-ary tree
+     * @param size
+     *            the number of entries in the tree
+     * @param d
+     *            the arity of the tree
+     * @param order
+     *            total preorder for sorting
+     * @return true iff heap[0, size) is a heap
+     * @requires 0 <= size <= |heap|  and  2 <= d
+     * @ensures <pre>
+     * isHeap = SUBTREE_IS_HEAP(heap, 0, size, d,
+     *     [relation computed by order.compare method])
+     * </pre>
+     */
+    public static <T> boolean isHeap(T[] heap, int size, int d,
+            Comparator<T> order) {
+        assert heap != null : "Violation of: heap is not null";
+        assert 0 <= size : "Violation of: 0 <= size";
+        assert size <= heap.length : "Violation of: size <= |heap|";
+        assert 2 <= d : "Violation of: 2 <= d";
+        boolean result = true;
+        for (int i = 1; result && i < size; i++) {
+            result = order.compare(heap[(i - 1) / d], heap[i]) <= 0;
+        }
+        return result;
+    }
+
+    /**
+     * Binary heap version of {@link #isHeap(Object[], int, int, Comparator)}.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param heap
+     *            the complete binary tree
+     * @param size
+     *            the number of entries in the tree
+     * @param order
+     *            total preorder for sorting
+     * @return true iff heap[0, size) is a heap
+     * @requires 0 <= size <= |heap|
+     * @ensures <pre>
+     * isHeap = SUBTREE_IS_HEAP(heap, 0, size, 2,
+     *     [relation computed by order.compare method])
+     * </pre>
+     */
+    public static <T> boolean isHeap(T[] heap, int size, Comparator<T> order) {
+        return isHeap(heap, size, 2, order);
+    }
+
+}
@@ -0,0 +1,329 @@
+import java.util.Arrays;
+
+/**
+ * Sorting machine for entries that are an {@code int} key with an object
+ * payload, such as a word and its count, with the insertion and extraction
+ * modes of {@code SortingMachine}. Keys are compared as primitives, so
+ * sorting neither boxes them nor calls a {@code Comparator}: keys and
+ * payloads are kept in parallel arrays, which become a binary heap ordered by
+ * key when the machine changes to extraction mode. The machine sorts by
+ * increasing key, or by decreasing key if so constructed (a decreasing
+ * machine stores the bitwise complement {@code ~key} of each key). Entries
+ * with equal keys come out in no particular order.
+ *
+ * @param <T>
+ *            type of payloads
+ * @mathdefinitions <pre>
+ * ENCODE (
+ *   k: integer,
+ *   decreasing: boolean
+ *  ) : integer is
+ *  if decreasing then -k - 1 else k
+ *
+ * IS_HEAP (
+ *   a: string of integer
+ *  ) : boolean is
+ *  for all i: integer where (0 < i < |a|)
+ *   (a[(i - 1) / 2] <= a[i])
+ * </pre>
+ * @convention <pre>
+ * 0 <= $this.size <= |$this.keys| = |$this.values|  and
+ * [$this.values[0, $this.size) are not null, and the rest are null]  and
+ * if not $this.insertionMode then
+ *   IS_HEAP($this.keys[0, $this.size))
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.decreasing,
+ *   {(k, v): (integer, T) where
+ *      (for some i: integer where (0 <= i < $this.size)
+ *        (ENCODE(k, $this.decreasing) = $this.keys[i]  and
+ *         v = $this.values[i])), with the same multiplicities})
+ * </pre>
+ *
+ * @author Put your name here
+ */
+public final class IntKeySortingMachine<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Initial capacity of the arrays.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Whether entries come out by decreasing key.
+     */
+    private final boolean decreasing;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Encoded keys; a heap in extraction mode.
+     */
+    private int[] keys;
+
+    /**
+     * Payloads, parallel to keys.
+     */
+    private Object[] values;
+
+    /**
+     * Number of entries.
+     */
+    private int size;
+
+    /**
+     * Returns {@code key} encoded for the heap (or decoded, since the
+     * encoding is its own inverse).
+     *
+     * @param key
+     *            the key
+     * @return ENCODE(key, this.decreasing)
+     */
+    private int encode(int key) {
+        int result = key;
+        if (this.decreasing) {
+            result = ~key;
+        }
+        return result;
+    }
+
+    /**
+     * Sifts the entry at {@code top} down into the heap of the first
+     * {@code size} entries, moving keys and payloads together.
+     *
+     * @param top
+     *            the index of the entry to sift
+     * @param size
+     *            the number of entries in the heap
+     * @updates this.keys, this.values
+     * @requires <pre>
+     * 0 <= top  and  size <= |this.keys|  and
+     * [the subtrees of this.keys[0, size) rooted at the children of top are
+     *   heaps]
+     * </pre>
+     * @ensures <pre>
+     * [the subtree of this.keys[0, size) rooted at top is a heap]  and
+     * [this.keys and this.values are permuted together]
+     * </pre>
+     */
+    private void siftDown(int top, int size) {
+        int[] k = this.keys;
+        Object[] v = this.values;
+        if (top < size) {
+            int siftedKey = k[top];
+            Object siftedValue = v[top];
+            int hole = top;
+            int half = size >>> 1;
+            while (hole < half) {
+                int child = 2 * hole + 1;
+                int right = child + 1;
+                if (right < size && k[right] < k[child]) {
+                    child = right;
+                }
+                if (siftedKey <= k[child]) {
+                    break;
+                }
+                k[hole] = k[child];
+                v[hole] = v[child];
+                hole = child;
+            }
+            k[hole] = siftedKey;
+            v[hole] = siftedValue;
+        }
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention 0 <= $this.size <= |$this.keys| = |$this.values|
+     */
+    private boolean conventionHolds() {
+        assert 0 <= this.size
+                && this.size <= this.keys.length : ""
+                        + "Violation of: 0 <= $this.size <= |$this.keys|";
+        assert this.keys.length == this.values.length : ""
+                + "Violation of: |$this.keys| = |$this.values|";
+        /*
+         * The heap property is not checked: that would take linear time on
+         * every removeFirst, and this machine exists to make removeFirst cheap
+         */
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.insertionMode = true;
+        this.keys = new int[INITIAL_CAPACITY];
+        this.values = new Object[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor, for a machine sorting by increasing key.
+     *
+     * @ensures this = (true, false, {})
+     */
+    public IntKeySortingMachine() {
+        this.decreasing = false;
+        this.createNewRep();
+    }
+
+    /**
+     * Constructor for a machine sorting in the given direction.
+     *
+     * @param decreasing
+     *            whether entries come out by decreasing key
+     * @ensures this = (true, decreasing, {})
+     */
+    public IntKeySortingMachine(boolean decreasing) {
+        this.decreasing = decreasing;
+        this.createNewRep();
+    }
+
+    /*
+     * Methods ----------------------------------------------------------------
+     */
+
+    /**
+     * Resets {@code this} to an empty machine in insertion mode, sorting in
+     * the same direction.
+     *
+     * @clears this
+     */
+    public void clear() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Adds the entry ({@code key}, {@code value}) to the contents of
+     * {@code this}.
+     *
+     * @param key
+     *            the key of the entry
+     * @param value
+     *            the payload of the entry
+     * @updates this.contents
+     * @requires this.insertion_mode and value is not null
+     * @ensures this.contents = #this.contents union {(key, value)}
+     */
+    public void add(int key, T value) {
+        assert this.insertionMode : "Violation of: this.insertion_mode";
+        assert value != null : "Violation of: value is not null";
+        if (this.size == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, 2 * this.size);
+            this.values = Arrays.copyOf(this.values, 2 * this.size);
+        }
+        this.keys[this.size] = this.encode(key);
+        this.values[this.size] = value;
+        this.size++;
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Changes the mode of {@code this} from insertion to extraction.
+     *
+     * @updates this.insertion_mode
+     * @requires this.insertion_mode
+     * @ensures not this.insertion_mode
+     */
+    public void changeToExtractionMode() {
+        assert this.insertionMode : "Violation of: this.insertion_mode";
+        this.insertionMode = false;
+        for (int top = (this.size >>> 1) - 1; top >= 0; top--) {
+            this.siftDown(top, this.size);
+        }
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Reports the key of the entry that {@code removeFirst} would remove.
+     *
+     * @return the first key
+     * @requires not this.insertion_mode and this.contents /= {}
+     * @ensures <pre>
+     * [firstKey is the smallest key in this.contents, or the largest one if
+     *   this.decreasing]
+     * </pre>
+     */
+    public int firstKey() {
+        assert !this.insertionMode : "Violation of: not this.insertion_mode";
+        assert this.size > 0 : "Violation of: this.contents /= {}";
+        return this.encode(this.keys[0]);
+    }
+
+    /**
+     * Removes the first entry of {@code this}, the one with the smallest key
+     * (or the largest key if {@code this} sorts by decreasing key), and
+     * returns its payload. Its key is the value {@code firstKey} reported
+     * just before.
+     *
+     * @return the payload of the entry removed
+     * @updates this.contents
+     * @requires not this.insertion_mode and this.contents /= {}
+     * @ensures <pre>
+     * (firstKey(#this), removeFirst) is in #this.contents  and
+     * this.contents = #this.contents \ {(firstKey(#this), removeFirst)}
+     * </pre>
+     */
+    public T removeFirst() {
+        assert !this.insertionMode : "Violation of: not this.insertion_mode";
+        assert this.size > 0 : "Violation of: this.contents /= {}";
+        @SuppressWarnings("unchecked")
+        T first = (T) this.values[0];
+        this.size--;
+        this.keys[0] = this.keys[this.size];
+        this.values[0] = this.values[this.size];
+        this.values[this.size] = null;
+        this.siftDown(0, this.size);
+        assert this.conventionHolds();
+        return first;
+    }
+
+    /**
+     * Reports whether {@code this} is in insertion mode.
+     *
+     * @return true iff {@code this} is in insertion mode
+     * @ensures isInInsertionMode = this.insertion_mode
+     */
+    public boolean isInInsertionMode() {
+        return this.insertionMode;
+    }
+
+    /**
+     * Reports whether {@code this} sorts by decreasing key.
+     *
+     * @return true iff {@code this} sorts by decreasing key
+     * @ensures isDecreasing = this.decreasing
+     */
+    public boolean isDecreasing() {
+        return this.decreasing;
+    }
+
+    /**
+     * Reports the number of entries in {@code this}.
+     *
+     * @return the number of entries
+     * @ensures size = |this.contents|
+     */
+    public int size() {
+        return this.size;
+    }
+
+}
@@ -0,0 +1,283 @@
+import java.util.Arrays;
+
+/**
+ * Sorting machine for {@code int} entries, with the insertion and extraction
+ * modes of {@code SortingMachine} but no boxing and no {@code Comparator}: the
+ * entries are kept in an {@code int[]} that becomes a binary heap, sifted
+ * with the hole technique of {@code ArrayHeaps}, when the machine changes to
+ * extraction mode. The machine sorts in increasing order, or in decreasing
+ * order if so constructed; a decreasing machine stores the bitwise complement
+ * {@code ~x} of each entry, which reverses the order of all {@code int}s
+ * without overflow, and uses the same increasing heap.
+ *
+ * @mathdefinitions <pre>
+ * ENCODE (
+ *   x: integer,
+ *   decreasing: boolean
+ *  ) : integer is
+ *  if decreasing then -x - 1 else x
+ *
+ * IS_HEAP (
+ *   a: string of integer
+ *  ) : boolean is
+ *  for all i: integer where (0 < i < |a|)
+ *   (a[(i - 1) / 2] <= a[i])
+ * </pre>
+ * @convention <pre>
+ * 0 <= $this.size <= |$this.entries|  and
+ * if not $this.insertionMode then
+ *   IS_HEAP($this.entries[0, $this.size))
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.decreasing,
+ *   {x: integer where (ENCODE(x, $this.decreasing) occurs in
+ *      $this.entries[0, $this.size)), with the same multiplicities})
+ * </pre>
+ *
+ * @author Put your name here
+ */
+public final class IntSortingMachine {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Initial capacity of the entries array.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Whether entries come out in decreasing order.
+     */
+    private final boolean decreasing;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Encoded entries; a heap in extraction mode.
+     */
+    private int[] entries;
+
+    /**
+     * Number of entries.
+     */
+    private int size;
+
+    /**
+     * Returns {@code x} encoded for the heap.
+     *
+     * @param x
+     *            the entry
+     * @return ENCODE(x, this.decreasing)
+     */
+    private int encode(int x) {
+        int result = x;
+        if (this.decreasing) {
+            result = ~x;
+        }
+        return result;
+    }
+
+    /**
+     * Sifts {@code heap[top]} down into the heap {@code heap[0, size)}.
+     *
+     * @param heap
+     *            the heap
+     * @param top
+     *            the index of the entry to sift
+     * @param size
+     *            the number of entries in the heap
+     * @updates heap
+     * @requires <pre>
+     * 0 <= top  and  size <= |heap|  and
+     * [the subtrees of heap[0, size) rooted at the children of top are heaps]
+     * </pre>
+     * @ensures <pre>
+     * [the subtree of heap[0, size) rooted at top is a heap]  and
+     * perms(heap, #heap)
+     * </pre>
+     */
+    private static void siftDown(int[] heap, int top, int size) {
+        if (top < size) {
+            int sifted = heap[top];
+            int hole = top;
+            int half = size >>> 1;
+            while (hole < half) {
+                int child = 2 * hole + 1;
+                int right = child + 1;
+                if (right < size && heap[right] < heap[child]) {
+                    child = right;
+                }
+                if (sifted <= heap[child]) {
+                    break;
+                }
+                heap[hole] = heap[child];
+                hole = child;
+            }
+            heap[hole] = sifted;
+        }
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention 0 <= $this.size <= |$this.entries|
+     */
+    private boolean conventionHolds() {
+        assert 0 <= this.size
+                && this.size <= this.entries.length : ""
+                        + "Violation of: 0 <= $this.size <= |$this.entries|";
+        /*
+         * The heap property is not checked: that would take linear time on
+         * every removeFirst, and this machine exists to make removeFirst cheap
+         */
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.insertionMode = true;
+        this.entries = new int[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor, for a machine sorting in increasing order.
+     *
+     * @ensures this = (true, false, {})
+     */
+    public IntSortingMachine() {
+        this.decreasing = false;
+        this.createNewRep();
+    }
+
+    /**
+     * Constructor for a machine sorting in the given direction.
+     *
+     * @param decreasing
+     *            whether entries come out in decreasing order
+     * @ensures this = (true, decreasing, {})
+     */
+    public IntSortingMachine(boolean decreasing) {
+        this.decreasing = decreasing;
+        this.createNewRep();
+    }
+
+    /*
+     * Methods ----------------------------------------------------------------
+     */
+
+    /**
+     * Resets {@code this} to an empty machine in insertion mode, sorting in
+     * the same direction.
+     *
+     * @clears this
+     */
+    public void clear() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Adds {@code x} to the contents of {@code this}.
+     *
+     * @param x
+     *            the entry to be added
+     * @updates this.contents
+     * @requires this.insertion_mode
+     * @ensures this.contents = #this.contents union {x}
+     */
+    public void add(int x) {
+        assert this.insertionMode : "Violation of: this.insertion_mode";
+        if (this.size == this.entries.length) {
+            this.entries = Arrays.copyOf(this.entries, 2 * this.size);
+        }
+        this.entries[this.size] = this.encode(x);
+        this.size++;
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Changes the mode of {@code this} from insertion to extraction.
+     *
+     * @updates this.insertion_mode
+     * @requires this.insertion_mode
+     * @ensures not this.insertion_mode
+     */
+    public void changeToExtractionMode() {
+        assert this.insertionMode : "Violation of: this.insertion_mode";
+        this.insertionMode = false;
+        for (int top = (this.size >>> 1) - 1; top >= 0; top--) {
+            siftDown(this.entries, top, this.size);
+        }
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Removes and returns the first entry of {@code this}: the smallest one,
+     * or the largest one if {@code this} sorts in decreasing order.
+     *
+     * @return the entry removed
+     * @updates this.contents
+     * @requires not this.insertion_mode and this.contents /= {}
+     * @ensures <pre>
+     * removeFirst is in #this.contents  and
+     * this.contents = #this.contents \ {removeFirst}  and
+     * [removeFirst is first in #this.contents in this's direction]
+     * </pre>
+     */
+    public int removeFirst() {
+        assert !this.insertionMode : "Violation of: not this.insertion_mode";
+        assert this.size > 0 : "Violation of: this.contents /= {}";
+        int first = this.entries[0];
+        this.size--;
+        this.entries[0] = this.entries[this.size];
+        siftDown(this.entries, 0, this.size);
+        assert this.conventionHolds();
+        return this.encode(first);
+    }
+
+    /**
+     * Reports whether {@code this} is in insertion mode.
+     *
+     * @return true iff {@code this} is in insertion mode
+     * @ensures isInInsertionMode = this.insertion_mode
+     */
+    public boolean isInInsertionMode() {
+        return this.insertionMode;
+    }
+
+    /**
+     * Reports whether {@code this} sorts in decreasing order.
+     *
+     * @return true iff {@code this} sorts in decreasing order
+     * @ensures isDecreasing = this.decreasing
+     */
+    public boolean isDecreasing() {
+        return this.decreasing;
+    }
+
+    /**
+     * Reports the number of entries in {@code this}.
+     *
+     * @return the number of entries
+     * @ensures size = |this.contents|
+     */
+    public int size() {
+        return this.size;
+    }
+
+}
@@ -0,0 +1,207 @@
+import java.util.Comparator;
+import java.util.Random;
+
+import components.map.Map;
+import components.map.Map.Pair;
+import components.map.Map1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.sortingmachine.SortingMachine;
+
+/**
+ * Program to time a full fill-and-drain cycle of the primitive-keyed sorting
+ * machines next to {@code SortingMachine5a}: {@code IntSortingMachine}
+ * against {@code SortingMachine5a<Integer>} on random {@code int}s, and
+ * {@code IntKeySortingMachine<String>} against a {@code SortingMachine5a} of
+ * word/count {@code Map.Pair}s ordered by decreasing count, as the tag cloud
+ * programs sort them.
+ *
+ * <p>
+ * Usage: {@code IntSortingMachineBenchmark [size]}, where {@code size} is the
+ * number of entries (default 1,000,000). Results are printed as tab-separated
+ * lines: method, entries, best ms of several rounds, ns per entry. Run
+ * without {@code -ea}.
+ *
+ * @author Put your name here
+ */
+public final class IntSortingMachineBenchmark {
+
+    /**
+     * Default number of entries.
+     */
+    private static final int DEFAULT_SIZE = 1000000;
+
+    /**
+     * Number of measured rounds per line.
+     */
+    private static final int ROUNDS = 5;
+
+    /**
+     * Seed for the entries.
+     */
+    private static final long SEED = 2231;
+
+    /**
+     * Largest word count, exclusive.
+     */
+    private static final int MAX_COUNT = 1000;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private IntSortingMachineBenchmark() {
+    }
+
+    /**
+     * Compare {@code Integer}s in increasing order.
+     */
+    private static class IntegerLT implements Comparator<Integer> {
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    /**
+     * Compare word/count pairs by decreasing count.
+     */
+    private static class CountGT
+            implements Comparator<Pair<String, Integer>> {
+        @Override
+        public int compare(Pair<String, Integer> p1,
+                Pair<String, Integer> p2) {
+            return p2.value().compareTo(p1.value());
+        }
+    }
+
+    /**
+     * Fills and drains a sorting machine of one kind once and returns the
+     * elapsed time.
+     *
+     * @param method
+     *            "IntSortingMachine", "SortingMachine5a<Integer>",
+     *            "IntKeySortingMachine", or "SortingMachine5a<Pair>"
+     * @param ints
+     *            the entries of the {@code int} machines
+     * @param pairs
+     *            the entries of the pair machines
+     * @return the elapsed nanoseconds
+     */
+    private static long sortOnce(String method, int[] ints,
+            Pair<String, Integer>[] pairs) {
+        long start = System.nanoTime();
+        if (method.equals("IntSortingMachine")) {
+            IntSortingMachine m = new IntSortingMachine();
+            for (int x : ints) {
+                m.add(x);
+            }
+            m.changeToExtractionMode();
+            while (m.size() > 0) {
+                m.removeFirst();
+            }
+        } else if (method.equals("SortingMachine5a<Integer>")) {
+            SortingMachine<Integer> m = new SortingMachine5a<>(
+                    new IntegerLT());
+            for (int x : ints) {
+                m.add(x);
+            }
+            m.changeToExtractionMode();
+            while (m.size() > 0) {
+                m.removeFirst();
+            }
+        } else if (method.equals("IntKeySortingMachine")) {
+            IntKeySortingMachine<String> m = new IntKeySortingMachine<>(true);
+            for (Pair<String, Integer> p : pairs) {
+                m.add(p.value(), p.key());
+            }
+            m.changeToExtractionMode();
+            while (m.size() > 0) {
+                m.removeFirst();
+            }
+        } else {
+            SortingMachine<Pair<String, Integer>> m = new SortingMachine5a<>(
+                    new CountGT());
+            for (Pair<String, Integer> p : pairs) {
+                m.add(p);
+            }
+            m.changeToExtractionMode();
+            while (m.size() > 0) {
+                m.removeFirst();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Times one method and outputs the best of {@code ROUNDS} rounds.
+     *
+     * @param out
+     *            the output stream
+     * @param method
+     *            the name of the method, as for {@code sortOnce}
+     * @param ints
+     *            the entries of the {@code int} machines
+     * @param pairs
+     *            the entries of the pair machines
+     * @updates out.content
+     * @requires out.is_open and |ints| = |pairs| > 0
+     */
+    private static void time(SimpleWriter out, String method, int[] ints,
+            Pair<String, Integer>[] pairs) {
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            System.gc();
+            best = Math.min(best, sortOnce(method, ints, pairs));
+        }
+        out.println(method + "\t" + ints.length + "\t"
+                + String.format("%.1f", best / NANOS_PER_MILLI) + "\t"
+                + String.format("%.1f", (double) best / ints.length));
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: [size]
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int size = DEFAULT_SIZE;
+        if (args.length > 0) {
+            size = Integer.parseInt(args[0]);
+        }
+        Random rnd = new Random(SEED);
+        int[] ints = new int[size];
+        Map<String, Integer> counts = new Map1L<>();
+        for (int i = 0; i < size; i++) {
+            ints[i] = rnd.nextInt();
+            counts.add("word" + i, rnd.nextInt(MAX_COUNT));
+        }
+        @SuppressWarnings("unchecked")
+        Pair<String, Integer>[] pairs = new Pair[size];
+        int i = 0;
+        for (Pair<String, Integer> p : counts) {
+            pairs[i] = p;
+            i++;
+        }
+        String[] methods = { "IntSortingMachine", "SortingMachine5a<Integer>",
+                "IntKeySortingMachine", "SortingMachine5a<Pair>" };
+        out.println("method\tentries\tms\tns/entry");
+        /*
+         * First pass warms up the JIT; only the rest are meaningful
+         */
+        for (String method : methods) {
+            sortOnce(method, ints, pairs);
+        }
+        for (String method : methods) {
+            time(out, method, ints, pairs);
+        }
+        out.close();
+    }
+
+}
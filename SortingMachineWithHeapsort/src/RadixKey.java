@@ -0,0 +1,149 @@
+/**
+ * Key of an entry for radix sorting: a string of digits, each an unsigned
+ * byte, such that comparing the keys of two entries digit by digit (a key
+ * that is a proper prefix of another coming first) orders the entries as
+ * their {@code Comparator} does. Implementations are given for
+ * {@code Integer}, {@code Long}, and {@code String}.
+ *
+ * @param <T>
+ *            type of entries
+ * @mathdefinitions <pre>
+ * KEY (
+ *   x: T
+ *  ) : string of integer is
+ *  [the key of x, with every digit in [0, RADIX)]
+ *
+ * CONSISTENT (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y: T
+ *   (r(x, y) iff [KEY(x) <= KEY(y) in lexicographic order])
+ * </pre>
+ */
+public interface RadixKey<T> {
+
+    /**
+     * Number of distinct digit values.
+     */
+    int RADIX = 256;
+
+    /**
+     * Reports the number of digits in the key of {@code x}.
+     *
+     * @param x
+     *            the entry
+     * @return the length of the key of {@code x}
+     * @ensures length = |KEY(x)|
+     */
+    int length(T x);
+
+    /**
+     * Reports digit {@code d} of the key of {@code x}.
+     *
+     * @param x
+     *            the entry
+     * @param d
+     *            the position of the digit, from the most significant
+     * @return the digit
+     * @requires 0 <= d < |KEY(x)|
+     * @ensures digit = KEY(x)[d]
+     */
+    int digit(T x, int d);
+
+    /**
+     * Key of an {@code Integer}: its four bytes, most significant first,
+     * with the sign bit flipped so negative values come first. Consistent
+     * with increasing order.
+     */
+    final class IntegerKey implements RadixKey<Integer> {
+
+        @Override
+        public int length(Integer x) {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public int digit(Integer x, int d) {
+            final int bitsPerDigit = 8;
+            int shift = (Integer.BYTES - 1 - d) * bitsPerDigit;
+            return ((x ^ Integer.MIN_VALUE) >>> shift) & (RADIX - 1);
+        }
+
+    }
+
+    /**
+     * Key of a {@code Long}: its eight bytes, most significant first, with
+     * the sign bit flipped so negative values come first. Consistent with
+     * increasing order.
+     */
+    final class LongKey implements RadixKey<Long> {
+
+        @Override
+        public int length(Long x) {
+            return Long.BYTES;
+        }
+
+        @Override
+        public int digit(Long x, int d) {
+            final int bitsPerDigit = 8;
+            int shift = (Long.BYTES - 1 - d) * bitsPerDigit;
+            return (int) ((x ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1);
+        }
+
+    }
+
+    /**
+     * Key of a {@code String}: the two bytes of each {@code char}, high byte
+     * first. Consistent with {@code String.compareTo}, or with
+     * {@code String.compareToIgnoreCase} if constructed to ignore case, in
+     * which case each {@code char} is first folded the way that method folds
+     * it.
+     */
+    final class StringKey implements RadixKey<String> {
+
+        /**
+         * Whether to fold case.
+         */
+        private final boolean ignoreCase;
+
+        /**
+         * No-argument constructor, for a key consistent with
+         * {@code String.compareTo}.
+         */
+        public StringKey() {
+            this.ignoreCase = false;
+        }
+
+        /**
+         * Constructor for a key consistent with {@code String.compareTo}, or
+         * with {@code String.compareToIgnoreCase} if {@code ignoreCase}.
+         *
+         * @param ignoreCase
+         *            whether to fold case
+         */
+        public StringKey(boolean ignoreCase) {
+            this.ignoreCase = ignoreCase;
+        }
+
+        @Override
+        public int length(String x) {
+            return 2 * x.length();
+        }
+
+        @Override
+        public int digit(String x, int d) {
+            final int bitsPerDigit = 8;
+            char c = x.charAt(d >>> 1);
+            if (this.ignoreCase) {
+                c = Character.toLowerCase(Character.toUpperCase(c));
+            }
+            int result = c & (RADIX - 1);
+            if ((d & 1) == 0) {
+                result = c >>> bitsPerDigit;
+            }
+            return result;
+        }
+
+    }
+
+}
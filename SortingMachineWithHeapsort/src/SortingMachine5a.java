@@ -1,18 +1,28 @@
 import java.lang.reflect.Constructor;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
-import components.array.Array;
-import components.array.Array1L;
 import components.queue.Queue;
 import components.queue.Queue1L;
 import components.sortingmachine.SortingMachine;
 import components.sortingmachine.SortingMachineSecondary;
 
 /**
- * {@code SortingMachine} represented as a {@code Queue} and an {@code Array}
- * (using an embedding of heap sort), with implementations of primary methods.
+ * {@code SortingMachine} represented as a {@code Queue} and an array (using an
+ * embedding of heap sort), with implementations of primary methods. The heap
+ * is a plain array maintained by the iterative operations of
+ * {@code ArrayHeaps}, so extraction costs only the O(log n) sift. The arity
+ * of the heap is chosen at construction (2 by default); a 4-ary or 8-ary heap
+ * is shallower, so each {@code removeFirst} moves fewer entries.
+ *
+ * <p>
+ * Besides the kernel methods, {@code addInExtractionMode} adds an entry to a
+ * machine that is already in extraction mode by sifting it up into the live
+ * heap. A machine switched to extraction mode while still empty is therefore
+ * a priority queue: mixed adds and removals cost O(log n) each and never
+ * rebuild the heap.
  *
  * @param <T>
  *            type of {@code SortingMachine} entries
@@ -25,41 +35,34 @@ import components.sortingmachine.SortingMachineSecondary;
  *    (if (r(x, y) and r(y, z)) then r(x, z)))
  *
  * SUBTREE_IS_HEAP (
- *   a: ARRAY_MODEL,
+ *   a: string of T,
  *   start: integer,
- *   stop: integer,
+ *   size: integer,
+ *   d: integer,
  *   r: binary relation on T
  *  ) : boolean is
- *  [the subtree of a (when a is interpreted as a complete binary tree) rooted
- *   at index start and only through entry stop of a satisfies the heap
- *   ordering property according to the relation r]
- *
- * SUBTREE_ARRAY_ENTRIES (
- *   a: ARRAY_MODEL,
- *   start: integer,
- *   stop: integer
- *  ) : finite multiset of T is
- *  [the multiset of entries in a that belong to the subtree of a
- *   (when a is interpreted as a complete binary tree) rooted at
- *   index start and only through entry stop]
+ *  [the subtree of a[0, size) (when a is interpreted as a complete d-ary
+ *   tree) rooted at index start satisfies the heap ordering property
+ *   according to the relation r]
  * </pre>
  * @convention <pre>
  * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method]  and
+ * 2 <= $this.arity  and
  * if $this.insertionMode then
  *   $this.heapSize = 0
  * else
  *   $this.entries = <>  and
- *   |$this.heap.examinableIndices| = |$this.heap.entries|  and
- *   SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize - 1,
+ *   0 <= $this.heapSize <= |$this.heap|  and
+ *   SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize, $this.arity,
  *     [relation computed by $this.machineOrder.compare method])  and
- *   0 <= $this.heapSize <= |$this.heap.entries|
+ *   [$this.heap[$this.heapSize, |$this.heap|) are all null]
  * </pre>
  * @correspondence <pre>
  * if $this.insertionMode then
  *   this = (true, $this.machineOrder, multiset_entries($this.entries))
  * else
  *   this = (false, $this.machineOrder,
- *     multiset_entries($this.heap.entries[0, $this.heapSize)))
+ *     multiset_entries($this.heap[0, $this.heapSize)))
  * </pre>
  */
 public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
@@ -68,6 +71,16 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
      * Private members --------------------------------------------------------
      */
 
+    /**
+     * Default arity of the heap.
+     */
+    private static final int DEFAULT_ARITY = 2;
+
+    /**
+     * Smallest capacity of a heap grown by {@code addInExtractionMode}.
+     */
+    private static final int INITIAL_HEAP_CAPACITY = 16;
+
     /**
      * Order.
      */
@@ -86,7 +99,7 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
     /**
      * Heap.
      */
-    private Array<T> heap;
+    private T[] heap;
 
     /**
      * Heap size.
@@ -94,235 +107,51 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
     private int heapSize;
 
     /**
-     * Given an {@code Array} that represents a complete binary tree and an
-     * index referring to the root of a subtree that would be a heap except for
-     * its root, sifts the root down to turn that whole subtree into a heap.
-     *
-     * @param <T>
-     *            type of array entries
-     * @param array
-     *            the complete binary tree
-     * @param top
-     *            the index of the root of the "subtree"
-     * @param last
-     *            the index of the last entry in the heap
-     * @param order
-     *            total preorder for sorting
-     * @updates array.entries
-     * @requires <pre>
-     * 0 <= top  and  last < |array.entries|  and
-     * |array.examinableIndices| = |array.entries|  and
-     * [subtree rooted at {@code top} is a complete binary tree]  and
-     * SUBTREE_IS_HEAP(array, 2 * top + 1, last,
-     *     [relation computed by order.compare method])  and
-     * SUBTREE_IS_HEAP(array, 2 * top + 2, last,
-     *     [relation computed by order.compare method])  and
-     * IS_TOTAL_PREORDER([relation computed by order.compare method])
-     * </pre>
-     * @ensures <pre>
-     * SUBTREE_IS_HEAP(array, top, last,
-     *     [relation computed by order.compare method])  and
-     * perms(array.entries, #array.entries)  and
-     * SUBTREE_ARRAY_ENTRIES(array, top, last) =
-     *  SUBTREE_ARRAY_ENTRIES(#array, top, last)  and
-     * [the other entries in array.entries are the same as in #array.entries]
-     * </pre>
+     * Arity of the heap.
      */
-    private static <T> void siftDown(Array<T> array, int top, int last,
-            Comparator<T> order) {
-        assert array != null : "Violation of: array is not null";
-        assert order != null : "Violation of: order is not null";
-        assert 0 <= top : "Violation of: 0 <= top";
-        assert last < array.length() : "Violation of: last < |array.entries|";
-        for (int i = 0; i < array.length(); i++) {
-            assert array.mayBeExamined(i) : ""
-                    + "Violation of: |array.examinableIndices| = |array.entries|";
-        }
-        assert isHeap(array, 2 * top + 1, last, order) : ""
-                + "Violation of: SUBTREE_IS_HEAP(array, 2 * top + 1, last,"
-                + " [relation computed by order.compare method])";
-        assert isHeap(array, 2 * top + 2, last, order) : ""
-                + "Violation of: SUBTREE_IS_HEAP(array, 2 * top + 2, last,"
-                + " [relation computed by order.compare method])";
-        /*
-         * Impractical to check last requires clause; no need to check the other
-         * requires clause, because it must be true when using the Array
-         * representation for a complete binary tree.
-         */
-        int leftPos = 2 * top + 1;
-        int rightPos = 2 * top + 2;
-        T root = array.entry(top);
-        //when right is not empty
-        if (last >= leftPos && last >= rightPos) {
-            T left = array.entry(leftPos);
-            T right = array.entry(rightPos);
-            //exchange left and top if root and right is both bigger than left
-            //in other words, left is the smallest value among these three
-            if (order.compare(left, right) <= 0
-                    && order.compare(root, left) > 0) {
-                array.exchangeEntries(top, leftPos);
-                siftDown(array, leftPos, last, order);
-                //exchange right and top if root and left is both bigger than right
-                //in other words, right is the smallest value among these three
-            } else if (order.compare(left, right) > 0
-                    && order.compare(root, right) > 0) {
-                array.exchangeEntries(top, rightPos);
-                siftDown(array, rightPos, last, order);
-            }
-            //when right is empty
-        } else if (last >= leftPos) {
-            if (order.compare(array.entry(top), array.entry(2 * top + 1)) > 0) {
-                array.exchangeEntries(top, leftPos);
-            }
-        }
-    }
+    private int arity;
 
     /**
-     * Heapifies the subtree of the given {@code Array} rooted at the given
-     * {@code top}.
+     * Constructs and returns an array representing a heap with the entries
+     * from the given {@code Queue}.
      *
      * @param <T>
-     *            type of {@code Array} entries
-     * @param array
-     *            the {@code Array} to be turned into a heap
-     * @param top
-     *            the index of the root of the "subtree" to heapify
+     *            type of {@code Queue} and array entries
+     * @param q
+     *            the {@code Queue} with the entries for the heap
+     * @param d
+     *            the arity of the heap
      * @param order
      *            the total preorder for sorting
-     * @updates array.entries
+     * @return the array representation of a heap
+     * @clears q
      * @requires <pre>
-     * 0 <= top  and
-     * |array.examinableIndices| = |array.entries|  and
-     * [subtree rooted at {@code top} is a complete binary tree]  and
+     * 2 <= d  and
      * IS_TOTAL_PREORDER([relation computed by order.compare method])
      * </pre>
      * @ensures <pre>
-     * SUBTREE_IS_HEAP(array, top, |array.entries| - 1,
+     * SUBTREE_IS_HEAP(buildHeap, 0, |buildHeap|, d,
      *     [relation computed by order.compare method])  and
-     * perms(array.entries, #array.entries)
+     * perms(buildHeap, #q)
      * </pre>
      */
-    private static <T> void heapify(Array<T> array, int top,
-            Comparator<T> order) {
-        assert array != null : "Violation of: array is not null";
-        assert order != null : "Violation of: order is not null";
-        assert 0 <= top : "Violation of: 0 <= top";
-        for (int i = 0; i < array.length(); i++) {
-            assert array.mayBeExamined(i) : ""
-                    + "Violation of: |array.examinableIndices| = |array.entries|";
-        }
-        /*
-         * Impractical to check last requires clause; no need to check the other
-         * requires clause, because it must be true when using the Array
-         * representation for a complete binary tree.
-         */
-
-        int leftPos = 2 * top + 1;
-        int rightPos = 2 * top + 2;
-        //when right exists
-        if (rightPos < array.length()) {
-            heapify(array, leftPos, order);
-            heapify(array, rightPos, order);
-            //when right does not exists, only heapify left
-        } else if (leftPos < array.length()) {
-            heapify(array, leftPos, order);
-        }
-        if (array.length() > 0) {
-            siftDown(array, top, array.length() - 1, order);
-        }
-    }
-
-    /**
-     * Constructs and returns an {@code Array} representing a heap with the
-     * entries from the given {@code Queue}.
-     *
-     * @param <T>
-     *            type of {@code Queue} and {@code Array} entries
-     * @param q
-     *            the {@code Queue} with the entries for the heap
-     * @param order
-     *            the total preorder for sorting
-     * @return the {@code Array} representation of a heap
-     * @clears q====================================================
-     * @requires IS_TOTAL_PREORDER([relation computed by order.compare method])
-     * @ensures <pre>
-     * SUBTREE_IS_HEAP(buildHeap, 0, |buildHeap.entries| - 1)  and
-     * perms(buildHeap.entries, #q)  and
-     * |buildHeap.examinableIndices| = |buildHeap.entries|
-     * </pre>/
-     **/
-    private static <T> Array<T> buildHeap(Queue<T> q, Comparator<T> order) {
+    private static <T> T[] buildHeap(Queue<T> q, int d, Comparator<T> order) {
         assert q != null : "Violation of: q is not null";
         assert order != null : "Violation of: order is not null";
         /*
          * Impractical to check the requires clause.
          */
-        Array<T> heap = new Array1L<>(q.length());
+        @SuppressWarnings("unchecked")
+        T[] heap = (T[]) new Object[q.length()];
         int index = 0;
         while (q.length() > 0) {
-            T temp = q.dequeue();
-            heap.setEntry(index, temp);
+            heap[index] = q.dequeue();
             index++;
         }
-        heapify(heap, 0, order);
+        ArrayHeaps.heapify(heap, heap.length, d, order);
         return heap;
     }
 
-    /**
-     * Checks if the subtree of the given {@code Array} rooted at the given
-     * {@code top} is a heap.
-     *
-     * @param <T>
-     *            type of {@code Array} entries
-     * @param array
-     *            the complete binary tree
-     * @param top
-     *            the index of the root of the "subtree"
-     * @param last
-     *            the index of the last entry in the heap
-     * @param order
-     *            total preorder for sorting
-     * @return true if the subtree of the given {@code Array} rooted at the
-     *         given {@code top} is a heap; false otherwise
-     * @requires <pre>
-     * 0 <= top  and  last < |array.entries|  and
-     * |array.examinableIndices| = |array.entries|  and
-     * [subtree rooted at {@code top} is a complete binary tree]
-     * </pre>
-     * @ensures <pre>
-     * isHeap = SUBTREE_IS_HEAP(heap, top, last,
-     *     [relation computed by order.compare method])
-     * </pre>
-     */
-
-    private static <T> boolean isHeap(Array<T> array, int top, int last,
-            Comparator<T> order) {
-        assert array != null : "Violation of: array is not null";
-        assert 0 <= top : "Violation of: 0 <= top";
-        assert last < array.length() : "Violation of: last < |array.entries|";
-        for (int i = 0; i < array.length(); i++) {
-            assert array.mayBeExamined(i) : ""
-                    + "Violation of: |array.examinableIndices| = |array.entries|";
-        }
-        /*
-         * No need to check the other requires clause, because it must be true
-         * when using the Array representation for a complete binary tree.
-         */
-        int left = 2 * top + 1;
-        boolean isHeap = true;
-        if (left <= last) {
-            isHeap = (order.compare(array.entry(top), array.entry(left)) <= 0)
-                    && isHeap(array, left, last, order);
-            int right = left + 1;
-            if (isHeap && (right <= last)) {
-                isHeap = (order.compare(array.entry(top),
-                        array.entry(right)) <= 0)
-                        && isHeap(array, right, last, order);
-            }
-        }
-        return isHeap;
-    }
-
     /**
      * Checks that the part of the convention repeated below holds for the
      * current representation.
@@ -330,17 +159,16 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
      * @return true if the convention holds (or if assertion checking is off);
      *         otherwise reports a violated assertion
      * @convention <pre>
+     * 2 <= $this.arity  and
      * if $this.insertionMode then
      *   $this.heapSize = 0
      * else
      *   $this.entries = <>  and
-     *   |$this.heap.examinableIndices| = |$this.heap.entries|  and
-     *   SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize - 1,
-     *     [relation computed by $this.machineOrder.compare method])  and
-     *   0 <= $this.heapSize <= |$this.heap.entries|
+     *   0 <= $this.heapSize <= |$this.heap|
      * </pre>
      */
     private boolean conventionHolds() {
+        assert 2 <= this.arity : "Violation of: 2 <= $this.arity";
         if (this.insertionMode) {
             assert this.heapSize == 0 : ""
                     + "Violation of: if $this.insertionMode then $this.heapSize = 0";
@@ -349,20 +177,15 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
                     + "Violation of: if not $this.insertionMode then $this.entries = <>";
             assert 0 <= this.heapSize : ""
                     + "Violation of: if not $this.insertionMode then 0 <= $this.heapSize";
-            assert this.heapSize <= this.heap.length() : ""
+            assert this.heapSize <= this.heap.length : ""
                     + "Violation of: if not $this.insertionMode then"
-                    + " $this.heapSize <= |$this.heap.entries|";
-            for (int i = 0; i < this.heap.length(); i++) {
-                assert this.heap.mayBeExamined(i) : ""
-                        + "Violation of: if not $this.insertionMode then"
-                        + " |$this.heap.examinableIndices| = |$this.heap.entries|";
-            }
-            assert isHeap(this.heap, 0, this.heapSize - 1,
-                    this.machineOrder) : ""
-                            + "Violation of: if not $this.insertionMode then"
-                            + " SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize - 1,"
-                            + " [relation computed by $this.machineOrder.compare method])";
+                    + " $this.heapSize <= |$this.heap|";
         }
+        /*
+         * Heap order is checked once, after the heap is built, rather than
+         * here: a linear check on every removeFirst would make draining
+         * quadratic
+         */
         return true;
     }
 
@@ -371,11 +194,15 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
      *
      * @param order
      *            total preorder for sorting
+     * @param d
+     *            arity of the heap
      */
-    private void createNewRep(Comparator<T> order) {
+    private void createNewRep(Comparator<T> order, int d) {
         this.machineOrder = order;
+        this.arity = d;
         this.insertionMode = true;
         this.entries = new Queue1L<T>();
+        this.heap = null;
         this.heapSize = 0;
     }
 
@@ -390,7 +217,22 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
      *            total preorder for sorting
      */
     public SortingMachine5a(Comparator<T> order) {
-        this.createNewRep(order);
+        this.createNewRep(order, DEFAULT_ARITY);
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from order and arity of the heap.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param arity
+     *            number of children of each node of the heap
+     * @requires 2 <= arity
+     */
+    public SortingMachine5a(Comparator<T> order, int arity) {
+        assert 2 <= arity : "Violation of: 2 <= arity";
+        this.createNewRep(order, arity);
         assert this.conventionHolds();
     }
 
@@ -402,8 +244,10 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
     @Override
     public final SortingMachine<T> newInstance() {
         try {
-            Constructor<?> c = this.getClass().getConstructor(Comparator.class);
-            return (SortingMachine<T>) c.newInstance(this.machineOrder);
+            Constructor<?> c = this.getClass().getConstructor(Comparator.class,
+                    int.class);
+            return (SortingMachine<T>) c.newInstance(this.machineOrder,
+                    this.arity);
         } catch (ReflectiveOperationException e) {
             throw new AssertionError(
                     "Cannot construct object of type " + this.getClass());
@@ -412,7 +256,7 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
 
     @Override
     public final void clear() {
-        this.createNewRep(this.machineOrder);
+        this.createNewRep(this.machineOrder, this.arity);
         assert this.conventionHolds();
     }
 
@@ -434,7 +278,8 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
         this.entries = localSource.entries;
         this.heap = localSource.heap;
         this.heapSize = localSource.heapSize;
-        localSource.createNewRep(localSource.machineOrder);
+        this.arity = localSource.arity;
+        localSource.createNewRep(localSource.machineOrder, localSource.arity);
         assert this.conventionHolds();
         assert localSource.conventionHolds();
     }
@@ -455,8 +300,14 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
     public final void changeToExtractionMode() {
         assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
         this.insertionMode = false;
-        this.heap = buildHeap(this.entries, this.machineOrder);
-        this.heapSize = this.heap.length();
+        this.heap = buildHeap(this.entries, this.arity,
+                this.machineOrder);
+        this.heapSize = this.heap.length;
+        assert ArrayHeaps.isHeap(this.heap, this.heapSize, this.arity,
+                this.machineOrder) : ""
+                        + "Violation of: SUBTREE_IS_HEAP($this.heap, 0,"
+                        + " $this.heapSize, $this.arity,"
+                        + " [relation computed by $this.machineOrder.compare method])";
         assert this.conventionHolds();
     }
 
@@ -465,10 +316,9 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
         assert !this
                 .isInInsertionMode() : "Violation of: not this.insertion_mode";
         assert this.size() > 0 : "Violation of: this.contents /= {}";
-        T root = this.heap.entry(0);
-        this.heap.exchangeEntries(0, this.heapSize - 1);
+        T root = ArrayHeaps.removeRoot(this.heap, this.heapSize, this.arity,
+                this.machineOrder);
         this.heapSize--;
-        siftDown(this.heap, 0, this.heapSize - 1, this.machineOrder);
         assert this.conventionHolds();
         return root;
     }
@@ -502,6 +352,36 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
         return new SortingMachine5aIterator();
     }
 
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Adds {@code x} to the contents of {@code this} while {@code this} is in
+     * extraction mode, by sifting it up into the heap. The heap array doubles
+     * when it is full, so the amortized cost is O(log n).
+     *
+     * @param x
+     *            the element to be added
+     * @updates this.contents
+     * @requires not this.insertion_mode
+     * @ensures this.contents = #this.contents union {x}
+     */
+    public final void addInExtractionMode(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        if (this.heapSize == this.heap.length) {
+            this.heap = Arrays.copyOf(this.heap,
+                    Math.max(2 * this.heapSize, INITIAL_HEAP_CAPACITY));
+        }
+        this.heap[this.heapSize] = x;
+        ArrayHeaps.siftUp(this.heap, this.heapSize, this.arity,
+                this.machineOrder);
+        this.heapSize++;
+        assert this.conventionHolds();
+    }
+
     /**
      * Implementation of {@code Iterator} interface for
      * {@code SortingMachine5a}.
@@ -509,14 +389,14 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
     private final class SortingMachine5aIterator implements Iterator<T> {
 
         /**
-         * Representation iterator.
+         * Representation iterator, in insertion mode.
          */
         private final Iterator<T> iterator;
 
         /**
-         * Iterator count.
+         * Index of the next heap entry, in extraction mode.
          */
-        private int notSeenCount;
+        private int nextIndex;
 
         /**
          * No-argument constructor.
@@ -525,21 +405,22 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
             if (SortingMachine5a.this.insertionMode) {
                 this.iterator = SortingMachine5a.this.entries.iterator();
             } else {
-                this.iterator = SortingMachine5a.this.heap.iterator();
-                this.notSeenCount = SortingMachine5a.this.heapSize;
+                this.iterator = null;
+                this.nextIndex = 0;
             }
             assert SortingMachine5a.this.conventionHolds();
         }
 
         @Override
         public boolean hasNext() {
-            if (!SortingMachine5a.this.insertionMode
-                    && (this.notSeenCount == 0)) {
-                assert SortingMachine5a.this.conventionHolds();
-                return false;
-            }
             assert SortingMachine5a.this.conventionHolds();
-            return this.iterator.hasNext();
+            boolean result;
+            if (this.iterator != null) {
+                result = this.iterator.hasNext();
+            } else {
+                result = this.nextIndex < SortingMachine5a.this.heapSize;
+            }
+            return result;
         }
 
         @Override
@@ -553,11 +434,15 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
                  */
                 throw new NoSuchElementException();
             }
-            if (!SortingMachine5a.this.insertionMode) {
-                this.notSeenCount--;
-            }
             assert SortingMachine5a.this.conventionHolds();
-            return this.iterator.next();
+            T x;
+            if (this.iterator != null) {
+                x = this.iterator.next();
+            } else {
+                x = SortingMachine5a.this.heap[this.nextIndex];
+                this.nextIndex++;
+            }
+            return x;
         }
 
         @Override
@@ -0,0 +1,151 @@
+import java.util.Comparator;
+import java.util.Random;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.sortingmachine.SortingMachine;
+
+/**
+ * Program to measure the throughput of {@code removeFirst} on
+ * {@code SortingMachine5a} for several heap arities.
+ *
+ * <p>
+ * Usage: {@code SortingMachine5aArityBenchmark [size] [arity...]}, where
+ * {@code size} is the number of random entries (default 1,000,000) and each
+ * {@code arity} is a heap arity to try (default 2, 3, 4, 8, and 16). Each
+ * arity is measured for several rounds, and the best round is reported as a
+ * tab-separated line: arity, entries, {@code changeToExtractionMode} ms,
+ * drain ms, ns per {@code removeFirst}, millions of {@code removeFirst} per
+ * second. Run without {@code -ea}, or the convention checks are timed too.
+ *
+ * @author Put your name here
+ */
+public final class SortingMachine5aArityBenchmark {
+
+    /**
+     * Default number of entries.
+     */
+    private static final int DEFAULT_SIZE = 1000000;
+
+    /**
+     * Default arities.
+     */
+    private static final int[] DEFAULT_ARITIES = { 2, 3, 4, 8, 16 };
+
+    /**
+     * Number of measured rounds per arity.
+     */
+    private static final int ROUNDS = 5;
+
+    /**
+     * Seed for the entries, so every arity sorts the same ones.
+     */
+    private static final long SEED = 2231;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Nanoseconds per microsecond.
+     */
+    private static final double NANOS_PER_MICRO = 1e3;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SortingMachine5aArityBenchmark() {
+    }
+
+    /**
+     * Compare {@code Integer}s in increasing order.
+     */
+    private static class IntegerLT implements Comparator<Integer> {
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    /**
+     * Times one arity for {@code rounds} rounds and outputs the best times.
+     *
+     * @param out
+     *            the output stream
+     * @param arity
+     *            the arity of the heap
+     * @param entries
+     *            the entries
+     * @param rounds
+     *            the number of rounds
+     * @updates out.content
+     * @requires out.is_open and 2 <= arity and |entries| > 0 and rounds > 0
+     */
+    private static void time(SimpleWriter out, int arity, Integer[] entries,
+            int rounds) {
+        Comparator<Integer> order = new IntegerLT();
+        long bestBuild = Long.MAX_VALUE;
+        long bestDrain = Long.MAX_VALUE;
+        for (int r = 0; r < rounds; r++) {
+            SortingMachine<Integer> m = new SortingMachine5a<>(order, arity);
+            for (Integer x : entries) {
+                m.add(x);
+            }
+            System.gc();
+            long start = System.nanoTime();
+            m.changeToExtractionMode();
+            bestBuild = Math.min(bestBuild, System.nanoTime() - start);
+            start = System.nanoTime();
+            while (m.size() > 0) {
+                m.removeFirst();
+            }
+            bestDrain = Math.min(bestDrain, System.nanoTime() - start);
+        }
+        double nanosPerRemove = (double) bestDrain / entries.length;
+        out.println(arity + "\t" + entries.length + "\t"
+                + String.format("%.1f", bestBuild / NANOS_PER_MILLI) + "\t"
+                + String.format("%.1f", bestDrain / NANOS_PER_MILLI) + "\t"
+                + String.format("%.1f", nanosPerRemove) + "\t"
+                + String.format("%.2f", NANOS_PER_MICRO / nanosPerRemove));
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: [size] [arity...]
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int size = DEFAULT_SIZE;
+        int[] arities = DEFAULT_ARITIES;
+        if (args.length > 0) {
+            size = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            arities = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                arities[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+        Random rnd = new Random(SEED);
+        Integer[] entries = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            entries[i] = rnd.nextInt();
+        }
+        out.println("arity\tentries\tbuild_ms\tdrain_ms\tns/remove\tMops/s");
+        /*
+         * First round warms up the JIT; only the rest are meaningful
+         */
+        for (int arity : arities) {
+            time(out, arity, entries, 1);
+        }
+        out.println();
+        for (int arity : arities) {
+            time(out, arity, entries, ROUNDS);
+        }
+        out.close();
+    }
+
+}
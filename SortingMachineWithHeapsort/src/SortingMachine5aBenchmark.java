@@ -0,0 +1,290 @@
+import java.util.Comparator;
+import java.util.Random;
+
+import components.array.Array;
+import components.array.Array1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.sortingmachine.SortingMachine;
+
+/**
+ * Program to compare the heap operations of {@code SortingMachine5a} before
+ * and after the switch to {@code ArrayHeaps}: the recursive, swapping
+ * {@code siftDown} and {@code heapify} on an {@code Array} (reproduced below
+ * without their precondition checks) against the iterative, hole-based ones
+ * on a plain array. A full fill-and-drain cycle of {@code SortingMachine5a}
+ * is timed as well.
+ *
+ * <p>
+ * Usage: {@code SortingMachine5aBenchmark [size] [rounds]}, where
+ * {@code size} is the number of random entries (default 1,000,000) and
+ * {@code rounds} the number of measured rounds (default 5). Results are
+ * printed as tab-separated lines: heap, entries, heapify ms, drain ms, with
+ * the best of the rounds. Run without {@code -ea}: with assertions enabled
+ * the old {@code Array} operations check the whole heap on every call.
+ *
+ * @author Put your name here
+ */
+public final class SortingMachine5aBenchmark {
+
+    /**
+     * Default number of entries.
+     */
+    private static final int DEFAULT_SIZE = 1000000;
+
+    /**
+     * Default number of measured rounds.
+     */
+    private static final int DEFAULT_ROUNDS = 5;
+
+    /**
+     * Seed for the entries, so every heap sorts the same ones.
+     */
+    private static final long SEED = 2231;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SortingMachine5aBenchmark() {
+    }
+
+    /**
+     * Compare {@code Integer}s in increasing order.
+     */
+    private static class IntegerLT implements Comparator<Integer> {
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    /**
+     * The recursive, swapping sift down that {@code SortingMachine5a} used on
+     * its {@code Array} representation.
+     *
+     * @param <T>
+     *            type of {@code Array} entries
+     * @param array
+     *            the complete binary tree
+     * @param top
+     *            the index of the root of the subtree
+     * @param last
+     *            the index of the last entry in the heap
+     * @param order
+     *            total preorder for sorting
+     * @updates array
+     */
+    private static <T> void arraySiftDown(Array<T> array, int top, int last,
+            Comparator<T> order) {
+        int leftPos = 2 * top + 1;
+        int rightPos = 2 * top + 2;
+        T root = array.entry(top);
+        if (last >= leftPos && last >= rightPos) {
+            T left = array.entry(leftPos);
+            T right = array.entry(rightPos);
+            if (order.compare(left, right) <= 0
+                    && order.compare(root, left) > 0) {
+                array.exchangeEntries(top, leftPos);
+                arraySiftDown(array, leftPos, last, order);
+            } else if (order.compare(left, right) > 0
+                    && order.compare(root, right) > 0) {
+                array.exchangeEntries(top, rightPos);
+                arraySiftDown(array, rightPos, last, order);
+            }
+        } else if (last >= leftPos) {
+            if (order.compare(root, array.entry(leftPos)) > 0) {
+                array.exchangeEntries(top, leftPos);
+            }
+        }
+    }
+
+    /**
+     * The recursive heapify that {@code SortingMachine5a} used on its
+     * {@code Array} representation.
+     *
+     * @param <T>
+     *            type of {@code Array} entries
+     * @param array
+     *            the complete binary tree
+     * @param top
+     *            the index of the root of the subtree
+     * @param order
+     *            total preorder for sorting
+     * @updates array
+     */
+    private static <T> void arrayHeapify(Array<T> array, int top,
+            Comparator<T> order) {
+        int leftPos = 2 * top + 1;
+        int rightPos = 2 * top + 2;
+        if (rightPos < array.length()) {
+            arrayHeapify(array, leftPos, order);
+            arrayHeapify(array, rightPos, order);
+        } else if (leftPos < array.length()) {
+            arrayHeapify(array, leftPos, order);
+        }
+        if (array.length() > 0) {
+            arraySiftDown(array, top, array.length() - 1, order);
+        }
+    }
+
+    /**
+     * Heapifies and drains {@code entries} with the old {@code Array}
+     * operations.
+     *
+     * @param entries
+     *            the entries
+     * @param order
+     *            total preorder for sorting
+     * @return {heapify nanoseconds, drain nanoseconds}
+     */
+    private static long[] timeArray(Integer[] entries,
+            Comparator<Integer> order) {
+        Array<Integer> array = new Array1L<>(entries.length);
+        for (int i = 0; i < entries.length; i++) {
+            array.setEntry(i, entries[i]);
+        }
+        long[] nanos = new long[2];
+        long start = System.nanoTime();
+        arrayHeapify(array, 0, order);
+        nanos[0] = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int last = array.length() - 1; last >= 0; last--) {
+            array.exchangeEntries(0, last);
+            if (last > 0) {
+                arraySiftDown(array, 0, last - 1, order);
+            }
+        }
+        nanos[1] = System.nanoTime() - start;
+        return nanos;
+    }
+
+    /**
+     * Heapifies and drains {@code entries} with {@code ArrayHeaps}.
+     *
+     * @param entries
+     *            the entries
+     * @param order
+     *            total preorder for sorting
+     * @return {heapify nanoseconds, drain nanoseconds}
+     */
+    private static long[] timeArrayHeaps(Integer[] entries,
+            Comparator<Integer> order) {
+        Integer[] heap = entries.clone();
+        long[] nanos = new long[2];
+        long start = System.nanoTime();
+        ArrayHeaps.heapify(heap, heap.length, order);
+        nanos[0] = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int size = heap.length; size > 0; size--) {
+            ArrayHeaps.removeRoot(heap, size, order);
+        }
+        nanos[1] = System.nanoTime() - start;
+        return nanos;
+    }
+
+    /**
+     * Fills a {@code SortingMachine5a} with {@code entries}, then times
+     * switching it to extraction mode and draining it.
+     *
+     * @param entries
+     *            the entries
+     * @param order
+     *            total preorder for sorting
+     * @return {changeToExtractionMode nanoseconds, drain nanoseconds}
+     */
+    private static long[] timeMachine(Integer[] entries,
+            Comparator<Integer> order) {
+        SortingMachine<Integer> m = new SortingMachine5a<>(order);
+        for (Integer x : entries) {
+            m.add(x);
+        }
+        long[] nanos = new long[2];
+        long start = System.nanoTime();
+        m.changeToExtractionMode();
+        nanos[0] = System.nanoTime() - start;
+        start = System.nanoTime();
+        while (m.size() > 0) {
+            m.removeFirst();
+        }
+        nanos[1] = System.nanoTime() - start;
+        return nanos;
+    }
+
+    /**
+     * Times one heap for {@code rounds} rounds and outputs the best times.
+     *
+     * @param out
+     *            the output stream
+     * @param heap
+     *            which heap to time: "Array", "ArrayHeaps", or "machine"
+     * @param entries
+     *            the entries
+     * @param rounds
+     *            the number of rounds
+     * @updates out.content
+     * @requires out.is_open and rounds > 0
+     */
+    private static void time(SimpleWriter out, String heap, Integer[] entries,
+            int rounds) {
+        Comparator<Integer> order = new IntegerLT();
+        long bestHeapify = Long.MAX_VALUE;
+        long bestDrain = Long.MAX_VALUE;
+        for (int r = 0; r < rounds; r++) {
+            System.gc();
+            long[] nanos;
+            if (heap.equals("Array")) {
+                nanos = timeArray(entries, order);
+            } else if (heap.equals("ArrayHeaps")) {
+                nanos = timeArrayHeaps(entries, order);
+            } else {
+                nanos = timeMachine(entries, order);
+            }
+            bestHeapify = Math.min(bestHeapify, nanos[0]);
+            bestDrain = Math.min(bestDrain, nanos[1]);
+        }
+        out.println(heap + "\t" + entries.length + "\t"
+                + String.format("%.1f", bestHeapify / NANOS_PER_MILLI) + "\t"
+                + String.format("%.1f", bestDrain / NANOS_PER_MILLI));
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: [size] [rounds]
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int size = DEFAULT_SIZE;
+        int rounds = DEFAULT_ROUNDS;
+        if (args.length > 0) {
+            size = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            rounds = Integer.parseInt(args[1]);
+        }
+        Random rnd = new Random(SEED);
+        Integer[] entries = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            entries[i] = rnd.nextInt();
+        }
+        out.println("heap\tentries\theapify_ms\tdrain_ms");
+        /*
+         * First round warms up the JIT; only the rest are meaningful
+         */
+        time(out, "Array", entries, 1);
+        time(out, "ArrayHeaps", entries, 1);
+        time(out, "machine", entries, 1);
+        out.println();
+        time(out, "Array", entries, rounds);
+        time(out, "ArrayHeaps", entries, rounds);
+        time(out, "machine", entries, rounds);
+        out.close();
+    }
+
+}
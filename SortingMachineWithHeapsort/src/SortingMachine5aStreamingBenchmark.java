@@ -0,0 +1,214 @@
+import java.util.Comparator;
+import java.util.Random;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.sortingmachine.SortingMachine;
+
+/**
+ * Program to time an event-scheduling workload on {@code SortingMachine5a}:
+ * a fixed number of pending events, where each step removes the earliest
+ * event and schedules a new one a random delay after it. Adding the new event
+ * with {@code addInExtractionMode} is compared against what a plain
+ * {@code SortingMachine} has to do, namely move the remaining events into a
+ * fresh machine, add the new one, and switch back to extraction mode.
+ *
+ * <p>
+ * Usage: {@code SortingMachine5aStreamingBenchmark [steps] [pending...]},
+ * where {@code steps} is the number of steps with
+ * {@code addInExtractionMode} (default 1,000,000) and each {@code pending}
+ * is a number of pending events (default 1,000, 10,000, and 100,000). The
+ * rebuilding version costs O(n) per step, so it runs only as many steps as
+ * keep its work comparable. Results are printed as tab-separated lines:
+ * method, pending events, steps, total ms, ns per step. Run without
+ * {@code -ea}, or the convention checks are timed too.
+ *
+ * @author Put your name here
+ */
+public final class SortingMachine5aStreamingBenchmark {
+
+    /**
+     * Default number of steps.
+     */
+    private static final int DEFAULT_STEPS = 1000000;
+
+    /**
+     * Default numbers of pending events.
+     */
+    private static final int[] DEFAULT_PENDING = { 1000, 10000, 100000 };
+
+    /**
+     * Number of events moved, in total, by the rebuilding version.
+     */
+    private static final long REBUILD_BUDGET = 20000000L;
+
+    /**
+     * Largest delay between an event and the one it schedules.
+     */
+    private static final int MAX_DELAY = 1000000;
+
+    /**
+     * Seed for the delays, so both versions schedule the same events.
+     */
+    private static final long SEED = 2231;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SortingMachine5aStreamingBenchmark() {
+    }
+
+    /**
+     * Compare {@code Long}s in increasing order.
+     */
+    private static class LongLT implements Comparator<Long> {
+        @Override
+        public int compare(Long o1, Long o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    /**
+     * Returns a machine in extraction mode with {@code pending} events.
+     *
+     * @param pending
+     *            the number of events
+     * @param rnd
+     *            the source of randomness
+     * @return the machine
+     */
+    private static SortingMachine5a<Long> schedule(int pending, Random rnd) {
+        SortingMachine5a<Long> m = new SortingMachine5a<>(new LongLT());
+        for (int i = 0; i < pending; i++) {
+            m.add((long) rnd.nextInt(MAX_DELAY));
+        }
+        m.changeToExtractionMode();
+        return m;
+    }
+
+    /**
+     * Runs {@code steps} steps adding with {@code addInExtractionMode}.
+     *
+     * @param m
+     *            the machine
+     * @param steps
+     *            the number of steps
+     * @param rnd
+     *            the source of randomness
+     * @return the time of the last event removed
+     * @updates m
+     */
+    private static long runIncremental(SortingMachine5a<Long> m, int steps,
+            Random rnd) {
+        long now = 0;
+        for (int i = 0; i < steps; i++) {
+            now = m.removeFirst();
+            m.addInExtractionMode(now + rnd.nextInt(MAX_DELAY));
+        }
+        return now;
+    }
+
+    /**
+     * Runs {@code steps} steps adding by rebuilding the machine.
+     *
+     * @param m
+     *            the machine
+     * @param steps
+     *            the number of steps
+     * @param rnd
+     *            the source of randomness
+     * @return the time of the last event removed
+     * @updates m
+     */
+    private static long runRebuild(SortingMachine<Long> m, int steps,
+            Random rnd) {
+        long now = 0;
+        for (int i = 0; i < steps; i++) {
+            now = m.removeFirst();
+            SortingMachine<Long> next = m.newInstance();
+            while (m.size() > 0) {
+                next.add(m.removeFirst());
+            }
+            next.add(now + rnd.nextInt(MAX_DELAY));
+            next.changeToExtractionMode();
+            m.transferFrom(next);
+        }
+        return now;
+    }
+
+    /**
+     * Times one method and outputs its result line.
+     *
+     * @param out
+     *            the output stream
+     * @param incremental
+     *            whether to add with {@code addInExtractionMode} (or else by
+     *            rebuilding)
+     * @param pending
+     *            the number of pending events
+     * @param steps
+     *            the number of steps
+     * @updates out.content
+     * @requires out.is_open and pending > 0 and steps > 0
+     */
+    private static void time(SimpleWriter out, boolean incremental,
+            int pending, int steps) {
+        Random rnd = new Random(SEED);
+        SortingMachine5a<Long> m = schedule(pending, rnd);
+        System.gc();
+        long start = System.nanoTime();
+        String label;
+        if (incremental) {
+            runIncremental(m, steps, rnd);
+            label = "addInExtractionMode";
+        } else {
+            runRebuild(m, steps, rnd);
+            label = "rebuild";
+        }
+        long nanos = System.nanoTime() - start;
+        out.println(label + "\t" + pending + "\t" + steps + "\t"
+                + String.format("%.1f", nanos / NANOS_PER_MILLI) + "\t"
+                + String.format("%.1f", (double) nanos / steps));
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: [steps] [pending...]
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int steps = DEFAULT_STEPS;
+        int[] pendings = DEFAULT_PENDING;
+        if (args.length > 0) {
+            steps = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            pendings = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                pendings[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+        out.println("method\tpending\tsteps\tms\tns/step");
+        /*
+         * First round warms up the JIT; only the rest are meaningful
+         */
+        time(out, true, pendings[0], steps / 10);
+        time(out, false, pendings[0], 100);
+        out.println();
+        for (int pending : pendings) {
+            int rebuildSteps = (int) Math.max(1,
+                    Math.min(steps, REBUILD_BUDGET / pending));
+            time(out, true, pending, steps);
+            time(out, false, pending, rebuildSteps);
+        }
+        out.close();
+    }
+
+}
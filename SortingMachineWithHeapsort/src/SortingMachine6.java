@@ -0,0 +1,950 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} that can sort more entries than fit in memory
+ * (using an external merge sort), with implementations of primary methods.
+ *
+ * <p>
+ * In insertion mode, entries are collected in an array of at most
+ * {@code runLength} entries. Whenever the array is full, it is sorted and
+ * written to a temporary file as a sorted "run". Switching to extraction mode
+ * first merges the runs in files, {@code MAX_FAN_IN} at a time into longer
+ * runs, until at most {@code MAX_FAN_IN} are left, so that no more files than
+ * that are ever open at once. It then sorts what is left in the array as one
+ * more run, kept in memory, and puts all runs in a heap ordered by their
+ * first remaining entries. Each {@code removeFirst} takes the first entry of
+ * the run at the root of that heap and sifts the run down, so only one entry
+ * per run is in memory at a time. Temporary files are deleted as soon as
+ * their runs are exhausted, or when the machine is cleared, so a machine that
+ * is abandoned before it is drained should be cleared.
+ *
+ * <p>
+ * Entries are written with Java serialization, so they must be
+ * {@code Serializable}, and the entries removed are equal to, but not the
+ * same objects as, the ones added (except for those that were never spilled).
+ * They are written and read "unshared", and the writing stream is reset
+ * regularly, so that neither stream keeps references to the entries it has
+ * handled.
+ * An {@code UncheckedIOException} is thrown if a temporary file cannot be
+ * written or read.
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * SUBTREE_IS_HEAP (
+ *   a: string of T,
+ *   start: integer,
+ *   size: integer,
+ *   d: integer,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  [the subtree of a[0, size) (when a is interpreted as a complete d-ary
+ *   tree) rooted at index start satisfies the heap ordering property
+ *   according to the relation r]
+ *
+ * REMAINING (
+ *   r: run
+ *  ) : finite multiset of T is
+ *  [the entries of r, in its file or array, that have not been consumed,
+ *   including its head]
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method]  and
+ * 0 < $this.runLength  and
+ * [$this.runOrder compares runs by their heads, using $this.machineOrder]  and
+ * [the entries of every run in $this.runs and $this.merge[0, $this.mergeSize)
+ *   are sorted according to $this.machineOrder]  and
+ * if $this.insertionMode then
+ *   $this.mergeSize = 0  and
+ *   0 <= $this.bufferLength <= min(|$this.buffer|, $this.runLength)  and
+ *   $this.size = $this.bufferLength +
+ *     [sum of |REMAINING(r)| for the runs r in $this.runs]
+ * else
+ *   $this.runs = <>  and  $this.bufferLength = 0  and
+ *   [every run in $this.merge[0, $this.mergeSize) has a head]  and
+ *   SUBTREE_IS_HEAP($this.merge, 0, $this.mergeSize, 2,
+ *     [relation computed by $this.runOrder.compare method])  and
+ *   $this.size =
+ *     [sum of |REMAINING(r)| for the runs r in $this.merge[0, $this.mergeSize)]
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *   multiset_entries($this.buffer[0, $this.bufferLength)) union
+ *   [union of REMAINING(r) for the runs r in $this.runs and
+ *     $this.merge[0, $this.mergeSize)])
+ * </pre>
+ */
+public class SortingMachine6<T extends Serializable>
+        extends SortingMachineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default maximum number of entries kept in memory in insertion mode.
+     */
+    private static final int DEFAULT_RUN_LENGTH = 1 << 20;
+
+    /**
+     * Smallest capacity of the insertion buffer.
+     */
+    private static final int INITIAL_BUFFER_CAPACITY = 16;
+
+    /**
+     * Largest number of runs in files merged at once, and so of run files
+     * open at once.
+     */
+    private static final int MAX_FAN_IN = 64;
+
+    /**
+     * Number of entries written to a run file between two resets of its
+     * stream.
+     */
+    private static final int RESET_INTERVAL = 1024;
+
+    /**
+     * Size of the I/O buffer of each run file.
+     */
+    private static final int FILE_BUFFER_BYTES = 1 << 16;
+
+    /**
+     * Prefix of the names of temporary run files.
+     */
+    private static final String RUN_FILE_PREFIX = "SortingMachine6-";
+
+    /**
+     * Suffix of the names of temporary run files.
+     */
+    private static final String RUN_FILE_SUFFIX = ".run";
+
+    /**
+     * Order.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Order of runs by their heads.
+     */
+    private Comparator<Run<T>> runOrder;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Maximum number of entries kept in memory in insertion mode.
+     */
+    private int runLength;
+
+    /**
+     * Entries not yet spilled, in insertion mode.
+     */
+    private T[] buffer;
+
+    /**
+     * Number of entries in buffer.
+     */
+    private int bufferLength;
+
+    /**
+     * Runs spilled to temporary files, in insertion mode.
+     */
+    private Queue<Run<T>> runs;
+
+    /**
+     * Heap of runs being merged, in extraction mode.
+     */
+    private Run<T>[] merge;
+
+    /**
+     * Number of runs in merge.
+     */
+    private int mergeSize;
+
+    /**
+     * Number of entries.
+     */
+    private int size;
+
+    /**
+     * A sorted run of entries, either in a temporary file or in an array, of
+     * which the entries before {@code consumed} have been removed. The entry
+     * at {@code consumed} is the head; a run whose entries have all been
+     * removed has no head.
+     *
+     * @param <T>
+     *            type of run entries
+     */
+    private static final class Run<T> {
+
+        /**
+         * File holding the entries, or null if they are in entries.
+         */
+        private final File file;
+
+        /**
+         * Array holding the entries, or null if they are in file.
+         */
+        private final T[] entries;
+
+        /**
+         * Number of entries in the run.
+         */
+        private final int length;
+
+        /**
+         * Number of entries removed from the run.
+         */
+        private int consumed;
+
+        /**
+         * First entry not removed, or null if there is none or the run has
+         * not been opened.
+         */
+        private T head;
+
+        /**
+         * Stream reading file after head, or null if not open.
+         */
+        private ObjectInputStream in;
+
+        /**
+         * Constructor from the place holding the entries.
+         *
+         * @param file
+         *            the file holding the entries, or null
+         * @param entries
+         *            the array holding the entries, or null
+         * @param length
+         *            the number of entries
+         */
+        private Run(File file, T[] entries, int length) {
+            this.file = file;
+            this.entries = entries;
+            this.length = length;
+            this.consumed = 0;
+        }
+
+        /**
+         * Returns a new input stream on {@code file}, positioned after the
+         * first {@code skip} entries.
+         *
+         * @param skip
+         *            the number of entries to skip
+         * @return the stream
+         * @requires this.file /= null and skip <= this.length
+         */
+        private ObjectInputStream openAt(int skip) {
+            try {
+                ObjectInputStream stream = new ObjectInputStream(
+                        new BufferedInputStream(new FileInputStream(this.file),
+                                FILE_BUFFER_BYTES));
+                for (int i = 0; i < skip; i++) {
+                    stream.readUnshared();
+                }
+                return stream;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Reads the next entry from {@code stream}.
+         *
+         * @param <E>
+         *            type of the entry
+         * @param stream
+         *            the stream
+         * @return the entry
+         */
+        @SuppressWarnings("unchecked")
+        private static <E> E read(ObjectInputStream stream) {
+            try {
+                return (E) stream.readUnshared();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Closes {@code stream}, if it is not null.
+         *
+         * @param stream
+         *            the stream
+         */
+        private static void close(ObjectInputStream stream) {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        /**
+         * Loads the head of a run that has not been opened yet.
+         *
+         * @requires this.consumed < this.length
+         */
+        private void open() {
+            if (this.file == null) {
+                this.head = this.entries[this.consumed];
+            } else {
+                this.in = this.openAt(this.consumed);
+                this.head = read(this.in);
+            }
+        }
+
+        /**
+         * Removes the head, replacing it with the next entry; when there is
+         * none, releases the file or array.
+         *
+         * @requires this.head /= null
+         */
+        private void advance() {
+            if (this.entries != null) {
+                this.entries[this.consumed] = null;
+            }
+            this.consumed++;
+            if (this.consumed < this.length) {
+                if (this.file == null) {
+                    this.head = this.entries[this.consumed];
+                } else {
+                    this.head = read(this.in);
+                }
+            } else {
+                this.head = null;
+                this.discard();
+            }
+        }
+
+        /**
+         * Closes and deletes the file, if any.
+         */
+        private void discard() {
+            close(this.in);
+            this.in = null;
+            if (this.file != null) {
+                this.file.delete();
+            }
+        }
+
+        /**
+         * Returns an iterator over the entries not yet removed, which reads
+         * the file with a stream of its own.
+         *
+         * @return the iterator
+         */
+        private Iterator<T> remaining() {
+            return new Iterator<T>() {
+
+                /**
+                 * Index of the next entry.
+                 */
+                private int next = Run.this.consumed;
+
+                /**
+                 * Stream reading the file, opened on the first call to next.
+                 */
+                private ObjectInputStream stream = null;
+
+                @Override
+                public boolean hasNext() {
+                    return this.next < Run.this.length;
+                }
+
+                @Override
+                public T next() {
+                    if (!this.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    T x;
+                    if (Run.this.file == null) {
+                        x = Run.this.entries[this.next];
+                    } else {
+                        if (this.stream == null) {
+                            this.stream = Run.this.openAt(this.next);
+                        }
+                        x = read(this.stream);
+                    }
+                    this.next++;
+                    if (!this.hasNext()) {
+                        close(this.stream);
+                        this.stream = null;
+                    }
+                    return x;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException(
+                            "remove operation not supported");
+                }
+
+            };
+        }
+
+    }
+
+    /**
+     * Order of runs by their heads.
+     *
+     * @param <T>
+     *            type of run entries
+     */
+    private static final class RunOrder<T> implements Comparator<Run<T>> {
+
+        /**
+         * Order of entries.
+         */
+        private final Comparator<T> order;
+
+        /**
+         * Constructor from order of entries.
+         *
+         * @param order
+         *            the order of entries
+         */
+        private RunOrder(Comparator<T> order) {
+            this.order = order;
+        }
+
+        @Override
+        public int compare(Run<T> r1, Run<T> r2) {
+            return this.order.compare(r1.head, r2.head);
+        }
+
+    }
+
+    /**
+     * Writes the entries delivered by {@code source} to a new temporary file,
+     * and returns the file.
+     *
+     * @param <T>
+     *            type of entries
+     * @param source
+     *            the entries, in order
+     * @param length
+     *            the number of entries
+     * @return the file
+     */
+    private static <T> File writeRunFile(Iterator<T> source, int length) {
+        File file = null;
+        try {
+            file = File.createTempFile(RUN_FILE_PREFIX, RUN_FILE_SUFFIX);
+            try (ObjectOutputStream out = new ObjectOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(file),
+                            FILE_BUFFER_BYTES))) {
+                for (int i = 0; i < length; i++) {
+                    out.writeUnshared(source.next());
+                    if ((i + 1) % RESET_INTERVAL == 0) {
+                        /*
+                         * Forget the objects nested in the entries written so
+                         * far, here and in the streams that will read them
+                         */
+                        out.reset();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (file != null) {
+                file.delete();
+            }
+            throw new UncheckedIOException(e);
+        }
+        return file;
+    }
+
+    /**
+     * Sorts {@code entries[0, length)} and writes them to a new temporary
+     * file.
+     *
+     * @param <T>
+     *            type of entries
+     * @param entries
+     *            the entries
+     * @param length
+     *            the number of entries
+     * @param order
+     *            the total preorder for sorting
+     * @return the run in the file
+     * @updates entries
+     * @requires <pre>
+     * 0 < length <= |entries|  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * [spill is a run of the entries #entries[0, length), sorted according to
+     *   order, in a new temporary file]  and
+     * entries[0, length) = [null entries]
+     * </pre>
+     */
+    private static <T> Run<T> spill(T[] entries, int length,
+            Comparator<T> order) {
+        Arrays.sort(entries, 0, length, order);
+        File file = writeRunFile(Arrays.asList(entries).iterator(), length);
+        Arrays.fill(entries, 0, length, null);
+        return new Run<T>(file, null, length);
+    }
+
+    /**
+     * Merges the first {@code count} runs of {@code runs}, which have not
+     * been opened, into one run in a new temporary file, deleting their
+     * files.
+     *
+     * @param <T>
+     *            type of entries
+     * @param runs
+     *            the runs
+     * @param count
+     *            the number of runs to merge
+     * @param runOrder
+     *            the order of runs by their heads
+     * @return the merged run
+     * @updates runs
+     * @requires <pre>
+     * 0 < count <= |runs|  and
+     * [the entries of every run in runs are sorted consistently with
+     *   runOrder]
+     * </pre>
+     * @ensures <pre>
+     * runs = #runs[count, |#runs|)  and
+     * [merge is a sorted run of the entries of the runs #runs[0, count)]
+     * </pre>
+     */
+    private static <T> Run<T> merge(Queue<Run<T>> runs, int count,
+            Comparator<Run<T>> runOrder) {
+        @SuppressWarnings("unchecked")
+        Run<T>[] heap = (Run<T>[]) new Run<?>[count];
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            heap[i] = runs.dequeue();
+            heap[i].open();
+            length += heap[i].length;
+        }
+        ArrayHeaps.heapify(heap, count, runOrder);
+        Iterator<T> merged = new Iterator<T>() {
+
+            /**
+             * Number of runs in heap.
+             */
+            private int heapSize = count;
+
+            @Override
+            public boolean hasNext() {
+                return this.heapSize > 0;
+            }
+
+            @Override
+            public T next() {
+                Run<T> first = heap[0];
+                T x = first.head;
+                first.advance();
+                if (first.head == null) {
+                    ArrayHeaps.removeRoot(heap, this.heapSize, runOrder);
+                    this.heapSize--;
+                } else {
+                    ArrayHeaps.siftDown(heap, 0, this.heapSize, runOrder);
+                }
+                return x;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException(
+                        "remove operation not supported");
+            }
+
+        };
+        File file = writeRunFile(merged, length);
+        return new Run<T>(file, null, length);
+    }
+
+    /**
+     * Deletes the temporary files of all runs.
+     */
+    private void discardRuns() {
+        if (this.runs != null) {
+            for (Run<T> r : this.runs) {
+                r.discard();
+            }
+        }
+        for (int i = 0; i < this.mergeSize; i++) {
+            this.merge[i].discard();
+        }
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 < $this.runLength  and
+     * if $this.insertionMode then
+     *   $this.mergeSize = 0  and
+     *   0 <= $this.bufferLength <= min(|$this.buffer|, $this.runLength)
+     * else
+     *   $this.runs = <>  and  $this.bufferLength = 0  and
+     *   [every run in $this.merge[0, $this.mergeSize) has a head]  and
+     *   SUBTREE_IS_HEAP($this.merge, 0, $this.mergeSize, 2,
+     *     [relation computed by $this.runOrder.compare method])
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert 0 < this.runLength : "Violation of: 0 < $this.runLength";
+        if (this.insertionMode) {
+            assert this.mergeSize == 0 : ""
+                    + "Violation of: if $this.insertionMode then"
+                    + " $this.mergeSize = 0";
+            assert 0 <= this.bufferLength
+                    && this.bufferLength <= this.runLength : ""
+                            + "Violation of: if $this.insertionMode then"
+                            + " 0 <= $this.bufferLength <= $this.runLength";
+            assert this.buffer != null
+                    || this.bufferLength == 0 : ""
+                            + "Violation of: if $this.insertionMode then"
+                            + " $this.bufferLength <= |$this.buffer|";
+        } else {
+            assert this.runs.length() == 0 : ""
+                    + "Violation of: if not $this.insertionMode then"
+                    + " $this.runs = <>";
+            assert this.bufferLength == 0 : ""
+                    + "Violation of: if not $this.insertionMode then"
+                    + " $this.bufferLength = 0";
+            for (int i = 0; i < this.mergeSize; i++) {
+                assert this.merge[i].head != null : ""
+                        + "Violation of: if not $this.insertionMode then"
+                        + " [every run in $this.merge[0, $this.mergeSize)"
+                        + " has a head]";
+            }
+            assert ArrayHeaps.isHeap(this.merge, this.mergeSize,
+                    this.runOrder) : ""
+                            + "Violation of: if not $this.insertionMode then"
+                            + " SUBTREE_IS_HEAP($this.merge, 0,"
+                            + " $this.mergeSize, 2, [relation computed by"
+                            + " $this.runOrder.compare method])";
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param length
+     *            maximum number of entries kept in memory in insertion mode
+     */
+    private void createNewRep(Comparator<T> order, int length) {
+        this.machineOrder = order;
+        this.runOrder = new RunOrder<T>(order);
+        this.insertionMode = true;
+        this.runLength = length;
+        this.buffer = null;
+        this.bufferLength = 0;
+        this.runs = new Queue1L<Run<T>>();
+        this.merge = null;
+        this.mergeSize = 0;
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order.
+     *
+     * @param order
+     *            total preorder for sorting
+     */
+    public SortingMachine6(Comparator<T> order) {
+        this.createNewRep(order, DEFAULT_RUN_LENGTH);
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from order and memory budget.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param runLength
+     *            maximum number of entries kept in memory in insertion mode;
+     *            every time this many have been added, they are written to a
+     *            temporary file
+     * @requires 0 < runLength
+     */
+    public SortingMachine6(Comparator<T> order, int runLength) {
+        assert 0 < runLength : "Violation of: 0 < runLength";
+        this.createNewRep(order, runLength);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            Constructor<?> c = this.getClass().getConstructor(Comparator.class,
+                    int.class);
+            return (SortingMachine<T>) c.newInstance(this.machineOrder,
+                    this.runLength);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.discardRuns();
+        this.createNewRep(this.machineOrder, this.runLength);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof SortingMachine6<?> : ""
+                + "Violation of: source is of dynamic type SortingMachine6<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * SortingMachine6<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        SortingMachine6<T> localSource = (SortingMachine6<T>) source;
+        this.discardRuns();
+        this.machineOrder = localSource.machineOrder;
+        this.runOrder = localSource.runOrder;
+        this.insertionMode = localSource.insertionMode;
+        this.runLength = localSource.runLength;
+        this.buffer = localSource.buffer;
+        this.bufferLength = localSource.bufferLength;
+        this.runs = localSource.runs;
+        this.merge = localSource.merge;
+        this.mergeSize = localSource.mergeSize;
+        this.size = localSource.size;
+        localSource.createNewRep(localSource.machineOrder,
+                localSource.runLength);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+        if (this.bufferLength == this.runLength) {
+            this.runs.enqueue(
+                    spill(this.buffer, this.bufferLength, this.machineOrder));
+            this.bufferLength = 0;
+        }
+        if (this.buffer == null || this.bufferLength == this.buffer.length) {
+            int capacity = INITIAL_BUFFER_CAPACITY;
+            if (this.buffer != null) {
+                capacity = 2 * this.buffer.length;
+            }
+            @SuppressWarnings("unchecked")
+            T[] grown = (T[]) new Serializable[Math.min(capacity,
+                    this.runLength)];
+            if (this.buffer != null) {
+                System.arraycopy(this.buffer, 0, grown, 0, this.bufferLength);
+            }
+            this.buffer = grown;
+        }
+        this.buffer[this.bufferLength] = x;
+        this.bufferLength++;
+        this.size++;
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+        this.insertionMode = false;
+        while (this.runs.length() > MAX_FAN_IN) {
+            this.runs.enqueue(merge(this.runs, MAX_FAN_IN, this.runOrder));
+        }
+        @SuppressWarnings("unchecked")
+        Run<T>[] heap = (Run<T>[]) new Run<?>[this.runs.length() + 1];
+        this.merge = heap;
+        while (this.runs.length() > 0) {
+            Run<T> r = this.runs.dequeue();
+            r.open();
+            this.merge[this.mergeSize] = r;
+            this.mergeSize++;
+        }
+        if (this.bufferLength > 0) {
+            Arrays.sort(this.buffer, 0, this.bufferLength, this.machineOrder);
+            Run<T> r = new Run<T>(null, this.buffer, this.bufferLength);
+            r.open();
+            this.merge[this.mergeSize] = r;
+            this.mergeSize++;
+        }
+        this.buffer = null;
+        this.bufferLength = 0;
+        ArrayHeaps.heapify(this.merge, this.mergeSize, this.runOrder);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+        Run<T> first = this.merge[0];
+        T x = first.head;
+        first.advance();
+        if (first.head == null) {
+            ArrayHeaps.removeRoot(this.merge, this.mergeSize, this.runOrder);
+            this.mergeSize--;
+        } else {
+            ArrayHeaps.siftDown(this.merge, 0, this.mergeSize, this.runOrder);
+        }
+        this.size--;
+        assert this.conventionHolds();
+        return x;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new SortingMachine6Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code SortingMachine6}. Entries in temporary files are read again
+     * from the files, so iterating costs I/O proportional to the size of
+     * {@code this}.
+     */
+    private final class SortingMachine6Iterator implements Iterator<T> {
+
+        /**
+         * Runs still to be iterated over.
+         */
+        private final Iterator<Run<T>> runIterator;
+
+        /**
+         * Iterator over the entries of the current run.
+         */
+        private Iterator<T> entryIterator;
+
+        /**
+         * No-argument constructor.
+         */
+        private SortingMachine6Iterator() {
+            List<Run<T>> all = new ArrayList<>();
+            if (SortingMachine6.this.insertionMode) {
+                for (Run<T> r : SortingMachine6.this.runs) {
+                    all.add(r);
+                }
+                all.add(new Run<T>(null, SortingMachine6.this.buffer,
+                        SortingMachine6.this.bufferLength));
+            } else {
+                for (int i = 0; i < SortingMachine6.this.mergeSize; i++) {
+                    all.add(SortingMachine6.this.merge[i]);
+                }
+            }
+            this.runIterator = all.iterator();
+            this.entryIterator = null;
+            assert SortingMachine6.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while ((this.entryIterator == null || !this.entryIterator.hasNext())
+                    && this.runIterator.hasNext()) {
+                this.entryIterator = this.runIterator.next().remaining();
+            }
+            assert SortingMachine6.this.conventionHolds();
+            return this.entryIterator != null && this.entryIterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            assert SortingMachine6.this.conventionHolds();
+            return this.entryIterator.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,624 @@
+import java.lang.reflect.Constructor;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} represented as a {@code Queue} and an array (using an
+ * embedding of radix sort), with implementations of primary methods. Entries
+ * are sorted by the digits of their keys, as given by a {@code RadixKey},
+ * without comparing them. When all keys have the same length, as those of
+ * {@code Integer}s and {@code Long}s do, they are sorted least significant
+ * digit first, with one counting pass per digit (skipping digits on which all
+ * keys agree). Otherwise, as for {@code String}s, they are sorted most
+ * significant digit first, recursively, down to short ranges that are
+ * finished by insertion sort using the order. Either way the sort takes time
+ * linear in the total length of the keys.
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * IS_SORTED (
+ *   s: string of T,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y: T where (<x, y> is substring of s) (r(x, y))
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method])
+ *   and
+ * [$this.radixKey is CONSISTENT with
+ *   [relation computed by $this.machineOrder.compare method]]  and
+ * if $this.insertionMode then
+ *   $this.next = 0  and  $this.sorted = <>
+ * else
+ *   $this.entries = <>  and
+ *   0 <= $this.next <= |$this.sorted|  and
+ *   [$this.sorted[0, $this.next) are all null]  and
+ *   IS_SORTED($this.sorted[$this.next, |$this.sorted|),
+ *     [relation computed by $this.machineOrder.compare method])
+ * </pre>
+ * @correspondence <pre>
+ * if $this.insertionMode then
+ *   this = (true, $this.machineOrder, multiset_entries($this.entries))
+ * else
+ *   this = (false, $this.machineOrder,
+ *     multiset_entries($this.sorted[$this.next, |$this.sorted|)))
+ * </pre>
+ */
+public class SortingMachine7<T> extends SortingMachineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Ranges at most this long are finished by insertion sort.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    /**
+     * Order.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Key for radix sorting, consistent with the order.
+     */
+    private RadixKey<T> radixKey;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Entries, in insertion mode.
+     */
+    private Queue<T> entries;
+
+    /**
+     * Sorted entries, in extraction mode.
+     */
+    private T[] sorted;
+
+    /**
+     * Index of the next entry of sorted to remove.
+     */
+    private int next;
+
+    /**
+     * Sorts {@code a[lo, hi)} by insertion sort.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param a
+     *            the array
+     * @param lo
+     *            the start of the range
+     * @param hi
+     *            the end of the range (exclusive)
+     * @param order
+     *            total preorder for sorting
+     * @updates a
+     * @requires <pre>
+     * 0 <= lo <= hi <= |a|  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * IS_SORTED(a[lo, hi), [relation computed by order.compare method])  and
+     * perms(a[lo, hi), #a[lo, hi))  and
+     * [the rest of a is unchanged]
+     * </pre>
+     */
+    private static <T> void insertionSort(T[] a, int lo, int hi,
+            Comparator<T> order) {
+        for (int i = lo + 1; i < hi; i++) {
+            T x = a[i];
+            int j = i;
+            while (j > lo && order.compare(x, a[j - 1]) < 0) {
+                a[j] = a[j - 1];
+                j--;
+            }
+            a[j] = x;
+        }
+    }
+
+    /**
+     * Sorts {@code a}, whose keys all have {@code length} digits, least
+     * significant digit first. Each pass is a stable counting sort on one
+     * digit, from {@code a} into {@code aux} or back; a digit on which all
+     * keys agree is skipped.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param a
+     *            the array
+     * @param aux
+     *            scratch array
+     * @param length
+     *            the length of every key
+     * @param key
+     *            the key of the entries
+     * @updates a, aux
+     * @requires <pre>
+     * |aux| = |a|  and  0 <= length  and
+     * for all x: T where (x is in entries(a)) (|KEY(x)| = length)
+     * </pre>
+     * @ensures <pre>
+     * perms(a, #a)  and
+     * for all i: integer where (0 < i < |a|)
+     *  (KEY(a[i - 1]) <= KEY(a[i]) in lexicographic order)
+     * </pre>
+     */
+    private static <T> void lsdSort(T[] a, T[] aux, int length,
+            RadixKey<T> key) {
+        T[] from = a;
+        T[] to = aux;
+        for (int d = length - 1; d >= 0; d--) {
+            int[] start = new int[RadixKey.RADIX + 1];
+            for (T x : from) {
+                start[key.digit(x, d) + 1]++;
+            }
+            if (start[key.digit(from[0], d) + 1] < from.length) {
+                for (int r = 0; r < RadixKey.RADIX; r++) {
+                    start[r + 1] += start[r];
+                }
+                for (T x : from) {
+                    int r = key.digit(x, d);
+                    to[start[r]] = x;
+                    start[r]++;
+                }
+                T[] temp = from;
+                from = to;
+                to = temp;
+            }
+        }
+        if (from != a) {
+            System.arraycopy(from, 0, a, 0, a.length);
+        }
+    }
+
+    /**
+     * Sorts {@code a[lo, hi)}, whose keys agree on their first {@code d}
+     * digits, most significant digit first: the range is distributed by
+     * digit {@code d} (keys with only {@code d} digits coming first), and
+     * each part is sorted recursively on the next digit.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param a
+     *            the array
+     * @param aux
+     *            scratch array
+     * @param lo
+     *            the start of the range
+     * @param hi
+     *            the end of the range (exclusive)
+     * @param d
+     *            the number of leading digits on which the keys agree
+     * @param key
+     *            the key of the entries
+     * @param order
+     *            total preorder for sorting, consistent with {@code key}
+     * @updates a, aux
+     * @requires <pre>
+     * |aux| = |a|  and  0 <= lo <= hi <= |a|  and  0 <= d  and
+     * [the keys of a[lo, hi) agree on their first d digits]  and
+     * CONSISTENT([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * IS_SORTED(a[lo, hi), [relation computed by order.compare method])  and
+     * perms(a[lo, hi), #a[lo, hi))  and
+     * [the rest of a is unchanged]
+     * </pre>
+     */
+    private static <T> void msdSort(T[] a, T[] aux, int lo, int hi, int d,
+            RadixKey<T> key, Comparator<T> order) {
+        if (hi - lo <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(a, lo, hi, order);
+        } else {
+            /*
+             * Bucket 0 holds keys that end before digit d; bucket r + 1 holds
+             * keys whose digit d is r
+             */
+            final int buckets = RadixKey.RADIX + 1;
+            int[] start = new int[buckets + 1];
+            for (int i = lo; i < hi; i++) {
+                start[bucket(a[i], d, key) + 1]++;
+            }
+            for (int r = 0; r < buckets; r++) {
+                start[r + 1] += start[r];
+            }
+            int[] end = start.clone();
+            for (int i = lo; i < hi; i++) {
+                int r = bucket(a[i], d, key);
+                aux[lo + end[r]] = a[i];
+                end[r]++;
+            }
+            System.arraycopy(aux, lo, a, lo, hi - lo);
+            for (int r = 1; r < buckets; r++) {
+                if (start[r + 1] - start[r] > 1) {
+                    msdSort(a, aux, lo + start[r], lo + start[r + 1], d + 1,
+                            key, order);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the bucket of {@code x} when distributing by digit {@code d}:
+     * 0 if its key has only {@code d} digits, and 1 more than digit
+     * {@code d} otherwise.
+     *
+     * @param <T>
+     *            type of entries
+     * @param x
+     *            the entry
+     * @param d
+     *            the position of the digit
+     * @param key
+     *            the key of the entries
+     * @return the bucket of {@code x}
+     * @requires 0 <= d <= |KEY(x)|
+     * @ensures <pre>
+     * bucket = (if d = |KEY(x)| then 0 else KEY(x)[d] + 1)
+     * </pre>
+     */
+    private static <T> int bucket(T x, int d, RadixKey<T> key) {
+        int result = 0;
+        if (d < key.length(x)) {
+            result = key.digit(x, d) + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Constructs and returns a sorted array with the entries from the given
+     * {@code Queue}.
+     *
+     * @param <T>
+     *            type of {@code Queue} and array entries
+     * @param q
+     *            the {@code Queue} with the entries
+     * @param key
+     *            the key of the entries
+     * @param order
+     *            total preorder for sorting, consistent with {@code key}
+     * @return the sorted array
+     * @clears q
+     * @requires <pre>
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])  and
+     * CONSISTENT([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * IS_SORTED(radixSort, [relation computed by order.compare method])  and
+     * perms(radixSort, #q)
+     * </pre>
+     */
+    private static <T> T[] radixSort(Queue<T> q, RadixKey<T> key,
+            Comparator<T> order) {
+        assert q != null : "Violation of: q is not null";
+        assert key != null : "Violation of: key is not null";
+        assert order != null : "Violation of: order is not null";
+        @SuppressWarnings("unchecked")
+        T[] a = (T[]) new Object[q.length()];
+        int minLength = Integer.MAX_VALUE;
+        int maxLength = 0;
+        for (int i = 0; i < a.length; i++) {
+            a[i] = q.dequeue();
+            int length = key.length(a[i]);
+            minLength = Math.min(minLength, length);
+            maxLength = Math.max(maxLength, length);
+        }
+        if (a.length > 1) {
+            @SuppressWarnings("unchecked")
+            T[] aux = (T[]) new Object[a.length];
+            if (minLength == maxLength) {
+                lsdSort(a, aux, maxLength, key);
+            } else {
+                msdSort(a, aux, 0, a.length, 0, key, order);
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Reports whether the entries of {@code this} still to be removed are
+     * sorted according to the order; used only to check the convention.
+     *
+     * @return true iff they are sorted
+     * @requires not this.insertion_mode
+     */
+    private boolean isSorted() {
+        boolean result = true;
+        for (int i = this.next + 1; i < this.sorted.length && result; i++) {
+            result = this.machineOrder.compare(this.sorted[i - 1],
+                    this.sorted[i]) <= 0;
+        }
+        return result;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * if $this.insertionMode then
+     *   $this.next = 0  and  $this.sorted = <>
+     * else
+     *   $this.entries = <>  and
+     *   0 <= $this.next <= |$this.sorted|
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        if (this.insertionMode) {
+            assert this.next == 0 : ""
+                    + "Violation of: if $this.insertionMode then $this.next = 0";
+            assert this.sorted.length == 0 : ""
+                    + "Violation of: if $this.insertionMode then $this.sorted = <>";
+        } else {
+            assert this.entries.length() == 0 : ""
+                    + "Violation of: if not $this.insertionMode then $this.entries = <>";
+            assert 0 <= this.next
+                    && this.next <= this.sorted.length : ""
+                            + "Violation of: if not $this.insertionMode then"
+                            + " 0 <= $this.next <= |$this.sorted|";
+        }
+        /*
+         * Sortedness is checked once, after sorting, rather than here: a
+         * linear check on every removeFirst would make draining quadratic
+         */
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param key
+     *            key for radix sorting, consistent with {@code order}
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep(Comparator<T> order, RadixKey<T> key) {
+        this.machineOrder = order;
+        this.radixKey = key;
+        this.insertionMode = true;
+        this.entries = new Queue1L<T>();
+        this.sorted = (T[]) new Object[0];
+        this.next = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order and radix key.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param key
+     *            key for radix sorting
+     * @requires CONSISTENT([relation computed by order.compare method])
+     */
+    public SortingMachine7(Comparator<T> order, RadixKey<T> key) {
+        assert key != null : "Violation of: key is not null";
+        this.createNewRep(order, key);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            Constructor<?> c = this.getClass().getConstructor(Comparator.class,
+                    RadixKey.class);
+            return (SortingMachine<T>) c.newInstance(this.machineOrder,
+                    this.radixKey);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.machineOrder, this.radixKey);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof SortingMachine7<?> : ""
+                + "Violation of: source is of dynamic type SortingMachine7<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * SortingMachine7<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        SortingMachine7<T> localSource = (SortingMachine7<T>) source;
+        this.insertionMode = localSource.insertionMode;
+        this.machineOrder = localSource.machineOrder;
+        this.radixKey = localSource.radixKey;
+        this.entries = localSource.entries;
+        this.sorted = localSource.sorted;
+        this.next = localSource.next;
+        localSource.createNewRep(localSource.machineOrder,
+                localSource.radixKey);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+        this.entries.enqueue(x);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+        this.insertionMode = false;
+        this.sorted = radixSort(this.entries, this.radixKey,
+                this.machineOrder);
+        assert this.isSorted() : ""
+                + "Violation of: CONSISTENT([relation computed by"
+                + " $this.machineOrder.compare method])";
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+        T first = this.sorted[this.next];
+        this.sorted[this.next] = null;
+        this.next++;
+        assert this.conventionHolds();
+        return first;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        int size = 0;
+        if (this.insertionMode) {
+            size = this.entries.length();
+        } else {
+            size = this.sorted.length - this.next;
+        }
+        return size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new SortingMachine7Iterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Reports the radix key of {@code this}.
+     *
+     * @return the radix key of {@code this}
+     */
+    public final RadixKey<T> radixKey() {
+        return this.radixKey;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code SortingMachine7}.
+     */
+    private final class SortingMachine7Iterator implements Iterator<T> {
+
+        /**
+         * Representation iterator, in insertion mode.
+         */
+        private final Iterator<T> iterator;
+
+        /**
+         * Index of the next sorted entry, in extraction mode.
+         */
+        private int nextIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        private SortingMachine7Iterator() {
+            if (SortingMachine7.this.insertionMode) {
+                this.iterator = SortingMachine7.this.entries.iterator();
+            } else {
+                this.iterator = null;
+                this.nextIndex = SortingMachine7.this.next;
+            }
+            assert SortingMachine7.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            assert SortingMachine7.this.conventionHolds();
+            boolean result;
+            if (this.iterator != null) {
+                result = this.iterator.hasNext();
+            } else {
+                result = this.nextIndex < SortingMachine7.this.sorted.length;
+            }
+            return result;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            assert SortingMachine7.this.conventionHolds();
+            T x;
+            if (this.iterator != null) {
+                x = this.iterator.next();
+            } else {
+                x = SortingMachine7.this.sorted[this.nextIndex];
+                this.nextIndex++;
+            }
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
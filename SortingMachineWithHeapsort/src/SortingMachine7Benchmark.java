@@ -0,0 +1,257 @@
+import java.lang.reflect.Constructor;
+import java.util.Comparator;
+import java.util.Random;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.sortingmachine.SortingMachine;
+
+/**
+ * Program to time a full fill-and-drain cycle of {@code SortingMachine7} on
+ * random {@code Integer}, {@code Long}, and lowercase word {@code String}
+ * keys, next to comparison-based {@code SortingMachine}s. Those are named by
+ * class and constructed by reflection from a {@code Comparator}, so a machine
+ * from another project (such as {@code SortingMachine4}) can be timed by
+ * adding its classes to the class path; one that is not found is reported
+ * and skipped.
+ *
+ * <p>
+ * Usage: {@code SortingMachine7Benchmark [size] [class...]}, where
+ * {@code size} is the number of entries (default 10,000,000) and each
+ * {@code class} a {@code SortingMachine} to compare (default
+ * {@code SortingMachine5a} and {@code SortingMachine4}). The default size
+ * needs a heap of about 3 GB ({@code -Xmx3g}). Results are printed as
+ * tab-separated lines: machine, keys, entries, best ms of several rounds, ns
+ * per entry. Run without {@code -ea}.
+ *
+ * @author Put your name here
+ */
+public final class SortingMachine7Benchmark {
+
+    /**
+     * Default number of entries.
+     */
+    private static final int DEFAULT_SIZE = 10000000;
+
+    /**
+     * Default machines to compare.
+     */
+    private static final String[] DEFAULT_MACHINES = { "SortingMachine5a",
+            "SortingMachine4" };
+
+    /**
+     * Number of measured rounds per line.
+     */
+    private static final int ROUNDS = 3;
+
+    /**
+     * Seed for the entries.
+     */
+    private static final long SEED = 2231;
+
+    /**
+     * Longest random word.
+     */
+    private static final int MAX_WORD_LENGTH = 10;
+
+    /**
+     * Number of letters in random words.
+     */
+    private static final int LETTERS = 26;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SortingMachine7Benchmark() {
+    }
+
+    /**
+     * Compare {@code Integer}s in increasing order.
+     */
+    private static class IntegerLT implements Comparator<Integer> {
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    /**
+     * Compare {@code Long}s in increasing order.
+     */
+    private static class LongLT implements Comparator<Long> {
+        @Override
+        public int compare(Long o1, Long o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    /**
+     * Compare {@code String}s in lexicographic order.
+     */
+    private static class StringLT implements Comparator<String> {
+        @Override
+        public int compare(String s1, String s2) {
+            return s1.compareTo(s2);
+        }
+    }
+
+    /**
+     * Returns a new, empty machine of the named class, or null if the class
+     * is not on the class path. "SortingMachine7" is constructed with
+     * {@code key}; any other class with {@code order} alone.
+     *
+     * @param <T>
+     *            type of entries
+     * @param machine
+     *            the name of the class
+     * @param order
+     *            the order
+     * @param key
+     *            the radix key, consistent with {@code order}
+     * @return the machine, or null
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> SortingMachine<T> newMachine(String machine,
+            Comparator<T> order, RadixKey<T> key) {
+        SortingMachine<T> m = null;
+        if (machine.equals("SortingMachine7")) {
+            m = new SortingMachine7<>(order, key);
+        } else {
+            try {
+                Constructor<?> c = Class.forName(machine)
+                        .getConstructor(Comparator.class);
+                m = (SortingMachine<T>) c.newInstance(order);
+            } catch (ReflectiveOperationException e) {
+                m = null;
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Fills and drains {@code m} once and returns the elapsed time.
+     *
+     * @param <T>
+     *            type of entries
+     * @param m
+     *            the machine, empty and in insertion mode
+     * @param entries
+     *            the entries
+     * @return the elapsed nanoseconds
+     */
+    private static <T> long sortOnce(SortingMachine<T> m, T[] entries) {
+        long start = System.nanoTime();
+        for (T x : entries) {
+            m.add(x);
+        }
+        m.changeToExtractionMode();
+        while (m.size() > 0) {
+            m.removeFirst();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Times one machine on one kind of key and outputs the best of
+     * {@code ROUNDS} rounds.
+     *
+     * @param <T>
+     *            type of entries
+     * @param out
+     *            the output stream
+     * @param machine
+     *            the name of the machine's class
+     * @param keys
+     *            the name of the kind of key
+     * @param entries
+     *            the entries
+     * @param order
+     *            the order
+     * @param key
+     *            the radix key, consistent with {@code order}
+     * @updates out.content
+     * @requires out.is_open and |entries| > 0
+     */
+    private static <T> void time(SimpleWriter out, String machine,
+            String keys, T[] entries, Comparator<T> order, RadixKey<T> key) {
+        if (newMachine(machine, order, key) == null) {
+            out.println(machine + "\t" + keys + "\tnot on class path");
+        } else {
+            /*
+             * First round warms up the JIT; only the rest are meaningful
+             */
+            sortOnce(newMachine(machine, order, key), entries);
+            long best = Long.MAX_VALUE;
+            for (int r = 0; r < ROUNDS; r++) {
+                SortingMachine<T> m = newMachine(machine, order, key);
+                System.gc();
+                best = Math.min(best, sortOnce(m, entries));
+            }
+            out.println(machine + "\t" + keys + "\t" + entries.length + "\t"
+                    + String.format("%.1f", best / NANOS_PER_MILLI) + "\t"
+                    + String.format("%.1f", (double) best / entries.length));
+        }
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: [size] [class...]
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int size = DEFAULT_SIZE;
+        String[] others = DEFAULT_MACHINES;
+        if (args.length > 0) {
+            size = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            others = new String[args.length - 1];
+            System.arraycopy(args, 1, others, 0, others.length);
+        }
+        String[] machines = new String[others.length + 1];
+        machines[0] = "SortingMachine7";
+        System.arraycopy(others, 0, machines, 1, others.length);
+        out.println("machine\tkeys\tentries\tms\tns/entry");
+        Random rnd = new Random(SEED);
+        Integer[] ints = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            ints[i] = rnd.nextInt();
+        }
+        for (String machine : machines) {
+            time(out, machine, "Integer", ints, new IntegerLT(),
+                    new RadixKey.IntegerKey());
+        }
+        ints = null;
+        Long[] longs = new Long[size];
+        for (int i = 0; i < size; i++) {
+            longs[i] = rnd.nextLong();
+        }
+        for (String machine : machines) {
+            time(out, machine, "Long", longs, new LongLT(),
+                    new RadixKey.LongKey());
+        }
+        longs = null;
+        String[] words = new String[size];
+        for (int i = 0; i < size; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 1 + rnd.nextInt(MAX_WORD_LENGTH);
+            for (int j = 0; j < length; j++) {
+                word.append((char) ('a' + rnd.nextInt(LETTERS)));
+            }
+            words[i] = word.toString();
+        }
+        for (String machine : machines) {
+            time(out, machine, "String", words, new StringLT(),
+                    new RadixKey.StringKey());
+        }
+        out.close();
+    }
+
+}
@@ -0,0 +1,347 @@
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Sorting machine that keeps only the first {@code k} entries added to it,
+ * according to its order, with the insertion and extraction modes of
+ * {@code SortingMachine}. In insertion mode the kept entries are a heap
+ * (maintained by {@code ArrayHeaps}) ordered in reverse, so its root is the
+ * kept entry that comes last; once {@code k} entries are kept, an added entry
+ * either replaces the root and is sifted down, or is dropped after one
+ * comparison. Selecting the first {@code k} of {@code n} entries therefore
+ * takes O(n log k) time and O(k) space, where sorting all of them and taking
+ * a prefix takes O(n log n) time and O(n) space. Changing to extraction mode
+ * heapsorts the kept entries in place.
+ *
+ * <p>
+ * When several entries tie for the last places kept, which of them are kept
+ * is unspecified.
+ *
+ * @param <T>
+ *            type of entries
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * IS_SORTED (
+ *   s: string of T,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y: T where (<x, y> is substring of s) (r(x, y))
+ *
+ * IS_FIRST (
+ *   kept: finite multiset of T,
+ *   all: finite multiset of T,
+ *   k: integer,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  kept is subset of all  and  |kept| = min(k, |all|)  and
+ *  for all x, y: T where (x is in kept  and  y is in all \ kept) (r(x, y))
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method])
+ *   and
+ * 0 < $this.capacity  and
+ * 0 <= $this.next <= $this.size <= min($this.capacity, |$this.entries|)  and
+ * [$this.entries[$this.size, |$this.entries|) are all null]  and
+ * if $this.insertionMode then
+ *   $this.next = 0  and
+ *   [$this.entries[0, $this.size) is a heap according to the reverse of
+ *     the relation computed by $this.machineOrder.compare method]
+ * else
+ *   [$this.entries[0, $this.next) are all null]  and
+ *   IS_SORTED($this.entries[$this.next, $this.size),
+ *     [relation computed by $this.machineOrder.compare method])
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder, $this.capacity,
+ *   [multiset of entries in $this.entries[$this.next, $this.size)])
+ * </pre>
+ *
+ * @author Put your name here
+ */
+public final class TopKSortingMachine<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Largest initial length of the entries array; it grows by doubling up
+     * to the capacity, so a generous capacity costs nothing up front.
+     */
+    private static final int INITIAL_LENGTH = 16;
+
+    /**
+     * Order.
+     */
+    private final Comparator<T> machineOrder;
+
+    /**
+     * Reverse of the order, which the insertion-mode heap is ordered by.
+     */
+    private final Comparator<T> heapOrder;
+
+    /**
+     * Largest number of entries kept.
+     */
+    private final int capacity;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Kept entries: a heap in insertion mode, sorted in extraction mode.
+     */
+    private T[] entries;
+
+    /**
+     * Number of slots of entries in use.
+     */
+    private int size;
+
+    /**
+     * Index of the next entry to remove in extraction mode.
+     */
+    private int next;
+
+    /**
+     * Comparator that reverses another one.
+     *
+     * @param <T>
+     *            type of entries
+     */
+    private static final class Reverse<T> implements Comparator<T> {
+
+        /**
+         * The order reversed.
+         */
+        private final Comparator<T> order;
+
+        /**
+         * Constructor from the order to reverse.
+         *
+         * @param order
+         *            the order
+         */
+        private Reverse(Comparator<T> order) {
+            this.order = order;
+        }
+
+        @Override
+        public int compare(T x, T y) {
+            return this.order.compare(y, x);
+        }
+
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 < $this.capacity  and
+     * 0 <= $this.next <= $this.size <= min($this.capacity, |$this.entries|)
+     *   and
+     * if $this.insertionMode then $this.next = 0
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert 0 < this.capacity : "Violation of: 0 < $this.capacity";
+        assert 0 <= this.next
+                && this.next <= this.size : ""
+                        + "Violation of: 0 <= $this.next <= $this.size";
+        assert this.size <= this.capacity
+                && this.size <= this.entries.length : ""
+                        + "Violation of: $this.size <= "
+                        + "min($this.capacity, |$this.entries|)";
+        assert !this.insertionMode
+                || this.next == 0 : "Violation of: $this.next = 0";
+        /*
+         * The heap and sorted properties are not checked: that would take
+         * O(k) time per call, which is what this machine exists to avoid
+         */
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep() {
+        this.insertionMode = true;
+        this.entries = (T[]) new Object[Math.min(this.capacity,
+                INITIAL_LENGTH)];
+        this.size = 0;
+        this.next = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order and capacity.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param k
+     *            the largest number of entries kept
+     * @requires <pre>
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])  and
+     * k > 0
+     * </pre>
+     * @ensures this = (true, order, k, {})
+     */
+    public TopKSortingMachine(Comparator<T> order, int k) {
+        assert order != null : "Violation of: order is not null";
+        assert k > 0 : "Violation of: k > 0";
+        this.machineOrder = order;
+        this.heapOrder = new Reverse<T>(order);
+        this.capacity = k;
+        this.createNewRep();
+    }
+
+    /*
+     * Methods ----------------------------------------------------------------
+     */
+
+    /**
+     * Resets {@code this} to an empty machine in insertion mode, with the
+     * same order and capacity.
+     *
+     * @clears this
+     */
+    public void clear() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Offers {@code x} to {@code this}, which keeps it if it is among the
+     * first {@code this.capacity} entries offered so far.
+     *
+     * @param x
+     *            the entry to be added
+     * @updates this.contents
+     * @requires this.insertion_mode and x is not null
+     * @ensures <pre>
+     * IS_FIRST(this.contents, #this.contents union {x}, this.capacity,
+     *   [relation computed by this.order.compare method])
+     * </pre>
+     */
+    public void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.insertionMode : "Violation of: this.insertion_mode";
+        if (this.size < this.capacity) {
+            if (this.size == this.entries.length) {
+                this.entries = Arrays.copyOf(this.entries,
+                        (int) Math.min(this.capacity, 2L * this.size));
+            }
+            this.entries[this.size] = x;
+            ArrayHeaps.siftUp(this.entries, this.size, 2, this.heapOrder);
+            this.size++;
+        } else if (this.machineOrder.compare(x, this.entries[0]) < 0) {
+            this.entries[0] = x;
+            ArrayHeaps.siftDown(this.entries, 0, this.size, this.heapOrder);
+        }
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Changes the mode of {@code this} from insertion to extraction.
+     *
+     * @updates this.insertion_mode
+     * @requires this.insertion_mode
+     * @ensures not this.insertion_mode
+     */
+    public void changeToExtractionMode() {
+        assert this.insertionMode : "Violation of: this.insertion_mode";
+        this.insertionMode = false;
+        /*
+         * Heapsort: the root of the reversed heap is the entry that comes
+         * last, so moving it to the end of the shrinking heap each time
+         * leaves the entries sorted
+         */
+        for (int end = this.size - 1; end > 0; end--) {
+            T last = this.entries[0];
+            this.entries[0] = this.entries[end];
+            this.entries[end] = last;
+            ArrayHeaps.siftDown(this.entries, 0, end, this.heapOrder);
+        }
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Removes and returns the first entry of {@code this} according to its
+     * order.
+     *
+     * @return the entry removed
+     * @updates this.contents
+     * @requires not this.insertion_mode and |this.contents| > 0
+     * @ensures <pre>
+     * removeFirst is in #this.contents  and
+     * this.contents = #this.contents \ {removeFirst}  and
+     * for all x: T where (x is in this.contents)
+     *  ([relation computed by this.order.compare method](removeFirst, x))
+     * </pre>
+     */
+    public T removeFirst() {
+        assert !this.insertionMode : "Violation of: not this.insertion_mode";
+        assert this.next < this.size : "Violation of: |this.contents| > 0";
+        T first = this.entries[this.next];
+        this.entries[this.next] = null;
+        this.next++;
+        assert this.conventionHolds();
+        return first;
+    }
+
+    /**
+     * Reports whether {@code this} is in insertion mode.
+     *
+     * @return true iff {@code this} is in insertion mode
+     * @ensures isInInsertionMode = this.insertion_mode
+     */
+    public boolean isInInsertionMode() {
+        return this.insertionMode;
+    }
+
+    /**
+     * Reports the order of {@code this}.
+     *
+     * @return the order of {@code this}
+     * @ensures order = this.ordering
+     */
+    public Comparator<T> order() {
+        return this.machineOrder;
+    }
+
+    /**
+     * Reports the largest number of entries {@code this} keeps.
+     *
+     * @return the capacity of {@code this}
+     * @ensures capacity = this.capacity
+     */
+    public int capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Reports the number of entries kept in {@code this}.
+     *
+     * @return the number of entries
+     * @ensures size = |this.contents|
+     */
+    public int size() {
+        return this.size - this.next;
+    }
+
+}
@@ -0,0 +1,176 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.sortingmachine.SortingMachine;
+
+/**
+ * Program to time selecting the largest {@code k} of {@code n} random
+ * entries three ways: streaming them through a {@code TopKSortingMachine};
+ * adding all of them to a {@code SortingMachine5a} and removing {@code k};
+ * and sorting all of them in a {@code List} and taking a prefix, as
+ * {@code TagCloudJCF.content} does.
+ *
+ * <p>
+ * Usage: {@code TopKSortingMachineBenchmark [n] [k]}, where {@code n} is the
+ * number of entries (default 10,000,000) and {@code k} the number selected
+ * (default 100). The entries are generated while they are added, so only
+ * the methods that hold all of them need O(n) memory. Results are printed as
+ * tab-separated lines: method, n, k, entries held, best ms of several
+ * rounds. Run without {@code -ea}.
+ *
+ * @author Put your name here
+ */
+public final class TopKSortingMachineBenchmark {
+
+    /**
+     * Default number of entries.
+     */
+    private static final int DEFAULT_N = 10000000;
+
+    /**
+     * Default number of entries selected.
+     */
+    private static final int DEFAULT_K = 100;
+
+    /**
+     * Number of measured rounds per line.
+     */
+    private static final int ROUNDS = 3;
+
+    /**
+     * Seed for the entries, so every method sees the same ones.
+     */
+    private static final long SEED = 2231;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private TopKSortingMachineBenchmark() {
+    }
+
+    /**
+     * Compare {@code Integer}s in decreasing order.
+     */
+    private static class IntegerGT implements Comparator<Integer> {
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o2.compareTo(o1);
+        }
+    }
+
+    /**
+     * Selects the first {@code k} of {@code n} random entries once with the
+     * given method and returns the elapsed time.
+     *
+     * @param method
+     *            "TopKSortingMachine", "SortingMachine5a", or "sort+prefix"
+     * @param n
+     *            the number of entries
+     * @param k
+     *            the number of entries selected
+     * @return the elapsed nanoseconds
+     * @requires 0 < k <= n
+     */
+    private static long selectOnce(String method, int n, int k) {
+        Comparator<Integer> order = new IntegerGT();
+        Random rnd = new Random(SEED);
+        long start = System.nanoTime();
+        if (method.equals("TopKSortingMachine")) {
+            TopKSortingMachine<Integer> m = new TopKSortingMachine<>(order, k);
+            for (int i = 0; i < n; i++) {
+                m.add(rnd.nextInt());
+            }
+            m.changeToExtractionMode();
+            while (m.size() > 0) {
+                m.removeFirst();
+            }
+        } else if (method.equals("SortingMachine5a")) {
+            SortingMachine<Integer> m = new SortingMachine5a<>(order);
+            for (int i = 0; i < n; i++) {
+                m.add(rnd.nextInt());
+            }
+            m.changeToExtractionMode();
+            for (int i = 0; i < k; i++) {
+                m.removeFirst();
+            }
+        } else {
+            List<Integer> all = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                all.add(rnd.nextInt());
+            }
+            Collections.sort(all, order);
+            all = new ArrayList<>(all.subList(0, k));
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Times one method and outputs the best of {@code ROUNDS} rounds.
+     *
+     * @param out
+     *            the output stream
+     * @param method
+     *            the name of the method, as for {@code selectOnce}
+     * @param n
+     *            the number of entries
+     * @param k
+     *            the number of entries selected
+     * @updates out.content
+     * @requires out.is_open and 0 < k <= n
+     */
+    private static void time(SimpleWriter out, String method, int n, int k) {
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            System.gc();
+            best = Math.min(best, selectOnce(method, n, k));
+        }
+        int held = n;
+        if (method.equals("TopKSortingMachine")) {
+            held = k;
+        }
+        out.println(method + "\t" + n + "\t" + k + "\t" + held + "\t"
+                + String.format("%.1f", best / NANOS_PER_MILLI));
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: [n] [k]
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int n = DEFAULT_N;
+        int k = DEFAULT_K;
+        if (args.length > 0) {
+            n = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            k = Integer.parseInt(args[1]);
+        }
+        String[] methods = { "TopKSortingMachine", "SortingMachine5a",
+                "sort+prefix" };
+        out.println("method\tn\tk\theld\tms");
+        /*
+         * First pass warms up the JIT; only the rest are meaningful
+         */
+        for (String method : methods) {
+            selectOnce(method, Math.max(k, n / 10), k);
+        }
+        for (String method : methods) {
+            time(out, method, n, k);
+        }
+        out.close();
+    }
+
+}
@@ -0,0 +1,164 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code ArrayHeaps}.
+ */
+public final class ArrayHeapsTest {
+
+    /**
+     * Compare {@code Integer}s in increasing order.
+     */
+    private static class IntegerLT implements Comparator<Integer> {
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    /**
+     * Order used by the tests.
+     */
+    private static final Comparator<Integer> ORDER = new IntegerLT();
+
+    /**
+     * Largest arity tried by the tests.
+     */
+    private static final int MAX_ARITY = 9;
+
+    /**
+     * Largest heap size tried by the tests.
+     */
+    private static final int MAX_SIZE = 60;
+
+    @Test
+    public void testHeapifyEmpty() {
+        Integer[] heap = {};
+        ArrayHeaps.heapify(heap, 0, ORDER);
+        assertEquals(true, ArrayHeaps.isHeap(heap, 0, ORDER));
+    }
+
+    @Test
+    public void testHeapifyLeavesTailAlone() {
+        Integer[] heap = { 5, 4, 3, 2, 1, 0 };
+        ArrayHeaps.heapify(heap, 4, ORDER);
+        assertEquals(true, ArrayHeaps.isHeap(heap, 4, ORDER));
+        assertEquals(Integer.valueOf(2), heap[0]);
+        assertEquals(Integer.valueOf(1), heap[4]);
+        assertEquals(Integer.valueOf(0), heap[5]);
+    }
+
+    @Test
+    public void testSiftDownOneLevel() {
+        Integer[] heap = { 9, 1, 2 };
+        ArrayHeaps.siftDown(heap, 0, heap.length, ORDER);
+        assertArrayEquals(new Integer[] { 1, 9, 2 }, heap);
+    }
+
+    @Test
+    public void testSiftDownToLeaf() {
+        Integer[] heap = { 9, 1, 2, 3, 4, 5, 6 };
+        ArrayHeaps.siftDown(heap, 0, heap.length, ORDER);
+        assertArrayEquals(new Integer[] { 1, 3, 2, 9, 4, 5, 6 }, heap);
+    }
+
+    @Test
+    public void testIsHeapFalse() {
+        Integer[] heap = { 1, 3, 2, 0 };
+        assertEquals(false, ArrayHeaps.isHeap(heap, heap.length, ORDER));
+        assertEquals(true, ArrayHeaps.isHeap(heap, 3, ORDER));
+    }
+
+    @Test
+    public void testRemoveRootDrainsInOrder() {
+        Integer[] heap = { 7, 3, 3, 8, 1, 6, 0, 5, 2 };
+        ArrayHeaps.heapify(heap, heap.length, ORDER);
+        Integer[] drained = new Integer[heap.length];
+        for (int size = heap.length; size > 0; size--) {
+            drained[heap.length - size] = ArrayHeaps.removeRoot(heap, size,
+                    ORDER);
+            assertEquals(null, heap[size - 1]);
+            assertEquals(true, ArrayHeaps.isHeap(heap, size - 1, ORDER));
+        }
+        assertArrayEquals(new Integer[] { 0, 1, 2, 3, 3, 5, 6, 7, 8 },
+                drained);
+    }
+
+    @Test
+    public void testSiftDownTernary() {
+        Integer[] heap = { 9, 3, 1, 2, 4, 5, 6 };
+        ArrayHeaps.siftDown(heap, 0, heap.length, 3, ORDER);
+        assertArrayEquals(new Integer[] { 1, 3, 9, 2, 4, 5, 6 }, heap);
+    }
+
+    @Test
+    public void testIsHeapDependsOnArity() {
+        /*
+         * Index 3 is a child of index 1 in a binary heap, but of the root in a
+         * ternary one
+         */
+        Integer[] heap = { 0, 5, 6, 2 };
+        assertEquals(false, ArrayHeaps.isHeap(heap, heap.length, 2, ORDER));
+        assertEquals(true, ArrayHeaps.isHeap(heap, heap.length, 3, ORDER));
+    }
+
+    @Test
+    public void testHeapifyAndDrainAnyArity() {
+        Random rnd = new Random(1);
+        for (int d = 2; d <= MAX_ARITY; d++) {
+            for (int size = 0; size <= MAX_SIZE; size++) {
+                Integer[] heap = new Integer[size];
+                for (int i = 0; i < size; i++) {
+                    heap[i] = rnd.nextInt(size + 1);
+                }
+                Integer[] sorted = heap.clone();
+                Arrays.sort(sorted);
+                ArrayHeaps.heapify(heap, size, d, ORDER);
+                assertEquals(true, ArrayHeaps.isHeap(heap, size, d, ORDER));
+                Integer[] drained = new Integer[size];
+                for (int n = size; n > 0; n--) {
+                    drained[size - n] = ArrayHeaps.removeRoot(heap, n, d,
+                            ORDER);
+                    assertEquals(true,
+                            ArrayHeaps.isHeap(heap, n - 1, d, ORDER));
+                }
+                assertArrayEquals(sorted, drained);
+            }
+        }
+    }
+
+    @Test
+    public void testSiftUpToRoot() {
+        Integer[] heap = { 1, 3, 2, 5, 0 };
+        ArrayHeaps.siftUp(heap, 4, 2, ORDER);
+        assertArrayEquals(new Integer[] { 0, 1, 2, 5, 3 }, heap);
+    }
+
+    @Test
+    public void testSiftUpStaysPut() {
+        Integer[] heap = { 1, 3, 2, 5 };
+        ArrayHeaps.siftUp(heap, 3, 3, ORDER);
+        assertArrayEquals(new Integer[] { 1, 3, 2, 5 }, heap);
+    }
+
+    @Test
+    public void testSiftUpBuildsHeapAnyArity() {
+        Random rnd = new Random(2);
+        for (int d = 2; d <= MAX_ARITY; d++) {
+            Integer[] heap = new Integer[MAX_SIZE];
+            for (int size = 0; size < MAX_SIZE; size++) {
+                heap[size] = rnd.nextInt(MAX_SIZE);
+                ArrayHeaps.siftUp(heap, size, d, ORDER);
+                assertEquals(true,
+                        ArrayHeaps.isHeap(heap, size + 1, d, ORDER));
+            }
+        }
+    }
+
+}
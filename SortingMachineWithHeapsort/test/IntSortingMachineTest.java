@@ -0,0 +1,307 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code IntSortingMachine},
+ * {@code LongSortingMachine}, and {@code IntKeySortingMachine}.
+ */
+public final class IntSortingMachineTest {
+
+    /**
+     * Number of entries in the random tests.
+     */
+    private static final int SIZE = 1000;
+
+    /**
+     * Seed for the random tests.
+     */
+    private static final long SEED = 2231;
+
+    /**
+     * Entries including the extremes of {@code int}.
+     */
+    private static final int[] INTS = { 3, Integer.MIN_VALUE, 0, -1,
+            Integer.MAX_VALUE, 3, -7, 1 };
+
+    /**
+     * Entries including the extremes of {@code long}.
+     */
+    private static final long[] LONGS = { 3L, Long.MIN_VALUE, 0L, -1L,
+            Long.MAX_VALUE, 3L, -7L, (long) Integer.MAX_VALUE + 1 };
+
+    /**
+     * Fills and drains an {@code IntSortingMachine}.
+     *
+     * @param decreasing
+     *            the direction of the machine
+     * @param entries
+     *            the entries to add
+     * @return the entries in the order removed
+     */
+    private static int[] drain(boolean decreasing, int[] entries) {
+        IntSortingMachine m = new IntSortingMachine(decreasing);
+        for (int x : entries) {
+            m.add(x);
+        }
+        m.changeToExtractionMode();
+        int[] result = new int[entries.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = m.removeFirst();
+        }
+        assertEquals(0, m.size());
+        return result;
+    }
+
+    /**
+     * Fills and drains a {@code LongSortingMachine}.
+     *
+     * @param decreasing
+     *            the direction of the machine
+     * @param entries
+     *            the entries to add
+     * @return the entries in the order removed
+     */
+    private static long[] drain(boolean decreasing, long[] entries) {
+        LongSortingMachine m = new LongSortingMachine(decreasing);
+        for (long x : entries) {
+            m.add(x);
+        }
+        m.changeToExtractionMode();
+        long[] result = new long[entries.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = m.removeFirst();
+        }
+        assertEquals(0, m.size());
+        return result;
+    }
+
+    /**
+     * Returns the entries of {@code a} in reverse order.
+     *
+     * @param a
+     *            the array
+     * @return the reversed copy
+     */
+    private static int[] reversed(int[] a) {
+        int[] result = new int[a.length];
+        for (int i = 0; i < a.length; i++) {
+            result[i] = a[a.length - 1 - i];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the entries of {@code a} in reverse order.
+     *
+     * @param a
+     *            the array
+     * @return the reversed copy
+     */
+    private static long[] reversed(long[] a) {
+        long[] result = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            result[i] = a[a.length - 1 - i];
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@code SIZE} random {@code int}s.
+     *
+     * @return the entries
+     */
+    private static int[] randomInts() {
+        Random rnd = new Random(SEED);
+        int[] a = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            a[i] = rnd.nextInt();
+        }
+        return a;
+    }
+
+    /*
+     * Tests of IntSortingMachine
+     */
+
+    @Test
+    public void testIntConstructor() {
+        IntSortingMachine m = new IntSortingMachine();
+        assertTrue(m.isInInsertionMode());
+        assertFalse(m.isDecreasing());
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testIntAddAndChangeMode() {
+        IntSortingMachine m = new IntSortingMachine(true);
+        m.add(2);
+        m.add(2);
+        assertEquals(2, m.size());
+        m.changeToExtractionMode();
+        assertFalse(m.isInInsertionMode());
+        assertTrue(m.isDecreasing());
+        assertEquals(2, m.size());
+    }
+
+    @Test
+    public void testIntEmptyDrain() {
+        assertArrayEquals(new int[0], drain(false, new int[0]));
+    }
+
+    @Test
+    public void testIntIncreasingExtremes() {
+        int[] expected = INTS.clone();
+        Arrays.sort(expected);
+        assertArrayEquals(expected, drain(false, INTS));
+    }
+
+    @Test
+    public void testIntDecreasingExtremes() {
+        int[] expected = INTS.clone();
+        Arrays.sort(expected);
+        assertArrayEquals(reversed(expected), drain(true, INTS));
+    }
+
+    @Test
+    public void testIntIncreasingRandom() {
+        int[] a = randomInts();
+        int[] expected = a.clone();
+        Arrays.sort(expected);
+        assertArrayEquals(expected, drain(false, a));
+    }
+
+    @Test
+    public void testIntDecreasingRandom() {
+        int[] a = randomInts();
+        int[] expected = a.clone();
+        Arrays.sort(expected);
+        assertArrayEquals(reversed(expected), drain(true, a));
+    }
+
+    @Test
+    public void testIntClear() {
+        IntSortingMachine m = new IntSortingMachine(true);
+        m.add(1);
+        m.changeToExtractionMode();
+        m.clear();
+        assertTrue(m.isInInsertionMode());
+        assertTrue(m.isDecreasing());
+        assertEquals(0, m.size());
+        m.add(4);
+        m.add(9);
+        m.changeToExtractionMode();
+        assertEquals(9, m.removeFirst());
+        assertEquals(4, m.removeFirst());
+    }
+
+    /*
+     * Tests of LongSortingMachine
+     */
+
+    @Test
+    public void testLongConstructor() {
+        LongSortingMachine m = new LongSortingMachine();
+        assertTrue(m.isInInsertionMode());
+        assertFalse(m.isDecreasing());
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testLongIncreasingExtremes() {
+        long[] expected = LONGS.clone();
+        Arrays.sort(expected);
+        assertArrayEquals(expected, drain(false, LONGS));
+    }
+
+    @Test
+    public void testLongDecreasingExtremes() {
+        long[] expected = LONGS.clone();
+        Arrays.sort(expected);
+        assertArrayEquals(reversed(expected), drain(true, LONGS));
+    }
+
+    @Test
+    public void testLongRandom() {
+        Random rnd = new Random(SEED);
+        long[] a = new long[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            a[i] = rnd.nextLong();
+        }
+        long[] expected = a.clone();
+        Arrays.sort(expected);
+        assertArrayEquals(expected, drain(false, a));
+        assertArrayEquals(reversed(expected), drain(true, a));
+    }
+
+    /*
+     * Tests of IntKeySortingMachine
+     */
+
+    @Test
+    public void testIntKeyConstructor() {
+        IntKeySortingMachine<String> m = new IntKeySortingMachine<>(true);
+        assertTrue(m.isInInsertionMode());
+        assertTrue(m.isDecreasing());
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testIntKeyIncreasing() {
+        IntKeySortingMachine<String> m = new IntKeySortingMachine<>();
+        m.add(2, "two");
+        m.add(Integer.MAX_VALUE, "max");
+        m.add(-1, "minus one");
+        m.add(Integer.MIN_VALUE, "min");
+        m.changeToExtractionMode();
+        assertEquals(Integer.MIN_VALUE, m.firstKey());
+        assertEquals("min", m.removeFirst());
+        assertEquals(-1, m.firstKey());
+        assertEquals("minus one", m.removeFirst());
+        assertEquals(2, m.firstKey());
+        assertEquals("two", m.removeFirst());
+        assertEquals(Integer.MAX_VALUE, m.firstKey());
+        assertEquals("max", m.removeFirst());
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testIntKeyDecreasingRandom() {
+        Random rnd = new Random(SEED);
+        IntKeySortingMachine<Integer> m = new IntKeySortingMachine<>(true);
+        int[] keys = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            keys[i] = rnd.nextInt(SIZE / 10);
+            m.add(keys[i], i);
+        }
+        m.changeToExtractionMode();
+        int[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        for (int i = SIZE - 1; i >= 0; i--) {
+            int key = m.firstKey();
+            assertEquals(sorted[i], key);
+            int index = m.removeFirst();
+            assertEquals(keys[index], key);
+        }
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testIntKeyClear() {
+        IntKeySortingMachine<String> m = new IntKeySortingMachine<>();
+        m.add(1, "one");
+        m.clear();
+        assertTrue(m.isInInsertionMode());
+        assertEquals(0, m.size());
+        m.add(5, "five");
+        m.changeToExtractionMode();
+        assertEquals("five", m.removeFirst());
+    }
+
+}
@@ -0,0 +1,142 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * JUnit test fixture for {@code SortingMachine5a.addInExtractionMode}.
+ */
+public final class SortingMachine5aStreamingTest {
+
+    /**
+     * Compare {@code String}s in lexicographic order.
+     */
+    private static class StringLT implements Comparator<String> {
+        @Override
+        public int compare(String s1, String s2) {
+            return s1.compareTo(s2);
+        }
+    }
+
+    /**
+     * Compare {@code Integer}s in increasing order.
+     */
+    private static class IntegerLT implements Comparator<Integer> {
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    /**
+     * String order used by the tests.
+     */
+    private static final Comparator<String> ORDER = new StringLT();
+
+    /**
+     * Number of operations in the random workload test.
+     */
+    private static final int OPERATIONS = 5000;
+
+    /**
+     * Arity of the non-binary machines under test.
+     */
+    private static final int ARITY = 4;
+
+    /**
+     * Creates a reference {@code SortingMachine} in extraction mode with the
+     * given entries.
+     *
+     * @param args
+     *            the entries
+     * @return the reference machine
+     */
+    private static SortingMachine<String> extractingRef(String... args) {
+        SortingMachine<String> sm = new SortingMachine1L<>(ORDER);
+        for (String x : args) {
+            sm.add(x);
+        }
+        sm.changeToExtractionMode();
+        return sm;
+    }
+
+    @Test
+    public void testAddToEmptyExtractingMachine() {
+        SortingMachine5a<String> m = new SortingMachine5a<>(ORDER);
+        m.changeToExtractionMode();
+        m.addInExtractionMode("red");
+        SortingMachine<String> mExpected = extractingRef("red");
+        assertEquals(mExpected, m);
+    }
+
+    @Test
+    public void testAddAfterRebuiltHeap() {
+        SortingMachine5a<String> m = new SortingMachine5a<>(ORDER);
+        m.add("green");
+        m.add("blue");
+        m.changeToExtractionMode();
+        m.addInExtractionMode("red");
+        m.addInExtractionMode("aqua");
+        SortingMachine<String> mExpected = extractingRef("green", "blue",
+                "red", "aqua");
+        assertEquals(mExpected, m);
+        assertEquals("aqua", m.removeFirst());
+        assertEquals("blue", m.removeFirst());
+    }
+
+    @Test
+    public void testAddBetweenRemovals() {
+        SortingMachine5a<String> m = new SortingMachine5a<>(ORDER, ARITY);
+        m.add("d");
+        m.add("b");
+        m.changeToExtractionMode();
+        assertEquals("b", m.removeFirst());
+        m.addInExtractionMode("a");
+        m.addInExtractionMode("c");
+        assertEquals("a", m.removeFirst());
+        assertEquals("c", m.removeFirst());
+        assertEquals("d", m.removeFirst());
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testAddDuplicates() {
+        SortingMachine5a<String> m = new SortingMachine5a<>(ORDER);
+        m.changeToExtractionMode();
+        m.addInExtractionMode("x");
+        m.addInExtractionMode("x");
+        SortingMachine<String> mExpected = extractingRef("x", "x");
+        assertEquals(mExpected, m);
+    }
+
+    @Test
+    public void testRandomWorkload() {
+        Comparator<Integer> order = new IntegerLT();
+        for (int d = 2; d <= ARITY; d++) {
+            Random rnd = new Random(d);
+            SortingMachine5a<Integer> m = new SortingMachine5a<>(order, d);
+            PriorityQueue<Integer> expected = new PriorityQueue<>();
+            m.changeToExtractionMode();
+            for (int i = 0; i < OPERATIONS; i++) {
+                if (expected.isEmpty() || rnd.nextInt(3) > 0) {
+                    Integer x = rnd.nextInt(OPERATIONS);
+                    m.addInExtractionMode(x);
+                    expected.add(x);
+                } else {
+                    assertEquals(expected.remove(), m.removeFirst());
+                }
+                assertEquals(expected.size(), m.size());
+            }
+            while (!expected.isEmpty()) {
+                assertEquals(expected.remove(), m.removeFirst());
+            }
+        }
+    }
+
+}
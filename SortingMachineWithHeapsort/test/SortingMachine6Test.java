@@ -0,0 +1,167 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Customized JUnit test fixture for {@code SortingMachine6}, with runs short
+ * enough that most test cases spill to temporary files. Every machine under
+ * test is cleared after each test case, which deletes the files of those that
+ * were not drained.
+ */
+public final class SortingMachine6Test extends SortingMachineTest {
+
+    /**
+     * Run length of the machines under test.
+     */
+    private static final int TEST_RUN_LENGTH = 2;
+
+    /**
+     * Number of entries in the larger test cases.
+     */
+    private static final int MANY = 1000;
+
+    /**
+     * Machines under test created by the current test case.
+     */
+    private final List<SortingMachine<?>> created = new ArrayList<>();
+
+    /**
+     * Records {@code m} to be cleared after the current test case, and
+     * returns it.
+     *
+     * @param <T>
+     *            type of entries
+     * @param m
+     *            the machine
+     * @return m
+     */
+    private <T> SortingMachine<T> track(SortingMachine<T> m) {
+        this.created.add(m);
+        return m;
+    }
+
+    /**
+     * Clears the machines under test, deleting their temporary files.
+     */
+    @After
+    public void clearMachines() {
+        for (SortingMachine<?> m : this.created) {
+            m.clear();
+        }
+        this.created.clear();
+    }
+
+    @Override
+    protected SortingMachine<String> constructorTest(Comparator<String> order) {
+        return this.track(
+                new SortingMachine6<String>(order, TEST_RUN_LENGTH));
+    }
+
+    @Override
+    protected SortingMachine<String> constructorRef(Comparator<String> order) {
+        return new SortingMachine1L<String>(order);
+    }
+
+    /**
+     * Compare {@code Integer}s in increasing order.
+     */
+    private static class IntegerLT implements Comparator<Integer> {
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    @Test
+    public void testManyRunsSorted() {
+        final int runLength = 7;
+        Random rnd = new Random(1);
+        SortingMachine<Integer> m = this.track(
+                new SortingMachine6<>(new IntegerLT(), runLength));
+        Integer[] expected = new Integer[MANY];
+        for (int i = 0; i < MANY; i++) {
+            expected[i] = rnd.nextInt(MANY / 2);
+            m.add(expected[i]);
+        }
+        Arrays.sort(expected);
+        m.changeToExtractionMode();
+        assertEquals(MANY, m.size());
+        for (int i = 0; i < MANY; i++) {
+            assertEquals(expected[i], m.removeFirst());
+        }
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testMultiPassMerge() {
+        /*
+         * With one entry per run, there are more runs than the square of the
+         * merge fan-in, so the runs are merged in several passes
+         */
+        final int count = 5000;
+        SortingMachine<Integer> m = this
+                .track(new SortingMachine6<>(new IntegerLT(), 1));
+        for (int i = count; i > 0; i--) {
+            m.add(i % (count / 2));
+        }
+        m.changeToExtractionMode();
+        assertEquals(count, m.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(Integer.valueOf(i / 2), m.removeFirst());
+        }
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testEqualsAfterPartialExtraction() {
+        final int runLength = 3;
+        SortingMachine<Integer> m = this.track(
+                new SortingMachine6<>(new IntegerLT(), runLength));
+        SortingMachine<Integer> mExpected = new SortingMachine1L<>(
+                new IntegerLT());
+        for (int i = MANY; i > 0; i--) {
+            m.add(i);
+            mExpected.add(i);
+        }
+        m.changeToExtractionMode();
+        mExpected.changeToExtractionMode();
+        for (int i = 0; i < MANY / 2; i++) {
+            assertEquals(mExpected.removeFirst(), m.removeFirst());
+        }
+        assertEquals(mExpected, m);
+    }
+
+    @Test
+    public void testClearAfterSpill() {
+        SortingMachine<String> m = this.constructorTest(new StringOrder());
+        m.add("c");
+        m.add("b");
+        m.add("a");
+        m.clear();
+        m.add("z");
+        m.changeToExtractionMode();
+        assertEquals("z", m.removeFirst());
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Compare {@code String}s in lexicographic order.
+     */
+    private static class StringOrder implements Comparator<String> {
+        @Override
+        public int compare(String s1, String s2) {
+            return s1.compareTo(s2);
+        }
+    }
+
+}
@@ -0,0 +1,177 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Customized JUnit test fixture for {@code SortingMachine7}, with extra tests
+ * of {@code Integer}, {@code Long}, and {@code String} keys.
+ */
+public final class SortingMachine7Test extends SortingMachineTest {
+
+    /**
+     * Number of entries in the random tests.
+     */
+    private static final int SIZE = 5000;
+
+    /**
+     * Seed for the random tests.
+     */
+    private static final long SEED = 2231;
+
+    /**
+     * Compare {@code Integer}s in increasing order.
+     */
+    private static class IntegerLT implements Comparator<Integer> {
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    /**
+     * Compare {@code Long}s in increasing order.
+     */
+    private static class LongLT implements Comparator<Long> {
+        @Override
+        public int compare(Long o1, Long o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    /**
+     * Compare {@code String}s in lexicographic order, with case.
+     */
+    private static class StringCaseLT implements Comparator<String> {
+        @Override
+        public int compare(String s1, String s2) {
+            return s1.compareTo(s2);
+        }
+    }
+
+    @Override
+    protected SortingMachine<String> constructorTest(Comparator<String> order) {
+        return new SortingMachine7<String>(order,
+                new RadixKey.StringKey(true));
+    }
+
+    @Override
+    protected SortingMachine<String> constructorRef(Comparator<String> order) {
+        return new SortingMachine1L<String>(order);
+    }
+
+    /**
+     * Adds {@code entries} to {@code m}, changes it to extraction mode, and
+     * checks that it gives them back in the order {@code Arrays.sort} puts
+     * them in.
+     *
+     * @param <T>
+     *            type of entries
+     * @param m
+     *            the machine, empty and in insertion mode
+     * @param entries
+     *            the entries
+     */
+    private static <T> void checkSorts(SortingMachine<T> m, T[] entries) {
+        for (T x : entries) {
+            m.add(x);
+        }
+        m.changeToExtractionMode();
+        T[] expected = entries.clone();
+        Arrays.sort(expected, m.order());
+        for (T x : expected) {
+            assertEquals(x, m.removeFirst());
+        }
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testIntegerExtremes() {
+        Integer[] entries = { 3, Integer.MIN_VALUE, 0, -1, Integer.MAX_VALUE,
+                256, -256, 255, 3 };
+        checkSorts(new SortingMachine7<Integer>(new IntegerLT(),
+                new RadixKey.IntegerKey()), entries);
+    }
+
+    @Test
+    public void testIntegerRandom() {
+        Random rnd = new Random(SEED);
+        Integer[] entries = new Integer[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            entries[i] = rnd.nextInt();
+        }
+        checkSorts(new SortingMachine7<Integer>(new IntegerLT(),
+                new RadixKey.IntegerKey()), entries);
+    }
+
+    @Test
+    public void testIntegerSmallRange() {
+        Random rnd = new Random(SEED);
+        Integer[] entries = new Integer[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            entries[i] = rnd.nextInt(100);
+        }
+        checkSorts(new SortingMachine7<Integer>(new IntegerLT(),
+                new RadixKey.IntegerKey()), entries);
+    }
+
+    @Test
+    public void testLongExtremes() {
+        Long[] entries = { 3L, Long.MIN_VALUE, 0L, -1L, Long.MAX_VALUE,
+                (long) Integer.MAX_VALUE + 1, (long) Integer.MIN_VALUE - 1 };
+        checkSorts(new SortingMachine7<Long>(new LongLT(),
+                new RadixKey.LongKey()), entries);
+    }
+
+    @Test
+    public void testLongRandom() {
+        Random rnd = new Random(SEED);
+        Long[] entries = new Long[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            entries[i] = rnd.nextLong();
+        }
+        checkSorts(new SortingMachine7<Long>(new LongLT(),
+                new RadixKey.LongKey()), entries);
+    }
+
+    @Test
+    public void testStringPrefixesAndCase() {
+        String[] entries = { "b", "", "ab", "a", "abc", "B", "Ab", "aB", "z",
+                "\u00e9t\u00e9", "\u4e2d", "a" };
+        checkSorts(new SortingMachine7<String>(new StringCaseLT(),
+                new RadixKey.StringKey()), entries);
+    }
+
+    @Test
+    public void testStringRandomWords() {
+        Random rnd = new Random(SEED);
+        final int maxLength = 8;
+        final int letters = 26;
+        String[] entries = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = rnd.nextInt(maxLength);
+            for (int j = 0; j < length; j++) {
+                word.append((char) ('a' + rnd.nextInt(letters)));
+            }
+            entries[i] = word.toString();
+        }
+        checkSorts(new SortingMachine7<String>(new StringCaseLT(),
+                new RadixKey.StringKey()), entries);
+    }
+
+    @Test
+    public void testNewInstanceKeepsKey() {
+        SortingMachine7<Integer> m = new SortingMachine7<>(new IntegerLT(),
+                new RadixKey.IntegerKey());
+        SortingMachine<Integer> n = m.newInstance();
+        checkSorts(n, new Integer[] { 2, -5, 9, 0 });
+    }
+
+}
@@ -0,0 +1,196 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code TopKSortingMachine}.
+ */
+public final class TopKSortingMachineTest {
+
+    /**
+     * Compare {@code String}s in lexicographic order.
+     */
+    private static class StringLT implements Comparator<String> {
+        @Override
+        public int compare(String s1, String s2) {
+            return s1.compareTo(s2);
+        }
+    }
+
+    /**
+     * Compare {@code Integer}s in decreasing order.
+     */
+    private static class IntegerGT implements Comparator<Integer> {
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o2.compareTo(o1);
+        }
+    }
+
+    /**
+     * String order used by the tests.
+     */
+    private static final Comparator<String> ORDER = new StringLT();
+
+    /**
+     * Number of entries in the random tests.
+     */
+    private static final int SIZE = 5000;
+
+    /**
+     * Seed for the random tests.
+     */
+    private static final long SEED = 2231;
+
+    /**
+     * Adds {@code args} to a new machine of capacity {@code k}, changes it
+     * to extraction mode, and drains it.
+     *
+     * @param k
+     *            the capacity
+     * @param args
+     *            the entries
+     * @return the entries removed, in order
+     */
+    private static String[] drain(int k, String... args) {
+        TopKSortingMachine<String> m = new TopKSortingMachine<>(ORDER, k);
+        for (String x : args) {
+            m.add(x);
+        }
+        m.changeToExtractionMode();
+        String[] result = new String[m.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = m.removeFirst();
+        }
+        assertEquals(0, m.size());
+        return result;
+    }
+
+    @Test
+    public void testConstructor() {
+        TopKSortingMachine<String> m = new TopKSortingMachine<>(ORDER, 3);
+        assertTrue(m.isInInsertionMode());
+        assertEquals(ORDER, m.order());
+        assertEquals(3, m.capacity());
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testAddBelowCapacity() {
+        TopKSortingMachine<String> m = new TopKSortingMachine<>(ORDER, 3);
+        m.add("green");
+        m.add("blue");
+        assertEquals(2, m.size());
+        assertTrue(m.isInInsertionMode());
+    }
+
+    @Test
+    public void testAddBeyondCapacity() {
+        TopKSortingMachine<String> m = new TopKSortingMachine<>(ORDER, 2);
+        m.add("green");
+        m.add("blue");
+        m.add("red");
+        m.add("amber");
+        assertEquals(2, m.size());
+    }
+
+    @Test
+    public void testChangeToExtractionMode() {
+        TopKSortingMachine<String> m = new TopKSortingMachine<>(ORDER, 2);
+        m.add("green");
+        m.changeToExtractionMode();
+        assertFalse(m.isInInsertionMode());
+        assertEquals(1, m.size());
+    }
+
+    @Test
+    public void testDrainEmpty() {
+        assertEquals(0, drain(4).length);
+    }
+
+    @Test
+    public void testDrainBelowCapacity() {
+        String[] expected = { "blue", "green", "red" };
+        assertArrayEquals(expected, drain(5, "red", "blue", "green"));
+    }
+
+    @Test
+    public void testDrainBeyondCapacity() {
+        String[] expected = { "amber", "blue", "cyan" };
+        assertArrayEquals(expected, drain(3, "red", "cyan", "green", "amber",
+                "yellow", "blue", "white"));
+    }
+
+    @Test
+    public void testDrainCapacityOne() {
+        String[] expected = { "amber" };
+        assertArrayEquals(expected, drain(1, "red", "amber", "green", "blue"));
+    }
+
+    @Test
+    public void testDrainDuplicates() {
+        String[] expected = { "blue", "blue", "red" };
+        assertArrayEquals(expected,
+                drain(3, "red", "red", "blue", "red", "blue", "red"));
+    }
+
+    @Test
+    public void testRemoveFirstOneByOne() {
+        TopKSortingMachine<String> m = new TopKSortingMachine<>(ORDER, 2);
+        m.add("red");
+        m.add("blue");
+        m.add("green");
+        m.changeToExtractionMode();
+        assertEquals("blue", m.removeFirst());
+        assertEquals(1, m.size());
+        assertEquals("green", m.removeFirst());
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testClear() {
+        TopKSortingMachine<String> m = new TopKSortingMachine<>(ORDER, 2);
+        m.add("red");
+        m.changeToExtractionMode();
+        m.clear();
+        assertTrue(m.isInInsertionMode());
+        assertEquals(0, m.size());
+        assertEquals(2, m.capacity());
+        m.add("blue");
+        m.changeToExtractionMode();
+        assertEquals("blue", m.removeFirst());
+    }
+
+    @Test
+    public void testRandomAgainstSort() {
+        Random rnd = new Random(SEED);
+        Integer[] a = new Integer[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            a[i] = rnd.nextInt(SIZE);
+        }
+        Comparator<Integer> order = new IntegerGT();
+        Integer[] sorted = a.clone();
+        Arrays.sort(sorted, order);
+        for (int k : new int[] { 1, 10, 100, SIZE, 2 * SIZE }) {
+            TopKSortingMachine<Integer> m = new TopKSortingMachine<>(order, k);
+            for (Integer x : a) {
+                m.add(x);
+            }
+            m.changeToExtractionMode();
+            assertEquals(Math.min(k, SIZE), m.size());
+            int i = 0;
+            while (m.size() > 0) {
+                assertEquals(sorted[i], m.removeFirst());
+                i++;
+            }
+        }
+    }
+
+}
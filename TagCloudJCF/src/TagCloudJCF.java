@@ -12,6 +12,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 /**
@@ -252,7 +253,10 @@ public final class TagCloudJCF {
     }
 
     /**
-     * output content of the file.
+     * output content of the file. Only the {@code number} most frequent words
+     * are kept while the map is scanned, in a heap whose root is the least
+     * frequent of them, so this takes O(n log number) time and O(number)
+     * extra space rather than sorting all n entries.
      *
      * @param sort
      *            sorted map
@@ -265,29 +269,32 @@ public final class TagCloudJCF {
     public static void content(Map<String, Integer> sort, int number,
             PrintWriter out) {
         assert out != null : "Violation of: out is not null";
-        List<Map.Entry<String, Integer>> intSort = new ArrayList<>(
-                sort.entrySet());
         Comparator<Map.Entry<String, Integer>> intOrder = new IntegerCompare();
-        Collections.sort(intSort, intOrder);
-        List<Map.Entry<String, Integer>> stringSort = new ArrayList<>(
-                intSort.subList(0, number));
+        PriorityQueue<Map.Entry<String, Integer>> top = new PriorityQueue<>(
+                Math.max(1, number), Collections.reverseOrder(intOrder));
+        //most and least frequency of the words
+        int max = Integer.MIN_VALUE;
+        int min = Integer.MAX_VALUE;
+        for (Map.Entry<String, Integer> entry : sort.entrySet()) {
+            max = Math.max(max, entry.getValue());
+            min = Math.min(min, entry.getValue());
+            if (top.size() < number) {
+                top.add(entry);
+            } else if (number > 0 && intOrder.compare(entry, top.peek()) < 0) {
+                top.poll();
+                top.add(entry);
+            }
+        }
+        List<Map.Entry<String, Integer>> stringSort = new ArrayList<>(top);
         Comparator<Map.Entry<String, Integer>> stringOrder = new StringCompare();
         Collections.sort(stringSort, stringOrder);
-        //most frequency of the word
-        Map.Entry<String, Integer> max = intSort.remove(0);
-        while (intSort.size() > 1) {
-            intSort.remove(0);
-        }
-        //least frequency of the word
-        Map.Entry<String, Integer> min = intSort.remove(0);
-        double k = (double) (max.getValue() - min.getValue()) / (FMAX - FMIN);
+        double k = (double) (max - min) / (FMAX - FMIN);
         int n = 0;
         while (n < number) {
             Map.Entry<String, Integer> temp = stringSort.remove(0);
             out.println("<span style=\"cursor:default\" class=\"f"
-                    + fontSize(FMIN, min.getValue(), k, temp)
-                    + "\" title=\"count: " + temp.getValue() + "\">"
-                    + temp.getKey() + "</span>");
+                    + fontSize(FMIN, min, k, temp) + "\" title=\"count: "
+                    + temp.getValue() + "\">" + temp.getKey() + "</span>");
             n++;
         }
     }